@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.handrolled.footprint;
+
+import org.jctools.queues.QueueByTypeFactory;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import java.util.Queue;
+
+/**
+ * Measures the retained heap of a queue with JOL, for setups holding a great many mostly idle queues. Sizes are
+ * reported for a new queue, after a few elements went through and after a burst up to capacity was drained.
+ * <p>
+ * Usage: {@code QueueFootprint [queue type...]}, types as accepted by {@link QueueByTypeFactory}. Set
+ * {@code -Dcapacity} for the queue capacity, {@code -Dqueues} for the queue count the totals are scaled to and
+ * {@code -Dlayout=true} to print the field layout of each queue class.
+ */
+public class QueueFootprint {
+    public static final int CAPACITY = Integer.getInteger("capacity", 1024);
+    public static final int QUEUES = Integer.getInteger("queues", 500 * 1000);
+    public static final boolean LAYOUT = Boolean.getBoolean("layout");
+    public static final Integer TEST_VALUE = 777;
+
+    public static void main(final String[] args) {
+        final String[] types = args.length != 0 ? args :
+            new String[]{"MpscArrayQueue", "MpscCompactArrayQueue", "SpscArrayQueue", "MpscGrowableArrayQueue",
+                "MpscChunkedArrayQueue"};
+        System.out.println(VM.current().details());
+        System.out.println("capacity:" + CAPACITY + " queues:" + QUEUES);
+        for (String type : types) {
+            final Queue<Integer> queue = QueueByTypeFactory.createQueue(type, CAPACITY);
+            if (LAYOUT) {
+                System.out.println(ClassLayout.parseInstance(queue).toPrintable());
+            }
+            final long empty = retained(queue);
+            for (int i = 0; i < 8; i++) {
+                queue.offer(TEST_VALUE);
+                queue.poll();
+            }
+            final long trickle = retained(queue);
+            while (queue.offer(TEST_VALUE)) {
+            }
+            while (queue.poll() != null) {
+            }
+            final long drained = retained(queue);
+            System.out.format("summary,QueueFootprint,%s,%d,%d,%d,%dMB\n", queue.getClass().getSimpleName(), empty,
+                trickle, drained, (trickle * QUEUES) >> 20);
+        }
+    }
+
+    private static long retained(Queue<Integer> queue) {
+        // only measured on an empty queue, so no element is counted
+        return GraphLayout.parseInstance(queue).totalSize();
+    }
+}
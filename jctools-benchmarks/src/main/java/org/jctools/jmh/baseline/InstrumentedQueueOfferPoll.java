@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.jmh.baseline;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MessagePassingQueueByTypeFactory;
+import org.jctools.queues.instrumented.InstrumentedMessagePassingQueue;
+import org.jctools.queues.instrumented.QueueStats;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure cost of offer/poll on single thread with and without instrumentation:
+ * <ul>
+ * <li>none: the queue as is.
+ * <li>disabled: the queue returned by {@link InstrumentedMessagePassingQueue#instrument(MessagePassingQueue)} when
+ * instrumentation is not enabled, expected to score as none.
+ * <li>enabled: the queue wrapped in an {@link InstrumentedMessagePassingQueue}.
+ * <li>sampled: as enabled, also sampling the sojourn time of every 1024th element.
+ * </ul>
+ * Run without {@code -Djctools.queues.instrumentation=true}, the disabled case fails its setup otherwise.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+public class InstrumentedQueueOfferPoll {
+    private static final Integer DUMMY_MESSAGE = 1;
+    @Param(value = { "SpscArrayQueue", "MpscArrayQueue", "MpmcArrayQueue" })
+    String qType;
+    @Param(value = { "none", "disabled", "enabled", "sampled" })
+    String instrumentation;
+    @Param(value = "132000")
+    int qCapacity;
+    @Param(value = "1")
+    int burstSize;
+    MessagePassingQueue<Integer> q;
+
+    @Setup(Level.Trial)
+    public void createQ() {
+        final MessagePassingQueue<Integer> queue = MessagePassingQueueByTypeFactory.createQueue(qType, qCapacity);
+        if ("none".equals(instrumentation)) {
+            q = queue;
+        } else if ("disabled".equals(instrumentation)) {
+            q = InstrumentedMessagePassingQueue.instrument(queue);
+            if (q != queue) {
+                throw new IllegalStateException("Instrumentation is enabled");
+            }
+        } else if ("enabled".equals(instrumentation)) {
+            q = new InstrumentedMessagePassingQueue<Integer>(queue);
+        } else if ("sampled".equals(instrumentation)) {
+            q = new InstrumentedMessagePassingQueue<Integer>(queue, new QueueStats(), 1024);
+        } else {
+            throw new IllegalArgumentException("Unknown instrumentation: " + instrumentation);
+        }
+    }
+
+    @Benchmark
+    public int offerAndPollLoops() {
+        final int burstSize = this.burstSize;
+        for (int i = 0; i < burstSize; i++) {
+            q.offer(DUMMY_MESSAGE);
+        }
+        Integer result = DUMMY_MESSAGE;
+        for (int i = 0; i < burstSize; i++) {
+            result = q.poll();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.jmh.throughput;
+
+import org.jctools.queues.MpscBlockingConsumerArrayQueue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producers hand off {@code messagesPerProducer} messages each to a consumer blocked in
+ * {@link MpscBlockingConsumerArrayQueue#take()}, all of them running on a virtual thread per task executor (JDK 21+)
+ * or on platform threads. With many more virtual threads than carriers a producer or the consumer is regularly
+ * unmounted mid handoff, which is where the bounded waits of {@link org.jctools.util.SpinWait} matter. Compare with
+ * {@code -Djctools.spinWait.virtual=false} for unbounded spins.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class MpscBlockingConsumerHandoff
+{
+    private static final Integer MESSAGE = 777;
+
+    @Param({"virtual", "platform"})
+    String threads;
+    @Param({"16", "1024"})
+    int producers;
+    @Param({"100"})
+    int messagesPerProducer;
+    @Param({"1024"})
+    int capacity;
+
+    MpscBlockingConsumerArrayQueue<Integer> q;
+    ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void createExecutor() throws Exception
+    {
+        q = new MpscBlockingConsumerArrayQueue<Integer>(capacity);
+        if ("virtual".equals(threads))
+        {
+            try
+            {
+                executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            }
+            catch (NoSuchMethodException e)
+            {
+                throw new IllegalStateException("virtual threads need JDK 21+");
+            }
+        }
+        else
+        {
+            executor = Executors.newCachedThreadPool();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownExecutor() throws InterruptedException
+    {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void handoff() throws InterruptedException
+    {
+        final MpscBlockingConsumerArrayQueue<Integer> q = this.q;
+        final int messagesPerProducer = this.messagesPerProducer;
+        final int messages = producers * messagesPerProducer;
+        final CountDownLatch consumed = new CountDownLatch(1);
+        executor.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    for (int i = 0; i < messages; i++)
+                    {
+                        q.take();
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    return;
+                }
+                consumed.countDown();
+            }
+        });
+        for (int p = 0; p < producers; p++)
+        {
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    for (int i = 0; i < messagesPerProducer; i++)
+                    {
+                        while (!q.offer(MESSAGE))
+                        {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+        }
+        consumed.await();
+    }
+}
@@ -33,7 +33,7 @@ public class QueueThroughputBackoffNone {
     Integer escape;
     Queue<Integer> q;
 
-    @Param(value = { "SpscArrayQueue", "MpscArrayQueue", "SpmcArrayQueue", "MpmcArrayQueue" })
+    @Param(value = { "SpscArrayQueue", "MpscArrayQueue", "SpmcArrayQueue", "MpmcArrayQueue", "MpmcBoundedXaddArrayQueue" })
     String qType;
 
     @Param(value = { "132000" })
@@ -0,0 +1,206 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.jmh.throughput;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jctools.queues.MpmcArrayQueue;
+import org.jctools.queues.WorkStealingArrayDeque;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Runs the same fork tree of {@code 2^depth} tasks on a {@link ForkJoinPool} and on a minimal scheduler built on
+ * {@link WorkStealingArrayDeque}, one deque per worker. Both fork without joining and count outstanding tasks, so
+ * the difference is down to the deques and the stealing policy. The deque scheduler optionally steals in batches,
+ * keeping one stolen task and pushing the rest onto its own deque.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class WorkStealingForkTree {
+    static final Integer[] DEPTHS = new Integer[32];
+    static {
+        for (int i = 0; i < DEPTHS.length; i++) {
+            DEPTHS[i] = i;
+        }
+    }
+
+    @Param(value = { "ForkJoinPool", "WorkStealingArrayDeque" })
+    String scheduler;
+
+    @Param(value = { "1", "8" })
+    int stealBatch;
+
+    @Param(value = { "4" })
+    int workers;
+
+    @Param(value = { "16" })
+    int depth;
+
+    final AtomicLong pending = new AtomicLong();
+    ForkJoinPool pool;
+    DequeScheduler deques;
+
+    @Setup
+    public void start() {
+        if ("ForkJoinPool".equals(scheduler)) {
+            pool = new ForkJoinPool(workers);
+        } else if ("WorkStealingArrayDeque".equals(scheduler)) {
+            deques = new DequeScheduler(workers, stealBatch, pending);
+        } else {
+            throw new IllegalArgumentException("Unknown scheduler: " + scheduler);
+        }
+    }
+
+    @TearDown
+    public void stop() throws InterruptedException {
+        if (pool != null) {
+            pool.shutdown();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        } else {
+            deques.stop();
+        }
+    }
+
+    @Benchmark
+    public void forkTree() {
+        pending.set(1);
+        if (pool != null) {
+            pool.execute(new ForkTask(depth, pending));
+        } else {
+            deques.submit(DEPTHS[depth]);
+        }
+        while (pending.get() != 0) {
+            Thread.yield();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ForkTask extends RecursiveAction {
+        final int depth;
+        final AtomicLong pending;
+
+        ForkTask(int depth, AtomicLong pending) {
+            this.depth = depth;
+            this.pending = pending;
+        }
+
+        @Override
+        protected void compute() {
+            for (int d = depth; d > 0; d--) {
+                pending.getAndIncrement();
+                new ForkTask(d - 1, pending).fork();
+            }
+            pending.getAndDecrement();
+        }
+    }
+
+    static final class DequeScheduler {
+        final WorkStealingArrayDeque<Integer>[] deques;
+        final MpmcArrayQueue<Integer> submissions = new MpmcArrayQueue<Integer>(64);
+        final Thread[] threads;
+        final int stealBatch;
+        final AtomicLong pending;
+        volatile boolean running = true;
+
+        @SuppressWarnings("unchecked")
+        DequeScheduler(int workers, int stealBatch, AtomicLong pending) {
+            this.stealBatch = stealBatch;
+            this.pending = pending;
+            deques = new WorkStealingArrayDeque[workers];
+            threads = new Thread[workers];
+            for (int i = 0; i < workers; i++) {
+                deques[i] = new WorkStealingArrayDeque<Integer>(1024);
+            }
+            for (int i = 0; i < workers; i++) {
+                final int id = i;
+                threads[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        work(id);
+                    }
+                });
+                threads[i].setDaemon(true);
+                threads[i].start();
+            }
+        }
+
+        void submit(Integer task) {
+            while (!submissions.offer(task)) {
+                Thread.yield();
+            }
+        }
+
+        void stop() throws InterruptedException {
+            running = false;
+            for (Thread t : threads) {
+                t.join();
+            }
+        }
+
+        void work(int id) {
+            final WorkStealingArrayDeque<Integer> own = deques[id];
+            final Integer[] stolen = new Integer[WorkStealingArrayDeque.MAX_STEAL_BATCH];
+            int seed = id * 0x9E3779B9 + 1;
+            while (running) {
+                Integer task = own.pop();
+                if (task == null) {
+                    task = submissions.relaxedPoll();
+                }
+                if (task == null) {
+                    // xorshift victim selection
+                    seed ^= seed << 13;
+                    seed ^= seed >>> 17;
+                    seed ^= seed << 5;
+                    final WorkStealingArrayDeque<Integer> victim = deques[(seed & Integer.MAX_VALUE) % deques.length];
+                    if (victim != own) {
+                        task = steal(victim, own, stolen);
+                    }
+                }
+                if (task == null) {
+                    Thread.yield();
+                    continue;
+                }
+                for (int d = task; d > 0; d--) {
+                    pending.getAndIncrement();
+                    own.push(DEPTHS[d - 1]);
+                }
+                pending.getAndDecrement();
+            }
+        }
+
+        Integer steal(WorkStealingArrayDeque<Integer> victim, WorkStealingArrayDeque<Integer> own, Integer[] stolen) {
+            if (stealBatch == 1) {
+                return victim.steal();
+            }
+            final int n = victim.steal(stolen, 0, stealBatch);
+            if (n == 0) {
+                return null;
+            }
+            // keep the oldest, it carries the most work
+            for (int i = n - 1; i > 0; i--) {
+                own.push(stolen[i]);
+                stolen[i] = null;
+            }
+            final Integer task = stolen[0];
+            stolen[0] = null;
+            return task;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.jmh.throughput;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.jctools.queues.WorkStealingArrayDeque;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Owner/thieves throughput of {@link WorkStealingArrayDeque} against a {@link ConcurrentLinkedDeque} used the same
+ * way. The owner pushes a burst of tasks and pops them back LIFO, the thieves steal from the other end, either one
+ * element at a time or in batches.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class WorkStealingThroughput {
+    static final Integer TEST_ELEMENT = 1;
+
+    @Param(value = { "WorkStealingArrayDeque", "ConcurrentLinkedDeque" })
+    String dequeType;
+
+    @Param(value = { "1", "8" })
+    int stealBatch;
+
+    @Param(value = { "32" })
+    int burst;
+
+    WorkStealingArrayDeque<Integer> wsDeque;
+    ConcurrentLinkedDeque<Integer> clDeque;
+
+    @Setup
+    public void createDeque() {
+        if ("WorkStealingArrayDeque".equals(dequeType)) {
+            wsDeque = new WorkStealingArrayDeque<Integer>(1024);
+        } else if ("ConcurrentLinkedDeque".equals(dequeType)) {
+            clDeque = new ConcurrentLinkedDeque<Integer>();
+        } else {
+            throw new IllegalArgumentException("Unknown deque type: " + dequeType);
+        }
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class OwnerCounters {
+        public long pushes;
+        public long pops;
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class ThiefCounters {
+        public long steals;
+        public long stealsFailed;
+        Integer[] dst;
+
+        @Setup
+        public void allocate() {
+            dst = new Integer[WorkStealingArrayDeque.MAX_STEAL_BATCH];
+        }
+    }
+
+    @Benchmark
+    @Group("steal")
+    @GroupThreads(1)
+    public void owner(OwnerCounters counters) {
+        final int burst = this.burst;
+        if (wsDeque != null) {
+            final WorkStealingArrayDeque<Integer> d = wsDeque;
+            for (int i = 0; i < burst; i++) {
+                d.push(TEST_ELEMENT);
+            }
+            while (d.pop() != null) {
+                counters.pops++;
+            }
+        } else {
+            final ConcurrentLinkedDeque<Integer> d = clDeque;
+            for (int i = 0; i < burst; i++) {
+                d.addLast(TEST_ELEMENT);
+            }
+            while (d.pollLast() != null) {
+                counters.pops++;
+            }
+        }
+        counters.pushes += burst;
+    }
+
+    @Benchmark
+    @Group("steal")
+    @GroupThreads(3)
+    public void thief(ThiefCounters counters) {
+        int stolen = 0;
+        if (wsDeque != null) {
+            if (stealBatch == 1) {
+                stolen = wsDeque.steal() == null ? 0 : 1;
+            } else {
+                stolen = wsDeque.steal(counters.dst, 0, stealBatch);
+            }
+        } else {
+            final ConcurrentLinkedDeque<Integer> d = clDeque;
+            for (; stolen < stealBatch; stolen++) {
+                if (d.pollFirst() == null) {
+                    break;
+                }
+            }
+        }
+        if (stolen == 0) {
+            counters.stealsFailed++;
+        } else {
+            counters.steals += stolen;
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void emptyDeque() {
+        synchronized (this) {
+            if (wsDeque != null) {
+                while (!wsDeque.isEmpty()) {
+                    wsDeque.steal();
+                }
+            } else {
+                clDeque.clear();
+            }
+        }
+    }
+}
@@ -61,12 +61,18 @@ public class QueueByTypeFactory {
             return new MpscOnSpscQueue<T>(queueCapacity);
         case 63:
             return new MpscLinkedQueue<T>();
+        case 64:
+            return new MpscShardedQueue<T>(queueCapacity);
+        case 65:
+            return new MpscCompactArrayQueue<T>(queueCapacity);
         case 7:
             return new MpmcArrayQueue<T>(queueCapacity);
             case 708:
                 return BlockingQueueFactory.newBlockingQueue(ConcurrentQueueSpec.createBoundedMpmc(queueCapacity));
         case 71:
             return new MpmcConcurrentQueueStateMarkers<T>(queueCapacity);
+        case 72:
+            return new MpmcStripedQueue<T>(queueCapacity);
         }
         throw new IllegalArgumentException("Type: " + queueType);
     }
@@ -100,7 +106,8 @@ public class QueueByTypeFactory {
         Class qClass = queueClass(queueType);
         if (!(BaseMpscLinkedArrayQueue.class.isAssignableFrom(qClass) ||
               BaseSpscLinkedArrayQueue.class.isAssignableFrom(qClass) ||
-              MpUnboundedXaddArrayQueue.class.isAssignableFrom(qClass)) )
+              MpUnboundedXaddArrayQueue.class.isAssignableFrom(qClass) ||
+              MpscCompactArrayQueue.class.isAssignableFrom(qClass)) )
             throw new IllegalArgumentException("Failed to construct queue, does not expect dual param constructor: " + qClass.getName());
         Constructor constructor;
         Exception ex;
@@ -14,6 +14,7 @@ import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.body.Parameter;
 import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.comments.JavadocComment;
+import com.github.javaparser.ast.expr.CastExpr;
 import com.github.javaparser.ast.expr.MarkerAnnotationExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.NameExpr;
@@ -44,6 +45,12 @@ public final class JavaParsingAtomicArrayQueueGenerator extends JavaParsingAtomi
         n.setName(translateQueueName(n.getNameAsString()));
     }
 
+    @Override
+    public void visit(CastExpr n, Void arg) {
+        super.visit(n, arg);
+        removeIntCastOfMaskBound(n);
+    }
+
     @Override
     public void visit(ClassOrInterfaceDeclaration node, Void arg) {
         super.visit(node, arg);
@@ -120,6 +127,7 @@ public final class JavaParsingAtomicArrayQueueGenerator extends JavaParsingAtomi
         cu.addImport(importDeclaration("java.util.concurrent.atomic.AtomicLongFieldUpdater"));
         cu.addImport(importDeclaration("java.util.concurrent.atomic.AtomicReferenceArray"));
         cu.addImport(importDeclaration("java.util.concurrent.atomic.AtomicLongArray"));
+        importBatchPollingQueueIfUsed(cu);
         cu.addImport(importDeclaration("org.jctools.queues.MessagePassingQueueUtil"));
         cu.addImport(staticImportDeclaration("org.jctools.queues.atomic.AtomicQueueUtil.*"));
     }
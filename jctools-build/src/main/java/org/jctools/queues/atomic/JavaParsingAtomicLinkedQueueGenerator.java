@@ -16,6 +16,8 @@ import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.comments.JavadocComment;
 import com.github.javaparser.ast.expr.CastExpr;
 import com.github.javaparser.ast.expr.ClassExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.Name;
 import com.github.javaparser.ast.expr.NameExpr;
@@ -24,16 +26,20 @@ import com.github.javaparser.ast.expr.StringLiteralExpr;
 import com.github.javaparser.ast.expr.ThisExpr;
 import com.github.javaparser.ast.nodeTypes.NodeWithType;
 import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
 import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.stmt.Statement;
 import com.github.javaparser.ast.type.ArrayType;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.PrimitiveType;
 import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.ast.type.TypeParameter;
 
 public final class JavaParsingAtomicLinkedQueueGenerator extends JavaParsingAtomicQueueGenerator {
     private static final String GEN_DIRECTIVE_CLASS_CONTAINS_ORDERED_FIELD_ACCESSORS = "$gen:ordered-fields";
     private static final String GEN_DIRECTIVE_METHOD_IGNORE = "$gen:ignore";
     private static final String MPSC_LINKED_ATOMIC_QUEUE_NAME = "MpscLinkedAtomicQueue";
+    private boolean usesAtomicLongArray;
 
     public static void main(String[] args) throws Exception {
         main(JavaParsingAtomicLinkedQueueGenerator.class, args);
@@ -97,6 +103,28 @@ public final class JavaParsingAtomicLinkedQueueGenerator extends JavaParsingAtom
         }
     }
 
+    @Override
+    public void visit(ClassOrInterfaceType n, Void arg) {
+        super.visit(n, arg);
+        // References to other generated classes (e.g. chunk types used as type arguments) must follow the rename.
+        // LinkedQueueNode is swapped for LinkedQueueAtomicNode by processSpecialNodeTypes.
+        if (!"LinkedQueueNode".equals(n.getNameAsString())) {
+            n.setName(translateQueueName(n.getNameAsString()));
+        }
+    }
+
+    @Override
+    public void visit(BlockStmt n, Void arg) {
+        super.visit(n, arg);
+        // Checks against UnsafeAccess capabilities (e.g. SUPPORTS_GET_AND_ADD_LONG) are meaningless for the atomic
+        // variants, which get the same features from the field updaters.
+        for (Statement statement : new ArrayList<>(n.getStatements())) {
+            if (statement instanceof IfStmt && referencesUnsafeAccess(((IfStmt) statement).getCondition())) {
+                statement.remove();
+            }
+        }
+    }
+
     @Override
     public void visit(MethodDeclaration n, Void arg) {
         super.visit(n, arg);
@@ -111,10 +139,14 @@ public final class JavaParsingAtomicLinkedQueueGenerator extends JavaParsingAtom
     }
 
     String translateQueueName(String originalQueueName) {
-        if (originalQueueName.length() < 5) {
+        if (originalQueueName.length() < 5 || originalQueueName.contains("Atomic")) {
             return originalQueueName;
         }
 
+        if (originalQueueName.contains("XaddChunk")) {
+            return originalQueueName.replace("XaddChunk", "XaddAtomicChunk");
+        }
+
         if (originalQueueName.contains("LinkedQueue") || originalQueueName.contains("LinkedArrayQueue")) {
             return originalQueueName.replace("Linked", "LinkedAtomic");
         }
@@ -138,6 +170,20 @@ public final class JavaParsingAtomicLinkedQueueGenerator extends JavaParsingAtom
             return "P_INDEX_UPDATER";
         case "producerLimit":
             return "P_LIMIT_UPDATER";
+        case "producerChunk":
+            return "P_CHUNK_UPDATER";
+        case "producerChunkIndex":
+            return "P_CHUNK_INDEX_UPDATER";
+        case "consumerChunk":
+            return "C_CHUNK_UPDATER";
+        case "blocked":
+            return "BLOCKED_UPDATER";
+        case "prev":
+            return "PREV_UPDATER";
+        case "next":
+            return "NEXT_UPDATER";
+        case "index":
+            return "INDEX_UPDATER";
         default:
             throw new IllegalArgumentException("Unhandled field: " + fieldName);
         }
@@ -155,6 +201,15 @@ public final class JavaParsingAtomicLinkedQueueGenerator extends JavaParsingAtom
                 continue;
             }
 
+            String[] segments = name.split("\\.");
+            if (name.startsWith("org.jctools.queues.") && segments.length > 3
+                    && !segments[3].equals(translateQueueName(segments[3]))) {
+                // e.g. a static import from another generated class
+                segments[2] = "queues.atomic";
+                segments[3] = translateQueueName(segments[3]);
+                importDeclaration.setName(String.join(".", segments));
+            }
+
             importDecls.add(importDeclaration);
         }
         cu.getImports().clear();
@@ -164,9 +219,13 @@ public final class JavaParsingAtomicLinkedQueueGenerator extends JavaParsingAtom
         cu.addImport(importDeclaration("java.util.concurrent.atomic.AtomicReferenceFieldUpdater"));
         cu.addImport(importDeclaration("java.util.concurrent.atomic.AtomicLongFieldUpdater"));
         cu.addImport(importDeclaration("java.util.concurrent.atomic.AtomicReferenceArray"));
+        if (usesAtomicLongArray) {
+            cu.addImport(importDeclaration("java.util.concurrent.atomic.AtomicLongArray"));
+        }
 
         cu.addImport(importDeclaration("org.jctools.queues.MessagePassingQueue"));
         cu.addImport(importDeclaration("org.jctools.queues.MessagePassingQueue.Supplier"));
+        importBatchPollingQueueIfUsed(cu);
         cu.addImport(importDeclaration("org.jctools.queues.MessagePassingQueueUtil"));
         cu.addImport(importDeclaration("org.jctools.queues.QueueProgressIndicators"));
         cu.addImport(importDeclaration("org.jctools.queues.IndexedQueueSizeUtil"));
@@ -192,8 +251,12 @@ public final class JavaParsingAtomicLinkedQueueGenerator extends JavaParsingAtom
             }
         } else if (isRefType(type, "LinkedQueueNode")) {
             node.setType(simpleParametricType("LinkedQueueAtomicNode", "E"));
-        } else if (isRefArray(type, "E")) {
+        } else if (isRefArray(type, "E") && !"src".equals(name) && !"dst".equals(name)) {
+            // batch offer/poll arrays are user arrays, not queue buffers
             node.setType(atomicRefArrayType((ArrayType) type));
+        } else if (isLongArray(type)) {
+            usesAtomicLongArray = true;
+            node.setType(new ClassOrInterfaceType(null, "AtomicLongArray"));
         }
     }
 
@@ -245,13 +308,20 @@ public final class JavaParsingAtomicLinkedQueueGenerator extends JavaParsingAtom
 
                 for (MethodDeclaration method : n.getMethods()) {
                     String methodName = method.getNameAsString();
-                    if (!methodName.endsWith(methodNameSuffix)) {
-                        // Leave it untouched
+                    if (!methodName.endsWith(methodNameSuffix) || methodName.startsWith("is")) {
+                        // Leave it untouched, including plain boolean getters (e.g. isPooled)
                         continue;
                     }
 
                     String newValueName = "newValue";
-                    if (methodName.startsWith("so") || methodName.startsWith("sp")) {
+                    if (methodName.startsWith("getAndIncrement")) {
+                        usesFieldUpdater = true;
+                        method.setBody(fieldUpdaterGetAndAdd(fieldUpdaterFieldName(variableName), null));
+                    } else if (methodName.startsWith("getAndAdd")) {
+                        usesFieldUpdater = true;
+                        method.setBody(fieldUpdaterGetAndAdd(fieldUpdaterFieldName(variableName),
+                                method.getParameter(0).getNameAsString()));
+                    } else if (methodName.startsWith("so") || methodName.startsWith("sp")) {
                         /*
                          * In the case of 'sp' use lazySet as the weakest
                          * ordering allowed by field updaters
@@ -289,7 +359,8 @@ public final class JavaParsingAtomicLinkedQueueGenerator extends JavaParsingAtom
                     if (PrimitiveType.longType().equals(variable.getType())) {
                         n.getMembers().add(0, declareLongFieldUpdater(className, variableName));
                     } else {
-                        n.getMembers().add(0, declareRefFieldUpdater(className, variableName));
+                        n.getMembers().add(0, declareRefFieldUpdater(className, variableName,
+                                erasure(n, variable.getType())));
                     }
                 }
             }
@@ -315,27 +386,77 @@ public final class JavaParsingAtomicLinkedQueueGenerator extends JavaParsingAtom
         return body;
     }
 
+    /**
+     * Generates something like
+     * <code>return P_INDEX_UPDATER.getAndAdd(this, delta)</code>, or
+     * <code>return P_INDEX_UPDATER.getAndIncrement(this)</code> if no delta is given
+     *
+     * @param fieldUpdaterFieldName
+     * @param deltaName
+     * @return
+     */
+    private BlockStmt fieldUpdaterGetAndAdd(String fieldUpdaterFieldName, String deltaName) {
+        BlockStmt body = new BlockStmt();
+        MethodCallExpr methodCall = deltaName == null
+                ? methodCallExpr(fieldUpdaterFieldName, "getAndIncrement", new ThisExpr())
+                : methodCallExpr(fieldUpdaterFieldName, "getAndAdd", new ThisExpr(), new NameExpr(deltaName));
+        body.addStatement(new ReturnStmt(methodCall));
+        return body;
+    }
+
     /**
      * Generates something like
      * <code>private static final AtomicReferenceFieldUpdater<MpmcAtomicArrayQueueProducerNodeField> P_NODE_UPDATER = AtomicReferenceFieldUpdater.newUpdater(MpmcAtomicArrayQueueProducerNodeField.class, "producerNode");</code>
      *
      * @param className
      * @param variableName
+     * @param fieldClassName the erased type of the field
      * @return
      */
-    private FieldDeclaration declareRefFieldUpdater(String className, String variableName) {
-        MethodCallExpr initializer = newAtomicRefFieldUpdater(className, variableName);
+    private FieldDeclaration declareRefFieldUpdater(String className, String variableName, String fieldClassName) {
+        MethodCallExpr initializer = newAtomicRefFieldUpdater(className, variableName, fieldClassName);
 
-        ClassOrInterfaceType type = simpleParametricType("AtomicReferenceFieldUpdater", className,
-                "LinkedQueueAtomicNode");
+        ClassOrInterfaceType type = simpleParametricType("AtomicReferenceFieldUpdater", className, fieldClassName);
         FieldDeclaration newField = fieldDeclarationWithInitialiser(type, fieldUpdaterFieldName(variableName),
                 initializer, Keyword.PRIVATE, Keyword.STATIC, Keyword.FINAL);
         return newField;
     }
 
-    private MethodCallExpr newAtomicRefFieldUpdater(String className, String variableName) {
+    private MethodCallExpr newAtomicRefFieldUpdater(String className, String variableName, String fieldClassName) {
         return methodCallExpr("AtomicReferenceFieldUpdater", "newUpdater", new ClassExpr(classType(className)),
-                new ClassExpr(classType("LinkedQueueAtomicNode")), new StringLiteralExpr(variableName));
+                new ClassExpr(classType(fieldClassName)), new StringLiteralExpr(variableName));
+    }
+
+    /**
+     * Field updaters are created from the erased field type, which for a type variable is its (first) bound.
+     */
+    private String erasure(ClassOrInterfaceDeclaration n, Type type) {
+        String typeName = ((ClassOrInterfaceType) type).getNameAsString();
+        for (TypeParameter typeParameter : n.getTypeParameters()) {
+            if (typeParameter.getNameAsString().equals(typeName)) {
+                return typeParameter.getTypeBound().isEmpty()
+                        ? "Object"
+                        : typeParameter.getTypeBound().get(0).getNameAsString();
+            }
+        }
+        return typeName;
+    }
+
+    private boolean referencesUnsafeAccess(Expression expression) {
+        for (FieldAccessExpr fieldAccess : expression.findAll(FieldAccessExpr.class)) {
+            if ("UnsafeAccess".equals(fieldAccess.getScope().toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isLongArray(Type in) {
+        if (in instanceof ArrayType) {
+            ArrayType aType = (ArrayType) in;
+            return PrimitiveType.longType().equals(aType.getComponentType());
+        }
+        return false;
     }
 
     private ClassOrInterfaceType atomicRefArrayType(ArrayType in) {
@@ -22,21 +22,25 @@ import com.github.javaparser.ast.body.VariableDeclarator;
 import com.github.javaparser.ast.comments.Comment;
 import com.github.javaparser.ast.expr.AssignExpr;
 import com.github.javaparser.ast.expr.AssignExpr.Operator;
+import com.github.javaparser.ast.expr.CastExpr;
 import com.github.javaparser.ast.expr.ClassExpr;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.LiteralExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import com.github.javaparser.ast.expr.Name;
 import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.expr.SimpleName;
 import com.github.javaparser.ast.expr.StringLiteralExpr;
 import com.github.javaparser.ast.expr.ThisExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
 import com.github.javaparser.ast.nodeTypes.NodeWithType;
 import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.stmt.ExpressionStmt;
 import com.github.javaparser.ast.stmt.ReturnStmt;
 import com.github.javaparser.ast.type.ArrayType;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.PrimitiveType;
 import com.github.javaparser.ast.type.Type;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 
@@ -80,6 +84,10 @@ abstract class JavaParsingAtomicQueueGenerator extends VoidVisitorAdapter<Void>
     abstract void processSpecialNodeTypes(NodeWithType<?, Type> node, String name);
     abstract String fieldUpdaterFieldName(String fieldName);
 
+    String outputPackage() {
+        return "org.jctools.queues.atomic";
+    }
+
     @Override
     public void visit(FieldAccessExpr n, Void arg) {
         super.visit(n, arg);
@@ -93,7 +101,7 @@ abstract class JavaParsingAtomicQueueGenerator extends VoidVisitorAdapter<Void>
     public void visit(PackageDeclaration n, Void arg) {
         super.visit(n, arg);
         // Change the package of the output
-        n.setName("org.jctools.queues.atomic");
+        n.setName(outputPackage());
     }
 
     @Override
@@ -118,6 +126,29 @@ abstract class JavaParsingAtomicQueueGenerator extends VoidVisitorAdapter<Void>
         processSpecialNodeTypes(node, node.getNameAsString());
     }
 
+    /**
+     * Once <code>mask</code> is narrowed to an <code>int</code> a bound like
+     * <code>(int) Math.min(max, mask + 1)</code> is already an <code>int</code>, so the cast is dropped.
+     *
+     * @param n a cast which may wrap such a bound
+     */
+    protected void removeIntCastOfMaskBound(CastExpr n) {
+        if (!PrimitiveType.intType().equals(n.getType()) || !(n.getExpression() instanceof MethodCallExpr)) {
+            return;
+        }
+        MethodCallExpr call = (MethodCallExpr) n.getExpression();
+        if (!"min".equals(call.getNameAsString()) || !call.getScope().isPresent()
+                || !"Math".equals(call.getScope().get().toString())) {
+            return;
+        }
+        for (NameExpr name : call.findAll(NameExpr.class)) {
+            if ("mask".equals(name.getNameAsString())) {
+                n.replace(call);
+                return;
+            }
+        }
+    }
+
     protected boolean isCommentPresent(Node node, String wanted) {
         Optional<Comment> maybeComment = node.getComment();
         if (maybeComment.isPresent()) {
@@ -136,15 +167,27 @@ abstract class JavaParsingAtomicQueueGenerator extends VoidVisitorAdapter<Void>
             child.remove();
         }
 
-        // Remove all static fields
+        // Remove all static fields, other than plain constants
         for (FieldDeclaration field : node.getFields()) {
-            if (field.getModifiers().contains(Modifier.staticModifier())) {
+            if (field.getModifiers().contains(Modifier.staticModifier()) && !isConstant(field)) {
                 field.remove();
                 continue;
             }
         }
     }
 
+    private boolean isConstant(FieldDeclaration field) {
+        for (VariableDeclarator variable : field.getVariables()) {
+            Optional<Expression> initializer = variable.getInitializer();
+            if (!initializer.isPresent() || !(initializer.get() instanceof LiteralExpr)
+                    && !(initializer.get() instanceof UnaryExpr
+                            && ((UnaryExpr) initializer.get()).getExpression() instanceof LiteralExpr)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     protected String capitalise(String s) {
         return s.substring(0, 1).toUpperCase() + s.substring(1);
     }
@@ -310,4 +353,17 @@ abstract class JavaParsingAtomicQueueGenerator extends VoidVisitorAdapter<Void>
         return new ImportDeclaration(new Name(name), true, false);
     }
 
+    /**
+     * The sources live in org.jctools.queues and use BatchPollingQueue without an import, the generated classes
+     * need one where they implement it.
+     */
+    void importBatchPollingQueueIfUsed(CompilationUnit cu) {
+        for (ClassOrInterfaceType type : cu.findAll(ClassOrInterfaceType.class)) {
+            if ("BatchPollingQueue".equals(type.getNameAsString())) {
+                cu.addImport(importDeclaration("org.jctools.queues.BatchPollingQueue"));
+                return;
+            }
+        }
+    }
+
 }
@@ -0,0 +1,292 @@
+package org.jctools.queues.atomic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.Modifier.Keyword;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.comments.JavadocComment;
+import com.github.javaparser.ast.expr.CastExpr;
+import com.github.javaparser.ast.expr.ClassExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import com.github.javaparser.ast.expr.ThisExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithType;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.PrimitiveType;
+import com.github.javaparser.ast.type.Type;
+
+/**
+ * Generates the {@code org.jctools.queues.varhandle} array queues from their {@code Unsafe} counterparts. The
+ * translation follows {@link JavaParsingAtomicArrayQueueGenerator}, but the buffers are kept as plain arrays and the
+ * field accessors are mapped onto {@code VarHandle} access modes rather than field updaters:
+ * <ul>
+ * <li><code>lv</code>/<code>sv</code> are volatile field accesses</li>
+ * <li><code>lp</code>/<code>sp</code> are {@code VarHandle.get/set} (plain)</li>
+ * <li><code>so</code> is {@code VarHandle.setRelease}</li>
+ * <li><code>cas</code> is {@code VarHandle.compareAndSet}</li>
+ * </ul>
+ * The generated sources require Java 9 or later.
+ * <p>
+ * Only the bounded array queues are covered. The xadd queues with their chunks and
+ * {@code MpscBlockingConsumerArrayQueue} are only translated by {@link JavaParsingAtomicLinkedQueueGenerator}, a
+ * {@code VarHandle} translation of those would also need the chunk element and sequence arrays mapped onto array
+ * element {@code VarHandle}s.
+ */
+public final class JavaParsingVarHandleArrayQueueGenerator extends JavaParsingAtomicQueueGenerator {
+    private static final String GEN_DIRECTIVE_CLASS_CONTAINS_ORDERED_FIELD_ACCESSORS = "$gen:ordered-fields";
+    private static final String GEN_DIRECTIVE_METHOD_IGNORE = "$gen:ignore";
+
+    public static void main(String[] args) throws Exception {
+        main(JavaParsingVarHandleArrayQueueGenerator.class, args);
+    }
+
+    JavaParsingVarHandleArrayQueueGenerator(String sourceFileName) {
+        super(sourceFileName);
+    }
+
+    @Override
+    String outputPackage() {
+        return "org.jctools.queues.varhandle";
+    }
+
+    @Override
+    public void visit(ConstructorDeclaration n, Void arg) {
+        super.visit(n, arg);
+        // Update the ctor to match the class name
+        n.setName(translateQueueName(n.getNameAsString()));
+    }
+
+    @Override
+    public void visit(CastExpr n, Void arg) {
+        super.visit(n, arg);
+        removeIntCastOfMaskBound(n);
+    }
+
+    @Override
+    public void visit(ClassOrInterfaceDeclaration node, Void arg) {
+        super.visit(node, arg);
+
+        replaceParentClassesForVarHandles(node);
+
+        node.setName(translateQueueName(node.getNameAsString()));
+
+        if (isCommentPresent(node, GEN_DIRECTIVE_CLASS_CONTAINS_ORDERED_FIELD_ACCESSORS)) {
+            node.setComment(null);
+            removeStaticFieldsAndInitialisers(node);
+            patchVarHandleAccessorMethods(node);
+        }
+
+        for (MethodDeclaration method : node.getMethods()) {
+            if (isCommentPresent(method, GEN_DIRECTIVE_METHOD_IGNORE)) {
+                method.remove();
+            }
+        }
+
+        node.setJavadocComment(formatMultilineJavadoc(0,
+                "NOTE: This class was automatically generated by "
+                        + JavaParsingVarHandleArrayQueueGenerator.class.getName(),
+                "which can found in the jctools-build module. The original source file is " + sourceFileName + ".")
+                + node.getJavadocComment().orElse(new JavadocComment("")).getContent());
+    }
+
+    String translateQueueName(String originalQueueName) {
+        if (originalQueueName.length() < 5) {
+            return originalQueueName;
+        }
+
+        String start = originalQueueName.substring(0, 4);
+        String end = originalQueueName.substring(4);
+        if ((start.equals("Spsc") || start.equals("Spmc") || start.equals("Mpsc") || start.equals("Mpmc"))
+                && end.startsWith("ArrayQueue")) {
+            return start + "VarHandle" + end;
+        }
+
+        return originalQueueName;
+    }
+
+    String fieldUpdaterFieldName(String fieldName) {
+        switch (fieldName) {
+        case "producerIndex":
+            return "P_INDEX_HANDLE";
+        case "consumerIndex":
+            return "C_INDEX_HANDLE";
+        case "producerLimit":
+            return "P_LIMIT_HANDLE";
+        default:
+            throw new IllegalArgumentException("Unhandled field: " + fieldName);
+        }
+    }
+
+    void organiseImports(CompilationUnit cu) {
+        List<ImportDeclaration> importDecls = new ArrayList<>();
+        for (ImportDeclaration importDeclaration : cu.getImports()) {
+            if (importDeclaration.getNameAsString().startsWith("org.jctools.util.Unsafe")) {
+                continue;
+            }
+            importDecls.add(importDeclaration);
+        }
+        cu.getImports().clear();
+        for (ImportDeclaration importDecl : importDecls) {
+            cu.addImport(importDecl);
+        }
+        cu.addImport(importDeclaration("java.lang.invoke.MethodHandles"));
+        cu.addImport(importDeclaration("java.lang.invoke.VarHandle"));
+        importBatchPollingQueueIfUsed(cu);
+        cu.addImport(importDeclaration("org.jctools.queues.MessagePassingQueueUtil"));
+        cu.addImport(staticImportDeclaration("org.jctools.queues.varhandle.VarHandleQueueUtil.*"));
+    }
+
+    /**
+     * Buffers stay as arrays, only the offsets are narrowed to the <code>int</code> index expected by an array
+     * {@code VarHandle}.
+     */
+    void processSpecialNodeTypes(NodeWithType<?, Type> node, String name) {
+        Type type = node.getType();
+        if (PrimitiveType.longType().equals(type)) {
+            switch(name) {
+            case "mask":
+            case "offset":
+            case "seqOffset":
+            case "lookAheadSeqOffset":
+            case "lookAheadElementOffset":
+                node.setType(PrimitiveType.intType());
+            }
+        }
+    }
+
+    private void replaceParentClassesForVarHandles(ClassOrInterfaceDeclaration n) {
+        for (ClassOrInterfaceType parent : n.getExtendedTypes()) {
+            if ("ConcurrentCircularArrayQueue".equals(parent.getNameAsString())) {
+                parent.setName("VarHandleReferenceArrayQueue");
+            } else if ("ConcurrentSequencedCircularArrayQueue".equals(parent.getNameAsString())) {
+                parent.setName("SequencedVarHandleReferenceArrayQueue");
+            } else {
+                // Padded super classes are to be renamed and thus so does the
+                // class we must extend.
+                parent.setName(translateQueueName(parent.getNameAsString()));
+            }
+        }
+    }
+
+    /**
+     * For each method accessor to a field, replace the Unsafe based body with the matching VarHandle access mode.
+     * Only methods start with so/sp/cas/sv/lv/lp followed by the field name are processed.
+     *
+     * @param n
+     *            the AST node for the containing class
+     */
+    private void patchVarHandleAccessorMethods(ClassOrInterfaceDeclaration n) {
+        String className = n.getNameAsString();
+
+        for (FieldDeclaration field : n.getFields()) {
+            if (field.getModifiers().contains(Modifier.staticModifier())) {
+                // Ignore statics
+                continue;
+            }
+
+            boolean usesVarHandle = false;
+            for (VariableDeclarator variable : field.getVariables()) {
+                String variableName = variable.getNameAsString();
+                Type variableType = variable.getType();
+
+                String methodNameSuffix = capitalise(variableName);
+
+                for (MethodDeclaration method : n.getMethods()) {
+                    String methodName = method.getNameAsString();
+                    if (!methodName.endsWith(methodNameSuffix)) {
+                        // Leave it untouched
+                        continue;
+                    }
+
+                    String newValueName = "newValue";
+                    if (methodName.startsWith("so")) {
+                        usesVarHandle = true;
+                        method.setBody(varHandleSet(fieldUpdaterFieldName(variableName), "setRelease", newValueName));
+                    } else if (methodName.startsWith("sp")) {
+                        usesVarHandle = true;
+                        method.setBody(varHandleSet(fieldUpdaterFieldName(variableName), "set", newValueName));
+                    } else if (methodName.startsWith("cas")) {
+                        usesVarHandle = true;
+                        method.setBody(varHandleCompareAndSet(fieldUpdaterFieldName(variableName), "expect",
+                                newValueName));
+                    } else if (methodName.startsWith("lp")) {
+                        usesVarHandle = true;
+                        method.setBody(varHandleGet(fieldUpdaterFieldName(variableName), variableType));
+                    } else if (methodName.startsWith("sv")) {
+                        method.setBody(fieldAssignment(variableName, newValueName));
+                    } else if (methodName.startsWith("lv")) {
+                        method.setBody(returnField(variableName));
+                    } else {
+                        throw new IllegalStateException("Unhandled method: " + methodName);
+                    }
+                }
+
+                if (usesVarHandle) {
+                    n.getMembers().add(0, declareVarHandle(className, variableName, variableType));
+                }
+            }
+
+            if (usesVarHandle) {
+                field.addModifier(Keyword.VOLATILE);
+            }
+        }
+    }
+
+    /**
+     * Generates something like
+     * <code>private static final VarHandle P_INDEX_HANDLE = fieldVarHandle(MethodHandles.lookup(), MpmcVarHandleArrayQueueProducerIndexField.class, "producerIndex", long.class);</code>
+     */
+    private FieldDeclaration declareVarHandle(String className, String variableName, Type variableType) {
+        MethodCallExpr initializer = new MethodCallExpr(null, "fieldVarHandle");
+        initializer.addArgument(methodCallExpr("MethodHandles", "lookup"));
+        initializer.addArgument(new ClassExpr(classType(className)));
+        initializer.addArgument(new StringLiteralExpr(variableName));
+        initializer.addArgument(new ClassExpr(variableType.clone()));
+        return fieldDeclarationWithInitialiser(classType("VarHandle"), fieldUpdaterFieldName(variableName),
+                initializer, Keyword.PRIVATE, Keyword.STATIC, Keyword.FINAL);
+    }
+
+    /**
+     * Generates something like <code>P_INDEX_HANDLE.setRelease(this, newValue)</code>
+     */
+    private BlockStmt varHandleSet(String varHandleFieldName, String accessMode, String newValueName) {
+        BlockStmt body = new BlockStmt();
+        body.addStatement(new ExpressionStmt(
+                methodCallExpr(varHandleFieldName, accessMode, new ThisExpr(), new NameExpr(newValueName))));
+        return body;
+    }
+
+    /**
+     * Generates something like <code>return P_INDEX_HANDLE.compareAndSet(this, expect, newValue)</code>
+     */
+    private BlockStmt varHandleCompareAndSet(String varHandleFieldName, String expectedValueName,
+            String newValueName) {
+        BlockStmt body = new BlockStmt();
+        body.addStatement(new ReturnStmt(methodCallExpr(varHandleFieldName, "compareAndSet", new ThisExpr(),
+                new NameExpr(expectedValueName), new NameExpr(newValueName))));
+        return body;
+    }
+
+    /**
+     * Generates something like <code>return (long) P_INDEX_HANDLE.get(this)</code>. The cast is required to pin the
+     * return type of the signature polymorphic call.
+     */
+    private BlockStmt varHandleGet(String varHandleFieldName, Type variableType) {
+        BlockStmt body = new BlockStmt();
+        body.addStatement(new ReturnStmt(
+                new CastExpr(variableType.clone(), methodCallExpr(varHandleFieldName, "get", new ThisExpr()))));
+        return body;
+    }
+}
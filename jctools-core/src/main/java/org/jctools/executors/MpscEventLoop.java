@@ -0,0 +1,314 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.executors;
+
+import org.jctools.queues.MessagePassingQueue.Consumer;
+import org.jctools.queues.MpscBlockingConsumerArrayQueue;
+import org.jctools.util.RangeUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+/**
+ * A single threaded event loop {@link java.util.concurrent.ExecutorService}: any thread may submit tasks, which are
+ * run in submission order by the one thread owned by the loop.
+ * <p>
+ * Tasks are passed through a bounded {@link MpscBlockingConsumerArrayQueue}. The loop runs them in batches of up to
+ * {@code batchSize} through {@link MpscBlockingConsumerArrayQueue#drain(Consumer, int)} and, when the queue is empty,
+ * parks in {@link MpscBlockingConsumerArrayQueue#take()} until a producer wakes it. A task submitted to a full queue
+ * is rejected rather than blocking the submitter, which may be the loop itself.
+ * <p>
+ * {@link #shutdown()} is exact, a task is either rejected or run: submitters are counted while they test the loop
+ * state and offer, and the loop only terminates once it is shut down, no submitter is in flight and the queue is
+ * empty. {@link #shutdownNow()} discards the tasks which have not started, including those accepted concurrently.
+ * Exceptions thrown by a task are passed to the loop thread's {@link Thread.UncaughtExceptionHandler} and the loop
+ * carries on.
+ */
+public class MpscEventLoop extends AbstractExecutorService
+{
+    private static final long STATE_OFFSET = fieldOffset(MpscEventLoop.class, "state");
+    private static final long SUBMITTERS_OFFSET = fieldOffset(MpscEventLoop.class, "submitters");
+    private static final long COMPLETED_TASKS_OFFSET = fieldOffset(MpscEventLoop.class, "completedTasks");
+
+    private static final int RUNNING = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOP = 2;
+    private static final int TERMINATED = 3;
+
+    // wakes the loop from take() so it can notice shutdown, never counted as a task
+    private static final Runnable WAKE_UP = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+        }
+    };
+
+    private final MpscBlockingConsumerArrayQueue<Runnable> taskQueue;
+    private final int batchSize;
+    private final Thread thread;
+    private final CountDownLatch terminated = new CountDownLatch(1);
+
+    private volatile int state;
+    private volatile int submitters;
+    private volatile long completedTasks;
+
+    /**
+     * @param capacity the task queue capacity
+     */
+    public MpscEventLoop(int capacity)
+    {
+        this(capacity, 64, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * @param capacity      the task queue capacity
+     * @param batchSize     the maximum number of tasks run per drain of the task queue
+     * @param threadFactory creates the loop thread, which is started by the constructor
+     */
+    public MpscEventLoop(int capacity, int batchSize, ThreadFactory threadFactory)
+    {
+        RangeUtil.checkGreaterThanOrEqual(batchSize, 1, "batchSize");
+        if (null == threadFactory)
+            throw new IllegalArgumentException("threadFactory is null");
+        this.taskQueue = new MpscBlockingConsumerArrayQueue<Runnable>(capacity);
+        this.batchSize = batchSize;
+        this.thread = threadFactory.newThread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                runLoop();
+            }
+        });
+        if (null == this.thread)
+            throw new IllegalArgumentException("threadFactory did not create a thread");
+        this.thread.start();
+    }
+
+    /**
+     * @throws RejectedExecutionException if the loop is shut down or its task queue is full
+     * @throws NullPointerException if task is null
+     */
+    @Override
+    public void execute(Runnable task)
+    {
+        if (null == task)
+        {
+            throw new NullPointerException();
+        }
+        addSubmitters(1);
+        boolean accepted = false;
+        try
+        {
+            accepted = state == RUNNING && taskQueue.offer(task);
+        }
+        finally
+        {
+            // the last submitter to leave after shutdown wakes the loop, it may be waiting on us to terminate
+            if (addSubmitters(-1) == 0 && state != RUNNING)
+            {
+                taskQueue.offer(WAKE_UP);
+            }
+        }
+        if (!accepted)
+        {
+            throw new RejectedExecutionException(state == RUNNING ? "task queue is full" : "event loop is shut down");
+        }
+    }
+
+    /**
+     * @return true if called from the loop thread
+     */
+    public boolean inEventLoop()
+    {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * @return the number of tasks waiting to run
+     */
+    public int pendingTasks()
+    {
+        return taskQueue.size();
+    }
+
+    /**
+     * @return the number of tasks run so far, updated after every batch
+     */
+    public long completedTasks()
+    {
+        return completedTasks;
+    }
+
+    /**
+     * @return the task queue capacity
+     */
+    public int capacity()
+    {
+        return taskQueue.capacity();
+    }
+
+    @Override
+    public void shutdown()
+    {
+        if (UNSAFE.compareAndSwapInt(this, STATE_OFFSET, RUNNING, SHUTDOWN))
+        {
+            taskQueue.offer(WAKE_UP);
+        }
+    }
+
+    /**
+     * As {@link #shutdown()}, also interrupting the loop thread and discarding the tasks which have not started. The
+     * task queue has a single consumer, so the discarded tasks can only be returned when called from the loop thread,
+     * otherwise the returned list is empty and the loop discards them.
+     */
+    @Override
+    public List<Runnable> shutdownNow()
+    {
+        int s;
+        while ((s = state) < STOP && !UNSAFE.compareAndSwapInt(this, STATE_OFFSET, s, STOP))
+        {
+        }
+        taskQueue.offer(WAKE_UP);
+        if (!inEventLoop())
+        {
+            thread.interrupt();
+            return Collections.emptyList();
+        }
+        final List<Runnable> discarded = new ArrayList<Runnable>();
+        Runnable task;
+        while ((task = taskQueue.poll()) != null)
+        {
+            if (task != WAKE_UP)
+            {
+                discarded.add(task);
+            }
+        }
+        return discarded;
+    }
+
+    @Override
+    public boolean isShutdown()
+    {
+        return state != RUNNING;
+    }
+
+    @Override
+    public boolean isTerminated()
+    {
+        return state == TERMINATED;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return terminated.await(timeout, unit);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName() + "[" + thread.getName() + "]";
+    }
+
+    private void runLoop()
+    {
+        final MpscBlockingConsumerArrayQueue<Runnable> taskQueue = this.taskQueue;
+        final TaskRunner runner = new TaskRunner();
+        try
+        {
+            while (true)
+            {
+                if (state == STOP)
+                {
+                    // discard the tasks which did not start
+                    while (taskQueue.poll() != null)
+                    {
+                    }
+                    return;
+                }
+                if (taskQueue.drain(runner, batchSize) != 0)
+                {
+                    UNSAFE.putOrderedLong(this, COMPLETED_TASKS_OFFSET, runner.completed);
+                    continue;
+                }
+                // submitters test the state before offering, so none can be accepted once this holds
+                if (state != RUNNING && submitters == 0 && taskQueue.isEmpty())
+                {
+                    return;
+                }
+                try
+                {
+                    runner.accept(taskQueue.take());
+                    UNSAFE.putOrderedLong(this, COMPLETED_TASKS_OFFSET, runner.completed);
+                }
+                catch (InterruptedException e)
+                {
+                    // interrupted by shutdownNow, or by a task, the state is tested on the next round
+                }
+            }
+        }
+        finally
+        {
+            state = TERMINATED;
+            terminated.countDown();
+        }
+    }
+
+    private int addSubmitters(int delta)
+    {
+        int s;
+        do
+        {
+            s = submitters;
+        }
+        while (!UNSAFE.compareAndSwapInt(this, SUBMITTERS_OFFSET, s, s + delta));
+        return s + delta;
+    }
+
+    private final class TaskRunner implements Consumer<Runnable>
+    {
+        long completed;
+
+        @Override
+        public void accept(Runnable task)
+        {
+            if (task == WAKE_UP)
+            {
+                return;
+            }
+            try
+            {
+                task.run();
+            }
+            catch (Throwable t)
+            {
+                final Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+            }
+            completed++;
+        }
+    }
+}
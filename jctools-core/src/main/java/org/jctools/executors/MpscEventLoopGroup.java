@@ -0,0 +1,230 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.executors;
+
+import org.jctools.util.RangeUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed group of {@link MpscEventLoop}s. Tasks submitted to the group are assigned to one of the loops, tasks which
+ * must run on the same thread should be submitted to the loop returned by {@link #next()} directly.
+ */
+public class MpscEventLoopGroup extends AbstractExecutorService
+{
+    /**
+     * How {@link #next()} picks a loop.
+     */
+    public enum Assignment
+    {
+        /**
+         * Every loop in turn.
+         */
+        ROUND_ROBIN,
+        /**
+         * The loop with the fewest pending tasks, ties broken round robin. Every loop's queue size is read on each
+         * assignment.
+         */
+        LEAST_LOADED
+    }
+
+    private final MpscEventLoop[] loops;
+    private final Assignment assignment;
+    // racy increments, concurrent callers may be handed the same loop
+    private int nextIndex;
+
+    /**
+     * @param loops    the number of loops
+     * @param capacity the task queue capacity of each loop
+     */
+    public MpscEventLoopGroup(int loops, int capacity)
+    {
+        this(loops, capacity, 64, Assignment.ROUND_ROBIN, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * @param loops         the number of loops
+     * @param capacity      the task queue capacity of each loop
+     * @param batchSize     the maximum number of tasks run per drain of a loop task queue
+     * @param assignment    how tasks are assigned to loops
+     * @param threadFactory creates the loop threads
+     */
+    public MpscEventLoopGroup(int loops, int capacity, int batchSize, Assignment assignment, ThreadFactory threadFactory)
+    {
+        RangeUtil.checkGreaterThanOrEqual(loops, 1, "loops");
+        if (null == assignment)
+            throw new IllegalArgumentException("assignment is null");
+        this.assignment = assignment;
+        this.loops = new MpscEventLoop[loops];
+        for (int i = 0; i < loops; i++)
+        {
+            this.loops[i] = new MpscEventLoop(capacity, batchSize, threadFactory);
+        }
+    }
+
+    /**
+     * @return the loop the next task should go to
+     */
+    public MpscEventLoop next()
+    {
+        final MpscEventLoop[] loops = this.loops;
+        final int start = (nextIndex++ & Integer.MAX_VALUE) % loops.length;
+        if (assignment == Assignment.ROUND_ROBIN)
+        {
+            return loops[start];
+        }
+        MpscEventLoop least = loops[start];
+        int leastPending = least.pendingTasks();
+        for (int i = 1; i < loops.length && leastPending != 0; i++)
+        {
+            final MpscEventLoop loop = loops[(start + i) % loops.length];
+            final int pending = loop.pendingTasks();
+            if (pending < leastPending)
+            {
+                least = loop;
+                leastPending = pending;
+            }
+        }
+        return least;
+    }
+
+    /**
+     * @param index from 0 to {@link #loops()} - 1
+     */
+    public MpscEventLoop loop(int index)
+    {
+        return loops[index];
+    }
+
+    public int loops()
+    {
+        return loops.length;
+    }
+
+    /**
+     * @return the number of tasks waiting to run across all loops
+     */
+    public long pendingTasks()
+    {
+        long pending = 0;
+        for (MpscEventLoop loop : loops)
+        {
+            pending += loop.pendingTasks();
+        }
+        return pending;
+    }
+
+    /**
+     * @return the number of tasks run so far across all loops
+     */
+    public long completedTasks()
+    {
+        long completed = 0;
+        for (MpscEventLoop loop : loops)
+        {
+            completed += loop.completedTasks();
+        }
+        return completed;
+    }
+
+    /**
+     * @return true if called from one of the loop threads
+     */
+    public boolean inEventLoop()
+    {
+        for (MpscEventLoop loop : loops)
+        {
+            if (loop.inEventLoop())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @throws RejectedExecutionException if the group is shut down or the assigned loop task queue is full
+     */
+    @Override
+    public void execute(Runnable task)
+    {
+        next().execute(task);
+    }
+
+    @Override
+    public void shutdown()
+    {
+        for (MpscEventLoop loop : loops)
+        {
+            loop.shutdown();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow()
+    {
+        final List<Runnable> discarded = new ArrayList<Runnable>();
+        for (MpscEventLoop loop : loops)
+        {
+            discarded.addAll(loop.shutdownNow());
+        }
+        return discarded;
+    }
+
+    @Override
+    public boolean isShutdown()
+    {
+        for (MpscEventLoop loop : loops)
+        {
+            if (!loop.isShutdown())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isTerminated()
+    {
+        for (MpscEventLoop loop : loops)
+        {
+            if (!loop.isTerminated())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (MpscEventLoop loop : loops)
+        {
+            if (!loop.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.pools;
+
+import org.jctools.queues.MessagePassingQueue.Consumer;
+import org.jctools.queues.MessagePassingQueue.Supplier;
+import org.jctools.queues.MpmcArrayQueue;
+import org.jctools.util.RangeUtil;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+/**
+ * An object pool which keeps a small per thread magazine (a stack of up to {@code magazineSize} objects) in front of a
+ * shared {@link MpmcArrayQueue} depot. {@link #borrow()} and {@link #release(Object)} only touch the calling thread's
+ * magazine. When it runs empty it is refilled from the depot with one {@code drain}. When it runs full, half of it is
+ * flushed to the depot with one {@code fill}. So at most one depot operation happens per {@code magazineSize / 2}
+ * borrows or releases, rather than a CAS on every one.
+ * <p>
+ * Objects may be released by a different thread than the one which borrowed them. The pool never blocks:
+ * <ul>
+ * <li>a borrow from an empty magazine and depot creates a new object</li>
+ * <li>a release to a full magazine and depot drops the object, which is counted as discarded</li>
+ * </ul>
+ * A thread's magazine is only reachable from that thread. A thread which stops using the pool should call
+ * {@link #flush()}. The pool only holds the magazines weakly, so the objects in the magazine of a thread which dies
+ * without flushing are collected with it, and counted as discarded from then on.
+ * <p>
+ * The counters live in a small cell per thread, which outlives the magazine until its counts are folded into the pool
+ * totals. They are written by their owning thread with ordered stores and summed on read. The sums are estimates
+ * while the pool is in use. {@link #outstanding()} is the number of objects borrowed and not released, and it should
+ * drop back to 0 when the pool is idle. An outstanding count which keeps growing points to a leak.
+ *
+ * @param <T> the pooled object type
+ */
+public class MagazineObjectPool<T>
+{
+    private static final long CREATED_OFFSET = fieldOffset(MagazineObjectPool.class, "created");
+    private static final long DISCARDED_OFFSET = fieldOffset(MagazineObjectPool.class, "discarded");
+    private static final long RETIRED_OUTSTANDING_OFFSET =
+        fieldOffset(MagazineObjectPool.class, "retiredOutstanding");
+
+    private final Supplier<T> factory;
+    private final MpmcArrayQueue<T> depot;
+    private final int magazineSize;
+    // the magazines of the live threads, to sum the counters
+    private final ConcurrentLinkedQueue<MagazineRef> magazines = new ConcurrentLinkedQueue<MagazineRef>();
+    private final ReferenceQueue<Magazine<?>> deadMagazines = new ReferenceQueue<Magazine<?>>();
+    private final ThreadLocal<Magazine<T>> localMagazine = new ThreadLocal<Magazine<T>>()
+    {
+        @Override
+        protected Magazine<T> initialValue()
+        {
+            expungeDeadMagazines();
+            final Magazine<T> magazine = new Magazine<T>(magazineSize);
+            magazines.offer(new MagazineRef(magazine, deadMagazines));
+            return magazine;
+        }
+    };
+
+    private volatile long created;
+    private volatile long discarded;
+    // borrowed minus released of the threads whose magazines were collected
+    private volatile long retiredOutstanding;
+
+    /**
+     * @param factory       creates a new object when the magazine and the depot are empty
+     * @param depotCapacity the capacity of the shared depot, rounded up to the next power of 2
+     * @param magazineSize  the number of objects kept per thread, at least 2
+     */
+    public MagazineObjectPool(Supplier<T> factory, int depotCapacity, int magazineSize)
+    {
+        if (null == factory)
+            throw new IllegalArgumentException("factory is null");
+        RangeUtil.checkGreaterThanOrEqual(magazineSize, 2, "magazineSize");
+        this.factory = factory;
+        this.depot = new MpmcArrayQueue<T>(depotCapacity);
+        this.magazineSize = magazineSize;
+    }
+
+    /**
+     * @return a pooled object, or a new object if none is pooled
+     */
+    public T borrow()
+    {
+        final Magazine<T> magazine = localMagazine.get();
+        T o = magazine.get();
+        if (o == null)
+        {
+            depot.drain(magazine, magazineSize >> 1);
+            o = magazine.get();
+            if (o == null)
+            {
+                o = factory.get();
+                if (null == o)
+                    throw new NullPointerException("factory returned null");
+                addCreated(1);
+            }
+        }
+        magazine.incrementBorrowed();
+        return o;
+    }
+
+    /**
+     * Return an object to the pool, the object must not be used after the call.
+     *
+     * @throws NullPointerException if o is null
+     */
+    public void release(T o)
+    {
+        if (null == o)
+        {
+            throw new NullPointerException();
+        }
+        final Magazine<T> magazine = localMagazine.get();
+        magazine.incrementReleased();
+        if (magazine.size == magazineSize)
+        {
+            depot.fill(magazine, magazineSize >> 1);
+            if (magazine.size == magazineSize)
+            {
+                // nothing fitted in the depot, drop the released object and keep the magazine
+                addDiscarded(1);
+                return;
+            }
+        }
+        magazine.accept(o);
+    }
+
+    /**
+     * Move the calling thread's pooled objects to the depot, objects which do not fit are discarded.
+     */
+    public void flush()
+    {
+        final Magazine<T> magazine = localMagazine.get();
+        final int size = magazine.size;
+        final int flushed = depot.fill(magazine, size);
+        if (flushed < size)
+        {
+            while (magazine.get() != null)
+            {
+            }
+            addDiscarded(size - flushed);
+        }
+    }
+
+    /**
+     * @return the number of objects created by the factory
+     */
+    public long created()
+    {
+        return created;
+    }
+
+    /**
+     * @return the number of released objects dropped because the magazine and the depot were full, or left in the
+     *         magazine of a thread which died without flushing
+     */
+    public long discarded()
+    {
+        expungeDeadMagazines();
+        return discarded;
+    }
+
+    /**
+     * @return the number of objects borrowed and not yet released
+     */
+    public long outstanding()
+    {
+        expungeDeadMagazines();
+        long outstanding = retiredOutstanding;
+        for (MagazineRef ref : magazines)
+        {
+            final Counters counters = ref.counters;
+            outstanding += counters.borrowed - counters.released;
+        }
+        return outstanding;
+    }
+
+    /**
+     * @return the number of pooled objects, in the depot and in the magazines of all threads
+     */
+    public long idle()
+    {
+        expungeDeadMagazines();
+        long idle = depot.size();
+        for (MagazineRef ref : magazines)
+        {
+            idle += ref.counters.size;
+        }
+        return idle;
+    }
+
+    /**
+     * @return the number of objects in the shared depot
+     */
+    public int depotSize()
+    {
+        return depot.size();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName() + "[created=" + created + ", discarded=" + discarded + "]";
+    }
+
+    /**
+     * Fold the counters of the threads which died since the last call into the pool totals, the objects left in
+     * their magazines are gone with them.
+     */
+    private void expungeDeadMagazines()
+    {
+        Reference<?> ref;
+        while ((ref = deadMagazines.poll()) != null)
+        {
+            final Counters counters = ((MagazineRef) ref).counters;
+            addRetiredOutstanding(counters.borrowed - counters.released);
+            addDiscarded(counters.size);
+            magazines.remove(ref);
+        }
+    }
+
+    private void addCreated(long delta)
+    {
+        long c;
+        do
+        {
+            c = created;
+        }
+        while (!UNSAFE.compareAndSwapLong(this, CREATED_OFFSET, c, c + delta));
+    }
+
+    private void addDiscarded(long delta)
+    {
+        long d;
+        do
+        {
+            d = discarded;
+        }
+        while (!UNSAFE.compareAndSwapLong(this, DISCARDED_OFFSET, d, d + delta));
+    }
+
+    private void addRetiredOutstanding(long delta)
+    {
+        long r;
+        do
+        {
+            r = retiredOutstanding;
+        }
+        while (!UNSAFE.compareAndSwapLong(this, RETIRED_OUTSTANDING_OFFSET, r, r + delta));
+    }
+
+    /**
+     * The pool's weak handle on a thread's magazine. The counters are held strongly, so they can still be read once
+     * the magazine is collected.
+     */
+    static final class MagazineRef extends WeakReference<Magazine<?>>
+    {
+        final Counters counters;
+
+        MagazineRef(Magazine<?> magazine, ReferenceQueue<Magazine<?>> queue)
+        {
+            super(magazine, queue);
+            this.counters = magazine.counters;
+        }
+    }
+
+    /**
+     * A thread's counters. Only the owner thread writes, any thread reads.
+     */
+    static final class Counters
+    {
+        private static final long SIZE_OFFSET = fieldOffset(Counters.class, "size");
+        private static final long BORROWED_OFFSET = fieldOffset(Counters.class, "borrowed");
+        private static final long RELEASED_OFFSET = fieldOffset(Counters.class, "released");
+
+        volatile int size;
+        volatile long borrowed;
+        volatile long released;
+
+        void soSize(int v)
+        {
+            UNSAFE.putOrderedInt(this, SIZE_OFFSET, v);
+        }
+
+        void soBorrowed(long v)
+        {
+            UNSAFE.putOrderedLong(this, BORROWED_OFFSET, v);
+        }
+
+        void soReleased(long v)
+        {
+            UNSAFE.putOrderedLong(this, RELEASED_OFFSET, v);
+        }
+    }
+
+    /**
+     * A thread's stack of pooled objects, only used by the owner thread. The size is mirrored to the counters for
+     * other threads to read.
+     * Being a Consumer/Supplier lets the depot drain into and fill from it without allocation.
+     */
+    static final class Magazine<T> implements Consumer<T>, Supplier<T>
+    {
+        private final T[] objects;
+        final Counters counters = new Counters();
+        int size;
+
+        @SuppressWarnings("unchecked")
+        Magazine(int capacity)
+        {
+            objects = (T[]) new Object[capacity];
+        }
+
+        /**
+         * Push, the caller has checked there is room.
+         */
+        @Override
+        public void accept(T o)
+        {
+            objects[size++] = o;
+            counters.soSize(size);
+        }
+
+        /**
+         * Pop, or null if empty.
+         */
+        @Override
+        public T get()
+        {
+            if (size == 0)
+            {
+                return null;
+            }
+            final T o = objects[--size];
+            objects[size] = null;
+            counters.soSize(size);
+            return o;
+        }
+
+        void incrementBorrowed()
+        {
+            counters.soBorrowed(counters.borrowed + 1);
+        }
+
+        void incrementReleased()
+        {
+            counters.soReleased(counters.released + 1);
+        }
+    }
+}
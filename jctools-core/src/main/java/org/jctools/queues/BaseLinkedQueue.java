@@ -142,7 +142,7 @@ abstract class BaseLinkedQueuePad2<E> extends BaseLinkedQueueConsumerNodeRef<E>
  * A base data structure for concurrent linked queues. For convenience also pulled in common single consumer
  * methods since at this time there's no plan to implement MC.
  */
-abstract class BaseLinkedQueue<E> extends BaseLinkedQueuePad2<E>
+abstract class BaseLinkedQueue<E> extends BaseLinkedQueuePad2<E> implements BatchPollingQueue<E>
 {
 
     @Override
@@ -349,6 +349,12 @@ abstract class BaseLinkedQueue<E> extends BaseLinkedQueuePad2<E>
         return offer(e);
     }
 
+    @Override
+    public int poll(E[] dst, int offset, int max)
+    {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit)
     {
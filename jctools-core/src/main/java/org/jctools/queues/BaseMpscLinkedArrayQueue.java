@@ -97,10 +97,13 @@ abstract class BaseMpscLinkedArrayQueuePad2<E> extends BaseMpscLinkedArrayQueueP
 abstract class BaseMpscLinkedArrayQueueConsumerFields<E> extends BaseMpscLinkedArrayQueuePad2<E>
 {
     private final static long C_INDEX_OFFSET = fieldOffset(BaseMpscLinkedArrayQueueConsumerFields.class,"consumerIndex");
+    private final static long SPARE_BUFFER_OFFSET = fieldOffset(BaseMpscLinkedArrayQueueConsumerFields.class,"spareBuffer");
 
     private volatile long consumerIndex;
     protected long consumerMask;
     protected E[] consumerBuffer;
+    // a consumed buffer handed back to the producers, see BaseMpscLinkedArrayQueue#allocateBuffer
+    private volatile E[] spareBuffer;
 
     @Override
     public final long lvConsumerIndex()
@@ -117,6 +120,16 @@ abstract class BaseMpscLinkedArrayQueueConsumerFields<E> extends BaseMpscLinkedA
     {
         UNSAFE.putOrderedLong(this, C_INDEX_OFFSET, newValue);
     }
+
+    final E[] lvSpareBuffer()
+    {
+        return spareBuffer;
+    }
+
+    final void soSpareBuffer(E[] buffer)
+    {
+        UNSAFE.putOrderedObject(this, SPARE_BUFFER_OFFSET, buffer);
+    }
 }
 
 abstract class BaseMpscLinkedArrayQueuePad3<E> extends BaseMpscLinkedArrayQueueConsumerFields<E>
@@ -171,7 +184,7 @@ abstract class BaseMpscLinkedArrayQueueColdProducerFields<E> extends BaseMpscLin
  * resize, instead a link to the new buffer is stored in the old buffer for the consumer to follow.
  */
 abstract class BaseMpscLinkedArrayQueue<E> extends BaseMpscLinkedArrayQueueColdProducerFields<E>
-    implements MessagePassingQueue<E>, QueueProgressIndicators
+    implements BatchPollingQueue<E>, QueueProgressIndicators
 {
     // No post padding here, subclasses must add
     private static final Object JUMP = new Object();
@@ -226,9 +239,13 @@ abstract class BaseMpscLinkedArrayQueue<E> extends BaseMpscLinkedArrayQueueColdP
                 break;
             }
         }
-        // Long overflow is impossible, so size is always positive. Integer overflow is possible for the unbounded
-        // indexed queues.
-        if (size > Integer.MAX_VALUE)
+        // Long overflow is impossible, but a shrink moves the consumer index ahead of the (locked) producer index
+        // for a moment. Integer overflow is possible for the unbounded indexed queues.
+        if (size < 0)
+        {
+            return 0;
+        }
+        else if (size > Integer.MAX_VALUE)
         {
             return Integer.MAX_VALUE;
         }
@@ -245,7 +262,10 @@ abstract class BaseMpscLinkedArrayQueue<E> extends BaseMpscLinkedArrayQueueColdP
         // Loading consumer before producer allows for producer increments after consumer index is read.
         // This ensures this method is conservative in it's estimate. Note that as this is an MPMC there is
         // nothing we can do to make this an exact method.
-        return (this.lvConsumerIndex() == this.lvProducerIndex());
+        // A shrink holds the producer index one above the consumer index (the resize lock) and then moves the
+        // consumer index ahead of it, the queue is empty throughout. The indices are otherwise even.
+        final long cIndex = this.lvConsumerIndex();
+        return (this.lvProducerIndex() - cIndex < 2);
     }
 
     @Override
@@ -341,13 +361,14 @@ abstract class BaseMpscLinkedArrayQueue<E> extends BaseMpscLinkedArrayQueueColdP
             }
             else
             {
+                onEmptyPoll(index);
                 return null;
             }
         }
 
         if (e == JUMP)
         {
-            final E[] nextBuffer = nextBuffer(buffer, mask);
+            final E[] nextBuffer = nextBuffer(buffer, mask, index);
             return newBufferPoll(nextBuffer, index);
         }
 
@@ -383,7 +404,7 @@ abstract class BaseMpscLinkedArrayQueue<E> extends BaseMpscLinkedArrayQueueColdP
         }
         if (e == JUMP)
         {
-            return newBufferPeek(nextBuffer(buffer, mask), index);
+            return newBufferPeek(nextBuffer(buffer, mask, index), index);
         }
         return (E) e;
     }
@@ -434,16 +455,42 @@ abstract class BaseMpscLinkedArrayQueue<E> extends BaseMpscLinkedArrayQueueColdP
     protected abstract long availableInQueue(long pIndex, long cIndex);
 
     @SuppressWarnings("unchecked")
-    private E[] nextBuffer(final E[] buffer, final long mask)
+    private E[] nextBuffer(final E[] buffer, final long mask, final long index)
     {
         final long offset = nextArrayOffset(mask);
         final E[] nextBuffer = (E[]) lvRefElement(buffer, offset);
         consumerBuffer = nextBuffer;
         consumerMask = (length(nextBuffer) - 2) << 1;
-        soRefElement(buffer, offset, BUFFER_CONSUMED);
+        // All elements in the old buffer were consumed and the JUMP at index was the last producer write to it. If the
+        // buffers are of the same size (fixed chunks) and there's no spare yet, clear it and hand it to the producers.
+        if (length(buffer) == length(nextBuffer) && lvSpareBuffer() == null)
+        {
+            soRefElement(buffer, offset, null);
+            soRefElement(buffer, modifiedCalcCircularRefElementOffset(index, mask), null);
+            soSpareBuffer(buffer); // release cleared buffer
+        }
+        else
+        {
+            soRefElement(buffer, offset, BUFFER_CONSUMED);
+        }
         return nextBuffer;
     }
 
+    /**
+     * Only called under the resize lock, so there is a single producer side thread taking the spare buffer and the
+     * consumer only sets it when it is null.
+     */
+    private E[] allocateBuffer(int length)
+    {
+        final E[] spare = lvSpareBuffer();
+        if (spare != null && length(spare) == length)
+        {
+            soSpareBuffer(null);
+            return spare;
+        }
+        return allocateRefArray(length);
+    }
+
     private static long nextArrayOffset(long mask)
     {
         return modifiedCalcCircularRefElementOffset(mask + 2, Long.MAX_VALUE);
@@ -506,11 +553,12 @@ abstract class BaseMpscLinkedArrayQueue<E> extends BaseMpscLinkedArrayQueueColdP
         Object e = lvRefElement(buffer, offset);
         if (e == null)
         {
+            onEmptyPoll(index);
             return null;
         }
         if (e == JUMP)
         {
-            final E[] nextBuffer = nextBuffer(buffer, mask);
+            final E[] nextBuffer = nextBuffer(buffer, mask, index);
             return newBufferPoll(nextBuffer, index);
         }
         soRefElement(buffer, offset, null);
@@ -530,7 +578,7 @@ abstract class BaseMpscLinkedArrayQueue<E> extends BaseMpscLinkedArrayQueueColdP
         Object e = lvRefElement(buffer, offset);
         if (e == JUMP)
         {
-            return newBufferPeek(nextBuffer(buffer, mask), index);
+            return newBufferPeek(nextBuffer(buffer, mask, index), index);
         }
         return (E) e;
     }
@@ -632,6 +680,12 @@ abstract class BaseMpscLinkedArrayQueue<E> extends BaseMpscLinkedArrayQueueColdP
         return drain(c, capacity());
     }
 
+    @Override
+    public int poll(E[] dst, int offset, int max)
+    {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit)
     {
@@ -651,6 +705,8 @@ abstract class BaseMpscLinkedArrayQueue<E> extends BaseMpscLinkedArrayQueueColdP
      * The returned iterator is not guaranteed to return elements in queue order,
      * and races with the consumer thread may cause gaps in the sequence of returned elements.
      * Like {link #relaxedPoll}, the iterator may not immediately return newly inserted elements.
+     * Consumed chunks may be reused by the producers, an iterator lagging behind the consumer may therefore also
+     * return elements inserted after it was created.
      *
      * @return The iterator.
      */
@@ -758,7 +814,7 @@ abstract class BaseMpscLinkedArrayQueue<E> extends BaseMpscLinkedArrayQueueColdP
         final E[] newBuffer;
         try
         {
-            newBuffer = allocateRefArray(newBufferLength);
+            newBuffer = allocateBuffer(newBufferLength);
         }
         catch (OutOfMemoryError oom)
         {
@@ -795,6 +851,59 @@ abstract class BaseMpscLinkedArrayQueue<E> extends BaseMpscLinkedArrayQueueColdP
         soRefElement(oldBuffer, offsetInOld, JUMP);
     }
 
+    /**
+     * Called by the consumer when a poll found no element at cIndex. This is where a subclass may decide to
+     * {@link #shrink(long, int)}, the default does nothing.
+     */
+    protected void onEmptyPoll(long cIndex)
+    {
+    }
+
+    /**
+     * Move producers and consumer onto a new buffer of newBufferLength. Must only be called from the consumer
+     * thread. The resize lock (odd producer index) is only taken if the producer index is cIndex, so this only
+     * happens when the queue is empty and no resize is in progress. As nothing is left in the old buffer, the consumer
+     * switches buffer itself and there is no JUMP to follow.
+     * <p>
+     * A producer racing with this call may have read a producer limit computed for the old buffer. To keep it out of
+     * the new buffer both indices skip ahead by the old buffer capacity, beyond any such limit, so that producer ends
+     * up in the offer slow path, which only sees the new buffer. The progress indicators jump
+     * accordingly.
+     *
+     * @return true if the buffer was replaced, false if the queue was not empty or a resize was in progress
+     */
+    final boolean shrink(long cIndex, int newBufferLength)
+    {
+        if (!casProducerIndex(cIndex, cIndex + 1))
+        {
+            return false;
+        }
+        final E[] newBuffer;
+        try
+        {
+            newBuffer = allocateRefArray(newBufferLength);
+        }
+        catch (OutOfMemoryError oom)
+        {
+            soProducerIndex(cIndex);
+            throw oom;
+        }
+        final long newMask = (newBufferLength - 2) << 1;
+        final long newIndex = cIndex + getCurrentBufferCapacity(producerMask);
+
+        producerBuffer = newBuffer;
+        producerMask = newMask;
+        consumerBuffer = newBuffer;
+        consumerMask = newMask;
+
+        // Invalidate racing CASs, limits are increasing so no producer can CAS an old limit back in
+        soProducerLimit(newIndex + Math.min(newMask, availableInQueue(newIndex, newIndex)));
+        // consumer index first, producers are held off by the odd producer index until the next line
+        soConsumerIndex(newIndex);
+        soProducerIndex(newIndex);
+        return true;
+    }
+
     /**
      * @return next buffer size(inclusive of next array pointer)
      */
@@ -56,8 +56,11 @@ abstract class BaseSpscLinkedArrayQueueConsumerColdFields<E> extends BaseSpscLin
 abstract class BaseSpscLinkedArrayQueueConsumerField<E> extends BaseSpscLinkedArrayQueueConsumerColdFields<E>
 {
     private final static long C_INDEX_OFFSET = fieldOffset(BaseSpscLinkedArrayQueueConsumerField.class, "consumerIndex");
+    private final static long SPARE_BUFFER_OFFSET = fieldOffset(BaseSpscLinkedArrayQueueConsumerField.class, "spareBuffer");
 
     private volatile long consumerIndex;
+    // a consumed buffer handed back to the producer, see BaseSpscLinkedArrayQueue#allocateBuffer
+    private volatile E[] spareBuffer;
 
     @Override
     public final long lvConsumerIndex()
@@ -75,6 +78,16 @@ abstract class BaseSpscLinkedArrayQueueConsumerField<E> extends BaseSpscLinkedAr
         UNSAFE.putOrderedLong(this, C_INDEX_OFFSET, newValue);
     }
 
+    final E[] lvSpareBuffer()
+    {
+        return spareBuffer;
+    }
+
+    final void soSpareBuffer(E[] buffer)
+    {
+        UNSAFE.putOrderedObject(this, SPARE_BUFFER_OFFSET, buffer);
+    }
+
 }
 
 abstract class BaseSpscLinkedArrayQueueL2Pad<E> extends BaseSpscLinkedArrayQueueConsumerField<E>
@@ -131,7 +144,7 @@ abstract class BaseSpscLinkedArrayQueueProducerColdFields<E> extends BaseSpscLin
 }
 
 abstract class BaseSpscLinkedArrayQueue<E> extends BaseSpscLinkedArrayQueueProducerColdFields<E>
-    implements MessagePassingQueue<E>, QueueProgressIndicators
+    implements BatchPollingQueue<E>, QueueProgressIndicators
 {
 
     private static final Object JUMP = new Object();
@@ -230,6 +243,12 @@ abstract class BaseSpscLinkedArrayQueue<E> extends BaseSpscLinkedArrayQueueProdu
         return (int) result;
     }
 
+    @Override
+    public int poll(E[] dst, int offset, int max)
+    {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit)
     {
@@ -388,9 +407,37 @@ abstract class BaseSpscLinkedArrayQueue<E> extends BaseSpscLinkedArrayQueueProdu
         soProducerIndex(index + 1);// this ensures atomic write of long on 32bit platforms
     }
 
+    /**
+     * Producer side, take the spare buffer if it is of the requested length or allocate a new one.
+     */
+    final E[] allocateBuffer(int length)
+    {
+        final E[] spare = lvSpareBuffer();
+        if (spare != null && length(spare) == length)
+        {
+            soSpareBuffer(null);
+            return spare;
+        }
+        return allocateRefArray(length);
+    }
+
+    /**
+     * All elements in the old buffer were consumed and the JUMP at index was the last producer write to it. If the
+     * buffers are of the same size (fixed chunks) and there's no spare yet, clear it and hand it to the producer.
+     */
+    private void recycle(final E[] buffer, final E[] nextBuffer, final long index)
+    {
+        if (length(buffer) == length(nextBuffer) && lvSpareBuffer() == null)
+        {
+            soRefElement(buffer, calcCircularRefElementOffset(index, length(buffer) - 2), null);
+            soSpareBuffer(buffer); // release cleared buffer
+        }
+    }
+
     private E newBufferPeek(final E[] buffer, final long index)
     {
         E[] nextBuffer = lvNextArrayAndUnlink(buffer);
+        recycle(buffer, nextBuffer, index);
         consumerBuffer = nextBuffer;
         final long mask = length(nextBuffer) - 2;
         consumerMask = mask;
@@ -401,6 +448,7 @@ abstract class BaseSpscLinkedArrayQueue<E> extends BaseSpscLinkedArrayQueueProdu
     private E newBufferPoll(final E[] buffer, final long index)
     {
         E[] nextBuffer = lvNextArrayAndUnlink(buffer);
+        recycle(buffer, nextBuffer, index);
         consumerBuffer = nextBuffer;
         final long mask = length(nextBuffer) - 2;
         consumerMask = mask;
@@ -0,0 +1,33 @@
+package org.jctools.queues;
+
+/**
+ * A {@link MessagePassingQueue} which can hand out a run of elements in one call, so a consumer can process batches
+ * in a plain loop rather than through a {@link MessagePassingQueue.Consumer} callback. This is a separate interface so
+ * that existing {@link MessagePassingQueue} implementations are not broken by the addition.
+ *
+ * @param <T> the event/message type
+ */
+public interface BatchPollingQueue<T> extends MessagePassingQueue<T>
+{
+    /**
+     * Remove up to <i>max</i> elements from the queue into {@code dst}, starting at {@code offset}. This should be
+     * semantically similar to:
+     * <p>
+     * <pre>{@code
+     *   M m;
+     *   int i = 0;
+     *   for(;i < max && (m = relaxedPoll()) != null; i++){
+     *     dst[offset + i] = m;
+     *   }
+     *   return i;
+     * }</pre>
+     * <p>
+     * Implementations are encouraged to claim the run of available elements in one go, advancing the consumer index
+     * once per call rather than once per element. There's no strong commitment to the queue being empty at the end
+     * of a poll. Called from a consumer thread subject to the restrictions appropriate to the implementation.
+     *
+     * @return the number of polled elements
+     * @throws IndexOutOfBoundsException if <i>max</i> elements starting at {@code offset} do not fit in {@code dst}
+     */
+    int poll(T[] dst, int offset, int max);
+}
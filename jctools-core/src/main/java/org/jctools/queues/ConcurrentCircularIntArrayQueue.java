@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.IndexedQueueSizeUtil.IndexedQueue;
+import org.jctools.queues.MessagePassingQueue.ExitCondition;
+import org.jctools.queues.MessagePassingQueue.WaitStrategy;
+import org.jctools.util.PortableJvmInfo;
+import org.jctools.util.Pow2;
+
+import static org.jctools.util.UnsafeIntArrayAccess.*;
+
+abstract class ConcurrentCircularIntArrayQueueL0Pad
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+/**
+ * Common functionality for the {@code int} array backed queues. The class is pre-padded, it is expected that
+ * subclasses handle post padding.
+ * <p>
+ * The unbounded drain/fill variants are implemented on top of the bounded {@link #drain(IntConsumer, int)} and
+ * {@link #fill(IntSupplier, int)}, as the element value cannot be used to tell an empty slot apart.
+ */
+abstract class ConcurrentCircularIntArrayQueue extends ConcurrentCircularIntArrayQueueL0Pad
+    implements MessagePassingIntQueue, IndexedQueue, QueueProgressIndicators
+{
+    private static final IntConsumer DISCARD = new IntConsumer()
+    {
+        @Override
+        public void accept(int e)
+        {
+            // if you stare into the void
+        }
+    };
+
+    protected final long mask;
+    protected final int[] buffer;
+
+    ConcurrentCircularIntArrayQueue(int capacity)
+    {
+        int actualCapacity = Pow2.roundToPowerOfTwo(capacity);
+        mask = actualCapacity - 1;
+        buffer = allocateIntArray(actualCapacity);
+    }
+
+    @Override
+    public int size()
+    {
+        return IndexedQueueSizeUtil.size(this);
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return IndexedQueueSizeUtil.isEmpty(this);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    @Override
+    public void clear()
+    {
+        while (drain(DISCARD) != 0)
+        {
+            // toss it away
+        }
+    }
+
+    @Override
+    public int capacity()
+    {
+        return (int) (mask + 1);
+    }
+
+    @Override
+    public long currentProducerIndex()
+    {
+        return lvProducerIndex();
+    }
+
+    @Override
+    public long currentConsumerIndex()
+    {
+        return lvConsumerIndex();
+    }
+
+    @Override
+    public int drain(IntConsumer c)
+    {
+        return drain(c, capacity());
+    }
+
+    @Override
+    public int fill(IntSupplier s)
+    {
+        final int capacity = capacity();
+        long result = 0;// result is a long because we want to have a safepoint check at regular intervals
+        do
+        {
+            final int filled = fill(s, PortableJvmInfo.RECOMENDED_OFFER_BATCH);
+            if (filled == 0)
+            {
+                return (int) result;
+            }
+            result += filled;
+        }
+        while (result <= capacity);
+        return (int) result;
+    }
+
+    @Override
+    public void drain(IntConsumer c, WaitStrategy wait, ExitCondition exit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (null == wait)
+            throw new IllegalArgumentException("wait is null");
+        if (null == exit)
+            throw new IllegalArgumentException("exit condition is null");
+
+        int idleCounter = 0;
+        while (exit.keepRunning())
+        {
+            if (drain(c, PortableJvmInfo.RECOMENDED_POLL_BATCH) == 0)
+            {
+                idleCounter = wait.idle(idleCounter);
+                continue;
+            }
+            idleCounter = 0;
+        }
+    }
+
+    @Override
+    public void fill(IntSupplier s, WaitStrategy wait, ExitCondition exit)
+    {
+        if (null == wait)
+            throw new IllegalArgumentException("waiter is null");
+        if (null == exit)
+            throw new IllegalArgumentException("exit condition is null");
+
+        int idleCounter = 0;
+        while (exit.keepRunning())
+        {
+            if (fill(s, PortableJvmInfo.RECOMENDED_OFFER_BATCH) == 0)
+            {
+                idleCounter = wait.idle(idleCounter);
+                continue;
+            }
+            idleCounter = 0;
+        }
+    }
+}
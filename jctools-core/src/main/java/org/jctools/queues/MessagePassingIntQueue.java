@@ -0,0 +1,185 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.MessagePassingQueue.ExitCondition;
+import org.jctools.queues.MessagePassingQueue.WaitStrategy;
+
+/**
+ * An {@code int} specialization of {@link MessagePassingQueue}. Messages are passed by value, so no boxing takes
+ * place on either side of the queue.
+ * <p>
+ * As every {@code int} value is a valid message the queue cannot use a sentinel value to signal emptiness. The
+ * poll/peek methods take an {@code emptyValue} which is returned when no message is available, callers that need
+ * to tell the difference between an empty queue and an {@code emptyValue} message should use
+ * {@link #drain(IntConsumer, int)} instead.
+ */
+public interface MessagePassingIntQueue
+{
+    int UNBOUNDED_CAPACITY = MessagePassingQueue.UNBOUNDED_CAPACITY;
+
+    interface IntSupplier
+    {
+        /**
+         * This method will return the next value to be written to the queue. As such the queue
+         * implementations are commited to insert the value once the call is made.
+         * <p>
+         * <b>WARNING</b>: this method is assumed to never throw. Breaking this assumption can lead to a broken queue.
+         *
+         * @return new element
+         */
+        int get();
+    }
+
+    interface IntConsumer
+    {
+        /**
+         * This method will process an element already removed from the queue.
+         * <p>
+         * <b>WARNING</b>: this method is assumed to never throw. Breaking this assumption can lead to a broken queue.
+         *
+         * @param e the element
+         */
+        void accept(int e);
+    }
+
+    /**
+     * Called from a producer thread subject to the restrictions appropriate to the implementation and
+     * according to the {@link java.util.Queue#offer(Object)} interface.
+     *
+     * @param e the element
+     * @return true if element was inserted into the queue, false iff full
+     */
+    boolean offer(int e);
+
+    /**
+     * Called from the consumer thread subject to the restrictions appropriate to the implementation and
+     * according to the {@link java.util.Queue#poll()} interface.
+     *
+     * @param emptyValue the value to return if the queue is empty
+     * @return a message from the queue if one is available, {@code emptyValue} iff empty
+     */
+    int poll(int emptyValue);
+
+    /**
+     * Called from the consumer thread subject to the restrictions appropriate to the implementation and
+     * according to the {@link java.util.Queue#peek()} interface.
+     *
+     * @param emptyValue the value to return if the queue is empty
+     * @return a message from the queue if one is available, {@code emptyValue} iff empty
+     */
+    int peek(int emptyValue);
+
+    /**
+     * @see MessagePassingQueue#size()
+     */
+    int size();
+
+    /**
+     * @see MessagePassingQueue#clear()
+     */
+    void clear();
+
+    /**
+     * @see MessagePassingQueue#isEmpty()
+     */
+    boolean isEmpty();
+
+    /**
+     * @return the capacity of this queue or {@link #UNBOUNDED_CAPACITY} if not bounded
+     */
+    int capacity();
+
+    /**
+     * Called from a producer thread subject to the restrictions appropriate to the implementation. As opposed
+     * to {@link #offer(int)} this method may return false without the queue being full.
+     *
+     * @param e the element
+     * @return true if element was inserted into the queue, false if unable to offer
+     */
+    boolean relaxedOffer(int e);
+
+    /**
+     * Called from the consumer thread subject to the restrictions appropriate to the implementation. As
+     * opposed to {@link #poll(int)} this method may return {@code emptyValue} without the queue being empty.
+     *
+     * @param emptyValue the value to return if unable to poll
+     * @return a message from the queue if one is available, {@code emptyValue} if unable to poll
+     */
+    int relaxedPoll(int emptyValue);
+
+    /**
+     * Called from the consumer thread subject to the restrictions appropriate to the implementation. As
+     * opposed to {@link #peek(int)} this method may return {@code emptyValue} without the queue being empty.
+     *
+     * @param emptyValue the value to return if unable to peek
+     * @return a message from the queue if one is available, {@code emptyValue} if unable to peek
+     */
+    int relaxedPeek(int emptyValue);
+
+    /**
+     * Remove up to <i>limit</i> elements from the queue and hand to consume.
+     *
+     * @return the number of polled elements
+     * @throws IllegalArgumentException c is {@code null}
+     * @throws IllegalArgumentException if limit is negative
+     * @see MessagePassingQueue#drain(MessagePassingQueue.Consumer, int)
+     */
+    int drain(IntConsumer c, int limit);
+
+    /**
+     * Stuff the queue with up to <i>limit</i> elements from the supplier.
+     *
+     * @return the number of offered elements
+     * @throws IllegalArgumentException s is {@code null}
+     * @throws IllegalArgumentException if limit is negative
+     * @see MessagePassingQueue#fill(MessagePassingQueue.Supplier, int)
+     */
+    int fill(IntSupplier s, int limit);
+
+    /**
+     * Remove all available item from the queue and hand to consume.
+     *
+     * @return the number of polled elements
+     * @throws IllegalArgumentException c is {@code null}
+     * @see MessagePassingQueue#drain(MessagePassingQueue.Consumer)
+     */
+    int drain(IntConsumer c);
+
+    /**
+     * Stuff the queue with elements from the supplier.
+     *
+     * @return the number of offered elements
+     * @throws IllegalArgumentException s is {@code null}
+     * @see MessagePassingQueue#fill(MessagePassingQueue.Supplier)
+     */
+    int fill(IntSupplier s);
+
+    /**
+     * Remove elements from the queue and hand to consume forever.
+     *
+     * @throws IllegalArgumentException c OR wait OR exit are {@code null}
+     * @see MessagePassingQueue#drain(MessagePassingQueue.Consumer, WaitStrategy, ExitCondition)
+     */
+    void drain(IntConsumer c, WaitStrategy wait, ExitCondition exit);
+
+    /**
+     * Stuff the queue with elements from the supplier forever. Room in the queue is claimed BEFORE calling
+     * {@link IntSupplier#get}.
+     *
+     * @throws IllegalArgumentException s OR wait OR exit are {@code null}
+     * @see MessagePassingQueue#fill(MessagePassingQueue.Supplier, WaitStrategy, ExitCondition)
+     */
+    void fill(IntSupplier s, WaitStrategy wait, ExitCondition exit);
+}
@@ -21,6 +21,8 @@ import org.jctools.queues.MessagePassingQueue.WaitStrategy;
 import org.jctools.util.InternalAPI;
 import org.jctools.util.PortableJvmInfo;
 
+import java.util.Collection;
+
 @InternalAPI
 public final class MessagePassingQueueUtil
 {
@@ -41,6 +43,18 @@ public final class MessagePassingQueueUtil
         return i;
     }
 
+    public static <E> int poll(MessagePassingQueue<E> queue, E[] dst, int offset, int max)
+    {
+        checkPollBatch(dst, offset, max);
+        E e;
+        int i = 0;
+        for (; i < max && (e = queue.relaxedPoll()) != null; i++)
+        {
+            dst[offset + i] = e;
+        }
+        return i;
+    }
+
     public static <E> int drain(MessagePassingQueue<E> queue, Consumer<E> c)
     {
         if (null == c)
@@ -97,6 +111,48 @@ public final class MessagePassingQueueUtil
         }
     }
 
+    /**
+     * {@link java.util.concurrent.BlockingQueue#drainTo(Collection, int)} on top of {@link MessagePassingQueue#poll()}.
+     */
+    public static <E> int drainTo(MessagePassingQueue<E> queue, Collection<? super E> c, int maxElements)
+    {
+        if (null == c)
+            throw new NullPointerException();
+        if (c == queue)
+            throw new IllegalArgumentException("cannot drain a queue into itself");
+        E e;
+        int i = 0;
+        for (; i < maxElements && (e = queue.poll()) != null; i++)
+        {
+            c.add(e);
+        }
+        return i;
+    }
+
+    /**
+     * Validate the arguments of a batch offer, e.g. {@link MpscArrayQueue#offer(Object[], int, int)}. This has to be
+     * done before any slot is claimed as a claimed slot must be filled.
+     */
+    public static void checkOfferBatch(Object[] src, int offset, int length)
+    {
+        if (offset < 0 || length < 0 || offset > src.length - length)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", src.length: " + src.length);
+        for (int i = offset, end = offset + length; i < end; i++)
+        {
+            if (null == src[i])
+                throw new NullPointerException("src[" + i + "] is null");
+        }
+    }
+
+    /**
+     * Validate the arguments of {@link BatchPollingQueue#poll(Object[], int, int)}.
+     */
+    public static void checkPollBatch(Object[] dst, int offset, int max)
+    {
+        if (offset < 0 || max < 0 || offset > dst.length - max)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", max: " + max + ", dst.length: " + dst.length);
+    }
+
     public static <E> int fillBounded(MessagePassingQueue<E> q, Supplier<E> s)
     {
         return fillInBatchesToLimit(q, s, PortableJvmInfo.RECOMENDED_OFFER_BATCH, q.capacity());
@@ -94,14 +94,14 @@ abstract class MpUnboundedXaddArrayQueueProducerChunk<R extends MpUnboundedXaddC
         return producerChunkIndex;
     }
 
-    final boolean casProducerChunkIndex(long expected, long value)
+    final boolean casProducerChunkIndex(long expect, long newValue)
     {
-        return UNSAFE.compareAndSwapLong(this, P_CHUNK_INDEX_OFFSET, expected, value);
+        return UNSAFE.compareAndSwapLong(this, P_CHUNK_INDEX_OFFSET, expect, newValue);
     }
 
-    final void soProducerChunkIndex(long value)
+    final void soProducerChunkIndex(long newValue)
     {
-        UNSAFE.putOrderedLong(this, P_CHUNK_INDEX_OFFSET, value);
+        UNSAFE.putOrderedLong(this, P_CHUNK_INDEX_OFFSET, newValue);
     }
 
     final R lvProducerChunk()
@@ -109,9 +109,9 @@ abstract class MpUnboundedXaddArrayQueueProducerChunk<R extends MpUnboundedXaddC
         return this.producerChunk;
     }
 
-    final void soProducerChunk(R chunk)
+    final void soProducerChunk(R newValue)
     {
-        UNSAFE.putOrderedObject(this, P_CHUNK_OFFSET, chunk);
+        UNSAFE.putOrderedObject(this, P_CHUNK_OFFSET, newValue);
     }
 }
 
@@ -213,7 +213,7 @@ abstract class MpUnboundedXaddArrayQueuePad5<R extends MpUnboundedXaddChunk<R,E>
  */
 abstract class MpUnboundedXaddArrayQueue<R extends MpUnboundedXaddChunk<R,E>, E>
     extends MpUnboundedXaddArrayQueuePad5<R, E>
-    implements MessagePassingQueue<E>, QueueProgressIndicators
+    implements BatchPollingQueue<E>, QueueProgressIndicators
 {
     // it must be != MpUnboundedXaddChunk.NOT_USED
     private static final long ROTATION = -2;
@@ -443,6 +443,12 @@ abstract class MpUnboundedXaddArrayQueue<R extends MpUnboundedXaddChunk<R,E>, E>
         return MessagePassingQueueUtil.fillInBatchesToLimit(this, s, offerBatch, chunkCapacity);
     }
 
+    @Override
+    public int poll(E[] dst, int offset, int max)
+    {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit)
     {
@@ -6,6 +6,7 @@ import static org.jctools.util.UnsafeAccess.UNSAFE;
 import static org.jctools.util.UnsafeAccess.fieldOffset;
 import static org.jctools.util.UnsafeRefArrayAccess.*;
 
+// $gen:ordered-fields
 @InternalAPI
 class MpUnboundedXaddChunk<R,E>
 {
@@ -40,14 +41,14 @@ class MpUnboundedXaddChunk<R,E>
         return index;
     }
 
-    final void soIndex(long index)
+    final void soIndex(long newValue)
     {
-        UNSAFE.putOrderedLong(this, INDEX_OFFSET, index);
+        UNSAFE.putOrderedLong(this, INDEX_OFFSET, newValue);
     }
 
-    final void spIndex(long index)
+    final void spIndex(long newValue)
     {
-        UNSAFE.putLong(this, INDEX_OFFSET, index);
+        UNSAFE.putLong(this, INDEX_OFFSET, newValue);
     }
 
     final R lvNext()
@@ -55,9 +56,9 @@ class MpUnboundedXaddChunk<R,E>
         return next;
     }
 
-    final void soNext(R value)
+    final void soNext(R newValue)
     {
-        UNSAFE.putOrderedObject(this, NEXT_OFFSET, value);
+        UNSAFE.putOrderedObject(this, NEXT_OFFSET, newValue);
     }
 
     final R lvPrev()
@@ -65,9 +66,9 @@ class MpUnboundedXaddChunk<R,E>
         return prev;
     }
 
-    final void soPrev(R value)
+    final void soPrev(R newValue)
     {
-        UNSAFE.putObject(this, PREV_OFFSET, value);
+        UNSAFE.putObject(this, PREV_OFFSET, newValue);
     }
 
     final void soElement(int index, E e)
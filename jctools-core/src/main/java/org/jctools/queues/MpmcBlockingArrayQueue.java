@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link BlockingQueue} on top of {@link MpmcArrayQueue}. The non-blocking methods keep the lock-free fast path
+ * of {@link MpmcArrayQueue}, with an added volatile load after a successful operation to check for parked threads
+ * on the other side. Consumers blocked on an empty queue and producers blocked on a full queue park on a
+ * {@link WaiterStack}, which is only written to when a thread actually blocks.
+ * <p>
+ * Lost wakeups are ruled out by the index CAS: a successful offer/poll CASes the producer/consumer index before
+ * checking for waiters, and a waiter pushes itself (CAS) before re-checking the queue, which only reports
+ * empty/full after a volatile load of the opposite index.
+ */
+public class MpmcBlockingArrayQueue<E> extends MpmcArrayQueue<E> implements BlockingQueue<E>
+{
+    private final WaiterStack notEmpty = new WaiterStack();
+    private final WaiterStack notFull = new WaiterStack();
+
+    public MpmcBlockingArrayQueue(final int capacity)
+    {
+        super(capacity);
+    }
+
+    @Override
+    public boolean offer(final E e)
+    {
+        if (super.offer(e))
+        {
+            notEmpty.signal();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public E poll()
+    {
+        final E e = super.poll();
+        if (e != null)
+        {
+            notFull.signal();
+        }
+        return e;
+    }
+
+    @Override
+    public boolean relaxedOffer(final E e)
+    {
+        if (super.relaxedOffer(e))
+        {
+            notEmpty.signal();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        final E e = super.relaxedPoll();
+        if (e != null)
+        {
+            notFull.signal();
+        }
+        return e;
+    }
+
+    @Override
+    public int poll(final E[] dst, final int dstOffset, final int max)
+    {
+        final int polled = super.poll(dst, dstOffset, max);
+        notFull.signal(polled);
+        return polled;
+    }
+
+    @Override
+    public int drain(final Consumer<E> c, final int limit)
+    {
+        final int drained = super.drain(c, limit);
+        notFull.signal(drained);
+        return drained;
+    }
+
+    @Override
+    public int fill(final Supplier<E> s, final int limit)
+    {
+        final int filled = super.fill(s, limit);
+        notEmpty.signal(filled);
+        return filled;
+    }
+
+    @Override
+    public int offer(final E[] src, final int offset, final int length)
+    {
+        final int offered = super.offer(src, offset, length);
+        notEmpty.signal(offered);
+        return offered;
+    }
+
+    @Override
+    public int relaxedOffer(final E[] src, final int offset, final int length)
+    {
+        final int offered = super.relaxedOffer(src, offset, length);
+        notEmpty.signal(offered);
+        return offered;
+    }
+
+    @Override
+    public void put(final E e) throws InterruptedException
+    {
+        notFull.offerOrPark(this, e, false, 0L);
+    }
+
+    @Override
+    public boolean offer(final E e, final long timeout, final TimeUnit unit) throws InterruptedException
+    {
+        return notFull.offerOrPark(this, e, true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public E take() throws InterruptedException
+    {
+        return notEmpty.pollOrPark(this, false, 0L);
+    }
+
+    @Override
+    public E poll(final long timeout, final TimeUnit unit) throws InterruptedException
+    {
+        return notEmpty.pollOrPark(this, true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public int remainingCapacity()
+    {
+        return capacity() - size();
+    }
+
+    @Override
+    public int drainTo(final Collection<? super E> c)
+    {
+        return MessagePassingQueueUtil.drainTo(this, c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(final Collection<? super E> c, final int maxElements)
+    {
+        return MessagePassingQueueUtil.drainTo(this, c, maxElements);
+    }
+}
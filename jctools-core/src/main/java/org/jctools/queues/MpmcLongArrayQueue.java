@@ -0,0 +1,451 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.RangeUtil;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+import static org.jctools.util.UnsafeLongArrayAccess.*;
+
+abstract class MpmcLongArrayQueueL1Pad extends ConcurrentSequencedCircularLongArrayQueue
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpmcLongArrayQueueL1Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+abstract class MpmcLongArrayQueueProducerIndexField extends MpmcLongArrayQueueL1Pad
+{
+    private final static long P_INDEX_OFFSET = fieldOffset(MpmcLongArrayQueueProducerIndexField.class, "producerIndex");
+
+    private volatile long producerIndex;
+
+    MpmcLongArrayQueueProducerIndexField(int capacity)
+    {
+        super(capacity);
+    }
+
+    @Override
+    public final long lvProducerIndex()
+    {
+        return producerIndex;
+    }
+
+    final boolean casProducerIndex(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, P_INDEX_OFFSET, expect, newValue);
+    }
+}
+
+abstract class MpmcLongArrayQueueL2Pad extends MpmcLongArrayQueueProducerIndexField
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpmcLongArrayQueueL2Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+abstract class MpmcLongArrayQueueConsumerIndexField extends MpmcLongArrayQueueL2Pad
+{
+    private final static long C_INDEX_OFFSET = fieldOffset(MpmcLongArrayQueueConsumerIndexField.class, "consumerIndex");
+
+    private volatile long consumerIndex;
+
+    MpmcLongArrayQueueConsumerIndexField(int capacity)
+    {
+        super(capacity);
+    }
+
+    @Override
+    public final long lvConsumerIndex()
+    {
+        return consumerIndex;
+    }
+
+    final boolean casConsumerIndex(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, C_INDEX_OFFSET, expect, newValue);
+    }
+}
+
+abstract class MpmcLongArrayQueueL3Pad extends MpmcLongArrayQueueConsumerIndexField
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpmcLongArrayQueueL3Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+/**
+ * A Multi-Producer-Multi-Consumer {@code long} queue backed by a pre-allocated buffer.
+ * <p>
+ * The algorithm is the one used by {@link MpmcArrayQueue} (an adaptation of D. Vyukov's bounded MPMC queue). The
+ * slot state lives entirely in the sequence buffer: a slot at {@code index} is free for the producer when its
+ * sequence is {@code index}, holds an element when it is {@code index + 1} and is released to the next lap by the
+ * consumer setting it to {@code index + capacity}. The element value is never used to tell an empty slot apart.
+ */
+public class MpmcLongArrayQueue extends MpmcLongArrayQueueL3Pad
+{
+    public MpmcLongArrayQueue(final int capacity)
+    {
+        super(RangeUtil.checkGreaterThanOrEqual(capacity, 2, "capacity"));
+    }
+
+    @Override
+    public boolean offer(final long e)
+    {
+        final long mask = this.mask;
+        final long capacity = mask + 1;
+        final long[] sBuffer = sequenceBuffer;
+
+        long pIndex;
+        long seqOffset;
+        long seq;
+        long cIndex = Long.MIN_VALUE;// start with bogus value, hope we don't need it
+        do
+        {
+            pIndex = lvProducerIndex();
+            seqOffset = calcCircularLongElementOffset(pIndex, mask);
+            seq = lvLongElement(sBuffer, seqOffset);
+            // consumer has not moved this seq forward, it's as last producer left
+            if (seq < pIndex)
+            {
+                // Extra check required to ensure [Queue.offer == false iff queue is full]
+                if (pIndex - capacity >= cIndex && // test against cached cIndex
+                    pIndex - capacity >= (cIndex = lvConsumerIndex())) // test against latest cIndex
+                {
+                    return false;
+                }
+                else
+                {
+                    seq = pIndex + 1; // (+) hack to make it go around again without CAS
+                }
+            }
+        }
+        while (seq > pIndex || // another producer has moved the sequence(or +)
+            !casProducerIndex(pIndex, pIndex + 1)); // failed to increment
+
+        // casProducerIndex ensures correct construction
+        spLongElement(buffer, seqOffset, e);
+        // seq++;
+        soLongElement(sBuffer, seqOffset, pIndex + 1);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Because the element value cannot indicate the queue is empty we must test the producer index when the next
+     * element is not visible.
+     */
+    @Override
+    public long poll(final long emptyValue)
+    {
+        // local load of field to avoid repeated loads after volatile reads
+        final long[] sBuffer = sequenceBuffer;
+        final long mask = this.mask;
+
+        long cIndex;
+        long seq;
+        long seqOffset;
+        long expectedSeq;
+        long pIndex = -1; // start with bogus value, hope we don't need it
+        do
+        {
+            cIndex = lvConsumerIndex();
+            seqOffset = calcCircularLongElementOffset(cIndex, mask);
+            seq = lvLongElement(sBuffer, seqOffset);
+            expectedSeq = cIndex + 1;
+            if (seq < expectedSeq)
+            {
+                // slot has not been moved by producer
+                if (cIndex >= pIndex && // test against cached pIndex
+                    cIndex == (pIndex = lvProducerIndex())) // update pIndex if we must
+                {
+                    // strict empty check
+                    return emptyValue;
+                }
+                else
+                {
+                    seq = expectedSeq + 1; // trip another go around
+                }
+            }
+        }
+        while (seq > expectedSeq || // another consumer beat us to it
+            !casConsumerIndex(cIndex, cIndex + 1)); // failed the CAS
+
+        final long e = lpLongElement(buffer, seqOffset);
+        // i.e. seq += capacity
+        soLongElement(sBuffer, seqOffset, cIndex + mask + 1);
+        return e;
+    }
+
+    @Override
+    public long peek(final long emptyValue)
+    {
+        // local load of field to avoid repeated loads after volatile reads
+        final long[] sBuffer = sequenceBuffer;
+        final long mask = this.mask;
+
+        long cIndex;
+        long seq;
+        long seqOffset;
+        long expectedSeq;
+        long pIndex = -1; // start with bogus value, hope we don't need it
+        long e;
+        while (true)
+        {
+            cIndex = lvConsumerIndex();
+            seqOffset = calcCircularLongElementOffset(cIndex, mask);
+            seq = lvLongElement(sBuffer, seqOffset);
+            expectedSeq = cIndex + 1;
+            if (seq < expectedSeq)
+            {
+                // slot has not been moved by producer
+                if (cIndex >= pIndex && // test against cached pIndex
+                    cIndex == (pIndex = lvProducerIndex())) // update pIndex if we must
+                {
+                    // strict empty check
+                    return emptyValue;
+                }
+            }
+            else if (seq == expectedSeq)
+            {
+                e = lvLongElement(buffer, seqOffset);
+                if (lvConsumerIndex() == cIndex)
+                    return e;
+            }
+        }
+    }
+
+    @Override
+    public boolean relaxedOffer(final long e)
+    {
+        final long mask = this.mask;
+        final long[] sBuffer = sequenceBuffer;
+
+        long pIndex;
+        long seqOffset;
+        long seq;
+        do
+        {
+            pIndex = lvProducerIndex();
+            seqOffset = calcCircularLongElementOffset(pIndex, mask);
+            seq = lvLongElement(sBuffer, seqOffset);
+            if (seq < pIndex)
+            { // slot not cleared by consumer yet
+                return false;
+            }
+        }
+        while (seq > pIndex || // another producer has moved the sequence
+            !casProducerIndex(pIndex, pIndex + 1)); // failed to increment
+
+        // casProducerIndex ensures correct construction
+        spLongElement(buffer, seqOffset, e);
+        soLongElement(sBuffer, seqOffset, pIndex + 1);
+        return true;
+    }
+
+    @Override
+    public long relaxedPoll(final long emptyValue)
+    {
+        final long[] sBuffer = sequenceBuffer;
+        final long mask = this.mask;
+
+        long cIndex;
+        long seqOffset;
+        long seq;
+        long expectedSeq;
+        do
+        {
+            cIndex = lvConsumerIndex();
+            seqOffset = calcCircularLongElementOffset(cIndex, mask);
+            seq = lvLongElement(sBuffer, seqOffset);
+            expectedSeq = cIndex + 1;
+            if (seq < expectedSeq)
+            {
+                return emptyValue;
+            }
+        }
+        while (seq > expectedSeq || // another consumer beat us to it
+            !casConsumerIndex(cIndex, cIndex + 1)); // failed the CAS
+
+        final long e = lpLongElement(buffer, seqOffset);
+        soLongElement(sBuffer, seqOffset, cIndex + mask + 1);
+        return e;
+    }
+
+    @Override
+    public long relaxedPeek(final long emptyValue)
+    {
+        // local load of field to avoid repeated loads after volatile reads
+        final long[] sBuffer = sequenceBuffer;
+        final long mask = this.mask;
+
+        long cIndex;
+        long seq;
+        long seqOffset;
+        long expectedSeq;
+        long e;
+        do
+        {
+            cIndex = lvConsumerIndex();
+            seqOffset = calcCircularLongElementOffset(cIndex, mask);
+            seq = lvLongElement(sBuffer, seqOffset);
+            expectedSeq = cIndex + 1;
+            if (seq < expectedSeq)
+            {
+                return emptyValue;
+            }
+            else if (seq == expectedSeq)
+            {
+                e = lvLongElement(buffer, seqOffset);
+                if (lvConsumerIndex() == cIndex)
+                    return e;
+            }
+        }
+        while (true);
+    }
+
+    @Override
+    public int drain(final LongConsumer c, final int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+
+        final long[] sBuffer = sequenceBuffer;
+        final long mask = this.mask;
+        final long[] buffer = this.buffer;
+
+        long cIndex;
+        long seqOffset;
+        long seq;
+        long expectedSeq;
+        for (int i = 0; i < limit; i++)
+        {
+            do
+            {
+                cIndex = lvConsumerIndex();
+                seqOffset = calcCircularLongElementOffset(cIndex, mask);
+                seq = lvLongElement(sBuffer, seqOffset);
+                expectedSeq = cIndex + 1;
+                if (seq < expectedSeq)
+                {
+                    return i;
+                }
+            }
+            while (seq > expectedSeq || // another consumer beat us to it
+                !casConsumerIndex(cIndex, cIndex + 1)); // failed the CAS
+
+            final long e = lpLongElement(buffer, seqOffset);
+            soLongElement(sBuffer, seqOffset, cIndex + mask + 1);
+            c.accept(e);
+        }
+        return limit;
+    }
+
+    @Override
+    public int fill(final LongSupplier s, final int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+
+        final long[] sBuffer = sequenceBuffer;
+        final long mask = this.mask;
+        final long[] buffer = this.buffer;
+
+        long pIndex;
+        long seqOffset;
+        long seq;
+        for (int i = 0; i < limit; i++)
+        {
+            do
+            {
+                pIndex = lvProducerIndex();
+                seqOffset = calcCircularLongElementOffset(pIndex, mask);
+                seq = lvLongElement(sBuffer, seqOffset);
+                if (seq < pIndex)
+                { // slot not cleared by consumer yet
+                    return i;
+                }
+            }
+            while (seq > pIndex || // another producer has moved the sequence
+                !casProducerIndex(pIndex, pIndex + 1)); // failed to increment
+            spLongElement(buffer, seqOffset, s.get());
+            soLongElement(sBuffer, seqOffset, pIndex + 1);
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.MessagePassingQueue.Consumer;
+import org.jctools.queues.MessagePassingQueue.Supplier;
+
+import static org.jctools.util.UnsafeLongArrayAccess.*;
+import static org.jctools.util.UnsafeRefArrayAccess.*;
+
+/**
+ * A Multi-Producer-Multi-Consumer {@link SequencedEventArrayRing}. Any thread may claim, publish and drain.
+ * <p>
+ * A drain claims the run of published events at the head of the ring with a single CAS of the consumer index, as
+ * {@link MpmcArrayQueue#poll(Object[], int, int)} does, and then hands them to the handler. The claimed slots are only
+ * released as the handler returns, so the handler must not throw: the slots it did not return from would never be
+ * released and producers would block on them.
+ *
+ * @param <E> the event type
+ */
+public class MpmcSequencedEventArrayRing<E> extends SequencedEventArrayRing<E>
+{
+    /**
+     * @param capacity the ring capacity, rounded up to the next power of 2
+     * @param factory  called once per slot to pre-allocate the events, must not return null
+     */
+    public MpmcSequencedEventArrayRing(int capacity, Supplier<E> factory)
+    {
+        super(capacity, factory);
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        checkDrainArgs(c, limit);
+        final long[] sBuffer = sequenceBuffer;
+        final long mask = this.mask;
+        final int max = (int) Math.min(limit, mask + 1);
+
+        long cIndex;
+        int ready;
+        do
+        {
+            cIndex = lvConsumerIndex();
+            ready = 0;
+            while (ready < max)
+            {
+                final long index = cIndex + ready;
+                if (lvLongElement(sBuffer, calcCircularLongElementOffset(index, mask)) != index + 1)
+                {
+                    break;
+                }
+                ready++;
+            }
+            if (ready == 0)
+            {
+                return 0;
+            }
+        }
+        while (!casConsumerIndex(cIndex, cIndex + ready));
+
+        final E[] buffer = this.buffer;
+        for (int i = 0; i < ready; i++)
+        {
+            final long index = cIndex + i;
+            c.accept(lpRefElement(buffer, calcCircularRefElementOffset(index, mask)));
+            // i.e. seq += capacity
+            soLongElement(sBuffer, calcCircularLongElementOffset(index, mask), index + mask + 1);
+        }
+        return ready;
+    }
+}
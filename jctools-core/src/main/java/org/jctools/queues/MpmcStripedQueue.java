@@ -0,0 +1,347 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.RangeUtil;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+
+import static org.jctools.util.PortableJvmInfo.CPUs;
+import static org.jctools.util.Pow2.isPowerOfTwo;
+import static org.jctools.util.Pow2.roundToPowerOfTwo;
+
+abstract class MpmcStripedQueueL0Pad<E> extends AbstractQueue<E> implements MessagePassingQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class MpmcStripedQueueColdFields<E> extends MpmcStripedQueueL0Pad<E>
+{
+    // must be power of 2
+    protected final int stripeCount;
+    protected final int stripeMask;
+    protected final MpmcArrayQueue<E>[] stripes;
+
+    MpmcStripedQueueColdFields(int capacity, int stripeCount)
+    {
+        RangeUtil.checkPositive(stripeCount, "stripeCount");
+        this.stripeCount = isPowerOfTwo(stripeCount) ? stripeCount : roundToPowerOfTwo(stripeCount) / 2;
+        stripeMask = this.stripeCount - 1;
+        stripes = allocateStripes(this.stripeCount);
+        int fullCapacity = roundToPowerOfTwo(capacity);
+        RangeUtil.checkGreaterThanOrEqual(fullCapacity, 2 * this.stripeCount, "fullCapacity");
+        for (int i = 0; i < this.stripeCount; i++)
+        {
+            stripes[i] = new MpmcArrayQueue<E>(fullCapacity / this.stripeCount);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <E> MpmcArrayQueue<E>[] allocateStripes(int length)
+    {
+        return new MpmcArrayQueue[length];
+    }
+}
+
+/**
+ * A Multi-Producer-Multi-Consumer queue striped over a set number of {@link MpmcArrayQueue}s to diffuse the
+ * contention on both the producer and the consumer index, the MPMC counterpart of {@link MpscCompoundQueue}.
+ * <p>
+ * Each thread has a home stripe, picked by its thread id. Producers offer to their home stripe and only move on to the
+ * other stripes when it is full. Consumers poll their home stripe and only steal from the other stripes when it is
+ * empty. With as many stripes as active threads most operations touch a stripe no other thread is using, at the price
+ * of ordering: elements are FIFO per stripe only, there is no order between stripes. This matches
+ * {@link org.jctools.queues.spec.Ordering#NONE}, and {@link QueueFactory} hands this queue out for bounded MPMC specs
+ * with that ordering.
+ * <p>
+ * {@link #poll()} returns null when every stripe was seen empty during one scan. {@link #offer(Object)} fails when
+ * every stripe was seen full during one scan.
+ */
+public class MpmcStripedQueue<E> extends MpmcStripedQueueColdFields<E> implements BatchPollingQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    /**
+     * @param capacity the total capacity, rounded up to the next power of 2 and split evenly between one stripe per
+     *                 CPU, or fewer stripes if the capacity is too small to give each of them 2 slots
+     */
+    public MpmcStripedQueue(int capacity)
+    {
+        this(capacity, defaultStripeCount(capacity));
+    }
+
+    /**
+     * @param capacity    the total capacity, rounded up to the next power of 2 and split evenly between the stripes
+     * @param stripeCount the number of stripes, rounded down to a power of 2
+     */
+    public MpmcStripedQueue(int capacity, int stripeCount)
+    {
+        super(capacity, stripeCount);
+    }
+
+    static int defaultStripeCount(int capacity)
+    {
+        return Math.max(1, Math.min(CPUs, roundToPowerOfTwo(capacity) / 2));
+    }
+
+    private int homeStripe()
+    {
+        return (int) (Thread.currentThread().getId() & stripeMask);
+    }
+
+    @Override
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        final MpmcArrayQueue<E>[] stripes = this.stripes;
+        final int stripeMask = this.stripeMask;
+        final int start = homeStripe();
+        for (int i = start; i <= start + stripeMask; i++)
+        {
+            if (stripes[i & stripeMask].offer(e))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean relaxedOffer(E e)
+    {
+        return offer(e);
+    }
+
+    @Override
+    public E poll()
+    {
+        final MpmcArrayQueue<E>[] stripes = this.stripes;
+        final int stripeMask = this.stripeMask;
+        final int start = homeStripe();
+        for (int i = start; i <= start + stripeMask; i++)
+        {
+            final E e = stripes[i & stripeMask].poll();
+            if (e != null)
+            {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        final MpmcArrayQueue<E>[] stripes = this.stripes;
+        final int stripeMask = this.stripeMask;
+        final int start = homeStripe();
+        for (int i = start; i <= start + stripeMask; i++)
+        {
+            final E e = stripes[i & stripeMask].relaxedPoll();
+            if (e != null)
+            {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E peek()
+    {
+        final MpmcArrayQueue<E>[] stripes = this.stripes;
+        final int stripeMask = this.stripeMask;
+        final int start = homeStripe();
+        for (int i = start; i <= start + stripeMask; i++)
+        {
+            final E e = stripes[i & stripeMask].peek();
+            if (e != null)
+            {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E relaxedPeek()
+    {
+        final MpmcArrayQueue<E>[] stripes = this.stripes;
+        final int stripeMask = this.stripeMask;
+        final int start = homeStripe();
+        for (int i = start; i <= start + stripeMask; i++)
+        {
+            final E e = stripes[i & stripeMask].relaxedPeek();
+            if (e != null)
+            {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size()
+    {
+        long size = 0;
+        for (MpmcArrayQueue<E> stripe : stripes)
+        {
+            size += stripe.size();
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        for (MpmcArrayQueue<E> stripe : stripes)
+        {
+            if (!stripe.isEmpty())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int capacity()
+    {
+        return stripes.length * stripes[0].capacity();
+    }
+
+    /**
+     * @return the number of stripes
+     */
+    public int stripes()
+    {
+        return stripeCount;
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return drain(c, capacity());
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+        final MpmcArrayQueue<E>[] stripes = this.stripes;
+        final int stripeMask = this.stripeMask;
+        final int start = homeStripe();
+        int drained = 0;
+        for (int i = start; i <= start + stripeMask && drained < limit; i++)
+        {
+            drained += stripes[i & stripeMask].drain(c, limit - drained);
+        }
+        return drained;
+    }
+
+    @Override
+    public int poll(E[] dst, int offset, int max)
+    {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return MessagePassingQueueUtil.fillBounded(this, s);
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+        final MpmcArrayQueue<E>[] stripes = this.stripes;
+        final int stripeMask = this.stripeMask;
+        final int start = homeStripe();
+        int filled = 0;
+        for (int i = start; i <= start + stripeMask && filled < limit; i++)
+        {
+            filled += stripes[i & stripeMask].fill(s, limit - filled);
+        }
+        return filled;
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, wait, exit);
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+}
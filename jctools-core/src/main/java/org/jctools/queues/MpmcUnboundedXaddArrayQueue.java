@@ -55,11 +55,18 @@ public class MpmcUnboundedXaddArrayQueue<E> extends MpUnboundedXaddArrayQueue<Mp
         {
             throw new NullPointerException();
         }
+        offerClaimedSlot(e, getAndIncrementProducerIndex());
+        return true;
+    }
+
+    /**
+     * Write {@code e} into the slot at {@code pIndex}, which the caller has already claimed.
+     */
+    final void offerClaimedSlot(E e, long pIndex)
+    {
         final int chunkMask = this.chunkMask;
         final int chunkShift = this.chunkShift;
 
-        final long pIndex = getAndIncrementProducerIndex();
-
         final int piChunkOffset = (int) (pIndex & chunkMask);
         final long piChunkIndex = pIndex >> chunkShift;
 
@@ -83,7 +90,35 @@ public class MpmcUnboundedXaddArrayQueue<E> extends MpUnboundedXaddArrayQueue<Mp
         {
             pChunk.soSequence(piChunkOffset, piChunkIndex);
         }
-        return true;
+    }
+
+    /**
+     * Offer a slice of {@code src} as a batch. The producer index range is claimed with a single XADD and the
+     * elements are published in order.
+     *
+     * @param src the elements to offer, none of which may be {@code null}
+     * @param offset the index in {@code src} of the first element to offer
+     * @param length the number of elements to offer
+     * @return {@code length}, as the queue is unbounded
+     * @throws IndexOutOfBoundsException if the slice is not within {@code src}
+     * @throws NullPointerException if any element in the slice is {@code null}
+     */
+    public int offer(E[] src, int offset, int length)
+    {
+        MessagePassingQueueUtil.checkOfferBatch(src, offset, length);
+        if (length == 0)
+            return 0;
+
+        offerClaimedSlots(src, offset, getAndAddProducerIndex(length), length);
+        return length;
+    }
+
+    /**
+     * Same as {@link #offer(Object[], int, int)}.
+     */
+    public int relaxedOffer(E[] src, int offset, int length)
+    {
+        return offer(src, offset, length);
     }
 
     @Override
@@ -439,11 +474,20 @@ public class MpmcUnboundedXaddArrayQueue<E> extends MpUnboundedXaddArrayQueue<Mp
         if (limit == 0)
             return 0;
 
+        fillClaimedSlots(s, getAndAddProducerIndex(limit), limit);
+        return limit;
+    }
+
+    /**
+     * Write {@code count} elements from the supplier into the slots starting at {@code producerSeq}, which the caller
+     * has already claimed.
+     */
+    final void fillClaimedSlots(Supplier<E> s, long producerSeq, int count)
+    {
         final int chunkShift = this.chunkShift;
         final int chunkMask = this.chunkMask;
-        long producerSeq = getAndAddProducerIndex(limit);
         MpmcUnboundedXaddChunk<E> producerBuffer = null;
-        for (int i = 0; i < limit; i++)
+        for (int i = 0; i < count; i++)
         {
             final int pOffset = (int) (producerSeq & chunkMask);
             long chunkIndex = producerSeq >> chunkShift;
@@ -469,7 +513,43 @@ public class MpmcUnboundedXaddArrayQueue<E> extends MpUnboundedXaddArrayQueue<Mp
             }
             producerSeq++;
         }
-        return limit;
+    }
+
+    /**
+     * Write {@code count} elements from {@code src} into the slots starting at {@code producerSeq}, which the caller
+     * has already claimed.
+     */
+    final void offerClaimedSlots(E[] src, int offset, long producerSeq, int count)
+    {
+        final int chunkShift = this.chunkShift;
+        final int chunkMask = this.chunkMask;
+        MpmcUnboundedXaddChunk<E> producerBuffer = null;
+        for (int i = 0; i < count; i++)
+        {
+            final int pOffset = (int) (producerSeq & chunkMask);
+            long chunkIndex = producerSeq >> chunkShift;
+            if (producerBuffer == null || producerBuffer.lvIndex() != chunkIndex)
+            {
+                producerBuffer = producerChunkForIndex(producerBuffer, chunkIndex);
+                if (producerBuffer.isPooled())
+                {
+                    chunkIndex = producerBuffer.lvIndex();
+                }
+            }
+            if (producerBuffer.isPooled())
+            {
+                while (producerBuffer.lvElement(pOffset) != null)
+                {
+
+                }
+            }
+            producerBuffer.soElement(pOffset, src[offset + i]);
+            if (producerBuffer.isPooled())
+            {
+                producerBuffer.soSequence(pOffset, chunkIndex);
+            }
+            producerSeq++;
+        }
     }
 
 }
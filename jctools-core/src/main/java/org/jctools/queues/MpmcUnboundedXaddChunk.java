@@ -15,8 +15,6 @@ package org.jctools.queues;
 
 import org.jctools.util.InternalAPI;
 
-import java.util.Arrays;
-
 import static org.jctools.util.UnsafeLongArrayAccess.*;
 
 @InternalAPI
@@ -30,7 +28,11 @@ final class MpmcUnboundedXaddChunk<E> extends MpUnboundedXaddChunk<MpmcUnbounded
         if (pooled)
         {
             sequence = allocateLongArray(size);
-            Arrays.fill(sequence, MpmcUnboundedXaddChunk.NOT_USED);
+            // not Arrays.fill, so the generated atomic variant can share this code
+            for (int i = 0; i < size; i++)
+            {
+                spLongElement(sequence, calcLongElementOffset(i), NOT_USED);
+            }
         }
         else
         {
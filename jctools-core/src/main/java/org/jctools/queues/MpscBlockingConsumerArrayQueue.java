@@ -23,6 +23,7 @@ import java.util.concurrent.locks.LockSupport;
 import org.jctools.queues.IndexedQueueSizeUtil.IndexedQueue;
 import org.jctools.util.Pow2;
 import org.jctools.util.RangeUtil;
+import org.jctools.util.SpinWait;
 
 import static org.jctools.queues.LinkedArrayQueueUtil.modifiedCalcCircularRefElementOffset;
 import static org.jctools.util.UnsafeAccess.UNSAFE;
@@ -192,9 +193,9 @@ abstract class MpscBlockingConsumerArrayQueueConsumerFields<E> extends MpscBlock
         return blocked;
     }
 
-    final void soBlocked(Thread thread)
+    final void soBlocked(Thread newValue)
     {
-        UNSAFE.putOrderedObject(this, BLOCKED_OFFSET, thread);
+        UNSAFE.putOrderedObject(this, BLOCKED_OFFSET, newValue);
     }
 }
 
@@ -207,7 +208,7 @@ abstract class MpscBlockingConsumerArrayQueueConsumerFields<E> extends MpscBlock
  */
 @SuppressWarnings("unused")
 public class MpscBlockingConsumerArrayQueue<E> extends MpscBlockingConsumerArrayQueueConsumerFields<E>
-    implements MessagePassingQueue<E>, QueueProgressIndicators, BlockingQueue<E>
+    implements BatchPollingQueue<E>, QueueProgressIndicators, BlockingQueue<E>
 {
     byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
     byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
@@ -313,6 +314,7 @@ public class MpscBlockingConsumerArrayQueue<E> extends MpscBlockingConsumerArray
         threshold = threshold << 1;
         final E[] buffer = this.producerBuffer;
         long pIndex;
+        int tries = 0;
         while (true)
         {
             pIndex = lvProducerIndex();
@@ -322,6 +324,8 @@ public class MpscBlockingConsumerArrayQueue<E> extends MpscBlockingConsumerArray
                 if (offerAndWakeup(buffer, mask, pIndex, e)) {
                     return true;
                 }
+                // the parking consumer may not have published itself yet, see SpinWait
+                tries = SpinWait.backoff(tries);
                 continue;
             }
             // pIndex is even (lower bit is 0) -> actual index is (pIndex >> 1), consumer is awake
@@ -368,6 +372,7 @@ public class MpscBlockingConsumerArrayQueue<E> extends MpscBlockingConsumerArray
         final long mask = this.producerMask;
         final E[] buffer = this.producerBuffer;
         long pIndex;
+        int tries = 0;
         while (true)
         {
             pIndex = lvProducerIndex();
@@ -376,6 +381,8 @@ public class MpscBlockingConsumerArrayQueue<E> extends MpscBlockingConsumerArray
             {
                 if (offerAndWakeup(buffer, mask, pIndex, e))
                     return true;
+                // the parking consumer may not have published itself yet, see SpinWait
+                tries = SpinWait.backoff(tries);
                 continue;
             }
             // pIndex is even (lower bit is 0) -> actual index is (pIndex >> 1), consumer is awake
@@ -461,10 +468,11 @@ public class MpscBlockingConsumerArrayQueue<E> extends MpscBlockingConsumerArray
     private void wakeupConsumer()
     {
         Thread consumerThread;
-        do
+        int tries = 0;
+        while ((consumerThread = lvBlocked()) == null)
         {
-            consumerThread = lvBlocked();
-        } while (consumerThread == null);
+            tries = SpinWait.backoff(tries);
+        }
 
         releaseParkedConsumer(consumerThread);
     }
@@ -649,21 +657,32 @@ public class MpscBlockingConsumerArrayQueue<E> extends MpscBlockingConsumerArray
         return e;
     }
 
+    /**
+     * Spins, or on virtual threads backs off, see {@link SpinWait}: the producer which claimed the slot may be
+     * descheduled before the element store.
+     */
     private static <E> E spinWaitForElement(E[] buffer, long offset)
     {
         E e;
-        do
+        int tries = 0;
+        while ((e = lvRefElement(buffer, offset)) == null)
         {
-            e = lvRefElement(buffer, offset);
+            tries = SpinWait.backoff(tries);
         }
-        while (e == null);
         return e;
     }
 
+    /**
+     * Spins, or on virtual threads backs off, see {@link SpinWait}: the unparking producer may be descheduled before
+     * nulling the blocked field.
+     */
     private void spinWaitForUnblock()
     {
-        while (lvBlocked() != null) {}
-        return;
+        int tries = 0;
+        while (lvBlocked() != null)
+        {
+            tries = SpinWait.backoff(tries);
+        }
     }
 
     /**
@@ -837,6 +856,12 @@ public class MpscBlockingConsumerArrayQueue<E> extends MpscBlockingConsumerArray
         return drain(c, capacity());
     }
 
+    @Override
+    public int poll(final E[] dst, final int offset, final int max)
+    {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
     @Override
     public int drain(final Consumer<E> c, final int limit)
     {
@@ -0,0 +1,585 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+
+import static org.jctools.queues.LinkedArrayQueueUtil.length;
+import static org.jctools.queues.LinkedArrayQueueUtil.modifiedCalcCircularRefElementOffset;
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+import static org.jctools.util.UnsafeRefArrayAccess.*;
+
+/**
+ * A low footprint MPSC array queue, for when a great many mostly idle queues are kept alive. It follows the
+ * {@link MpscGrowableArrayQueue} algorithm, growing from <i>initialCapacity</i> to <i>maxCapacity</i> by linking
+ * buffers of doubling size, but trades throughput for memory:
+ * <ul>
+ * <li>There is no cache line padding, all fields share a single small object. Producers and consumer false share, so
+ * this queue is a poor choice where throughput matters.</li>
+ * <li>No buffer is allocated until the first offer, and the first buffer is small. An unused queue costs its object
+ * header and fields only.</li>
+ * </ul>
+ * {@link QueueFactory} hands this queue out for bounded SPSC and MPSC specs which prefer
+ * {@link org.jctools.queues.spec.Preference#MEMORY}.
+ */
+public class MpscCompactArrayQueue<E> extends AbstractQueue<E> implements BatchPollingQueue<E>, QueueProgressIndicators
+{
+    private final static long P_INDEX_OFFSET = fieldOffset(MpscCompactArrayQueue.class, "producerIndex");
+    private final static long P_LIMIT_OFFSET = fieldOffset(MpscCompactArrayQueue.class, "producerLimit");
+    private final static long C_INDEX_OFFSET = fieldOffset(MpscCompactArrayQueue.class, "consumerIndex");
+    private final static long C_BUFFER_OFFSET = fieldOffset(MpscCompactArrayQueue.class, "consumerBuffer");
+    private static final Object JUMP = new Object();
+    private static final int DEFAULT_INITIAL_CAPACITY = 4;
+
+    // as in BaseMpscLinkedArrayQueue, indices are doubled and the lower bit of the producer index marks a resize
+    private volatile long producerIndex;
+    private volatile long producerLimit;
+    private volatile long consumerIndex;
+    private long producerMask;
+    private long consumerMask;
+    // null until the first offer, which publishes the consumer buffer after the consumer mask
+    private E[] producerBuffer;
+    private volatile E[] consumerBuffer;
+    private final long maxQueueCapacity;
+    private final int initialBufferLength;
+
+    /**
+     * @param maxCapacity the maximum capacity, rounded up to the next power of 2 and to at least 2. The first buffer
+     *                    holds up to {@value #DEFAULT_INITIAL_CAPACITY} elements.
+     */
+    public MpscCompactArrayQueue(int maxCapacity)
+    {
+        this(Math.min(DEFAULT_INITIAL_CAPACITY, atLeastTwo(maxCapacity)), atLeastTwo(maxCapacity));
+    }
+
+    /**
+     * @param initialCapacity the capacity of the first buffer, rounded up to the next power of 2. Must be 2 or more.
+     * @param maxCapacity     the maximum capacity, rounded up to the next power of 2. Must not be less than
+     *                        initialCapacity.
+     */
+    public MpscCompactArrayQueue(int initialCapacity, int maxCapacity)
+    {
+        RangeUtil.checkGreaterThanOrEqual(initialCapacity, 2, "initialCapacity");
+        RangeUtil.checkGreaterThanOrEqual(maxCapacity, initialCapacity, "maxCapacity");
+        final int p2capacity = Pow2.roundToPowerOfTwo(initialCapacity);
+        // need extra element to point at next array
+        initialBufferLength = p2capacity + 1;
+        maxQueueCapacity = ((long) Pow2.roundToPowerOfTwo(maxCapacity)) << 1;
+        // producerLimit is 0, so the first offer takes the slow path and allocates the first buffer
+    }
+
+    private static int atLeastTwo(int maxCapacity)
+    {
+        RangeUtil.checkGreaterThanOrEqual(maxCapacity, 1, "maxCapacity");
+        return Math.max(2, Pow2.roundToPowerOfTwo(maxCapacity));
+    }
+
+    private long lvProducerIndex()
+    {
+        return producerIndex;
+    }
+
+    private void soProducerIndex(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, P_INDEX_OFFSET, newValue);
+    }
+
+    private boolean casProducerIndex(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, P_INDEX_OFFSET, expect, newValue);
+    }
+
+    private long lvProducerLimit()
+    {
+        return producerLimit;
+    }
+
+    private boolean casProducerLimit(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, P_LIMIT_OFFSET, expect, newValue);
+    }
+
+    private void soProducerLimit(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, P_LIMIT_OFFSET, newValue);
+    }
+
+    private long lvConsumerIndex()
+    {
+        return consumerIndex;
+    }
+
+    private long lpConsumerIndex()
+    {
+        return UNSAFE.getLong(this, C_INDEX_OFFSET);
+    }
+
+    private void soConsumerIndex(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, C_INDEX_OFFSET, newValue);
+    }
+
+    private E[] lvConsumerBuffer()
+    {
+        return consumerBuffer;
+    }
+
+    private void soConsumerBuffer(E[] newValue)
+    {
+        UNSAFE.putOrderedObject(this, C_BUFFER_OFFSET, newValue);
+    }
+
+    private void spConsumerBuffer(E[] newValue)
+    {
+        UNSAFE.putObject(this, C_BUFFER_OFFSET, newValue);
+    }
+
+    @Override
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        return offer(e, null);
+    }
+
+    /**
+     * Offer e, or the element supplied by s once a slot is claimed if e is null.
+     */
+    private boolean offer(final E e, final Supplier<E> s)
+    {
+        long mask;
+        E[] buffer;
+        long pIndex;
+
+        while (true)
+        {
+            long producerLimit = lvProducerLimit();
+            pIndex = lvProducerIndex();
+            // lower bit is indicative of resize, if we see it we spin until it's cleared
+            if ((pIndex & 1) == 1)
+            {
+                continue;
+            }
+            // mask/buffer may get changed by resizing -> only use for array access after successful CAS.
+            mask = this.producerMask;
+            buffer = this.producerBuffer;
+
+            if (producerLimit <= pIndex)
+            {
+                final long cIndex = lvConsumerIndex();
+                final long bufferCapacity = buffer == null ? 0 : getCurrentBufferCapacity(mask);
+                if (cIndex + bufferCapacity > pIndex)
+                {
+                    if (!casProducerLimit(producerLimit, cIndex + bufferCapacity))
+                    {
+                        continue;
+                    }
+                }
+                // full and cannot grow
+                else if (maxQueueCapacity - (pIndex - cIndex) <= 0)
+                {
+                    return false;
+                }
+                // grab index for resize -> set lower bit
+                else if (casProducerIndex(pIndex, pIndex + 1))
+                {
+                    resize(mask, buffer, pIndex, e, s);
+                    return true;
+                }
+                else
+                {
+                    continue;
+                }
+            }
+
+            if (casProducerIndex(pIndex, pIndex + 2))
+            {
+                break;
+            }
+        }
+        // INDEX visible before ELEMENT
+        final long offset = modifiedCalcCircularRefElementOffset(pIndex, mask);
+        soRefElement(buffer, offset, e == null ? s.get() : e); // release element
+        return true;
+    }
+
+    private void resize(long oldMask, E[] oldBuffer, long pIndex, E e, Supplier<E> s)
+    {
+        final int newBufferLength = oldBuffer == null ? initialBufferLength : 2 * (length(oldBuffer) - 1) + 1;
+        final E[] newBuffer;
+        try
+        {
+            newBuffer = allocateRefArray(newBufferLength);
+        }
+        catch (OutOfMemoryError oom)
+        {
+            soProducerIndex(pIndex);
+            throw oom;
+        }
+
+        producerBuffer = newBuffer;
+        final long newMask = (newBufferLength - 2) << 1;
+        producerMask = newMask;
+
+        final long offsetInNew = modifiedCalcCircularRefElementOffset(pIndex, newMask);
+        soRefElement(newBuffer, offsetInNew, e == null ? s.get() : e);// element in new array
+        if (oldBuffer == null)
+        {
+            // first offer, the consumer reads the mask once it has seen the buffer
+            consumerMask = newMask;
+            soConsumerBuffer(newBuffer);
+        }
+        else
+        {
+            soRefElement(oldBuffer, nextArrayOffset(oldMask), newBuffer);// buffer linked
+        }
+
+        // Invalidate racing CASs
+        // We never set the limit beyond the bounds of a buffer
+        final long cIndex = lvConsumerIndex();
+        soProducerLimit(pIndex + Math.min(newMask, maxQueueCapacity - (pIndex - cIndex)));
+
+        // make resize visible to the other producers
+        soProducerIndex(pIndex + 2);
+
+        // make resize visible to consumer
+        if (oldBuffer != null)
+        {
+            soRefElement(oldBuffer, modifiedCalcCircularRefElementOffset(pIndex, oldMask), JUMP);
+        }
+    }
+
+    private long getCurrentBufferCapacity(long mask)
+    {
+        return (mask + 2 == maxQueueCapacity) ? maxQueueCapacity : mask;
+    }
+
+    private static long nextArrayOffset(long mask)
+    {
+        return modifiedCalcCircularRefElementOffset(mask + 2, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param wait spin while the first buffer is being allocated
+     * @return the consumer buffer, null if the first buffer is not allocated yet
+     */
+    private E[] consumerBuffer(boolean wait)
+    {
+        final E[] buffer = lvConsumerBuffer();
+        if (buffer != null)
+        {
+            return buffer;
+        }
+        long pIndex;
+        while ((pIndex = lvProducerIndex()) == 1 && wait)
+        {
+        }
+        // the buffer is published before the producer index moves past the first resize
+        return pIndex < 2 ? null : lvConsumerBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation is correct for single consumer thread use only.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public E poll()
+    {
+        final E[] buffer = consumerBuffer(true);
+        if (buffer == null)
+        {
+            return null;
+        }
+        final long index = lpConsumerIndex();
+        final long mask = consumerMask;
+
+        final long offset = modifiedCalcCircularRefElementOffset(index, mask);
+        Object e = lvRefElement(buffer, offset);
+        if (e == null)
+        {
+            if (index != lvProducerIndex())
+            {
+                // poll() == null iff queue is empty, null element is not strong enough indicator, so we must
+                // check the producer index. If the queue is indeed not empty we spin until element is
+                // visible.
+                do
+                {
+                    e = lvRefElement(buffer, offset);
+                }
+                while (e == null);
+            }
+            else
+            {
+                return null;
+            }
+        }
+
+        if (e == JUMP)
+        {
+            return newBufferPoll(nextBuffer(buffer, mask), index);
+        }
+
+        soRefElement(buffer, offset, null); // release element null
+        soConsumerIndex(index + 2); // release cIndex
+        return (E) e;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation is correct for single consumer thread use only.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public E peek()
+    {
+        final E[] buffer = consumerBuffer(true);
+        if (buffer == null)
+        {
+            return null;
+        }
+        final long index = lpConsumerIndex();
+        final long mask = consumerMask;
+
+        final long offset = modifiedCalcCircularRefElementOffset(index, mask);
+        Object e = lvRefElement(buffer, offset);
+        if (e == null && index != lvProducerIndex())
+        {
+            // peek() == null iff queue is empty, null element is not strong enough indicator, so we must
+            // check the producer index. If the queue is indeed not empty we spin until element is visible.
+            do
+            {
+                e = lvRefElement(buffer, offset);
+            }
+            while (e == null);
+        }
+        if (e == JUMP)
+        {
+            return newBufferPeek(nextBuffer(buffer, mask), index);
+        }
+        return (E) e;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public E relaxedPoll()
+    {
+        final E[] buffer = consumerBuffer(false);
+        if (buffer == null)
+        {
+            return null;
+        }
+        final long index = lpConsumerIndex();
+        final long mask = consumerMask;
+
+        final long offset = modifiedCalcCircularRefElementOffset(index, mask);
+        Object e = lvRefElement(buffer, offset);
+        if (e == null)
+        {
+            return null;
+        }
+        if (e == JUMP)
+        {
+            return newBufferPoll(nextBuffer(buffer, mask), index);
+        }
+        soRefElement(buffer, offset, null);
+        soConsumerIndex(index + 2);
+        return (E) e;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public E relaxedPeek()
+    {
+        final E[] buffer = consumerBuffer(false);
+        if (buffer == null)
+        {
+            return null;
+        }
+        final long index = lpConsumerIndex();
+        final long mask = consumerMask;
+
+        final long offset = modifiedCalcCircularRefElementOffset(index, mask);
+        Object e = lvRefElement(buffer, offset);
+        if (e == JUMP)
+        {
+            return newBufferPeek(nextBuffer(buffer, mask), index);
+        }
+        return (E) e;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E[] nextBuffer(final E[] buffer, final long mask)
+    {
+        final long offset = nextArrayOffset(mask);
+        final E[] nextBuffer = (E[]) lvRefElement(buffer, offset);
+        // only the consumer writes the buffer from now on
+        spConsumerBuffer(nextBuffer);
+        consumerMask = (length(nextBuffer) - 2) << 1;
+        // prevent GC nepotism
+        soRefElement(buffer, offset, null);
+        return nextBuffer;
+    }
+
+    private E newBufferPoll(E[] nextBuffer, long index)
+    {
+        final long offset = modifiedCalcCircularRefElementOffset(index, consumerMask);
+        final E n = lvRefElement(nextBuffer, offset);
+        if (n == null)
+        {
+            throw new IllegalStateException("new buffer must have at least one element");
+        }
+        soRefElement(nextBuffer, offset, null);
+        soConsumerIndex(index + 2);
+        return n;
+    }
+
+    private E newBufferPeek(E[] nextBuffer, long index)
+    {
+        final long offset = modifiedCalcCircularRefElementOffset(index, consumerMask);
+        final E n = lvRefElement(nextBuffer, offset);
+        if (null == n)
+        {
+            throw new IllegalStateException("new buffer must have at least one element");
+        }
+        return n;
+    }
+
+    @Override
+    public int size()
+    {
+        // NOTE: because indices are on even numbers we cannot use the size util.
+        long after = lvConsumerIndex();
+        long size;
+        while (true)
+        {
+            final long before = after;
+            final long currentProducerIndex = lvProducerIndex();
+            after = lvConsumerIndex();
+            if (before == after)
+            {
+                size = ((currentProducerIndex - after) >> 1);
+                break;
+            }
+        }
+        return (int) size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        // Order matters!
+        // Loading consumer before producer allows for producer increments after consumer index is read.
+        return (this.lvConsumerIndex() == this.lvProducerIndex());
+    }
+
+    @Override
+    public int capacity()
+    {
+        return (int) (maxQueueCapacity / 2);
+    }
+
+    @Override
+    public long currentProducerIndex()
+    {
+        return lvProducerIndex() / 2;
+    }
+
+    @Override
+    public long currentConsumerIndex()
+    {
+        return lvConsumerIndex() / 2;
+    }
+
+    @Override
+    public boolean relaxedOffer(E e)
+    {
+        return offer(e);
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return drain(c, capacity());
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, c, limit);
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, wait, exit);
+    }
+
+    @Override
+    public int poll(E[] dst, int offset, int max)
+    {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return MessagePassingQueueUtil.fillBounded(this, s);
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+        // one slot at a time, batching claims is not worth the extra code here
+        int filled = 0;
+        while (filled < limit && offer(null, s))
+        {
+            filled++;
+        }
+        return filled;
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+}
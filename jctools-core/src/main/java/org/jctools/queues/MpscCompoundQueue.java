@@ -103,7 +103,7 @@ abstract class MpscCompoundQueueConsumerQueueIndex<E> extends MpscCompoundQueueM
     }
 }
 
-public class MpscCompoundQueue<E> extends MpscCompoundQueueConsumerQueueIndex<E>
+public class MpscCompoundQueue<E> extends MpscCompoundQueueConsumerQueueIndex<E> implements BatchPollingQueue<E>
 {
     byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
     byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
@@ -320,6 +320,12 @@ public class MpscCompoundQueue<E> extends MpscCompoundQueueConsumerQueueIndex<E>
         return MessagePassingQueueUtil.fillBounded(this, s);
     }
 
+    @Override
+    public int poll(E[] dst, int offset, int max)
+    {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit)
     {
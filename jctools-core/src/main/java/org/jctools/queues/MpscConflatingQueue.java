@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.maps.NonBlockingHashMap;
+
+/**
+ * A Multi-Producer-Single-Consumer last value queue: only the latest value offered for a key is delivered, updates to a
+ * key which is still pending replace the pending value in place.
+ * <p>
+ * Pending values are held in a {@link NonBlockingHashMap} and the keys which became pending are queued in an
+ * {@link MpscUnboundedArrayQueue} in the order they became pending. A producer only queues the key when its put found
+ * no pending value, and only the consumer removes pending values, so a key is queued at most once at any time and the
+ * queue of keys holds at most as many keys as there are distinct keys.
+ * <p>
+ * A drain hands out at most the keys which were pending when it started, so a key updated while the drain is in
+ * progress is delivered by the next drain rather than twice in the same one.
+ *
+ * @param <K> the key type, as for {@link NonBlockingHashMap} keys
+ * @param <V> the value type
+ */
+public class MpscConflatingQueue<K, V>
+{
+    /**
+     * The consumer of a drained key and its latest value.
+     */
+    public interface EntryConsumer<K, V>
+    {
+        void accept(K key, V value);
+    }
+
+    private final NonBlockingHashMap<K, V> pending;
+    private final MpscUnboundedArrayQueue<K> dirtyKeys;
+
+    /**
+     * @param chunkSize the chunk size of the queue of pending keys
+     */
+    public MpscConflatingQueue(int chunkSize)
+    {
+        pending = new NonBlockingHashMap<K, V>();
+        dirtyKeys = new MpscUnboundedArrayQueue<K>(chunkSize);
+    }
+
+    /**
+     * Producers only. Make {@code value} the pending value of {@code key}, replacing the pending value if any.
+     *
+     * @return true if the key was not pending before, false if its pending value was replaced
+     * @throws NullPointerException if key or value are null
+     */
+    public boolean offer(K key, V value)
+    {
+        if (null == key || null == value)
+        {
+            throw new NullPointerException();
+        }
+        if (pending.put(key, value) == null)
+        {
+            dirtyKeys.offer(key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consumer only. Hand out up to {@code limit} pending keys with their latest value, in the order they became
+     * pending, each key at most once.
+     *
+     * @return the number of keys handed out
+     * @throws IllegalArgumentException if c is null or limit is negative
+     */
+    public int drain(EntryConsumer<K, V> c, int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        // keys which become pending again while we drain are queued behind this limit
+        limit = Math.min(limit, dirtyKeys.size());
+        final MpscUnboundedArrayQueue<K> dirtyKeys = this.dirtyKeys;
+        final NonBlockingHashMap<K, V> pending = this.pending;
+        for (int i = 0; i < limit; i++)
+        {
+            final K key = dirtyKeys.poll();
+            if (key == null)
+            {
+                return i;
+            }
+            // queued after a put which found no value, and only the consumer removes, so the value is there
+            c.accept(key, pending.remove(key));
+        }
+        return limit;
+    }
+
+    /**
+     * Consumer only. Hand out every key pending at the time of the call with its latest value.
+     *
+     * @see #drain(EntryConsumer, int)
+     */
+    public int drain(EntryConsumer<K, V> c)
+    {
+        return drain(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the pending value of the key, or null if the key is not pending
+     */
+    public V peek(K key)
+    {
+        return pending.get(key);
+    }
+
+    /**
+     * @return the number of pending keys
+     */
+    public int size()
+    {
+        return dirtyKeys.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return dirtyKeys.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+}
@@ -24,13 +24,28 @@ import static org.jctools.queues.LinkedArrayQueueUtil.length;
  * doubling theirs size every time until the full blown backing array is used.
  * The queue grows only when the current chunk is full and elements are not copied on
  * resize, instead a link to the new chunk is stored in the old chunk for the consumer to follow.
+ * <p>
+ * By default the queue never shrinks back. A queue built with {@code shrink} enabled halves its buffer, down to the
+ * initial capacity, once the consumer has found the queue empty {@link #SHRINK_AFTER} times in a row with no more than
+ * a quarter of the buffer consumed in between. Only an empty queue is shrunk, the
+ * consumer moves producers onto the smaller buffer under the resize lock.
  */
 public class MpscGrowableArrayQueue<E> extends MpscChunkedArrayQueue<E>
 {
+    /**
+     * The number of consecutive low occupancy empty polls after which a shrinking queue halves its buffer.
+     */
+    public static final int SHRINK_AFTER = 64;
+
+    private final boolean shrinkable;
+    private final int initialBufferLength;
+    // consumer only, used to track occupancy between empty polls
+    private long lastEmptyIndex;
+    private int lowOccupancyPolls;
 
     public MpscGrowableArrayQueue(int maxCapacity)
     {
-        super(Math.max(2, Pow2.roundToPowerOfTwo(maxCapacity / 8)), maxCapacity);
+        this(Math.max(2, Pow2.roundToPowerOfTwo(maxCapacity / 8)), maxCapacity);
     }
 
     /**
@@ -41,8 +56,44 @@ public class MpscGrowableArrayQueue<E> extends MpscChunkedArrayQueue<E>
      *                        power of 2 than initialCapacity.
      */
     public MpscGrowableArrayQueue(int initialCapacity, int maxCapacity)
+    {
+        this(initialCapacity, maxCapacity, false);
+    }
+
+    /**
+     * @param initialCapacity the queue initial capacity, the buffer never shrinks below it. Must be 2 or more.
+     * @param maxCapacity     the maximum capacity will be rounded up to the closest power of 2 and will be the
+     *                        upper limit of number of elements in this queue. Must be 4 or more and round up to a larger
+     *                        power of 2 than initialCapacity.
+     * @param shrink          true to shrink the buffer back when the occupancy stays low
+     */
+    public MpscGrowableArrayQueue(int initialCapacity, int maxCapacity, boolean shrink)
     {
         super(initialCapacity, maxCapacity);
+        this.shrinkable = shrink;
+        this.initialBufferLength = length(consumerBuffer);
+    }
+
+    @Override
+    protected void onEmptyPoll(long cIndex)
+    {
+        if (!shrinkable)
+        {
+            return;
+        }
+        final int bufferLength = length(consumerBuffer);
+        final long consumed = (cIndex - lastEmptyIndex) >> 1;
+        lastEmptyIndex = cIndex;
+        if (bufferLength == initialBufferLength || consumed > (bufferLength - 1) >> 2)
+        {
+            lowOccupancyPolls = 0;
+            return;
+        }
+        if (++lowOccupancyPolls >= SHRINK_AFTER && shrink(cIndex, (bufferLength - 1) / 2 + 1))
+        {
+            lowOccupancyPolls = 0;
+            lastEmptyIndex = lpConsumerIndex();
+        }
     }
 
 
@@ -0,0 +1,429 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+import static org.jctools.util.UnsafeLongArrayAccess.*;
+
+abstract class MpscLongArrayQueueL1Pad extends ConcurrentSequencedCircularLongArrayQueue
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscLongArrayQueueL1Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+abstract class MpscLongArrayQueueProducerIndexField extends MpscLongArrayQueueL1Pad
+{
+    private final static long P_INDEX_OFFSET = fieldOffset(MpscLongArrayQueueProducerIndexField.class, "producerIndex");
+
+    private volatile long producerIndex;
+
+    MpscLongArrayQueueProducerIndexField(int capacity)
+    {
+        super(capacity);
+    }
+
+    @Override
+    public final long lvProducerIndex()
+    {
+        return producerIndex;
+    }
+
+    final boolean casProducerIndex(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, P_INDEX_OFFSET, expect, newValue);
+    }
+}
+
+abstract class MpscLongArrayQueueMidPad extends MpscLongArrayQueueProducerIndexField
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscLongArrayQueueMidPad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+abstract class MpscLongArrayQueueProducerLimitField extends MpscLongArrayQueueMidPad
+{
+    private final static long P_LIMIT_OFFSET = fieldOffset(MpscLongArrayQueueProducerLimitField.class, "producerLimit");
+
+    // First unavailable index the producer may claim up to before rereading the consumer index
+    private volatile long producerLimit;
+
+    MpscLongArrayQueueProducerLimitField(int capacity)
+    {
+        super(capacity);
+        this.producerLimit = capacity();
+    }
+
+    final long lvProducerLimit()
+    {
+        return producerLimit;
+    }
+
+    final void soProducerLimit(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, P_LIMIT_OFFSET, newValue);
+    }
+}
+
+abstract class MpscLongArrayQueueL2Pad extends MpscLongArrayQueueProducerLimitField
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscLongArrayQueueL2Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+abstract class MpscLongArrayQueueConsumerIndexField extends MpscLongArrayQueueL2Pad
+{
+    private final static long C_INDEX_OFFSET = fieldOffset(MpscLongArrayQueueConsumerIndexField.class, "consumerIndex");
+
+    private volatile long consumerIndex;
+
+    MpscLongArrayQueueConsumerIndexField(int capacity)
+    {
+        super(capacity);
+    }
+
+    @Override
+    public final long lvConsumerIndex()
+    {
+        return consumerIndex;
+    }
+
+    final long lpConsumerIndex()
+    {
+        return UNSAFE.getLong(this, C_INDEX_OFFSET);
+    }
+
+    final void soConsumerIndex(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, C_INDEX_OFFSET, newValue);
+    }
+}
+
+abstract class MpscLongArrayQueueL3Pad extends MpscLongArrayQueueConsumerIndexField
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscLongArrayQueueL3Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+/**
+ * A Multi-Producer-Single-Consumer {@code long} queue backed by a pre-allocated buffer.
+ * <p>
+ * The producer side follows {@link MpscArrayQueue}: producers claim a slot with a single CAS on the producer index,
+ * bounded by a cached producer limit. As there is no {@code null} to signal an empty slot, a slot is published by
+ * an ordered store of its sequence ({@code index + 1}) after the element is written, and the consumer only reads
+ * the element once it observes the expected sequence. Slot reuse is guarded by the producer limit (a producer can
+ * not claim an index before the consumer moved past the previous lap), so the consumer never needs to reset the
+ * sequence.
+ */
+public class MpscLongArrayQueue extends MpscLongArrayQueueL3Pad
+{
+    public MpscLongArrayQueue(final int capacity)
+    {
+        super(capacity);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Lock free offer using a single CAS. As class name suggests access is permitted to many threads
+     * concurrently.
+     */
+    @Override
+    public boolean offer(final long e)
+    {
+        // use a cached view on consumer index (potentially updated in loop)
+        final long mask = this.mask;
+        long producerLimit = lvProducerLimit();
+        long pIndex;
+        do
+        {
+            pIndex = lvProducerIndex();
+            if (pIndex >= producerLimit)
+            {
+                final long cIndex = lvConsumerIndex();
+                producerLimit = cIndex + mask + 1;
+
+                if (pIndex >= producerLimit)
+                {
+                    return false; // FULL :(
+                }
+                else
+                {
+                    // update producer limit to the next index that we must recheck the consumer index
+                    // this is racy, but the race is benign
+                    soProducerLimit(producerLimit);
+                }
+            }
+        }
+        while (!casProducerIndex(pIndex, pIndex + 1));
+
+        // Won CAS, move on to storing
+        final long offset = calcCircularLongElementOffset(pIndex, mask);
+        spLongElement(buffer, offset, e);
+        // the sequence store publishes the element
+        soLongElement(sequenceBuffer, offset, pIndex + 1);
+        return true; // AWESOME :)
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Lock free poll using ordered loads/stores. As class name suggests access is limited to a single thread.
+     */
+    @Override
+    public long poll(final long emptyValue)
+    {
+        final long cIndex = lpConsumerIndex();
+        final long offset = calcCircularLongElementOffset(cIndex, mask);
+        final long[] sBuffer = sequenceBuffer;
+        final long expectedSeq = cIndex + 1;
+        if (lvLongElement(sBuffer, offset) != expectedSeq)
+        {
+            /*
+             * NOTE: Queue may not actually be empty in the case of a producer (P1) being interrupted after
+             * winning the CAS on offer but before publishing the element in the queue. Other producers may go on
+             * to fill up the queue after this element.
+             */
+            if (cIndex == lvProducerIndex())
+            {
+                return emptyValue;
+            }
+            while (lvLongElement(sBuffer, offset) != expectedSeq)
+            {
+                // spin wait for the element to be published
+            }
+        }
+        final long e = lpLongElement(buffer, offset);
+        soConsumerIndex(expectedSeq);
+        return e;
+    }
+
+    @Override
+    public long peek(final long emptyValue)
+    {
+        final long cIndex = lpConsumerIndex();
+        final long offset = calcCircularLongElementOffset(cIndex, mask);
+        final long[] sBuffer = sequenceBuffer;
+        final long expectedSeq = cIndex + 1;
+        if (lvLongElement(sBuffer, offset) != expectedSeq)
+        {
+            if (cIndex == lvProducerIndex())
+            {
+                return emptyValue;
+            }
+            while (lvLongElement(sBuffer, offset) != expectedSeq)
+            {
+                // spin wait for the element to be published
+            }
+        }
+        return lpLongElement(buffer, offset);
+    }
+
+    @Override
+    public boolean relaxedOffer(final long e)
+    {
+        return offer(e);
+    }
+
+    @Override
+    public long relaxedPoll(final long emptyValue)
+    {
+        final long cIndex = lpConsumerIndex();
+        final long offset = calcCircularLongElementOffset(cIndex, mask);
+        if (lvLongElement(sequenceBuffer, offset) != cIndex + 1)
+        {
+            return emptyValue;
+        }
+        final long e = lpLongElement(buffer, offset);
+        soConsumerIndex(cIndex + 1);
+        return e;
+    }
+
+    @Override
+    public long relaxedPeek(final long emptyValue)
+    {
+        final long cIndex = lpConsumerIndex();
+        final long offset = calcCircularLongElementOffset(cIndex, mask);
+        if (lvLongElement(sequenceBuffer, offset) != cIndex + 1)
+        {
+            return emptyValue;
+        }
+        return lpLongElement(buffer, offset);
+    }
+
+    @Override
+    public int drain(final LongConsumer c, final int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+
+        final long[] buffer = this.buffer;
+        final long[] sBuffer = sequenceBuffer;
+        final long mask = this.mask;
+        final long cIndex = lpConsumerIndex();
+
+        for (int i = 0; i < limit; i++)
+        {
+            final long index = cIndex + i;
+            final long offset = calcCircularLongElementOffset(index, mask);
+            if (lvLongElement(sBuffer, offset) != index + 1)
+            {
+                return i;
+            }
+            final long e = lpLongElement(buffer, offset);
+            soConsumerIndex(index + 1); // ordered store -> atomic and ordered for size()
+            c.accept(e);
+        }
+        return limit;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * The available slots, up to {@code limit}, are claimed with a single CAS and published one by one.
+     */
+    @Override
+    public int fill(final LongSupplier s, final int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+
+        final long mask = this.mask;
+        final long capacity = mask + 1;
+        long producerLimit = lvProducerLimit();
+        long pIndex;
+        int actualLimit;
+        do
+        {
+            pIndex = lvProducerIndex();
+            long available = producerLimit - pIndex;
+            if (available <= 0)
+            {
+                final long cIndex = lvConsumerIndex();
+                producerLimit = cIndex + capacity;
+                available = producerLimit - pIndex;
+                if (available <= 0)
+                {
+                    return 0; // FULL :(
+                }
+                else
+                {
+                    // update producer limit to the next index that we must recheck the consumer index
+                    soProducerLimit(producerLimit);
+                }
+            }
+            actualLimit = Math.min((int) available, limit);
+        }
+        while (!casProducerIndex(pIndex, pIndex + actualLimit));
+
+        // right, now we claimed a few slots and can fill them with goodness
+        final long[] buffer = this.buffer;
+        final long[] sBuffer = sequenceBuffer;
+        for (int i = 0; i < actualLimit; i++)
+        {
+            final long index = pIndex + i;
+            final long offset = calcCircularLongElementOffset(index, mask);
+            spLongElement(buffer, offset, s.get());
+            soLongElement(sBuffer, offset, index + 1);
+        }
+        return actualLimit;
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.RangeUtil;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+abstract class MpscPriorityArrayQueueL0Pad<E> extends AbstractQueue<E> implements MessagePassingQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class MpscPriorityArrayQueueColdFields<E> extends MpscPriorityArrayQueueL0Pad<E>
+{
+    static final int MAX_LANES = Long.SIZE;
+
+    protected final MpscArrayQueue<E>[] lanes;
+    // the lane plain offers and fills go to
+    protected final int defaultPriority;
+
+    MpscPriorityArrayQueueColdFields(int priorities, int laneCapacity)
+    {
+        RangeUtil.checkGreaterThanOrEqual(priorities, 1, "priorities");
+        RangeUtil.checkLessThanOrEqual(priorities, MAX_LANES, "priorities");
+        lanes = allocateLanes(priorities);
+        for (int i = 0; i < priorities; i++)
+        {
+            lanes[i] = new MpscArrayQueue<E>(laneCapacity);
+        }
+        defaultPriority = priorities - 1;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <E> MpscArrayQueue<E>[] allocateLanes(int length)
+    {
+        return new MpscArrayQueue[length];
+    }
+}
+
+abstract class MpscPriorityArrayQueueMidPad<E> extends MpscPriorityArrayQueueColdFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscPriorityArrayQueueMidPad(int priorities, int laneCapacity)
+    {
+        super(priorities, laneCapacity);
+    }
+}
+
+abstract class MpscPriorityArrayQueueOccupancyField<E> extends MpscPriorityArrayQueueMidPad<E>
+{
+    private final static long OCCUPANCY_OFFSET = fieldOffset(MpscPriorityArrayQueueOccupancyField.class, "occupancy");
+
+    // bit i is set while lane i may hold elements, set by producers and cleared by the consumer
+    private volatile long occupancy;
+
+    MpscPriorityArrayQueueOccupancyField(int priorities, int laneCapacity)
+    {
+        super(priorities, laneCapacity);
+    }
+
+    final long lvOccupancy()
+    {
+        return occupancy;
+    }
+
+    final boolean casOccupancy(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, OCCUPANCY_OFFSET, expect, newValue);
+    }
+}
+
+/**
+ * A multi-producer single-consumer queue made of a fixed number of priority lanes, each an {@link MpscArrayQueue}.
+ * Lane 0 has the highest priority. Producers pick a lane using {@link #offer(Object, int)}, the plain
+ * {@link #offer(Object)} and fill methods use the lowest priority lane.
+ * <p>
+ * A lane occupancy bitmap is maintained alongside the lanes so that the consumer finds the highest priority non-empty
+ * lane in O(1) rather than scanning all lanes:
+ * <ol>
+ * <li>A producer sets the lane bit after inserting into the lane, unless it is already set.
+ * <li>The consumer clears the lane bit when it finds the lane empty and then re-checks the lane, setting the bit
+ * again if an element was inserted in the meantime. Either the producer observes the cleared bit or the consumer
+ * observes the new element.
+ * </ol>
+ * Every poll/drain step selects the lane anew, so a high priority element offered during a long drain is consumed
+ * ahead of the remaining lower priority elements. Ordering is FIFO per lane and per producer, but not across lanes.
+ * <p>
+ * {@link #capacity()} reports the capacity of a single lane, which bounds {@link #offer(Object)}. The queue as a whole
+ * may hold up to {@code priorities() * capacity()} elements.
+ */
+public class MpscPriorityArrayQueue<E> extends MpscPriorityArrayQueueOccupancyField<E> implements BatchPollingQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    /**
+     * @param priorities   the number of priority lanes, between 1 and 64
+     * @param laneCapacity the capacity of each lane, rounded up to the next power of 2
+     */
+    public MpscPriorityArrayQueue(int priorities, int laneCapacity)
+    {
+        super(priorities, laneCapacity);
+    }
+
+    /**
+     * @return the number of priority lanes
+     */
+    public int priorities()
+    {
+        return lanes.length;
+    }
+
+    @Override
+    public boolean offer(final E e)
+    {
+        return offer(e, defaultPriority);
+    }
+
+    /**
+     * {@link #offer(Object)} into the lane of the given priority.
+     *
+     * @param e        the element
+     * @param priority the lane to offer to, 0 being the highest priority
+     * @return true if the element was inserted, false iff the lane is full
+     * @throws IllegalArgumentException if priority is not a valid lane
+     */
+    public boolean offer(final E e, final int priority)
+    {
+        if (lanes[checkPriority(priority)].offer(e))
+        {
+            markOccupied(priority);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean relaxedOffer(final E e)
+    {
+        return relaxedOffer(e, defaultPriority);
+    }
+
+    /**
+     * {@link #relaxedOffer(Object)} into the lane of the given priority.
+     *
+     * @param e        the element
+     * @param priority the lane to offer to, 0 being the highest priority
+     * @return true if the element was inserted, false if unable to offer
+     * @throws IllegalArgumentException if priority is not a valid lane
+     */
+    public boolean relaxedOffer(final E e, final int priority)
+    {
+        if (lanes[checkPriority(priority)].relaxedOffer(e))
+        {
+            markOccupied(priority);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public E poll()
+    {
+        final MpscArrayQueue<E>[] lanes = this.lanes;
+        long occupancy;
+        while ((occupancy = lvOccupancy()) != 0)
+        {
+            final int lane = Long.numberOfTrailingZeros(occupancy);
+            final E e = lanes[lane].poll();
+            if (e != null)
+            {
+                return e;
+            }
+            // lane is re-marked if an element was inserted after the poll, the next round will find it
+            clearOccupied(lane);
+        }
+        return null;
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        final MpscArrayQueue<E>[] lanes = this.lanes;
+        long occupancy;
+        while ((occupancy = lvOccupancy()) != 0)
+        {
+            final int lane = Long.numberOfTrailingZeros(occupancy);
+            final E e = lanes[lane].relaxedPoll();
+            if (e != null)
+            {
+                return e;
+            }
+            if (!clearOccupied(lane))
+            {
+                // an element is being inserted into the highest lane, don't wait for it
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E peek()
+    {
+        final MpscArrayQueue<E>[] lanes = this.lanes;
+        long occupancy;
+        while ((occupancy = lvOccupancy()) != 0)
+        {
+            final int lane = Long.numberOfTrailingZeros(occupancy);
+            final E e = lanes[lane].peek();
+            if (e != null)
+            {
+                return e;
+            }
+            clearOccupied(lane);
+        }
+        return null;
+    }
+
+    @Override
+    public E relaxedPeek()
+    {
+        final MpscArrayQueue<E>[] lanes = this.lanes;
+        long occupancy;
+        while ((occupancy = lvOccupancy()) != 0)
+        {
+            final int lane = Long.numberOfTrailingZeros(occupancy);
+            final E e = lanes[lane].relaxedPeek();
+            if (e != null)
+            {
+                return e;
+            }
+            if (!clearOccupied(lane))
+            {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Only lanes marked as occupied are counted, an element is therefore visible to {@link #size()} and
+     * {@link #isEmpty()} once the offer which inserted it has returned.
+     */
+    @Override
+    public int size()
+    {
+        final MpscArrayQueue<E>[] lanes = this.lanes;
+        long occupancy = lvOccupancy();
+        int size = 0;
+        while (occupancy != 0)
+        {
+            size += lanes[Long.numberOfTrailingZeros(occupancy)].size();
+            occupancy &= occupancy - 1;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        final MpscArrayQueue<E>[] lanes = this.lanes;
+        long occupancy = lvOccupancy();
+        while (occupancy != 0)
+        {
+            if (!lanes[Long.numberOfTrailingZeros(occupancy)].isEmpty())
+            {
+                return false;
+            }
+            occupancy &= occupancy - 1;
+        }
+        return true;
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    @Override
+    public int capacity()
+    {
+        return lanes[0].capacity();
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return MessagePassingQueueUtil.drain(this, c);
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, c, limit);
+    }
+
+    @Override
+    public int poll(E[] dst, int offset, int max)
+    {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, wait, exit);
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return MessagePassingQueueUtil.fillBounded(this, s);
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        final int filled = lanes[defaultPriority].fill(s, limit);
+        if (filled != 0)
+        {
+            markOccupied(defaultPriority);
+        }
+        return filled;
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+
+    private int checkPriority(int priority)
+    {
+        RangeUtil.checkPositiveOrZero(priority, "priority");
+        return RangeUtil.checkLessThan(priority, lanes.length, "priority");
+    }
+
+    private void markOccupied(int lane)
+    {
+        final long bit = 1L << lane;
+        long occupancy;
+        while (((occupancy = lvOccupancy()) & bit) == 0)
+        {
+            if (casOccupancy(occupancy, occupancy | bit))
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Consumer only. Clear the lane bit and re-check the lane, restoring the bit if it is not empty.
+     *
+     * @return true if the lane was found empty after clearing its bit
+     */
+    private boolean clearOccupied(int lane)
+    {
+        final long bit = 1L << lane;
+        long occupancy;
+        do
+        {
+            occupancy = lvOccupancy();
+        }
+        while (!casOccupancy(occupancy, occupancy & ~bit));
+        // StoreLoad is provided by the CAS, pairs with the producer inserting into the lane before reading the bitmap
+        if (lanes[lane].isEmpty())
+        {
+            return true;
+        }
+        markOccupied(lane);
+        return false;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.MessagePassingQueue.Consumer;
+import org.jctools.queues.MessagePassingQueue.Supplier;
+
+import static org.jctools.util.UnsafeLongArrayAccess.*;
+import static org.jctools.util.UnsafeRefArrayAccess.*;
+
+/**
+ * A Multi-Producer-Single-Consumer {@link SequencedEventArrayRing}. Any thread may claim and publish, a single thread
+ * may drain. The consumer index is advanced with an ordered store after each handled event, so an exception thrown by
+ * the handler leaves the event in the ring to be handed out again by the next drain.
+ *
+ * @param <E> the event type
+ */
+public class MpscSequencedEventArrayRing<E> extends SequencedEventArrayRing<E>
+{
+    /**
+     * @param capacity the ring capacity, rounded up to the next power of 2
+     * @param factory  called once per slot to pre-allocate the events, must not return null
+     */
+    public MpscSequencedEventArrayRing(int capacity, Supplier<E> factory)
+    {
+        super(capacity, factory);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Single consumer only.
+     */
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        checkDrainArgs(c, limit);
+        final long mask = this.mask;
+        final long[] sBuffer = sequenceBuffer;
+        final E[] buffer = this.buffer;
+        final long cIndex = lpConsumerIndex();
+
+        for (int i = 0; i < limit; i++)
+        {
+            final long index = cIndex + i;
+            final long seqOffset = calcCircularLongElementOffset(index, mask);
+            if (lvLongElement(sBuffer, seqOffset) != index + 1)
+            {
+                return i;
+            }
+            c.accept(lpRefElement(buffer, calcCircularRefElementOffset(index, mask)));
+            // i.e. seq += capacity
+            soLongElement(sBuffer, seqOffset, index + mask + 1);
+            soConsumerIndex(index + 1);
+        }
+        return limit;
+    }
+}
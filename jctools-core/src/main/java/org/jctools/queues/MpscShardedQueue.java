@@ -0,0 +1,491 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+abstract class MpscShardedQueueL0Pad<E> extends AbstractQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class MpscShardedQueueShardsField<E> extends MpscShardedQueueL0Pad<E>
+{
+    private final static long SHARDS_OFFSET = fieldOffset(MpscShardedQueueShardsField.class, "shards");
+
+    // copy on write, added to by registering producers and removed from by the consumer
+    private volatile MpscShardedQueue.Shard<E>[] shards;
+
+    MpscShardedQueueShardsField()
+    {
+        shards = allocateShards(0);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <E> MpscShardedQueue.Shard<E>[] allocateShards(int length)
+    {
+        return new MpscShardedQueue.Shard[length];
+    }
+
+    final MpscShardedQueue.Shard<E>[] lvShards()
+    {
+        return shards;
+    }
+
+    final boolean casShards(MpscShardedQueue.Shard<E>[] expect, MpscShardedQueue.Shard<E>[] newValue)
+    {
+        return UNSAFE.compareAndSwapObject(this, SHARDS_OFFSET, expect, newValue);
+    }
+}
+
+abstract class MpscShardedQueueMidPad<E> extends MpscShardedQueueShardsField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class MpscShardedQueueConsumerFields<E> extends MpscShardedQueueMidPad<E>
+{
+    // the shard the consumer polls next, and how many more polls it takes from it before moving on
+    int consumerShard;
+    int consumerShardBudget;
+}
+
+/**
+ * A Multi-Producer-Single-Consumer queue made of one {@link SpscArrayQueue} shard per producer thread, so producers
+ * never contend with each other.
+ * <p>
+ * A producer thread registers on its first offer: its shard is created and held in a thread local, and added to the
+ * copy on write array of shards the consumer reads. The consumer visits the shards round robin, taking up to
+ * {@code consumerBatch} elements from a shard before moving to the next. A drain takes each batch with a single
+ * {@link SpscArrayQueue#drain(Consumer, int)}.
+ * <p>
+ * Shards are deregistered by the consumer once they are empty and retired. A shard is retired when its producer
+ * called {@link #deregister()}, or when its thread has terminated or been collected. A thread that offers again
+ * after {@link #deregister()} registers a new shard.
+ * <p>
+ * Ordering is FIFO per producer only. There is no order between elements offered by different producers. The
+ * queue is bounded per producer: {@link #offer(Object)} fails once the calling thread's shard is full, even if other
+ * shards have room, and {@link #capacity()} is the capacity of a single shard. {@link #poll()} returns null when every
+ * shard was seen empty during one scan.
+ * <p>
+ * Each thread keeps a thread local entry for every queue it has offered to, for as long as the thread lives, unless it
+ * calls {@link #deregister()}. Short lived queues offered to from long lived threads should deregister.
+ */
+public class MpscShardedQueue<E> extends MpscShardedQueueConsumerFields<E> implements BatchPollingQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    static final class Shard<E>
+    {
+        final SpscArrayQueue<E> queue;
+        final WeakReference<Thread> owner;
+        volatile boolean deregistered;
+
+        Shard(int capacity)
+        {
+            this.queue = new SpscArrayQueue<E>(capacity);
+            this.owner = new WeakReference<Thread>(Thread.currentThread());
+        }
+
+        /**
+         * Once true no more elements are offered to this shard. Thread termination, like a volatile store, is ordered
+         * after the thread's last offer.
+         */
+        boolean isRetired()
+        {
+            if (deregistered)
+            {
+                return true;
+            }
+            final Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+    }
+
+    private final int shardCapacity;
+    private final int consumerBatch;
+    private final ThreadLocal<Shard<E>> producerShard = new ThreadLocal<Shard<E>>()
+    {
+        @Override
+        protected Shard<E> initialValue()
+        {
+            final Shard<E> shard = new Shard<E>(shardCapacity);
+            addShard(shard);
+            return shard;
+        }
+    };
+
+    /**
+     * @param shardCapacity the capacity of each producer's shard, rounded up to the next power of 2
+     */
+    public MpscShardedQueue(int shardCapacity)
+    {
+        this(shardCapacity, 64);
+    }
+
+    /**
+     * @param shardCapacity the capacity of each producer's shard, rounded up to the next power of 2
+     * @param consumerBatch the maximum number of elements the consumer takes from a shard before moving to the next
+     */
+    public MpscShardedQueue(int shardCapacity, int consumerBatch)
+    {
+        RangeUtil.checkPositive(shardCapacity, "shardCapacity");
+        RangeUtil.checkGreaterThanOrEqual(consumerBatch, 1, "consumerBatch");
+        // as SpscArrayQueue rounds it
+        this.shardCapacity = Pow2.roundToPowerOfTwo(Math.max(shardCapacity, 4));
+        this.consumerBatch = consumerBatch;
+        this.consumerShardBudget = consumerBatch;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Offers to the calling thread's shard, registering it on the first offer.
+     */
+    @Override
+    public boolean offer(E e)
+    {
+        return producerShard.get().queue.offer(e);
+    }
+
+    @Override
+    public boolean relaxedOffer(E e)
+    {
+        return offer(e);
+    }
+
+    /**
+     * Producers only. Retire the calling thread's shard: the elements already offered are still delivered, the shard
+     * is removed once drained and the next offer from this thread registers a new shard.
+     */
+    public void deregister()
+    {
+        final Shard<E> shard = producerShard.get();
+        producerShard.remove();
+        shard.deregistered = true;
+    }
+
+    @Override
+    public E poll()
+    {
+        final Shard<E>[] shards = lvShards();
+        final int n = shards.length;
+        int index = consumerShard;
+        for (int i = 0; i < n; i++, index++)
+        {
+            if (index >= n)
+            {
+                index = 0;
+            }
+            final Shard<E> shard = shards[index];
+            final E e = shard.queue.poll();
+            if (e != null)
+            {
+                if (--consumerShardBudget > 0)
+                {
+                    consumerShard = index;
+                }
+                else
+                {
+                    consumerShardBudget = consumerBatch;
+                    consumerShard = index + 1;
+                }
+                return e;
+            }
+            consumerShardBudget = consumerBatch;
+            removeIfRetired(shard);
+        }
+        consumerShard = index;
+        return null;
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        return poll();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Scans the shards in the order {@link #poll()} does, so absent concurrent offers the element peeked is the one
+     * polled next.
+     */
+    @Override
+    public E peek()
+    {
+        final Shard<E>[] shards = lvShards();
+        final int n = shards.length;
+        int index = consumerShard;
+        for (int i = 0; i < n; i++, index++)
+        {
+            if (index >= n)
+            {
+                index = 0;
+            }
+            final E e = shards[index].queue.peek();
+            if (e != null)
+            {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E relaxedPeek()
+    {
+        return peek();
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        final Shard<E>[] shards = lvShards();
+        final int n = shards.length;
+        final int consumerBatch = this.consumerBatch;
+        int index = consumerShard;
+        int drained = 0;
+        // stop after a full round of shards with nothing to drain
+        int idleShards = 0;
+        while (drained < limit && idleShards < n)
+        {
+            if (index >= n)
+            {
+                index = 0;
+            }
+            final Shard<E> shard = shards[index];
+            final int batch = shard.queue.drain(c, Math.min(consumerBatch, limit - drained));
+            if (batch == 0)
+            {
+                idleShards++;
+                removeIfRetired(shard);
+            }
+            else
+            {
+                idleShards = 0;
+                drained += batch;
+            }
+            index++;
+        }
+        consumerShard = index;
+        consumerShardBudget = consumerBatch;
+        return drained;
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return drain(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, wait, exit);
+    }
+
+    @Override
+    public int poll(E[] dst, int offset, int max)
+    {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Fills the calling thread's shard.
+     */
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        return producerShard.get().queue.fill(s, limit);
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return producerShard.get().queue.fill(s);
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit)
+    {
+        producerShard.get().queue.fill(s, wait, exit);
+    }
+
+    @Override
+    public int size()
+    {
+        long size = 0;
+        for (Shard<E> shard : lvShards())
+        {
+            size += shard.queue.size();
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        for (Shard<E> shard : lvShards())
+        {
+            if (!shard.queue.isEmpty())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear()
+    {
+        while (poll() != null)
+        {
+        }
+    }
+
+    /**
+     * @return the capacity of a single producer's shard
+     */
+    @Override
+    public int capacity()
+    {
+        return shardCapacity;
+    }
+
+    /**
+     * @return the number of registered producer shards, including retired shards not yet drained
+     */
+    public int producers()
+    {
+        return lvShards().length;
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    private void addShard(Shard<E> shard)
+    {
+        Shard<E>[] oldShards;
+        Shard<E>[] newShards;
+        do
+        {
+            oldShards = lvShards();
+            newShards = allocateShards(oldShards.length + 1);
+            System.arraycopy(oldShards, 0, newShards, 0, oldShards.length);
+            newShards[oldShards.length] = shard;
+        }
+        while (!casShards(oldShards, newShards));
+    }
+
+    /**
+     * Consumer only, remove the shard if no more elements can arrive in it.
+     */
+    private void removeIfRetired(Shard<E> shard)
+    {
+        // retired is checked first, an element offered before retirement is then visible to isEmpty
+        if (!shard.isRetired() || !shard.queue.isEmpty())
+        {
+            return;
+        }
+        Shard<E>[] oldShards;
+        Shard<E>[] newShards;
+        do
+        {
+            oldShards = lvShards();
+            final int length = oldShards.length;
+            int i = 0;
+            while (i < length && oldShards[i] != shard)
+            {
+                i++;
+            }
+            if (i == length)
+            {
+                return;
+            }
+            newShards = allocateShards(length - 1);
+            System.arraycopy(oldShards, 0, newShards, 0, i);
+            System.arraycopy(oldShards, i + 1, newShards, i, length - i - 1);
+        }
+        while (!casShards(oldShards, newShards));
+    }
+}
@@ -73,6 +73,50 @@ public class MpscUnboundedXaddArrayQueue<E> extends MpUnboundedXaddArrayQueue<Mp
         return true;
     }
 
+    /**
+     * Offer a slice of {@code src} as a batch. The producer index range is claimed with a single XADD and the
+     * elements are published in order.
+     *
+     * @param src the elements to offer, none of which may be {@code null}
+     * @param offset the index in {@code src} of the first element to offer
+     * @param length the number of elements to offer
+     * @return {@code length}, as the queue is unbounded
+     * @throws IndexOutOfBoundsException if the slice is not within {@code src}
+     * @throws NullPointerException if any element in the slice is {@code null}
+     */
+    public int offer(E[] src, int offset, int length)
+    {
+        MessagePassingQueueUtil.checkOfferBatch(src, offset, length);
+        if (length == 0)
+            return 0;
+
+        final int chunkShift = this.chunkShift;
+        final int chunkMask = this.chunkMask;
+
+        long pIndex = getAndAddProducerIndex(length);
+        MpscUnboundedXaddChunk<E> pChunk = null;
+        for (int i = 0; i < length; i++)
+        {
+            final int pChunkOffset = (int) (pIndex & chunkMask);
+            final long chunkIndex = pIndex >> chunkShift;
+            if (pChunk == null || pChunk.lvIndex() != chunkIndex)
+            {
+                pChunk = producerChunkForIndex(pChunk, chunkIndex);
+            }
+            pChunk.soElement(pChunkOffset, src[offset + i]);
+            pIndex++;
+        }
+        return length;
+    }
+
+    /**
+     * Same as {@link #offer(Object[], int, int)}.
+     */
+    public int relaxedOffer(E[] src, int offset, int length)
+    {
+        return offer(src, offset, length);
+    }
+
     private MpscUnboundedXaddChunk<E> pollNextBuffer(MpscUnboundedXaddChunk<E> cChunk, long cIndex)
     {
         final MpscUnboundedXaddChunk<E> next = spinForNextIfNotEmpty(cChunk, cIndex);
@@ -13,68 +13,249 @@
  */
 package org.jctools.queues;
 
+import org.jctools.queues.atomic.AtomicQueueFactory;
+import org.jctools.queues.spec.Blocking;
 import org.jctools.queues.spec.ConcurrentQueueSpec;
 import org.jctools.queues.spec.Ordering;
+import org.jctools.queues.spec.Preference;
+import org.jctools.util.Pow2;
+import org.jctools.util.UnsafeAccess;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * The queue factory produces {@link java.util.Queue} instances based on a best fit to the {@link ConcurrentQueueSpec}.
  * This allows minimal dependencies between user code and the queue implementations and gives users a way to express
  * their requirements on a higher level.
+ * <p>
+ * The {@link org.jctools.queues.spec.Growth} of the spec picks between the preallocated array queues, the linked
+ * chunk queues growing up to the capacity and the unbounded queues, where {@link Preference#THROUGHPUT} selects the
+ * chunked (and for multiple producers the xadd) variants. The chunk size of the spec, if set, is passed on to the
+ * queues with chunks. Specs with {@link Blocking} other than NONE get a {@link java.util.concurrent.BlockingQueue}.
+ * <p>
+ * Bounded SPSC and MPSC specs which prefer {@link Preference#MEMORY} get a {@link MpscCompactArrayQueue}, trading
+ * throughput for footprint.
+ * <p>
+ * When {@code sun.misc.Unsafe} is not usable the factory falls back to the {@code VarHandle} queues (Java 9+, if
+ * present) or otherwise to {@link AtomicQueueFactory}.
  *
  * @author nitsanw
  */
 @Deprecated//(since = "3.0.0")
 public class QueueFactory
 {
+    private static final boolean UNSAFE_AVAILABLE = isUnsafeAvailable();
+    private static final Method VAR_HANDLE_FACTORY = UNSAFE_AVAILABLE ? null : findVarHandleFactory();
+    private static final int DEFAULT_CHUNK_SIZE = 1024;
 
     public static <E> Queue<E> newQueue(ConcurrentQueueSpec qs)
     {
-        if (qs.isBounded())
+        if (!UNSAFE_AVAILABLE)
         {
-            // SPSC
-            if (qs.isSpsc())
+            return newPortableQueue(qs);
+        }
+        if (qs.blocking != Blocking.NONE)
+        {
+            return newBlockingQueue(qs);
+        }
+        // small and unpadded, for when there are lots of queues
+        if (qs.isBounded() && qs.preference == Preference.MEMORY && qs.consumers == 1)
+        {
+            return new MpscCompactArrayQueue<E>(qs.capacity);
+        }
+        switch (qs.growth)
+        {
+            case GROWABLE:
+                return newGrowableQueue(qs);
+            case UNBOUNDED:
+                return newUnboundedQueue(qs);
+            default:
+                return newBoundedQueue(qs);
+        }
+    }
+
+    private static <E> Queue<E> newBoundedQueue(ConcurrentQueueSpec qs)
+    {
+        // SPSC
+        if (qs.isSpsc())
+        {
+            return new SpscArrayQueue<E>(qs.capacity);
+        }
+        // MPSC
+        else if (qs.isMpsc())
+        {
+            if (qs.ordering != Ordering.NONE)
             {
-                return new SpscArrayQueue<E>(qs.capacity);
+                return new MpscArrayQueue<E>(qs.capacity);
             }
-            // MPSC
-            else if (qs.isMpsc())
+            else
             {
-                if (qs.ordering != Ordering.NONE)
-                {
-                    return new MpscArrayQueue<E>(qs.capacity);
-                }
-                else
-                {
-                    return new MpscCompoundQueue<E>(qs.capacity);
-                }
+                return new MpscCompoundQueue<E>(qs.capacity);
             }
-            // SPMC
-            else if (qs.isSpmc())
+        }
+        // SPMC
+        else if (qs.isSpmc())
+        {
+            return new SpmcArrayQueue<E>(qs.capacity);
+        }
+        // MPMC
+        else
+        {
+            // a single stripe would only add an indirection over MpmcArrayQueue
+            if (qs.ordering != Ordering.NONE || MpmcStripedQueue.defaultStripeCount(qs.capacity) < 2)
             {
-                return new SpmcArrayQueue<E>(qs.capacity);
+                return new MpmcArrayQueue<E>(qs.capacity);
             }
-            // MPMC
             else
             {
-                return new MpmcArrayQueue<E>(qs.capacity);
+                return new MpmcStripedQueue<E>(qs.capacity);
             }
         }
-        else
+    }
+
+    /**
+     * Capacities too small to grow in, and SPMC/MPMC specs, are served by the bounded queues.
+     */
+    private static <E> Queue<E> newGrowableQueue(ConcurrentQueueSpec qs)
+    {
+        final int capacity = qs.capacity;
+        // SPSC
+        if (qs.isSpsc() && capacity >= 16)
+        {
+            final int chunkSize = Math.max(8, qs.chunkSize);
+            if (qs.chunkSize != 0 && fitsChunks(chunkSize, capacity))
+            {
+                return new SpscChunkedArrayQueue<E>(chunkSize, capacity);
+            }
+            return new SpscGrowableArrayQueue<E>(capacity);
+        }
+        // MPSC
+        else if (qs.isMpsc() && capacity >= 4)
+        {
+            final int chunkSize = Math.max(2, qs.chunkSize);
+            if (qs.chunkSize != 0 && fitsChunks(chunkSize, capacity))
+            {
+                return new MpscChunkedArrayQueue<E>(chunkSize, capacity);
+            }
+            return new MpscGrowableArrayQueue<E>(capacity);
+        }
+        // SPMC/MPMC have no queue which grows, the bounded xadd queue allocates its chunks up front
+        return newBoundedQueue(qs);
+    }
+
+    private static <E> Queue<E> newUnboundedQueue(ConcurrentQueueSpec qs)
+    {
+        final int chunkSize = qs.chunkSize != 0 ? qs.chunkSize : DEFAULT_CHUNK_SIZE;
+        // SPSC
+        if (qs.isSpsc())
+        {
+            if (qs.chunkSize != 0 || qs.preference == Preference.THROUGHPUT)
+            {
+                return new SpscUnboundedArrayQueue<E>(chunkSize);
+            }
+            return new SpscLinkedQueue<E>();
+        }
+        // MPSC
+        else if (qs.isMpsc())
         {
-            // SPSC
-            if (qs.isSpsc())
+            // the xadd producers scale better under contention
+            if (qs.preference == Preference.THROUGHPUT)
             {
-                return new SpscLinkedQueue<E>();
+                return new MpscUnboundedXaddArrayQueue<E>(chunkSize);
             }
-            // MPSC
-            else if (qs.isMpsc())
+            else if (qs.chunkSize != 0)
             {
-                return new MpscLinkedQueue();
+                return new MpscUnboundedArrayQueue<E>(chunkSize);
             }
+            return new MpscLinkedQueue<E>();
+        }
+        // SPMC/MPMC
+        return new MpmcUnboundedXaddArrayQueue<E>(chunkSize);
+    }
+
+    /**
+     * The blocking queues are all array backed, so growable specs get their max capacity allocated up front.
+     */
+    private static <E> Queue<E> newBlockingQueue(ConcurrentQueueSpec qs)
+    {
+        if (!qs.isBounded())
+        {
+            return new LinkedBlockingQueue<E>();
+        }
+        // SPSC
+        if (qs.isSpsc())
+        {
+            return new SpscBlockingArrayQueue<E>(qs.capacity);
+        }
+        // MPSC
+        else if (qs.isMpsc() && qs.blocking == Blocking.CONSUMER)
+        {
+            return new MpscBlockingConsumerArrayQueue<E>(qs.capacity);
+        }
+        return new MpmcBlockingArrayQueue<E>(qs.capacity);
+    }
+
+    private static boolean fitsChunks(int chunkSize, int capacity)
+    {
+        return Pow2.roundToPowerOfTwo(chunkSize) < Pow2.roundToPowerOfTwo(capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Queue<E> newPortableQueue(ConcurrentQueueSpec qs)
+    {
+        if (VAR_HANDLE_FACTORY == null)
+        {
+            return AtomicQueueFactory.newQueue(qs);
+        }
+        try
+        {
+            return (Queue<E>) VAR_HANDLE_FACTORY.invoke(null, qs);
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new IllegalStateException(e);
+        }
+        catch (InvocationTargetException e)
+        {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static boolean isUnsafeAvailable()
+    {
+        try
+        {
+            return UnsafeAccess.UNSAFE != null;
+        }
+        catch (Throwable t)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * The VarHandle queues are compiled for Java 9 and only shipped when built with a 9+ JDK, so they are looked up
+     * reflectively to keep this class loadable on older runtimes.
+     */
+    private static Method findVarHandleFactory()
+    {
+        try
+        {
+            return Class.forName("org.jctools.queues.varhandle.VarHandleQueueFactory")
+                .getMethod("newQueue", ConcurrentQueueSpec.class);
+        }
+        catch (Throwable t)
+        {
+            // not built with a 9+ JDK, or running on a pre-9 JVM
+            return null;
         }
-        return new ConcurrentLinkedQueue<E>();
     }
 }
@@ -0,0 +1,426 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.IndexedQueueSizeUtil.IndexedQueue;
+import org.jctools.queues.MessagePassingQueue.Consumer;
+import org.jctools.queues.MessagePassingQueue.Supplier;
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+import static org.jctools.util.UnsafeLongArrayAccess.*;
+import static org.jctools.util.UnsafeRefArrayAccess.*;
+
+abstract class SequencedEventArrayRingL0Pad<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class SequencedEventArrayRingColdFields<E> extends SequencedEventArrayRingL0Pad<E>
+{
+    protected final long mask;
+    protected final E[] buffer;
+    // slot i holds index when free for the producer of index, index + 1 when published
+    protected final long[] sequenceBuffer;
+
+    SequencedEventArrayRingColdFields(int capacity, Supplier<E> factory)
+    {
+        if (null == factory)
+            throw new IllegalArgumentException("factory is null");
+        int actualCapacity = Pow2.roundToPowerOfTwo(capacity);
+        mask = actualCapacity - 1;
+        buffer = allocateRefArray(actualCapacity);
+        sequenceBuffer = allocateLongArray(actualCapacity);
+        for (long i = 0; i < actualCapacity; i++)
+        {
+            final E e = factory.get();
+            if (null == e)
+                throw new NullPointerException("factory returned null");
+            spRefElement(buffer, calcCircularRefElementOffset(i, mask), e);
+            soLongElement(sequenceBuffer, calcCircularLongElementOffset(i, mask), i);
+        }
+    }
+}
+
+abstract class SequencedEventArrayRingL1Pad<E> extends SequencedEventArrayRingColdFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    SequencedEventArrayRingL1Pad(int capacity, Supplier<E> factory)
+    {
+        super(capacity, factory);
+    }
+}
+
+//$gen:ordered-fields
+abstract class SequencedEventArrayRingProducerIndexField<E> extends SequencedEventArrayRingL1Pad<E>
+{
+    private final static long P_INDEX_OFFSET = fieldOffset(SequencedEventArrayRingProducerIndexField.class, "producerIndex");
+
+    private volatile long producerIndex;
+
+    SequencedEventArrayRingProducerIndexField(int capacity, Supplier<E> factory)
+    {
+        super(capacity, factory);
+    }
+
+    public final long lvProducerIndex()
+    {
+        return producerIndex;
+    }
+
+    final boolean casProducerIndex(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, P_INDEX_OFFSET, expect, newValue);
+    }
+}
+
+abstract class SequencedEventArrayRingL2Pad<E> extends SequencedEventArrayRingProducerIndexField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    SequencedEventArrayRingL2Pad(int capacity, Supplier<E> factory)
+    {
+        super(capacity, factory);
+    }
+}
+
+//$gen:ordered-fields
+abstract class SequencedEventArrayRingConsumerIndexField<E> extends SequencedEventArrayRingL2Pad<E>
+{
+    private final static long C_INDEX_OFFSET = fieldOffset(SequencedEventArrayRingConsumerIndexField.class, "consumerIndex");
+
+    private volatile long consumerIndex;
+
+    SequencedEventArrayRingConsumerIndexField(int capacity, Supplier<E> factory)
+    {
+        super(capacity, factory);
+    }
+
+    public final long lvConsumerIndex()
+    {
+        return consumerIndex;
+    }
+
+    final long lpConsumerIndex()
+    {
+        return UNSAFE.getLong(this, C_INDEX_OFFSET);
+    }
+
+    final void soConsumerIndex(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, C_INDEX_OFFSET, newValue);
+    }
+
+    final boolean casConsumerIndex(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, C_INDEX_OFFSET, expect, newValue);
+    }
+}
+
+abstract class SequencedEventArrayRingL3Pad<E> extends SequencedEventArrayRingConsumerIndexField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    SequencedEventArrayRingL3Pad(int capacity, Supplier<E> factory)
+    {
+        super(capacity, factory);
+    }
+}
+
+/**
+ * A ring of pre-allocated, mutable events. Rather than offering a reference a producer claims a sequence, mutates the
+ * event in the claimed {@link #slot(long)} in place and then publishes the sequence. Consumers are handed the published
+ * events by {@link #drain(Consumer, int)} and the slots are released back to the producers when the handler returns.
+ * No element is allocated or swapped per message.
+ * <p>
+ * Slots are sequenced as in {@link ConcurrentSequencedCircularArrayQueue}: the sequence of a slot is its index while
+ * it is free for the producer claiming that index, index + 1 once published, and index + capacity once released by
+ * the consumer. The ring is not a {@link java.util.Queue}, the events belong to the ring and are never removed from
+ * it.
+ * <p>
+ * Producer usage:
+ * <pre>
+ * <code>
+ * long seq = ring.claim();
+ * if (seq != SequencedEventArrayRing.NO_SEQUENCE)
+ * {
+ *     ring.slot(seq).set(...);
+ *     ring.publish(seq);
+ * }
+ * </code>
+ * </pre>
+ * Every claimed sequence must be published, consumers will not go past an unpublished sequence.
+ *
+ * @param <E> the event type
+ */
+public abstract class SequencedEventArrayRing<E> extends SequencedEventArrayRingL3Pad<E>
+    implements IndexedQueue, QueueProgressIndicators
+{
+    /**
+     * Returned by the claim methods when the ring has no room for the claim.
+     */
+    public static final long NO_SEQUENCE = -1;
+
+    /**
+     * @param capacity the ring capacity, rounded up to the next power of 2
+     * @param factory  called once per slot to pre-allocate the events, must not return null
+     */
+    SequencedEventArrayRing(int capacity, Supplier<E> factory)
+    {
+        super(RangeUtil.checkGreaterThanOrEqual(capacity, 2, "capacity"), factory);
+    }
+
+    /**
+     * Claim the next sequence. The claim fails iff the ring is full, as in {@link MessagePassingQueue#offer(Object)}.
+     *
+     * @return the claimed sequence, or {@link #NO_SEQUENCE} if the ring is full
+     */
+    public final long claim()
+    {
+        final long mask = this.mask;
+        final long capacity = mask + 1;
+        final long[] sBuffer = sequenceBuffer;
+
+        long pIndex;
+        long seq;
+        long cIndex = Long.MIN_VALUE;// start with bogus value, hope we don't need it
+        do
+        {
+            pIndex = lvProducerIndex();
+            seq = lvLongElement(sBuffer, calcCircularLongElementOffset(pIndex, mask));
+            // consumer has not released this slot, it's as last producer left
+            if (seq < pIndex)
+            {
+                // Extra check required to ensure [claim() == NO_SEQUENCE iff ring is full]
+                if (pIndex - capacity >= cIndex && // test against cached cIndex
+                    pIndex - capacity >= (cIndex = lvConsumerIndex())) // test against latest cIndex
+                {
+                    return NO_SEQUENCE;
+                }
+                else
+                {
+                    seq = pIndex + 1; // (+) hack to make it go around again without CAS
+                }
+            }
+        }
+        while (seq > pIndex || // another producer has moved the sequence(or +)
+            !casProducerIndex(pIndex, pIndex + 1)); // failed to increment
+        return pIndex;
+    }
+
+    /**
+     * Claim {@code n} consecutive sequences with a single CAS of the producer index. The claim is all or nothing.
+     *
+     * @param n the number of sequences to claim, from 1 to {@link #capacity()}
+     * @return the first claimed sequence, the last being this value + n - 1, or {@link #NO_SEQUENCE} if the ring does
+     * not have room for {@code n} events
+     * @throws IllegalArgumentException if n is not within [1, capacity]
+     */
+    public final long claim(int n)
+    {
+        RangeUtil.checkGreaterThanOrEqual(n, 1, "n");
+        RangeUtil.checkLessThanOrEqual(n, mask + 1, "n");
+
+        final long mask = this.mask;
+        final long capacity = mask + 1;
+        long pIndex;
+        do
+        {
+            pIndex = lvProducerIndex();
+            if (pIndex + n - capacity > lvConsumerIndex())
+            {
+                return NO_SEQUENCE;
+            }
+        }
+        while (!casProducerIndex(pIndex, pIndex + n));
+
+        final long[] sBuffer = sequenceBuffer;
+        for (long index = pIndex; index < pIndex + n; index++)
+        {
+            // the slot was claimed by a consumer which may not have released it yet
+            while (lvLongElement(sBuffer, calcCircularLongElementOffset(index, mask)) != index)
+            {
+
+            }
+        }
+        return pIndex;
+    }
+
+    /**
+     * Producer side access to the event of a claimed, not yet published, sequence.
+     *
+     * @param seq a sequence claimed by the calling thread
+     * @return the event to mutate in place
+     */
+    public final E slot(long seq)
+    {
+        return lpRefElement(buffer, calcCircularRefElementOffset(seq, mask));
+    }
+
+    /**
+     * Publish a claimed sequence, making the event visible to consumers. Writes to the event made before this call are
+     * visible to the consumer it is handed to.
+     *
+     * @param seq a sequence claimed by the calling thread
+     */
+    public final void publish(long seq)
+    {
+        soLongElement(sequenceBuffer, calcCircularLongElementOffset(seq, mask), seq + 1);
+    }
+
+    /**
+     * Publish the claimed sequences from {@code lo} to {@code hi} inclusive, in order.
+     *
+     * @param lo the first sequence to publish
+     * @param hi the last sequence to publish
+     */
+    public final void publish(long lo, long hi)
+    {
+        final long mask = this.mask;
+        final long[] sBuffer = sequenceBuffer;
+        for (long seq = lo; seq <= hi; seq++)
+        {
+            soLongElement(sBuffer, calcCircularLongElementOffset(seq, mask), seq + 1);
+        }
+    }
+
+    /**
+     * Hand up to {@code limit} published events to the handler, in sequence order. Each slot is released back to the
+     * producers once the handler returns, the handler must not retain the event.
+     *
+     * @return the number of handled events
+     * @throws IllegalArgumentException if c is null or limit is negative
+     */
+    public abstract int drain(Consumer<E> c, int limit);
+
+    /**
+     * Hand up to a ring capacity worth of published events to the handler.
+     *
+     * @return the number of handled events
+     * @throws IllegalArgumentException if c is null
+     * @see #drain(Consumer, int)
+     */
+    public int drain(Consumer<E> c)
+    {
+        return drain(c, capacity());
+    }
+
+    /**
+     * @return the number of claimed sequences which are not yet released, including claimed but unpublished ones
+     */
+    public int size()
+    {
+        return IndexedQueueSizeUtil.size(this);
+    }
+
+    public boolean isEmpty()
+    {
+        return IndexedQueueSizeUtil.isEmpty(this);
+    }
+
+    @Override
+    public int capacity()
+    {
+        return (int) (mask + 1);
+    }
+
+    @Override
+    public long currentProducerIndex()
+    {
+        return lvProducerIndex();
+    }
+
+    @Override
+    public long currentConsumerIndex()
+    {
+        return lvConsumerIndex();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    final void checkDrainArgs(Consumer<E> c, int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+    }
+}
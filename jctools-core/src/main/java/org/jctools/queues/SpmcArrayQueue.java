@@ -194,7 +194,7 @@ abstract class SpmcArrayQueueL3Pad<E> extends SpmcArrayQueueProducerIndexCacheFi
     }
 }
 
-public class SpmcArrayQueue<E> extends SpmcArrayQueueL3Pad<E>
+public class SpmcArrayQueue<E> extends SpmcArrayQueueL3Pad<E> implements BatchPollingQueue<E>
 {
 
     public SpmcArrayQueue(final int capacity)
@@ -356,6 +356,50 @@ public class SpmcArrayQueue<E> extends SpmcArrayQueueL3Pad<E>
         return e;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The run of published elements is claimed with a single CAS of the consumer index.
+     */
+    @Override
+    public int poll(final E[] dst, final int dstOffset, final int max)
+    {
+        MessagePassingQueueUtil.checkPollBatch(dst, dstOffset, max);
+        if (max == 0)
+            return 0;
+
+        final E[] buffer = this.buffer;
+        final long mask = this.mask;
+        long currProducerIndexCache = lvProducerIndexCache();
+        long currentConsumerIndex;
+        int claimed;
+        do
+        {
+            currentConsumerIndex = lvConsumerIndex();
+            if (currentConsumerIndex >= currProducerIndexCache)
+            {
+                long currProducerIndex = lvProducerIndex();
+                if (currentConsumerIndex >= currProducerIndex)
+                {
+                    return 0;
+                }
+                else
+                {
+                    currProducerIndexCache = currProducerIndex;
+                    svProducerIndexCache(currProducerIndex);
+                }
+            }
+            claimed = (int) Math.min(max, currProducerIndexCache - currentConsumerIndex);
+        }
+        while (!casConsumerIndex(currentConsumerIndex, currentConsumerIndex + claimed));
+
+        for (int i = 0; i < claimed; i++)
+        {
+            dst[dstOffset + i] = removeElement(buffer, currentConsumerIndex + i, mask);
+        }
+        return claimed;
+    }
+
     @Override
     public int drain(final Consumer<E> c, final int limit)
     {
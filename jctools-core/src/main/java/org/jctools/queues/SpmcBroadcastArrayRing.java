@@ -0,0 +1,534 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.MessagePassingQueue.Consumer;
+import org.jctools.queues.MessagePassingQueue.Supplier;
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+import static org.jctools.util.UnsafeLongArrayAccess.*;
+import static org.jctools.util.UnsafeRefArrayAccess.*;
+
+abstract class SpmcBroadcastArrayRingL0Pad<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class SpmcBroadcastArrayRingColdFields<E> extends SpmcBroadcastArrayRingL0Pad<E>
+{
+    protected final long mask;
+    protected final E[] buffer;
+    // lossy mode only, slot i holds index + 1 of the element it holds
+    protected final long[] sequenceBuffer;
+    protected final boolean lossy;
+
+    SpmcBroadcastArrayRingColdFields(int capacity, boolean lossy)
+    {
+        int actualCapacity = Pow2.roundToPowerOfTwo(capacity);
+        mask = actualCapacity - 1;
+        buffer = allocateRefArray(actualCapacity);
+        sequenceBuffer = lossy ? allocateLongArray(actualCapacity) : null;
+        this.lossy = lossy;
+    }
+}
+
+abstract class SpmcBroadcastArrayRingL1Pad<E> extends SpmcBroadcastArrayRingColdFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    SpmcBroadcastArrayRingL1Pad(int capacity, boolean lossy)
+    {
+        super(capacity, lossy);
+    }
+}
+
+abstract class SpmcBroadcastArrayRingProducerIndexFields<E> extends SpmcBroadcastArrayRingL1Pad<E>
+{
+    private final static long P_INDEX_OFFSET = fieldOffset(SpmcBroadcastArrayRingProducerIndexFields.class, "producerIndex");
+
+    private volatile long producerIndex;
+    // first index the producer may not write to before re-reading the consumer cursors
+    protected long producerLimit;
+
+    SpmcBroadcastArrayRingProducerIndexFields(int capacity, boolean lossy)
+    {
+        super(capacity, lossy);
+    }
+
+    final long lvProducerIndex()
+    {
+        return producerIndex;
+    }
+
+    final long lpProducerIndex()
+    {
+        return UNSAFE.getLong(this, P_INDEX_OFFSET);
+    }
+
+    final void soProducerIndex(final long newValue)
+    {
+        UNSAFE.putOrderedLong(this, P_INDEX_OFFSET, newValue);
+    }
+}
+
+abstract class SpmcBroadcastArrayRingL2Pad<E> extends SpmcBroadcastArrayRingProducerIndexFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    SpmcBroadcastArrayRingL2Pad(int capacity, boolean lossy)
+    {
+        super(capacity, lossy);
+    }
+}
+
+abstract class SpmcBroadcastCursorL0Pad
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class SpmcBroadcastCursorIndexFields extends SpmcBroadcastCursorL0Pad
+{
+    private final static long C_INDEX_OFFSET = fieldOffset(SpmcBroadcastCursorIndexFields.class, "consumerIndex");
+    private final static long LOST_OFFSET = fieldOffset(SpmcBroadcastCursorIndexFields.class, "lost");
+
+    private volatile long consumerIndex;
+    // written by the consumer, read by any thread
+    private volatile long lost;
+    // consumer only fields
+    protected long producerIndexCache;
+
+    final long lvConsumerIndex()
+    {
+        return consumerIndex;
+    }
+
+    final long lpConsumerIndex()
+    {
+        return UNSAFE.getLong(this, C_INDEX_OFFSET);
+    }
+
+    final void soConsumerIndex(final long newValue)
+    {
+        UNSAFE.putOrderedLong(this, C_INDEX_OFFSET, newValue);
+    }
+
+    final long lvLost()
+    {
+        return lost;
+    }
+
+    final long lpLost()
+    {
+        return UNSAFE.getLong(this, LOST_OFFSET);
+    }
+
+    final void soLost(final long newValue)
+    {
+        UNSAFE.putOrderedLong(this, LOST_OFFSET, newValue);
+    }
+}
+
+abstract class SpmcBroadcastCursorL1Pad extends SpmcBroadcastCursorIndexFields
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+/**
+ * A single producer broadcast ring: every element offered is seen by each of a fixed number of consumers, each
+ * consuming through its own {@link Cursor} at its own pace. The producer writes every element once, as opposed to
+ * offering the same reference into a queue per consumer.
+ * <p>
+ * The layout follows {@link ConcurrentCircularArrayQueue}, a padded power of 2 buffer with a padded producer index,
+ * and every cursor index is padded on its own. The ring is not a {@link java.util.Queue} as there is no single
+ * consumer view of it.
+ * <p>
+ * Two modes are supported:
+ * <ul>
+ * <li>Gated (the default): the producer is gated on the slowest cursor, {@link #offer(Object)} returns false while the
+ * slowest consumer is a full lap behind.
+ * <li>Lossy: the producer never waits. A consumer which is lapped skips to the oldest element still in the ring and
+ * the skipped elements are counted by {@link Cursor#lost()}. Every slot carries a sequence number so consumers can
+ * tell a lapped slot from the element they expect.
+ * </ul>
+ * Consumers do not clear the slots, references are released as the producer overwrites them.
+ *
+ * @param <E> the element type
+ */
+public class SpmcBroadcastArrayRing<E> extends SpmcBroadcastArrayRingL2Pad<E>
+{
+    private final Cursor<E>[] cursors;
+
+    /**
+     * A gated ring, the producer waits for the slowest consumer.
+     *
+     * @param capacity  the ring capacity, rounded up to the next power of 2
+     * @param consumers the number of consumers
+     */
+    public SpmcBroadcastArrayRing(int capacity, int consumers)
+    {
+        this(capacity, consumers, false);
+    }
+
+    /**
+     * @param capacity  the ring capacity, rounded up to the next power of 2
+     * @param consumers the number of consumers
+     * @param lossy     true if the producer should lap slow consumers rather than wait for them
+     */
+    public SpmcBroadcastArrayRing(int capacity, int consumers, boolean lossy)
+    {
+        super(RangeUtil.checkGreaterThanOrEqual(capacity, 2, "capacity"), lossy);
+        RangeUtil.checkGreaterThanOrEqual(consumers, 1, "consumers");
+        cursors = allocateCursors(consumers);
+        for (int i = 0; i < consumers; i++)
+        {
+            cursors[i] = new Cursor<E>(this);
+        }
+        producerLimit = mask + 1;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <E> Cursor<E>[] allocateCursors(int length)
+    {
+        return new Cursor[length];
+    }
+
+    /**
+     * @param index the consumer index, from 0 to {@link #consumers()} - 1
+     * @return the cursor of the given consumer, to be used from a single thread
+     */
+    public Cursor<E> consumer(int index)
+    {
+        return cursors[index];
+    }
+
+    /**
+     * @return the number of consumers
+     */
+    public int consumers()
+    {
+        return cursors.length;
+    }
+
+    public int capacity()
+    {
+        return (int) (mask + 1);
+    }
+
+    public boolean isLossy()
+    {
+        return lossy;
+    }
+
+    /**
+     * @return the number of elements offered so far
+     */
+    public long currentProducerIndex()
+    {
+        return lvProducerIndex();
+    }
+
+    /**
+     * Producer only. Publish an element to all consumers.
+     *
+     * @param e the element
+     * @return true if the element was published, false iff the slowest consumer is a full lap behind. Always true in
+     * lossy mode.
+     * @throws NullPointerException if e is null
+     */
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        final long pIndex = lpProducerIndex();
+        if (pIndex >= producerLimit && !refreshProducerLimit(pIndex, 1))
+        {
+            return false;
+        }
+        writeElement(pIndex, e);
+        soProducerIndex(pIndex + 1);
+        return true;
+    }
+
+    /**
+     * Producer only. Publish up to limit elements from the supplier, the supplier is only called for elements which
+     * fit into the ring.
+     *
+     * @return the number of published elements
+     * @throws IllegalArgumentException if s is null or limit is negative
+     */
+    public int fill(Supplier<E> s, int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+
+        final long pIndex = lpProducerIndex();
+        if (pIndex + limit > producerLimit)
+        {
+            refreshProducerLimit(pIndex, limit);
+            limit = (int) Math.min(limit, producerLimit - pIndex);
+        }
+        for (int i = 0; i < limit; i++)
+        {
+            writeElement(pIndex + i, s.get());
+            // publish every element, consumers need not wait for the whole batch
+            soProducerIndex(pIndex + i + 1);
+        }
+        return limit;
+    }
+
+    private boolean refreshProducerLimit(long pIndex, int required)
+    {
+        if (lossy)
+        {
+            producerLimit = Long.MAX_VALUE;
+            return true;
+        }
+        long slowest = Long.MAX_VALUE;
+        for (Cursor<E> cursor : cursors)
+        {
+            slowest = Math.min(slowest, cursor.lvConsumerIndex());
+        }
+        producerLimit = slowest + mask + 1;
+        return pIndex + required <= producerLimit;
+    }
+
+    private void writeElement(long pIndex, E e)
+    {
+        final long offset = calcCircularRefElementOffset(pIndex, mask);
+        if (lossy)
+        {
+            final long seqOffset = calcCircularLongElementOffset(pIndex, mask);
+            // invalidate the slot first, consumers reading the previous lap check the sequence after the element
+            soLongElement(sequenceBuffer, seqOffset, -1);
+            soRefElement(buffer, offset, e);
+            soLongElement(sequenceBuffer, seqOffset, pIndex + 1);
+        }
+        else
+        {
+            spRefElement(buffer, offset, e);
+        }
+    }
+
+    /**
+     * A consumer view of the ring, all methods but {@link #size()} and {@link #lost()} are to be called from the single
+     * thread owning the cursor.
+     */
+    public static final class Cursor<E> extends SpmcBroadcastCursorL1Pad
+    {
+        private final SpmcBroadcastArrayRing<E> ring;
+
+        Cursor(SpmcBroadcastArrayRing<E> ring)
+        {
+            this.ring = ring;
+        }
+
+        /**
+         * @return the next element for this consumer, or null if it has seen every published element
+         */
+        public E poll()
+        {
+            final E e = read(lpConsumerIndex());
+            if (e != null)
+            {
+                soConsumerIndex(lpConsumerIndex() + 1);
+            }
+            return e;
+        }
+
+        /**
+         * @return the next element for this consumer without consuming it, or null if it has seen every published
+         * element. A lapped cursor skips the lost elements as it would on {@link #poll()}.
+         */
+        public E peek()
+        {
+            return read(lpConsumerIndex());
+        }
+
+        /**
+         * Hand up to limit elements to the consumer.
+         *
+         * @return the number of consumed elements
+         * @throws IllegalArgumentException if c is null or limit is negative
+         */
+        public int drain(Consumer<E> c, int limit)
+        {
+            if (null == c)
+                throw new IllegalArgumentException("c is null");
+            if (limit < 0)
+                throw new IllegalArgumentException("limit is negative: " + limit);
+            int i = 0;
+            E e;
+            for (; i < limit && (e = poll()) != null; i++)
+            {
+                c.accept(e);
+            }
+            return i;
+        }
+
+        /**
+         * Hand up to a ring capacity worth of elements to the consumer.
+         *
+         * @return the number of consumed elements
+         * @throws IllegalArgumentException if c is null
+         */
+        public int drain(Consumer<E> c)
+        {
+            return drain(c, ring.capacity());
+        }
+
+        /**
+         * @return the number of elements published but not yet consumed through this cursor, capped at the ring
+         * capacity
+         */
+        public int size()
+        {
+            final long cIndex = lvConsumerIndex();
+            final long size = ring.lvProducerIndex() - cIndex;
+            return (int) Math.max(0, Math.min(size, ring.capacity()));
+        }
+
+        public boolean isEmpty()
+        {
+            return size() == 0;
+        }
+
+        /**
+         * @return the number of elements this consumer skipped after being lapped, always 0 for a gated ring
+         */
+        public long lost()
+        {
+            return lvLost();
+        }
+
+        private E read(long cIndex)
+        {
+            final SpmcBroadcastArrayRing<E> ring = this.ring;
+            while (true)
+            {
+                if (cIndex >= producerIndexCache)
+                {
+                    producerIndexCache = ring.lvProducerIndex();
+                    if (cIndex >= producerIndexCache)
+                    {
+                        return null;
+                    }
+                }
+                final long offset = calcCircularRefElementOffset(cIndex, ring.mask);
+                if (!ring.lossy)
+                {
+                    // the producer can't overwrite the slot before the cursor moves past it
+                    return lpRefElement(ring.buffer, offset);
+                }
+                final long seqOffset = calcCircularLongElementOffset(cIndex, ring.mask);
+                if (lvLongElement(ring.sequenceBuffer, seqOffset) == cIndex + 1)
+                {
+                    final E e = lvRefElement(ring.buffer, offset);
+                    if (lvLongElement(ring.sequenceBuffer, seqOffset) == cIndex + 1)
+                    {
+                        return e;
+                    }
+                }
+                // lapped, skip to the oldest element which may still be in the ring
+                final long oldest = Math.max(cIndex + 1, ring.lvProducerIndex() - ring.mask - 1);
+                soLost(lpLost() + oldest - cIndex);
+                cIndex = oldest;
+                soConsumerIndex(cIndex);
+            }
+        }
+    }
+}
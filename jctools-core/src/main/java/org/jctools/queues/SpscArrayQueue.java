@@ -178,7 +178,7 @@ abstract class SpscArrayQueueL3Pad<E> extends SpscArrayQueueConsumerIndexField<E
  * </i>
  * This implementation is wait free.
  */
-public class SpscArrayQueue<E> extends SpscArrayQueueL3Pad<E>
+public class SpscArrayQueue<E> extends SpscArrayQueueL3Pad<E> implements BatchPollingQueue<E>
 {
 
     public SpscArrayQueue(final int capacity)
@@ -297,6 +297,42 @@ public class SpscArrayQueue<E> extends SpscArrayQueueL3Pad<E>
         return fill(s, capacity());
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Each slot is released with an ordered store as it is copied, as the producer checks the slots rather than the
+     * consumer index for free space. The consumer index is updated once for the whole run.
+     * This implementation is correct for single consumer thread use only.
+     */
+    @Override
+    public int poll(final E[] dst, final int dstOffset, final int max)
+    {
+        MessagePassingQueueUtil.checkPollBatch(dst, dstOffset, max);
+        final E[] buffer = this.buffer;
+        final long mask = this.mask;
+        final long consumerIndex = this.lpConsumerIndex();
+        // a run longer than the capacity would wrap around to slots the producer may have refilled
+        final int limit = (int) Math.min(max, mask + 1);
+
+        int i = 0;
+        for (; i < limit; i++)
+        {
+            final long offset = calcCircularRefElementOffset(consumerIndex + i, mask);
+            final E e = lvRefElement(buffer, offset);
+            if (null == e)
+            {
+                break;
+            }
+            soRefElement(buffer, offset, null);
+            dst[dstOffset + i] = e;
+        }
+        if (i != 0)
+        {
+            soConsumerIndex(consumerIndex + i); // ordered store -> atomic and ordered for size()
+        }
+        return i;
+    }
+
     @Override
     public int drain(final Consumer<E> c, final int limit)
     {
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link BlockingQueue} on top of {@link SpscArrayQueue}. The non-blocking methods keep the wait free fast path
+ * of {@link SpscArrayQueue}, a blocked consumer (queue empty) or producer (queue full) parks on a
+ * {@link WaiterStack}.
+ * <p>
+ * As the {@link SpscArrayQueue} fast path only uses ordered stores the waiters check after a successful operation
+ * is done with a CAS on the waiters stack head (see {@link WaiterStack#fenceAndSignal()}), the CAS is uncontended
+ * as long as nobody blocks.
+ */
+public class SpscBlockingArrayQueue<E> extends SpscArrayQueue<E> implements BlockingQueue<E>
+{
+    private final WaiterStack notEmpty = new WaiterStack();
+    private final WaiterStack notFull = new WaiterStack();
+
+    public SpscBlockingArrayQueue(final int capacity)
+    {
+        super(capacity);
+    }
+
+    @Override
+    public boolean offer(final E e)
+    {
+        if (super.offer(e))
+        {
+            notEmpty.fenceAndSignal();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public E poll()
+    {
+        final E e = super.poll();
+        if (e != null)
+        {
+            notFull.fenceAndSignal();
+        }
+        return e;
+    }
+
+    @Override
+    public int poll(final E[] dst, final int dstOffset, final int max)
+    {
+        final int polled = super.poll(dst, dstOffset, max);
+        if (polled != 0)
+        {
+            notFull.fenceAndSignal();
+        }
+        return polled;
+    }
+
+    @Override
+    public int drain(final Consumer<E> c, final int limit)
+    {
+        final int drained = super.drain(c, limit);
+        if (drained != 0)
+        {
+            notFull.fenceAndSignal();
+        }
+        return drained;
+    }
+
+    @Override
+    public int fill(final Supplier<E> s, final int limit)
+    {
+        final int filled = super.fill(s, limit);
+        if (filled != 0)
+        {
+            notEmpty.fenceAndSignal();
+        }
+        return filled;
+    }
+
+    @Override
+    public void drain(final Consumer<E> c, final WaitStrategy w, final ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, w, exit);
+    }
+
+    @Override
+    public void fill(final Supplier<E> s, final WaitStrategy w, final ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, w, exit);
+    }
+
+    @Override
+    public void put(final E e) throws InterruptedException
+    {
+        notFull.offerOrPark(this, e, false, 0L);
+    }
+
+    @Override
+    public boolean offer(final E e, final long timeout, final TimeUnit unit) throws InterruptedException
+    {
+        return notFull.offerOrPark(this, e, true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public E take() throws InterruptedException
+    {
+        return notEmpty.pollOrPark(this, false, 0L);
+    }
+
+    @Override
+    public E poll(final long timeout, final TimeUnit unit) throws InterruptedException
+    {
+        return notEmpty.pollOrPark(this, true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public int remainingCapacity()
+    {
+        return capacity() - size();
+    }
+
+    @Override
+    public int drainTo(final Collection<? super E> c)
+    {
+        return MessagePassingQueueUtil.drainTo(this, c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(final Collection<? super E> c, final int maxElements)
+    {
+        return MessagePassingQueueUtil.drainTo(this, c, maxElements);
+    }
+}
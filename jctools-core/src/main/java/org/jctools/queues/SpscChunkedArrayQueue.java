@@ -97,8 +97,8 @@ public class SpscChunkedArrayQueue<E> extends BaseSpscLinkedArrayQueue<E>
         else
         {
             // we got one slot left to write into, and we are not full. Need to link new buffer.
-            // allocate new buffer of same length
-            final E[] newBuffer = allocateRefArray((int) (mask + 2));
+            // allocate new buffer of same length, or reuse one the consumer is done with
+            final E[] newBuffer = allocateBuffer((int) (mask + 2));
             producerBuffer = newBuffer;
 
             linkOldToNew(pIndex, buffer, offset, newBuffer, offset, v == null ? s.get() : v);
@@ -0,0 +1,301 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+import static org.jctools.util.UnsafeLongArrayAccess.*;
+
+abstract class SpscLongArrayQueueL1Pad extends ConcurrentCircularLongArrayQueue
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    SpscLongArrayQueueL1Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+abstract class SpscLongArrayQueueProducerIndexFields extends SpscLongArrayQueueL1Pad
+{
+    private final static long P_INDEX_OFFSET = fieldOffset(SpscLongArrayQueueProducerIndexFields.class, "producerIndex");
+
+    private volatile long producerIndex;
+    protected long producerLimit;
+
+    SpscLongArrayQueueProducerIndexFields(int capacity)
+    {
+        super(capacity);
+    }
+
+    @Override
+    public final long lvProducerIndex()
+    {
+        return producerIndex;
+    }
+
+    final long lpProducerIndex()
+    {
+        return UNSAFE.getLong(this, P_INDEX_OFFSET);
+    }
+
+    final void soProducerIndex(final long newValue)
+    {
+        UNSAFE.putOrderedLong(this, P_INDEX_OFFSET, newValue);
+    }
+}
+
+abstract class SpscLongArrayQueueL2Pad extends SpscLongArrayQueueProducerIndexFields
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    SpscLongArrayQueueL2Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+abstract class SpscLongArrayQueueConsumerIndexField extends SpscLongArrayQueueL2Pad
+{
+    private final static long C_INDEX_OFFSET = fieldOffset(SpscLongArrayQueueConsumerIndexField.class, "consumerIndex");
+
+    private volatile long consumerIndex;
+    protected long consumerLimit;
+
+    SpscLongArrayQueueConsumerIndexField(int capacity)
+    {
+        super(capacity);
+    }
+
+    @Override
+    public final long lvConsumerIndex()
+    {
+        return UNSAFE.getLongVolatile(this, C_INDEX_OFFSET);
+    }
+
+    final long lpConsumerIndex()
+    {
+        return UNSAFE.getLong(this, C_INDEX_OFFSET);
+    }
+
+    final void soConsumerIndex(final long newValue)
+    {
+        UNSAFE.putOrderedLong(this, C_INDEX_OFFSET, newValue);
+    }
+}
+
+abstract class SpscLongArrayQueueL3Pad extends SpscLongArrayQueueConsumerIndexField
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    SpscLongArrayQueueL3Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+/**
+ * A Single-Producer-Single-Consumer {@code long} queue backed by a pre-allocated buffer.
+ * <p>
+ * This is a Lamport style queue: the element is written before the producer index is published and is only read
+ * by the consumer once the producer index has moved past it, so no slot state is required. Each side caches the
+ * index of the other side (the producer caches the last observed consumer index + capacity, the consumer caches
+ * the last observed producer index) and only reloads it when the cached view is exhausted.
+ */
+public class SpscLongArrayQueue extends SpscLongArrayQueueL3Pad
+{
+    public SpscLongArrayQueue(final int capacity)
+    {
+        super(capacity);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Lock free offer using ordered loads/stores. As class name suggests access is limited to a single thread.
+     */
+    @Override
+    public boolean offer(final long e)
+    {
+        final long[] buffer = this.buffer;
+        final long mask = this.mask;
+        final long pIndex = lpProducerIndex();
+        if (pIndex >= producerLimit && !refreshProducerLimit(pIndex, mask))
+        {
+            return false; // FULL :(
+        }
+        spLongElement(buffer, calcCircularLongElementOffset(pIndex, mask), e);
+        soProducerIndex(pIndex + 1); // ordered store -> atomic and ordered for size()
+        return true;
+    }
+
+    private boolean refreshProducerLimit(long pIndex, long mask)
+    {
+        producerLimit = lvConsumerIndex() + mask + 1;
+        return pIndex < producerLimit;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Lock free poll using ordered loads/stores. As class name suggests access is limited to a single thread.
+     */
+    @Override
+    public long poll(final long emptyValue)
+    {
+        final long cIndex = lpConsumerIndex();
+        if (cIndex >= consumerLimit && cIndex >= (consumerLimit = lvProducerIndex()))
+        {
+            return emptyValue;
+        }
+        final long e = lpLongElement(buffer, calcCircularLongElementOffset(cIndex, mask));
+        soConsumerIndex(cIndex + 1); // ordered store -> atomic and ordered for size()
+        return e;
+    }
+
+    @Override
+    public long peek(final long emptyValue)
+    {
+        final long cIndex = lpConsumerIndex();
+        if (cIndex >= consumerLimit && cIndex >= (consumerLimit = lvProducerIndex()))
+        {
+            return emptyValue;
+        }
+        return lpLongElement(buffer, calcCircularLongElementOffset(cIndex, mask));
+    }
+
+    @Override
+    public boolean relaxedOffer(final long e)
+    {
+        return offer(e);
+    }
+
+    @Override
+    public long relaxedPoll(final long emptyValue)
+    {
+        return poll(emptyValue);
+    }
+
+    @Override
+    public long relaxedPeek(final long emptyValue)
+    {
+        return peek(emptyValue);
+    }
+
+    @Override
+    public int drain(final LongConsumer c, final int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+
+        final long[] buffer = this.buffer;
+        final long mask = this.mask;
+        final long cIndex = lpConsumerIndex();
+        long available = consumerLimit - cIndex;
+        if (available < limit)
+        {
+            consumerLimit = lvProducerIndex();
+            available = consumerLimit - cIndex;
+        }
+        final int count = (int) Math.min(available, limit);
+        for (int i = 0; i < count; i++)
+        {
+            final long index = cIndex + i;
+            final long e = lpLongElement(buffer, calcCircularLongElementOffset(index, mask));
+            soConsumerIndex(index + 1); // ordered store -> atomic and ordered for size()
+            c.accept(e);
+        }
+        return count;
+    }
+
+    @Override
+    public int fill(final LongSupplier s, final int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+
+        final long[] buffer = this.buffer;
+        final long mask = this.mask;
+        final long pIndex = lpProducerIndex();
+        long available = producerLimit - pIndex;
+        if (available < limit)
+        {
+            producerLimit = lvConsumerIndex() + mask + 1;
+            available = producerLimit - pIndex;
+        }
+        final int count = (int) Math.min(available, limit);
+        for (int i = 0; i < count; i++)
+        {
+            final long index = pIndex + i;
+            spLongElement(buffer, calcCircularLongElementOffset(index, mask), s.get());
+            soProducerIndex(index + 1); // ordered store -> atomic and ordered for size()
+        }
+        return count;
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import java.util.concurrent.locks.LockSupport;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+abstract class WaiterStackL0Pad
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class WaiterStackHeadField extends WaiterStackL0Pad
+{
+    private final static long HEAD_OFFSET = fieldOffset(WaiterStackHeadField.class, "head");
+
+    private volatile WaiterStack.WaitNode head;
+
+    final WaiterStack.WaitNode lvHead()
+    {
+        return head;
+    }
+
+    final boolean casHead(WaiterStack.WaitNode expect, WaiterStack.WaitNode newValue)
+    {
+        return UNSAFE.compareAndSwapObject(this, HEAD_OFFSET, expect, newValue);
+    }
+}
+
+/**
+ * A Treiber stack of parked threads, used by the blocking queues to park consumers waiting for elements and
+ * producers waiting for room. The queues keep their lock-free fast path and only push a node once the fast path
+ * failed; the other side checks for waiters after a successful operation and unparks one of them.
+ * <p>
+ * A waiting thread must re-check the queue after {@link #push()} and before parking, the queue side must check for
+ * waiters after its operation is visible. As long as both the push/re-check and the operation/check pairs are
+ * ordered by volatile accesses (i.e. no store-load reordering) no wakeup can be lost.
+ * <p>
+ * The stack is LIFO, which is not fair but favours the most recently active (and likely hot) thread. Cancelled
+ * nodes are unlinked lazily, by the signalling side or when they are found at the head on push.
+ */
+final class WaiterStack extends WaiterStackHeadField
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    static final class WaitNode
+    {
+        private static final int WAITING = 0;
+        private static final int SIGNALLED = 1;
+        private static final int CANCELLED = 2;
+
+        private final static long STATE_OFFSET = fieldOffset(WaitNode.class, "state");
+
+        final Thread thread;
+        WaitNode next;
+        private volatile int state;
+
+        WaitNode(Thread thread)
+        {
+            this.thread = thread;
+        }
+
+        boolean isWaiting()
+        {
+            return state == WAITING;
+        }
+
+        boolean isCancelled()
+        {
+            return state == CANCELLED;
+        }
+
+        boolean casState(int expect, int newValue)
+        {
+            return UNSAFE.compareAndSwapInt(this, STATE_OFFSET, expect, newValue);
+        }
+    }
+
+    /**
+     * Announce the current thread as a waiter. The caller must re-check the queue before calling
+     * {@link #park(WaitNode, boolean, long)} and {@link #cancel(WaitNode)} the node if the re-check succeeds.
+     */
+    WaitNode push()
+    {
+        final WaitNode node = new WaitNode(Thread.currentThread());
+        WaitNode head;
+        do
+        {
+            head = lvHead();
+            // drop cancelled nodes on our way in, they are otherwise only dropped by signal
+            while (head != null && head.isCancelled())
+            {
+                casHead(head, head.next);
+                head = lvHead();
+            }
+            node.next = head;
+        }
+        while (!casHead(head, node));
+        return node;
+    }
+
+    /**
+     * The consumer side of a blocking queue: poll, parking on this stack while the queue is empty.
+     *
+     * @param timed     false to wait forever
+     * @param timeoutNs ignored unless timed
+     * @return an element, or null if timed out
+     */
+    <E> E pollOrPark(MessagePassingQueue<E> q, boolean timed, long timeoutNs) throws InterruptedException
+    {
+        E e = q.poll();
+        if (e != null)
+        {
+            return e;
+        }
+        final long deadlineNs = timed ? System.nanoTime() + timeoutNs : 0L;
+        while (!timed || timeoutNs > 0)
+        {
+            final WaitNode node = push();
+            // re-check now that producers can see us, poll only returns null after a volatile load of the
+            // producer state
+            e = q.poll();
+            if (e != null)
+            {
+                cancel(node);
+                return e;
+            }
+            park(node, timed, timeoutNs);
+            e = q.poll();
+            if (e != null)
+            {
+                return e;
+            }
+            if (timed)
+            {
+                timeoutNs = deadlineNs - System.nanoTime();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The producer side of a blocking queue: offer, parking on this stack while the queue is full.
+     *
+     * @param timed     false to wait forever
+     * @param timeoutNs ignored unless timed
+     * @return true if offered, false if timed out
+     */
+    <E> boolean offerOrPark(MessagePassingQueue<E> q, E e, boolean timed, long timeoutNs)
+        throws InterruptedException
+    {
+        if (q.offer(e))
+        {
+            return true;
+        }
+        final long deadlineNs = timed ? System.nanoTime() + timeoutNs : 0L;
+        while (!timed || timeoutNs > 0)
+        {
+            final WaitNode node = push();
+            // re-check now that consumers can see us, offer only returns false after a volatile load of the
+            // consumer state
+            if (q.offer(e))
+            {
+                cancel(node);
+                return true;
+            }
+            park(node, timed, timeoutNs);
+            if (q.offer(e))
+            {
+                return true;
+            }
+            if (timed)
+            {
+                timeoutNs = deadlineNs - System.nanoTime();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parks the current thread until the node is signalled, the timeout expires or the thread is interrupted. A
+     * node which is not signalled is cancelled on return.
+     *
+     * @throws InterruptedException if interrupted while waiting, the node is cancelled
+     */
+    void park(WaitNode node, boolean timed, long timeoutNs) throws InterruptedException
+    {
+        final long deadlineNs = timed ? System.nanoTime() + timeoutNs : 0L;
+        while (node.isWaiting())
+        {
+            if (Thread.interrupted())
+            {
+                cancel(node);
+                throw new InterruptedException();
+            }
+            if (timed)
+            {
+                timeoutNs = deadlineNs - System.nanoTime();
+                if (timeoutNs <= 0)
+                {
+                    cancel(node);
+                    return;
+                }
+                LockSupport.parkNanos(this, timeoutNs);
+            }
+            else
+            {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    /**
+     * Withdraw a node which is no longer waiting. If the node was signalled in the meantime the signal is passed on
+     * to the next waiter, as the caller will not act on it.
+     *
+     * @return true if cancelled, false if the node was signalled
+     */
+    boolean cancel(WaitNode node)
+    {
+        if (node.casState(WaitNode.WAITING, WaitNode.CANCELLED))
+        {
+            // cheap attempt at unlinking, otherwise left to signal/push
+            casHead(node, node.next);
+            return true;
+        }
+        signal();
+        return false;
+    }
+
+    /**
+     * Unpark a waiter, if there is one. To be called after the queue operation has been made visible through a
+     * volatile store (e.g. a CAS on an index), otherwise use {@link #fenceAndSignal()}.
+     */
+    void signal()
+    {
+        WaitNode head;
+        while ((head = lvHead()) != null)
+        {
+            if (casHead(head, head.next) && head.casState(WaitNode.WAITING, WaitNode.SIGNALLED))
+            {
+                LockSupport.unpark(head.thread);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Unpark up to count waiters.
+     */
+    void signal(int count)
+    {
+        for (int i = 0; i < count && lvHead() != null; i++)
+        {
+            signal();
+        }
+    }
+
+    /**
+     * As {@link #signal()}, but for operations made visible by ordered stores only. The CAS on the head orders the
+     * preceding stores before the waiters check (it only succeeds when there are no waiters, in which case the
+     * head is unchanged).
+     */
+    void fenceAndSignal()
+    {
+        if (!casHead(null, null))
+        {
+            signal();
+        }
+    }
+}
@@ -0,0 +1,409 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.Pow2;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+import static org.jctools.util.UnsafeRefArrayAccess.*;
+
+abstract class WorkStealingArrayDequeBufferField<E>
+{
+    private final static long BUFFER_OFFSET = fieldOffset(WorkStealingArrayDequeBufferField.class, "buffer");
+
+    // replaced by the owner on growth, thieves may keep reading the previous buffer
+    private volatile E[] buffer;
+
+    WorkStealingArrayDequeBufferField(int capacity)
+    {
+        buffer = allocateRefArray(capacity);
+    }
+
+    final E[] lvBuffer()
+    {
+        return buffer;
+    }
+
+    final void soBuffer(E[] newValue)
+    {
+        UNSAFE.putOrderedObject(this, BUFFER_OFFSET, newValue);
+    }
+}
+
+abstract class WorkStealingArrayDequeL0Pad<E> extends WorkStealingArrayDequeBufferField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    WorkStealingArrayDequeL0Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+abstract class WorkStealingArrayDequeBottomField<E> extends WorkStealingArrayDequeL0Pad<E>
+{
+    private final static long BOTTOM_OFFSET = fieldOffset(WorkStealingArrayDequeBottomField.class, "bottom");
+
+    private volatile long bottom;
+
+    WorkStealingArrayDequeBottomField(int capacity)
+    {
+        super(capacity);
+    }
+
+    final long lvBottom()
+    {
+        return bottom;
+    }
+
+    final long lpBottom()
+    {
+        return UNSAFE.getLong(this, BOTTOM_OFFSET);
+    }
+
+    final void soBottom(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, BOTTOM_OFFSET, newValue);
+    }
+
+    final void svBottom(long newValue)
+    {
+        bottom = newValue;
+    }
+}
+
+abstract class WorkStealingArrayDequeL1Pad<E> extends WorkStealingArrayDequeBottomField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    WorkStealingArrayDequeL1Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+abstract class WorkStealingArrayDequeTopField<E> extends WorkStealingArrayDequeL1Pad<E>
+{
+    private final static long TOP_OFFSET = fieldOffset(WorkStealingArrayDequeTopField.class, "top");
+
+    private volatile long top;
+
+    WorkStealingArrayDequeTopField(int capacity)
+    {
+        super(capacity);
+    }
+
+    final long lvTop()
+    {
+        return top;
+    }
+
+    final boolean casTop(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, TOP_OFFSET, expect, newValue);
+    }
+}
+
+abstract class WorkStealingArrayDequeL2Pad<E> extends WorkStealingArrayDequeTopField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    WorkStealingArrayDequeL2Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+/**
+ * A Chase-Lev work-stealing deque: the owner thread pushes and pops at the bottom (LIFO) while any number of thieves
+ * steal from the top (FIFO). The buffer doubles when full and is never shrunk.
+ * <p>
+ * As in the original algorithm the owner pops without a CAS while it is far from the top. Batched steals claim up to
+ * half the visible elements, and at most {@link #MAX_STEAL_BATCH}, with a single CAS on the top. Because a thief may
+ * act on a stale bottom the owner treats the last {@link #MAX_STEAL_BATCH} elements as contended: it claims them all
+ * with a CAS on the top, keeps the bottom one and republishes the rest above the new top in the same order. This
+ * generalises the single element CAS of the original algorithm.
+ * <p>
+ * Stolen slots are not cleared by thieves, the references are released when the owner reuses the slot.
+ *
+ * @param <E> the element type
+ */
+public class WorkStealingArrayDeque<E> extends WorkStealingArrayDequeL2Pad<E>
+{
+    /**
+     * The maximum number of elements claimed by a single {@link #steal(Object[], int, int)}.
+     */
+    public static final int MAX_STEAL_BATCH = 8;
+
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    /**
+     * @param initialCapacity the initial buffer capacity, rounded up to the next power of 2 and no less than
+     *                        {@code 2 * MAX_STEAL_BATCH}
+     */
+    public WorkStealingArrayDeque(int initialCapacity)
+    {
+        // the contended region must not wrap onto itself when republished
+        super(Pow2.roundToPowerOfTwo(Math.max(initialCapacity, 2 * MAX_STEAL_BATCH)));
+    }
+
+    /**
+     * Owner only. Push an element at the bottom, growing the buffer if it is full.
+     *
+     * @throws NullPointerException  if e is null
+     * @throws IllegalStateException if the buffer cannot grow any further
+     */
+    public void push(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        final long b = lpBottom();
+        final long t = lvTop();
+        E[] buffer = lvBuffer();
+        if (b - t >= buffer.length - 1)
+        {
+            buffer = grow(buffer, t, b);
+        }
+        spRefElement(buffer, calcCircularRefElementOffset(b, buffer.length - 1), e);
+        soBottom(b + 1);
+    }
+
+    /**
+     * Owner only. Pop the most recently pushed element.
+     *
+     * @return the bottom element, or null if the deque is empty
+     */
+    public E pop()
+    {
+        final long b = lpBottom() - 1;
+        final E[] buffer = lvBuffer();
+        // StoreLoad, pairs with thieves reading the top and then the bottom
+        svBottom(b);
+        final long t = lvTop();
+        if (b - t >= MAX_STEAL_BATCH)
+        {
+            // no thief can claim b, even on a stale bottom
+            final long offset = calcCircularRefElementOffset(b, buffer.length - 1);
+            final E e = lpRefElement(buffer, offset);
+            spRefElement(buffer, offset, null);
+            return e;
+        }
+        return popContended(buffer, t, b);
+    }
+
+    private E popContended(E[] buffer, long t, long b)
+    {
+        while (true)
+        {
+            if (t > b)
+            {
+                // empty, thieves never claim past the bottom
+                soBottom(b + 1);
+                return null;
+            }
+            if (casTop(t, b + 1))
+            {
+                break;
+            }
+            t = lvTop();
+        }
+        // [t, b] is now owned, thieves see an empty deque until the bottom is published
+        final long mask = buffer.length - 1;
+        final long bOffset = calcCircularRefElementOffset(b, mask);
+        final E e = lpRefElement(buffer, bOffset);
+        spRefElement(buffer, bOffset, null);
+        long next = b + 1;
+        for (long i = t; i < b; i++, next++)
+        {
+            final long offset = calcCircularRefElementOffset(i, mask);
+            spRefElement(buffer, calcCircularRefElementOffset(next, mask), lpRefElement(buffer, offset));
+            spRefElement(buffer, offset, null);
+        }
+        soBottom(next);
+        return e;
+    }
+
+    /**
+     * Steal the oldest element, may be called from any thread.
+     *
+     * @return the top element, or null if the deque is empty or another thread won the race for it
+     */
+    public E steal()
+    {
+        final long t = lvTop();
+        final long b = lvBottom();
+        if (t >= b)
+        {
+            return null;
+        }
+        final E[] buffer = lvBuffer();
+        final E e = lvRefElement(buffer, calcCircularRefElementOffset(t, buffer.length - 1));
+        // a null element means the owner or another thief already claimed it, the CAS would fail
+        if (e == null || !casTop(t, t + 1))
+        {
+            return null;
+        }
+        return e;
+    }
+
+    /**
+     * Steal up to half of the available elements, oldest first, with a single CAS. May be called from any thread.
+     *
+     * @param dst       the array to steal into
+     * @param dstOffset the index in dst of the first stolen element
+     * @param max       the maximum number of elements to steal, further capped at {@link #MAX_STEAL_BATCH}
+     * @return the number of stolen elements, 0 if the deque is empty or another thread won the race for them
+     * @throws IndexOutOfBoundsException if the [dstOffset, dstOffset + max) slice is out of dst bounds
+     */
+    public int steal(final E[] dst, final int dstOffset, final int max)
+    {
+        MessagePassingQueueUtil.checkPollBatch(dst, dstOffset, max);
+        final long t = lvTop();
+        final long b = lvBottom();
+        final long size = b - t;
+        if (size <= 0 || max == 0)
+        {
+            return 0;
+        }
+        // half, rounded up, of what this thief can see: a stale bottom can't stretch the claim to the owner's end
+        final int n = (int) Math.min(Math.min(max, MAX_STEAL_BATCH), (size + 1) >> 1);
+        final E[] buffer = lvBuffer();
+        final long mask = buffer.length - 1;
+        for (int i = 0; i < n; i++)
+        {
+            final E e = lvRefElement(buffer, calcCircularRefElementOffset(t + i, mask));
+            if (e == null || (i == n - 1 && !casTop(t, t + n)))
+            {
+                for (int j = 0; j < i; j++)
+                {
+                    dst[dstOffset + j] = null;
+                }
+                return 0;
+            }
+            dst[dstOffset + i] = e;
+        }
+        return n;
+    }
+
+    /**
+     * @return the number of elements in the deque, may be called from any thread
+     */
+    public int size()
+    {
+        final long t = lvTop();
+        final long b = lvBottom();
+        return (int) Math.max(0, Math.min(b - t, Integer.MAX_VALUE));
+    }
+
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    /**
+     * @return the current buffer capacity
+     */
+    public int capacity()
+    {
+        return lvBuffer().length;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    private E[] grow(E[] buffer, long t, long b)
+    {
+        if (buffer.length == Pow2.MAX_POW2)
+        {
+            throw new IllegalStateException("Deque is full");
+        }
+        final long mask = buffer.length - 1;
+        final E[] newBuffer = allocateRefArray(buffer.length * 2);
+        final long newMask = newBuffer.length - 1;
+        // thieves may still claim from the old buffer, which keeps its elements
+        for (long i = t; i < b; i++)
+        {
+            spRefElement(newBuffer, calcCircularRefElementOffset(i, newMask),
+                lpRefElement(buffer, calcCircularRefElementOffset(i, mask)));
+        }
+        soBuffer(newBuffer);
+        return newBuffer;
+    }
+}
@@ -13,60 +13,151 @@
  */
 package org.jctools.queues.atomic;
 
+import org.jctools.queues.spec.Blocking;
 import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Preference;
+import org.jctools.util.Pow2;
 
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * The queue factory produces {@link java.util.Queue} instances based on a best fit to the {@link ConcurrentQueueSpec}.
  * This allows minimal dependencies between user code and the queue implementations and gives users a way to express
  * their requirements on a higher level.
+ * <p>
+ * The spec is mapped as in {@link org.jctools.queues.QueueFactory}, falling back to the bounded atomic queues or the
+ * JDK blocking queues where there is no atomic variant. As there, growable SPMC/MPMC specs get the bounded queues:
+ * {@link MpmcBoundedXaddAtomicArrayQueue} allocates all of its chunks up front and would not save any memory.
  *
  * @author nitsanw
  * @author akarnokd
  */
+@SuppressWarnings("deprecation")
 public class AtomicQueueFactory
 {
 
+    private static final int DEFAULT_CHUNK_SIZE = 1024;
+
     public static <E> Queue<E> newQueue(ConcurrentQueueSpec qs)
     {
-        if (qs.isBounded())
+        if (qs.blocking != Blocking.NONE)
         {
-            // SPSC
-            if (qs.isSpsc())
-            {
-                return new SpscAtomicArrayQueue<E>(qs.capacity);
-            }
-            // MPSC
-            else if (qs.isMpsc())
+            return newBlockingQueue(qs);
+        }
+        switch (qs.growth)
+        {
+            case GROWABLE:
+                return newGrowableQueue(qs);
+            case UNBOUNDED:
+                return newUnboundedQueue(qs);
+            default:
+                return newBoundedQueue(qs);
+        }
+    }
+
+    private static <E> Queue<E> newBoundedQueue(ConcurrentQueueSpec qs)
+    {
+        // SPSC
+        if (qs.isSpsc())
+        {
+            return new SpscAtomicArrayQueue<E>(qs.capacity);
+        }
+        // MPSC
+        else if (qs.isMpsc())
+        {
+            return new MpscAtomicArrayQueue<E>(qs.capacity);
+        }
+        // SPMC
+        else if (qs.isSpmc())
+        {
+            return new SpmcAtomicArrayQueue<E>(qs.capacity);
+        }
+        // MPMC
+        else
+        {
+            return new MpmcAtomicArrayQueue<E>(qs.capacity);
+        }
+    }
+
+    /**
+     * Capacities too small to grow in, and SPMC/MPMC specs, are served by the bounded queues.
+     */
+    private static <E> Queue<E> newGrowableQueue(ConcurrentQueueSpec qs)
+    {
+        final int capacity = qs.capacity;
+        // SPSC
+        if (qs.isSpsc() && capacity >= 16)
+        {
+            final int chunkSize = Math.max(8, qs.chunkSize);
+            if (qs.chunkSize != 0 && fitsChunks(chunkSize, capacity))
             {
-                return new MpscAtomicArrayQueue<E>(qs.capacity);
+                return new SpscChunkedAtomicArrayQueue<E>(chunkSize, capacity);
             }
-            // SPMC
-            else if (qs.isSpmc())
+            return new SpscGrowableAtomicArrayQueue<E>(capacity);
+        }
+        // MPSC
+        else if (qs.isMpsc() && capacity >= 4)
+        {
+            final int chunkSize = Math.max(2, qs.chunkSize);
+            if (qs.chunkSize != 0 && fitsChunks(chunkSize, capacity))
             {
-                return new SpmcAtomicArrayQueue<E>(qs.capacity);
+                return new MpscChunkedAtomicArrayQueue<E>(chunkSize, capacity);
             }
-            // MPMC
-            else
+            return new MpscGrowableAtomicArrayQueue<E>(capacity);
+        }
+        return newBoundedQueue(qs);
+    }
+
+    private static <E> Queue<E> newUnboundedQueue(ConcurrentQueueSpec qs)
+    {
+        final int chunkSize = qs.chunkSize != 0 ? qs.chunkSize : DEFAULT_CHUNK_SIZE;
+        // SPSC
+        if (qs.isSpsc())
+        {
+            if (qs.chunkSize != 0 || qs.preference == Preference.THROUGHPUT)
             {
-                return new MpmcAtomicArrayQueue<E>(qs.capacity);
+                return new SpscUnboundedAtomicArrayQueue<E>(chunkSize);
             }
+            return new SpscLinkedAtomicQueue<E>();
         }
-        else
+        // MPSC
+        else if (qs.isMpsc())
         {
-            // SPSC
-            if (qs.isSpsc())
+            // the xadd producers scale better under contention
+            if (qs.preference == Preference.THROUGHPUT)
             {
-                return new SpscLinkedAtomicQueue<E>();
+                return new MpscUnboundedXaddAtomicArrayQueue<E>(chunkSize);
             }
-            // MPSC
-            else if (qs.isMpsc())
+            else if (qs.chunkSize != 0)
             {
-                return new MpscLinkedAtomicQueue<E>();
+                return new MpscUnboundedAtomicArrayQueue<E>(chunkSize);
             }
+            return new MpscLinkedAtomicQueue<E>();
         }
-        return new ConcurrentLinkedQueue<E>();
+        // SPMC/MPMC
+        return new MpmcUnboundedXaddAtomicArrayQueue<E>(chunkSize);
+    }
+
+    /**
+     * Only the MPSC blocking consumer queue has an atomic variant, the other specs get the JDK blocking queues.
+     */
+    private static <E> Queue<E> newBlockingQueue(ConcurrentQueueSpec qs)
+    {
+        if (!qs.isBounded())
+        {
+            return new LinkedBlockingQueue<E>();
+        }
+        else if (qs.isMpsc() && qs.blocking == Blocking.CONSUMER)
+        {
+            return new MpscBlockingConsumerAtomicArrayQueue<E>(qs.capacity);
+        }
+        return new ArrayBlockingQueue<E>(qs.capacity);
+    }
+
+    private static boolean fitsChunks(int chunkSize, int capacity)
+    {
+        return Pow2.roundToPowerOfTwo(chunkSize) < Pow2.roundToPowerOfTwo(capacity);
     }
 }
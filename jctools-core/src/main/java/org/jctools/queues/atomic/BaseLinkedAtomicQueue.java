@@ -21,6 +21,7 @@ import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.jctools.queues.MessagePassingQueue;
 import org.jctools.queues.MessagePassingQueue.Supplier;
+import org.jctools.queues.BatchPollingQueue;
 import org.jctools.queues.MessagePassingQueueUtil;
 import org.jctools.queues.QueueProgressIndicators;
 import org.jctools.queues.IndexedQueueSizeUtil;
@@ -254,7 +255,7 @@ abstract class BaseLinkedAtomicQueuePad2<E> extends BaseLinkedAtomicQueueConsume
  * A base data structure for concurrent linked queues. For convenience also pulled in common single consumer
  * methods since at this time there's no plan to implement MC.
  */
-abstract class BaseLinkedAtomicQueue<E> extends BaseLinkedAtomicQueuePad2<E> {
+abstract class BaseLinkedAtomicQueue<E> extends BaseLinkedAtomicQueuePad2<E> implements BatchPollingQueue<E> {
 
     @Override
     public final Iterator<E> iterator() {
@@ -436,6 +437,11 @@ abstract class BaseLinkedAtomicQueue<E> extends BaseLinkedAtomicQueuePad2<E> {
         return offer(e);
     }
 
+    @Override
+    public int poll(E[] dst, int offset, int max) {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit) {
         if (null == c)
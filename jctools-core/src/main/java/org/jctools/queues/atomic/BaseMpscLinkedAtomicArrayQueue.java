@@ -25,6 +25,7 @@ import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.jctools.queues.MessagePassingQueue;
 import org.jctools.queues.MessagePassingQueue.Supplier;
+import org.jctools.queues.BatchPollingQueue;
 import org.jctools.queues.MessagePassingQueueUtil;
 import org.jctools.queues.QueueProgressIndicators;
 import org.jctools.queues.IndexedQueueSizeUtil;
@@ -172,12 +173,17 @@ abstract class BaseMpscLinkedAtomicArrayQueueConsumerFields<E> extends BaseMpscL
 
     private static final AtomicLongFieldUpdater<BaseMpscLinkedAtomicArrayQueueConsumerFields> C_INDEX_UPDATER = AtomicLongFieldUpdater.newUpdater(BaseMpscLinkedAtomicArrayQueueConsumerFields.class, "consumerIndex");
 
+    private static final AtomicReferenceFieldUpdater<BaseMpscLinkedAtomicArrayQueueConsumerFields, AtomicReferenceArray> SPARE_BUFFER_UPDATER = AtomicReferenceFieldUpdater.newUpdater(BaseMpscLinkedAtomicArrayQueueConsumerFields.class, AtomicReferenceArray.class, "spareBuffer");
+
     private volatile long consumerIndex;
 
     protected long consumerMask;
 
     protected AtomicReferenceArray<E> consumerBuffer;
 
+    // a consumed buffer handed back to the producers, see BaseMpscLinkedAtomicArrayQueue#allocateBuffer
+    private volatile AtomicReferenceArray<E> spareBuffer;
+
     @Override
     public final long lvConsumerIndex() {
         return consumerIndex;
@@ -190,6 +196,14 @@ abstract class BaseMpscLinkedAtomicArrayQueueConsumerFields<E> extends BaseMpscL
     final void soConsumerIndex(long newValue) {
         C_INDEX_UPDATER.lazySet(this, newValue);
     }
+
+    final AtomicReferenceArray<E> lvSpareBuffer() {
+        return spareBuffer;
+    }
+
+    final void soSpareBuffer(AtomicReferenceArray<E> buffer) {
+        SPARE_BUFFER_UPDATER.lazySet(this, buffer);
+    }
 }
 
 /**
@@ -282,7 +296,7 @@ abstract class BaseMpscLinkedAtomicArrayQueueColdProducerFields<E> extends BaseM
  * of the initial size. The queue grows only when the current buffer is full and elements are not copied on
  * resize, instead a link to the new buffer is stored in the old buffer for the consumer to follow.
  */
-abstract class BaseMpscLinkedAtomicArrayQueue<E> extends BaseMpscLinkedAtomicArrayQueueColdProducerFields<E> implements MessagePassingQueue<E>, QueueProgressIndicators {
+abstract class BaseMpscLinkedAtomicArrayQueue<E> extends BaseMpscLinkedAtomicArrayQueueColdProducerFields<E> implements BatchPollingQueue<E>, QueueProgressIndicators {
 
     // No post padding here, subclasses must add
     private static final Object JUMP = new Object();
@@ -336,8 +350,10 @@ abstract class BaseMpscLinkedAtomicArrayQueue<E> extends BaseMpscLinkedAtomicArr
                 break;
             }
         }
-        // indexed queues.
-        if (size > Integer.MAX_VALUE) {
+        // for a moment. Integer overflow is possible for the unbounded indexed queues.
+        if (size < 0) {
+            return 0;
+        } else if (size > Integer.MAX_VALUE) {
             return Integer.MAX_VALUE;
         } else {
             return (int) size;
@@ -346,8 +362,9 @@ abstract class BaseMpscLinkedAtomicArrayQueue<E> extends BaseMpscLinkedAtomicArr
 
     @Override
     public boolean isEmpty() {
-        // nothing we can do to make this an exact method.
-        return (this.lvConsumerIndex() == this.lvProducerIndex());
+        // consumer index ahead of it, the queue is empty throughout. The indices are otherwise even.
+        final long cIndex = this.lvConsumerIndex();
+        return (this.lvProducerIndex() - cIndex < 2);
     }
 
     @Override
@@ -420,11 +437,12 @@ abstract class BaseMpscLinkedAtomicArrayQueue<E> extends BaseMpscLinkedAtomicArr
                     e = lvRefElement(buffer, offset);
                 } while (e == null);
             } else {
+                onEmptyPoll(index);
                 return null;
             }
         }
         if (e == JUMP) {
-            final AtomicReferenceArray<E> nextBuffer = nextBuffer(buffer, mask);
+            final AtomicReferenceArray<E> nextBuffer = nextBuffer(buffer, mask, index);
             return newBufferPoll(nextBuffer, index);
         }
         // release element null
@@ -454,7 +472,7 @@ abstract class BaseMpscLinkedAtomicArrayQueue<E> extends BaseMpscLinkedAtomicArr
             } while (e == null);
         }
         if (e == JUMP) {
-            return newBufferPeek(nextBuffer(buffer, mask), index);
+            return newBufferPeek(nextBuffer(buffer, mask, index), index);
         }
         return (E) e;
     }
@@ -493,15 +511,36 @@ abstract class BaseMpscLinkedAtomicArrayQueue<E> extends BaseMpscLinkedAtomicArr
     protected abstract long availableInQueue(long pIndex, long cIndex);
 
     @SuppressWarnings("unchecked")
-    private AtomicReferenceArray<E> nextBuffer(final AtomicReferenceArray<E> buffer, final long mask) {
+    private AtomicReferenceArray<E> nextBuffer(final AtomicReferenceArray<E> buffer, final long mask, final long index) {
         final int offset = nextArrayOffset(mask);
         final AtomicReferenceArray<E> nextBuffer = (AtomicReferenceArray<E>) lvRefElement(buffer, offset);
         consumerBuffer = nextBuffer;
         consumerMask = (length(nextBuffer) - 2) << 1;
-        soRefElement(buffer, offset, BUFFER_CONSUMED);
+        // buffers are of the same size (fixed chunks) and there's no spare yet, clear it and hand it to the producers.
+        if (length(buffer) == length(nextBuffer) && lvSpareBuffer() == null) {
+            soRefElement(buffer, offset, null);
+            soRefElement(buffer, modifiedCalcCircularRefElementOffset(index, mask), null);
+            // release cleared buffer
+            soSpareBuffer(buffer);
+        } else {
+            soRefElement(buffer, offset, BUFFER_CONSUMED);
+        }
         return nextBuffer;
     }
 
+    /**
+     * Only called under the resize lock, so there is a single producer side thread taking the spare buffer and the
+     * consumer only sets it when it is null.
+     */
+    private AtomicReferenceArray<E> allocateBuffer(int length) {
+        final AtomicReferenceArray<E> spare = lvSpareBuffer();
+        if (spare != null && length(spare) == length) {
+            soSpareBuffer(null);
+            return spare;
+        }
+        return allocateRefArray(length);
+    }
+
     private static int nextArrayOffset(long mask) {
         return modifiedCalcCircularRefElementOffset(mask + 2, Long.MAX_VALUE);
     }
@@ -553,10 +592,11 @@ abstract class BaseMpscLinkedAtomicArrayQueue<E> extends BaseMpscLinkedAtomicArr
         final int offset = modifiedCalcCircularRefElementOffset(index, mask);
         Object e = lvRefElement(buffer, offset);
         if (e == null) {
+            onEmptyPoll(index);
             return null;
         }
         if (e == JUMP) {
-            final AtomicReferenceArray<E> nextBuffer = nextBuffer(buffer, mask);
+            final AtomicReferenceArray<E> nextBuffer = nextBuffer(buffer, mask, index);
             return newBufferPoll(nextBuffer, index);
         }
         soRefElement(buffer, offset, null);
@@ -573,7 +613,7 @@ abstract class BaseMpscLinkedAtomicArrayQueue<E> extends BaseMpscLinkedAtomicArr
         final int offset = modifiedCalcCircularRefElementOffset(index, mask);
         Object e = lvRefElement(buffer, offset);
         if (e == JUMP) {
-            return newBufferPeek(nextBuffer(buffer, mask), index);
+            return newBufferPeek(nextBuffer(buffer, mask, index), index);
         }
         return (E) e;
     }
@@ -659,6 +699,11 @@ abstract class BaseMpscLinkedAtomicArrayQueue<E> extends BaseMpscLinkedAtomicArr
         return drain(c, capacity());
     }
 
+    @Override
+    public int poll(E[] dst, int offset, int max) {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit) {
         return MessagePassingQueueUtil.drain(this, c, limit);
@@ -676,6 +721,8 @@ abstract class BaseMpscLinkedAtomicArrayQueue<E> extends BaseMpscLinkedAtomicArr
      * The returned iterator is not guaranteed to return elements in queue order,
      * and races with the consumer thread may cause gaps in the sequence of returned elements.
      * Like {link #relaxedPoll}, the iterator may not immediately return newly inserted elements.
+     * Consumed chunks may be reused by the producers, an iterator lagging behind the consumer may therefore also
+     * return elements inserted after it was created.
      *
      * @return The iterator.
      */
@@ -770,7 +817,7 @@ abstract class BaseMpscLinkedAtomicArrayQueue<E> extends BaseMpscLinkedAtomicArr
         int newBufferLength = getNextBufferSize(oldBuffer);
         final AtomicReferenceArray<E> newBuffer;
         try {
-            newBuffer = allocateRefArray(newBufferLength);
+            newBuffer = allocateBuffer(newBufferLength);
         } catch (OutOfMemoryError oom) {
             assert lvProducerIndex() == pIndex + 1;
             soProducerIndex(pIndex);
@@ -799,6 +846,51 @@ abstract class BaseMpscLinkedAtomicArrayQueue<E> extends BaseMpscLinkedAtomicArr
         soRefElement(oldBuffer, offsetInOld, JUMP);
     }
 
+    /**
+     * Called by the consumer when a poll found no element at cIndex. This is where a subclass may decide to
+     * {@link #shrink(long, int)}, the default does nothing.
+     */
+    protected void onEmptyPoll(long cIndex) {
+    }
+
+    /**
+     * Move producers and consumer onto a new buffer of newBufferLength. Must only be called from the consumer
+     * thread. The resize lock (odd producer index) is only taken if the producer index is cIndex, so this only
+     * happens when the queue is empty and no resize is in progress. As nothing is left in the old buffer, the consumer
+     * switches buffer itself and there is no JUMP to follow.
+     * <p>
+     * A producer racing with this call may have read a producer limit computed for the old buffer. To keep it out of
+     * the new buffer both indices skip ahead by the old buffer capacity, beyond any such limit, so that producer ends
+     * up in the offer slow path, which only sees the new buffer. The progress indicators jump
+     * accordingly.
+     *
+     * @return true if the buffer was replaced, false if the queue was not empty or a resize was in progress
+     */
+    final boolean shrink(long cIndex, int newBufferLength) {
+        if (!casProducerIndex(cIndex, cIndex + 1)) {
+            return false;
+        }
+        final AtomicReferenceArray<E> newBuffer;
+        try {
+            newBuffer = allocateRefArray(newBufferLength);
+        } catch (OutOfMemoryError oom) {
+            soProducerIndex(cIndex);
+            throw oom;
+        }
+        final long newMask = (newBufferLength - 2) << 1;
+        final long newIndex = cIndex + getCurrentBufferCapacity(producerMask);
+        producerBuffer = newBuffer;
+        producerMask = newMask;
+        consumerBuffer = newBuffer;
+        consumerMask = newMask;
+        // Invalidate racing CASs, limits are increasing so no producer can CAS an old limit back in
+        soProducerLimit(newIndex + Math.min(newMask, availableInQueue(newIndex, newIndex)));
+        // consumer index first, producers are held off by the odd producer index until the next line
+        soConsumerIndex(newIndex);
+        soProducerIndex(newIndex);
+        return true;
+    }
+
     /**
      * @return next buffer size(inclusive of next array pointer)
      */
@@ -22,6 +22,7 @@ import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.jctools.queues.MessagePassingQueue;
 import org.jctools.queues.MessagePassingQueue.Supplier;
+import org.jctools.queues.BatchPollingQueue;
 import org.jctools.queues.MessagePassingQueueUtil;
 import org.jctools.queues.QueueProgressIndicators;
 import org.jctools.queues.IndexedQueueSizeUtil;
@@ -95,8 +96,13 @@ abstract class BaseSpscLinkedAtomicArrayQueueConsumerField<E> extends BaseSpscLi
 
     private static final AtomicLongFieldUpdater<BaseSpscLinkedAtomicArrayQueueConsumerField> C_INDEX_UPDATER = AtomicLongFieldUpdater.newUpdater(BaseSpscLinkedAtomicArrayQueueConsumerField.class, "consumerIndex");
 
+    private static final AtomicReferenceFieldUpdater<BaseSpscLinkedAtomicArrayQueueConsumerField, AtomicReferenceArray> SPARE_BUFFER_UPDATER = AtomicReferenceFieldUpdater.newUpdater(BaseSpscLinkedAtomicArrayQueueConsumerField.class, AtomicReferenceArray.class, "spareBuffer");
+
     private volatile long consumerIndex;
 
+    // a consumed buffer handed back to the producer, see BaseSpscLinkedAtomicArrayQueue#allocateBuffer
+    private volatile AtomicReferenceArray<E> spareBuffer;
+
     @Override
     public final long lvConsumerIndex() {
         return consumerIndex;
@@ -109,6 +115,14 @@ abstract class BaseSpscLinkedAtomicArrayQueueConsumerField<E> extends BaseSpscLi
     final void soConsumerIndex(long newValue) {
         C_INDEX_UPDATER.lazySet(this, newValue);
     }
+
+    final AtomicReferenceArray<E> lvSpareBuffer() {
+        return spareBuffer;
+    }
+
+    final void soSpareBuffer(AtomicReferenceArray<E> buffer) {
+        SPARE_BUFFER_UPDATER.lazySet(this, buffer);
+    }
 }
 
 /**
@@ -208,7 +222,7 @@ abstract class BaseSpscLinkedAtomicArrayQueueProducerColdFields<E> extends BaseS
  * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingAtomicLinkedQueueGenerator
  * which can found in the jctools-build module. The original source file is BaseSpscLinkedArrayQueue.java.
  */
-abstract class BaseSpscLinkedAtomicArrayQueue<E> extends BaseSpscLinkedAtomicArrayQueueProducerColdFields<E> implements MessagePassingQueue<E>, QueueProgressIndicators {
+abstract class BaseSpscLinkedAtomicArrayQueue<E> extends BaseSpscLinkedAtomicArrayQueueProducerColdFields<E> implements BatchPollingQueue<E>, QueueProgressIndicators {
 
     private static final Object JUMP = new Object();
 
@@ -291,6 +305,11 @@ abstract class BaseSpscLinkedAtomicArrayQueue<E> extends BaseSpscLinkedAtomicArr
         return (int) result;
     }
 
+    @Override
+    public int poll(E[] dst, int offset, int max) {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit) {
         return MessagePassingQueueUtil.drain(this, c, limit);
@@ -419,8 +438,33 @@ abstract class BaseSpscLinkedAtomicArrayQueue<E> extends BaseSpscLinkedAtomicArr
         soProducerIndex(index + 1);
     }
 
+    /**
+     * Producer side, take the spare buffer if it is of the requested length or allocate a new one.
+     */
+    final AtomicReferenceArray<E> allocateBuffer(int length) {
+        final AtomicReferenceArray<E> spare = lvSpareBuffer();
+        if (spare != null && length(spare) == length) {
+            soSpareBuffer(null);
+            return spare;
+        }
+        return allocateRefArray(length);
+    }
+
+    /**
+     * All elements in the old buffer were consumed and the JUMP at index was the last producer write to it. If the
+     * buffers are of the same size (fixed chunks) and there's no spare yet, clear it and hand it to the producer.
+     */
+    private void recycle(final AtomicReferenceArray<E> buffer, final AtomicReferenceArray<E> nextBuffer, final long index) {
+        if (length(buffer) == length(nextBuffer) && lvSpareBuffer() == null) {
+            soRefElement(buffer, calcCircularRefElementOffset(index, length(buffer) - 2), null);
+            // release cleared buffer
+            soSpareBuffer(buffer);
+        }
+    }
+
     private E newBufferPeek(final AtomicReferenceArray<E> buffer, final long index) {
         AtomicReferenceArray<E> nextBuffer = lvNextArrayAndUnlink(buffer);
+        recycle(buffer, nextBuffer, index);
         consumerBuffer = nextBuffer;
         final long mask = length(nextBuffer) - 2;
         consumerMask = mask;
@@ -430,6 +474,7 @@ abstract class BaseSpscLinkedAtomicArrayQueue<E> extends BaseSpscLinkedAtomicArr
 
     private E newBufferPoll(final AtomicReferenceArray<E> buffer, final long index) {
         AtomicReferenceArray<E> nextBuffer = lvNextArrayAndUnlink(buffer);
+        recycle(buffer, nextBuffer, index);
         consumerBuffer = nextBuffer;
         final long mask = length(nextBuffer) - 2;
         consumerMask = mask;
@@ -0,0 +1,96 @@
+package org.jctools.queues.atomic;
+
+import org.jctools.util.InternalAPI;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MessagePassingQueue.Supplier;
+import org.jctools.queues.MessagePassingQueueUtil;
+import org.jctools.queues.QueueProgressIndicators;
+import org.jctools.queues.IndexedQueueSizeUtil;
+import static org.jctools.queues.atomic.AtomicQueueUtil.*;
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingAtomicLinkedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpUnboundedXaddChunk.java.
+ */
+@InternalAPI
+class MpUnboundedXaddAtomicChunk<R, E> {
+
+    private static final AtomicReferenceFieldUpdater<MpUnboundedXaddAtomicChunk, Object> NEXT_UPDATER = AtomicReferenceFieldUpdater.newUpdater(MpUnboundedXaddAtomicChunk.class, Object.class, "next");
+
+    private static final AtomicLongFieldUpdater<MpUnboundedXaddAtomicChunk> INDEX_UPDATER = AtomicLongFieldUpdater.newUpdater(MpUnboundedXaddAtomicChunk.class, "index");
+
+    private static final AtomicReferenceFieldUpdater<MpUnboundedXaddAtomicChunk, Object> PREV_UPDATER = AtomicReferenceFieldUpdater.newUpdater(MpUnboundedXaddAtomicChunk.class, Object.class, "prev");
+
+    final static int NOT_USED = -1;
+
+    private final boolean pooled;
+
+    private final AtomicReferenceArray<E> buffer;
+
+    private volatile R prev;
+
+    private volatile long index;
+
+    private volatile R next;
+
+    MpUnboundedXaddAtomicChunk(long index, R prev, int size, boolean pooled) {
+        buffer = allocateRefArray(size);
+        // next is null
+        soPrev(prev);
+        spIndex(index);
+        this.pooled = pooled;
+    }
+
+    final boolean isPooled() {
+        return pooled;
+    }
+
+    final long lvIndex() {
+        return index;
+    }
+
+    final void soIndex(long newValue) {
+        INDEX_UPDATER.lazySet(this, newValue);
+    }
+
+    final void spIndex(long newValue) {
+        INDEX_UPDATER.lazySet(this, newValue);
+    }
+
+    final R lvNext() {
+        return next;
+    }
+
+    final void soNext(R newValue) {
+        NEXT_UPDATER.lazySet(this, newValue);
+    }
+
+    final R lvPrev() {
+        return prev;
+    }
+
+    final void soPrev(R newValue) {
+        PREV_UPDATER.lazySet(this, newValue);
+    }
+
+    final void soElement(int index, E e) {
+        soRefElement(buffer, calcRefElementOffset(index), e);
+    }
+
+    final E lvElement(int index) {
+        return lvRefElement(buffer, calcRefElementOffset(index));
+    }
+
+    final E spinForElement(int index, boolean isNull) {
+        AtomicReferenceArray<E> buffer = this.buffer;
+        int offset = calcRefElementOffset(index);
+        E e;
+        do {
+            e = lvRefElement(buffer, offset);
+        } while (isNull != (e == null));
+        return e;
+    }
+}
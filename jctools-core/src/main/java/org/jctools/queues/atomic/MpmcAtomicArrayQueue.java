@@ -17,6 +17,7 @@ import org.jctools.util.RangeUtil;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.AtomicLongArray;
+import org.jctools.queues.BatchPollingQueue;
 import org.jctools.queues.MessagePassingQueueUtil;
 import static org.jctools.queues.atomic.AtomicQueueUtil.*;
 
@@ -267,7 +268,7 @@ abstract class MpmcAtomicArrayQueueL3Pad<E> extends MpmcAtomicArrayQueueConsumer
  * equal to the requested capacity.
  * </ol>
  */
-public class MpmcAtomicArrayQueue<E> extends MpmcAtomicArrayQueueL3Pad<E> {
+public class MpmcAtomicArrayQueue<E> extends MpmcAtomicArrayQueueL3Pad<E> implements BatchPollingQueue<E> {
 
     public static final int MAX_LOOK_AHEAD_STEP = Integer.getInteger("jctools.mpmc.max.lookahead.step", 4096);
 
@@ -317,6 +318,73 @@ public class MpmcAtomicArrayQueue<E> extends MpmcAtomicArrayQueueL3Pad<E> {
         return true;
     }
 
+    /**
+     * Offer a slice of {@code src} as a batch. The producer index range for the accepted elements is claimed with a
+     * single CAS, bounded by the consumer index, and the elements are published in order.
+     *
+     * @param src the elements to offer, none of which may be {@code null}
+     * @param offset the index in {@code src} of the first element to offer
+     * @param length the number of elements to offer
+     * @return the number of elements accepted, the first {@code n} elements of the slice, which is less than
+     * {@code length} iff the queue is full
+     * @throws IndexOutOfBoundsException if the slice is not within {@code src}
+     * @throws NullPointerException if any element in the slice is {@code null}
+     */
+    public int offer(final E[] src, final int offset, final int length) {
+        MessagePassingQueueUtil.checkOfferBatch(src, offset, length);
+        if (length == 0)
+            return 0;
+        final long capacity = mask + 1;
+        long pIndex;
+        int claimed;
+        do {
+            pIndex = lvProducerIndex();
+            final long available = lvConsumerIndex() + capacity - pIndex;
+            if (available <= 0) {
+                return 0;
+            }
+            claimed = (int) Math.min(available, length);
+        } while (!casProducerIndex(pIndex, pIndex + claimed));
+        publishClaimed(src, offset, pIndex, claimed);
+        return claimed;
+    }
+
+    /**
+     * As {@link #offer(Object[], int, int)}, but room is checked on the sequence of the last slot of the batch rather
+     * than against the consumer index. If the whole batch does not fit at most one element is offered, so fewer
+     * elements than would fit may be accepted.
+     */
+    public int relaxedOffer(final E[] src, final int offset, final int length) {
+        MessagePassingQueueUtil.checkOfferBatch(src, offset, length);
+        if (length == 0)
+            return 0;
+        final int mask = this.mask;
+        final AtomicLongArray sBuffer = sequenceBuffer;
+        final int batch = Math.min(length, mask + 1);
+        final long pIndex = lvProducerIndex();
+        final long lastIndex = pIndex + batch - 1;
+        if (lvLongElement(sBuffer, calcCircularLongElementOffset(lastIndex, mask)) == lastIndex && casProducerIndex(pIndex, lastIndex + 1)) {
+            publishClaimed(src, offset, pIndex, batch);
+            return batch;
+        }
+        return relaxedOffer(src[offset]) ? 1 : 0;
+    }
+
+    private void publishClaimed(E[] src, int offset, long pIndex, int claimed) {
+        final int mask = this.mask;
+        final AtomicLongArray sBuffer = sequenceBuffer;
+        final AtomicReferenceArray<E> buffer = this.buffer;
+        for (int i = 0; i < claimed; i++) {
+            final long index = pIndex + i;
+            final int seqOffset = calcCircularLongElementOffset(index, mask);
+            // the slot was claimed by a consumer which may not have released it yet
+            while (lvLongElement(sBuffer, seqOffset) != index) {
+            }
+            spRefElement(buffer, calcCircularRefElementOffset(index, mask), src[offset + i]);
+            soLongElement(sBuffer, seqOffset, index + 1);
+        }
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -475,6 +543,46 @@ public class MpmcAtomicArrayQueue<E> extends MpmcAtomicArrayQueueL3Pad<E> {
         } while (true);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The run of published elements is claimed with a single CAS of the consumer index. Each slot is still released
+     * to the producers with an ordered store of its sequence.
+     */
+    @Override
+    public int poll(final E[] dst, final int dstOffset, final int max) {
+        MessagePassingQueueUtil.checkPollBatch(dst, dstOffset, max);
+        final AtomicLongArray sBuffer = sequenceBuffer;
+        final int mask = this.mask;
+        final int limit = Math.min(max, mask + 1);
+        long cIndex;
+        int ready;
+        do {
+            cIndex = lvConsumerIndex();
+            ready = 0;
+            while (ready < limit) {
+                final long index = cIndex + ready;
+                if (lvLongElement(sBuffer, calcCircularLongElementOffset(index, mask)) != index + 1) {
+                    break;
+                }
+                ready++;
+            }
+            if (ready == 0) {
+                return 0;
+            }
+        } while (!casConsumerIndex(cIndex, cIndex + ready));
+        final AtomicReferenceArray<E> buffer = this.buffer;
+        for (int i = 0; i < ready; i++) {
+            final long index = cIndex + i;
+            final int offset = calcCircularRefElementOffset(index, mask);
+            dst[dstOffset + i] = lpRefElement(buffer, offset);
+            spRefElement(buffer, offset, null);
+            // i.e. seq += capacity
+            soLongElement(sBuffer, calcCircularLongElementOffset(index, mask), index + mask + 1);
+        }
+        return ready;
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit) {
         if (null == c)
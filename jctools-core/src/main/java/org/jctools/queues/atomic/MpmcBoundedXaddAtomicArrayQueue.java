@@ -0,0 +1,301 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.atomic;
+
+import org.jctools.util.Pow2;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MessagePassingQueue.Supplier;
+import org.jctools.queues.MessagePassingQueueUtil;
+import org.jctools.queues.QueueProgressIndicators;
+import org.jctools.queues.IndexedQueueSizeUtil;
+import static org.jctools.queues.atomic.AtomicQueueUtil.*;
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingAtomicLinkedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpmcBoundedXaddArrayQueue.java.
+ */
+abstract class MpmcBoundedXaddAtomicArrayQueuePad1<E> extends MpmcUnboundedXaddAtomicArrayQueue<E> {
+
+    // 8b
+    byte b000, b001, b002, b003, b004, b005, b006, b007;
+
+    // 16b
+    byte b010, b011, b012, b013, b014, b015, b016, b017;
+
+    // 24b
+    byte b020, b021, b022, b023, b024, b025, b026, b027;
+
+    // 32b
+    byte b030, b031, b032, b033, b034, b035, b036, b037;
+
+    // 40b
+    byte b040, b041, b042, b043, b044, b045, b046, b047;
+
+    // 48b
+    byte b050, b051, b052, b053, b054, b055, b056, b057;
+
+    // 56b
+    byte b060, b061, b062, b063, b064, b065, b066, b067;
+
+    // 64b
+    byte b070, b071, b072, b073, b074, b075, b076, b077;
+
+    // 72b
+    byte b100, b101, b102, b103, b104, b105, b106, b107;
+
+    // 80b
+    byte b110, b111, b112, b113, b114, b115, b116, b117;
+
+    // 88b
+    byte b120, b121, b122, b123, b124, b125, b126, b127;
+
+    // 96b
+    byte b130, b131, b132, b133, b134, b135, b136, b137;
+
+    // 104b
+    byte b140, b141, b142, b143, b144, b145, b146, b147;
+
+    // 112b
+    byte b150, b151, b152, b153, b154, b155, b156, b157;
+
+    // 120b
+    byte b160, b161, b162, b163, b164, b165, b166, b167;
+
+    // 128b
+    byte b170, b171, b172, b173, b174, b175, b176, b177;
+
+    MpmcBoundedXaddAtomicArrayQueuePad1(int chunkSize, int maxPooledChunks) {
+        super(chunkSize, maxPooledChunks);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingAtomicLinkedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpmcBoundedXaddArrayQueue.java.
+ */
+abstract class MpmcBoundedXaddAtomicArrayQueueProducerLimitField<E> extends MpmcBoundedXaddAtomicArrayQueuePad1<E> {
+
+    private static final AtomicLongFieldUpdater<MpmcBoundedXaddAtomicArrayQueueProducerLimitField> P_LIMIT_UPDATER = AtomicLongFieldUpdater.newUpdater(MpmcBoundedXaddAtomicArrayQueueProducerLimitField.class, "producerLimit");
+
+    private static final AtomicLongFieldUpdater<MpmcBoundedXaddAtomicArrayQueueProducerLimitField> R_INDEX_UPDATER = AtomicLongFieldUpdater.newUpdater(MpmcBoundedXaddAtomicArrayQueueProducerLimitField.class, "reservedIndex");
+
+    private volatile long producerLimit;
+
+    // slots reserved by producers, at or ahead of the producer index
+    private volatile long reservedIndex;
+
+    MpmcBoundedXaddAtomicArrayQueueProducerLimitField(int chunkSize, int maxPooledChunks) {
+        super(chunkSize, maxPooledChunks);
+    }
+
+    final long lvProducerLimit() {
+        return producerLimit;
+    }
+
+    final void soProducerLimit(long newValue) {
+        P_LIMIT_UPDATER.lazySet(this, newValue);
+    }
+
+    final long getAndAddReservedIndex(long delta) {
+        return R_INDEX_UPDATER.getAndAdd(this, delta);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingAtomicLinkedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpmcBoundedXaddArrayQueue.java.
+ */
+abstract class MpmcBoundedXaddAtomicArrayQueuePad2<E> extends MpmcBoundedXaddAtomicArrayQueueProducerLimitField<E> {
+
+    // 8b
+    byte b000, b001, b002, b003, b004, b005, b006, b007;
+
+    // 16b
+    byte b010, b011, b012, b013, b014, b015, b016, b017;
+
+    // 24b
+    byte b020, b021, b022, b023, b024, b025, b026, b027;
+
+    // 32b
+    byte b030, b031, b032, b033, b034, b035, b036, b037;
+
+    // 40b
+    byte b040, b041, b042, b043, b044, b045, b046, b047;
+
+    // 48b
+    byte b050, b051, b052, b053, b054, b055, b056, b057;
+
+    // 56b
+    byte b060, b061, b062, b063, b064, b065, b066, b067;
+
+    // 64b
+    byte b070, b071, b072, b073, b074, b075, b076, b077;
+
+    // 72b
+    byte b100, b101, b102, b103, b104, b105, b106, b107;
+
+    // 80b
+    byte b110, b111, b112, b113, b114, b115, b116, b117;
+
+    // 88b
+    byte b120, b121, b122, b123, b124, b125, b126, b127;
+
+    // 96b
+    byte b130, b131, b132, b133, b134, b135, b136, b137;
+
+    // 104b
+    byte b140, b141, b142, b143, b144, b145, b146, b147;
+
+    // 112b
+    byte b150, b151, b152, b153, b154, b155, b156, b157;
+
+    // 120b
+    byte b160, b161, b162, b163, b164, b165, b166, b167;
+
+    // 128b
+    byte b170, b171, b172, b173, b174, b175, b176, b177;
+
+    MpmcBoundedXaddAtomicArrayQueuePad2(int chunkSize, int maxPooledChunks) {
+        super(chunkSize, maxPooledChunks);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingAtomicLinkedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpmcBoundedXaddArrayQueue.java.
+ *
+ * A bounded MPMC queue built on the {@link MpmcUnboundedXaddArrayQueue} linked chunks.<br>
+ * Producers first reserve slots with a fetch-and-add on a reserved index, checked against a cached producer limit
+ * derived from the consumer index. A reservation beyond the limit is handed back with a second fetch-and-add. The
+ * reserved slots are then claimed with a fetch-and-add on the producer index, as in the unbounded queue. Neither step
+ * retries, which scales better than the CAS loop of {@link MpmcArrayQueue} under producer contention, and the queue
+ * never holds more than {@code capacity} elements. An offer racing with producers handing back their reservation
+ * from a full queue may see the queue full for a moment longer.<br>
+ * The chunks needed to hold {@code capacity} elements are pre-allocated and recycled through the chunk pool, so a
+ * queue in steady state does not allocate.<br>
+ * As for {@link MpmcUnboundedXaddArrayQueue}, {@link #poll()} could spin while awaiting a claimed element to be
+ * made available.
+ */
+public class MpmcBoundedXaddAtomicArrayQueue<E> extends MpmcBoundedXaddAtomicArrayQueuePad2<E> {
+
+    private final int capacity;
+
+    /**
+     * @param capacity the maximum number of elements this queue will hold, rounded up to the next power of 2
+     * @param chunkSize The buffer size to be used in each chunk of this queue
+     */
+    public MpmcBoundedXaddAtomicArrayQueue(int capacity, int chunkSize) {
+        super(chunkSize, pooledChunksFor(capacity, chunkSize));
+        this.capacity = Pow2.roundToPowerOfTwo(capacity);
+        soProducerLimit(this.capacity);
+    }
+
+    /**
+     * @param capacity the maximum number of elements this queue will hold, the chunk size is a quarter of it
+     */
+    public MpmcBoundedXaddAtomicArrayQueue(int capacity) {
+        this(capacity, Math.max(1, capacity / 4));
+    }
+
+    private static int pooledChunksFor(int capacity, int chunkSize) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be >= 1, was: " + capacity);
+        }
+        capacity = Pow2.roundToPowerOfTwo(capacity);
+        chunkSize = Pow2.roundToPowerOfTwo(chunkSize);
+        // the producer may be a chunk ahead of the consumer when the elements straddle chunk boundaries
+        return Math.max(1, capacity / chunkSize) + 1;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (null == e) {
+            throw new NullPointerException();
+        }
+        if (grantReservation(getAndAddReservedIndex(1), 1) == 0) {
+            return false;
+        }
+        offerClaimedSlot(e, getAndIncrementProducerIndex());
+        return true;
+    }
+
+    /**
+     * @param rIndex    the reserved index returned by the fetch-and-add reserving {@code requested} slots
+     * @param requested the number of slots reserved
+     * @return the number of reserved slots under the capacity, the rest are handed back
+     */
+    private long grantReservation(long rIndex, long requested) {
+        long producerLimit = lvProducerLimit();
+        if (rIndex + requested > producerLimit) {
+            producerLimit = lvConsumerIndex() + capacity;
+            // racing producers may write a stale limit, which is always lower and only causes a spurious refresh
+            soProducerLimit(producerLimit);
+        }
+        final long granted = Math.max(0, Math.min(requested, producerLimit - rIndex));
+        if (granted < requested) {
+            getAndAddReservedIndex(granted - requested);
+        }
+        return granted;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int fill(Supplier<E> s) {
+        return MessagePassingQueueUtil.fillBounded(this, s);
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit) {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+        final int claimed = (int) grantReservation(getAndAddReservedIndex(limit), limit);
+        if (claimed == 0) {
+            return 0;
+        }
+        fillClaimedSlots(s, getAndAddProducerIndex(claimed), claimed);
+        return claimed;
+    }
+
+    /**
+     * Offer a slice of {@code src} as a batch. The slots for the accepted elements are reserved and claimed with a
+     * single fetch-and-add each, so a batch offer never overshoots the capacity.
+     *
+     * @return the number of elements accepted, the first {@code n} elements of the slice, which is less than
+     * {@code length} iff the queue is full
+     * @see MpmcUnboundedXaddArrayQueue#offer(Object[], int, int)
+     */
+    @Override
+    public int offer(E[] src, int offset, int length) {
+        MessagePassingQueueUtil.checkOfferBatch(src, offset, length);
+        if (length == 0)
+            return 0;
+        final int claimed = (int) grantReservation(getAndAddReservedIndex(length), length);
+        if (claimed == 0) {
+            return 0;
+        }
+        offerClaimedSlots(src, offset, getAndAddProducerIndex(claimed), claimed);
+        return claimed;
+    }
+}
@@ -0,0 +1,454 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.atomic;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MessagePassingQueue.Supplier;
+import org.jctools.queues.MessagePassingQueueUtil;
+import org.jctools.queues.QueueProgressIndicators;
+import org.jctools.queues.IndexedQueueSizeUtil;
+import static org.jctools.queues.atomic.AtomicQueueUtil.*;
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingAtomicLinkedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpmcUnboundedXaddArrayQueue.java.
+ *
+ * An MPMC array queue which grows unbounded in linked chunks.<br>
+ * Differently from {@link MpmcArrayQueue} it is designed to provide a better scaling when more
+ * producers are concurrently offering.<br>
+ * Users should be aware that {@link #poll()} could spin while awaiting a new element to be available:
+ * to avoid this behaviour {@link #relaxedPoll()} should be used instead, accounting for the semantic differences
+ * between the twos.
+ *
+ * @author https://github.com/franz1981
+ */
+public class MpmcUnboundedXaddAtomicArrayQueue<E> extends MpUnboundedXaddAtomicArrayQueue<MpmcUnboundedXaddAtomicChunk<E>, E> {
+
+    /**
+     * @param chunkSize The buffer size to be used in each chunk of this queue
+     * @param maxPooledChunks The maximum number of reused chunks kept around to avoid allocation, chunks are pre-allocated
+     */
+    public MpmcUnboundedXaddAtomicArrayQueue(int chunkSize, int maxPooledChunks) {
+        super(chunkSize, maxPooledChunks);
+    }
+
+    public MpmcUnboundedXaddAtomicArrayQueue(int chunkSize) {
+        this(chunkSize, 2);
+    }
+
+    @Override
+    final MpmcUnboundedXaddAtomicChunk<E> newChunk(long index, MpmcUnboundedXaddAtomicChunk<E> prev, int chunkSize, boolean pooled) {
+        return new MpmcUnboundedXaddAtomicChunk(index, prev, chunkSize, pooled);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (null == e) {
+            throw new NullPointerException();
+        }
+        offerClaimedSlot(e, getAndIncrementProducerIndex());
+        return true;
+    }
+
+    /**
+     * Write {@code e} into the slot at {@code pIndex}, which the caller has already claimed.
+     */
+    final void offerClaimedSlot(E e, long pIndex) {
+        final int chunkMask = this.chunkMask;
+        final int chunkShift = this.chunkShift;
+        final int piChunkOffset = (int) (pIndex & chunkMask);
+        final long piChunkIndex = pIndex >> chunkShift;
+        MpmcUnboundedXaddAtomicChunk<E> pChunk = lvProducerChunk();
+        if (pChunk.lvIndex() != piChunkIndex) {
+            // Other producers may have advanced the producer chunk as we claimed a slot in a prev chunk, or we may have
+            // now stepped into a brand new chunk which needs appending.
+            pChunk = producerChunkForIndex(pChunk, piChunkIndex);
+        }
+        final boolean isPooled = pChunk.isPooled();
+        if (isPooled) {
+            // wait any previous consumer to finish its job
+            pChunk.spinForElement(piChunkOffset, true);
+        }
+        pChunk.soElement(piChunkOffset, e);
+        if (isPooled) {
+            pChunk.soSequence(piChunkOffset, piChunkIndex);
+        }
+    }
+
+    /**
+     * Offer a slice of {@code src} as a batch. The producer index range is claimed with a single XADD and the
+     * elements are published in order.
+     *
+     * @param src the elements to offer, none of which may be {@code null}
+     * @param offset the index in {@code src} of the first element to offer
+     * @param length the number of elements to offer
+     * @return {@code length}, as the queue is unbounded
+     * @throws IndexOutOfBoundsException if the slice is not within {@code src}
+     * @throws NullPointerException if any element in the slice is {@code null}
+     */
+    public int offer(E[] src, int offset, int length) {
+        MessagePassingQueueUtil.checkOfferBatch(src, offset, length);
+        if (length == 0)
+            return 0;
+        offerClaimedSlots(src, offset, getAndAddProducerIndex(length), length);
+        return length;
+    }
+
+    /**
+     * Same as {@link #offer(Object[], int, int)}.
+     */
+    public int relaxedOffer(E[] src, int offset, int length) {
+        return offer(src, offset, length);
+    }
+
+    @Override
+    public E poll() {
+        final int chunkMask = this.chunkMask;
+        final int chunkShift = this.chunkShift;
+        long cIndex;
+        MpmcUnboundedXaddAtomicChunk<E> cChunk;
+        int ciChunkOffset;
+        boolean isFirstElementOfNewChunk;
+        boolean pooled = false;
+        E e = null;
+        MpmcUnboundedXaddAtomicChunk<E> next = null;
+        // start with bogus value, hope we don't need it
+        long pIndex = -1;
+        long ciChunkIndex;
+        while (true) {
+            isFirstElementOfNewChunk = false;
+            cIndex = this.lvConsumerIndex();
+            // chunk is in sync with the index, and is safe to mutate after CAS of index (because we pre-verify it
+            // matched the indicate ciChunkIndex)
+            cChunk = this.lvConsumerChunk();
+            ciChunkOffset = (int) (cIndex & chunkMask);
+            ciChunkIndex = cIndex >> chunkShift;
+            final long ccChunkIndex = cChunk.lvIndex();
+            if (ciChunkOffset == 0 && cIndex != 0) {
+                if (ciChunkIndex - ccChunkIndex != 1) {
+                    continue;
+                }
+                isFirstElementOfNewChunk = true;
+                next = cChunk.lvNext();
+                // - if !null: it will fail on casConsumerIndex
+                if (next == null) {
+                    if (// test against cached pIndex
+                    cIndex >= pIndex && // update pIndex if we must
+                    cIndex == (pIndex = lvProducerIndex())) {
+                        // strict empty check, this ensures [Queue.poll() == null iff isEmpty()]
+                        return null;
+                    }
+                // we will go ahead with the CAS and have the winning consumer spin for the next buffer
+                }
+                // not empty: can attempt the cas (and transition to next chunk if successful)
+                if (casConsumerIndex(cIndex, cIndex + 1)) {
+                    break;
+                }
+                continue;
+            }
+            if (ccChunkIndex > ciChunkIndex) {
+                // stale view of the world
+                continue;
+            }
+            // mid chunk elements
+            assert !isFirstElementOfNewChunk && ccChunkIndex <= ciChunkIndex;
+            pooled = cChunk.isPooled();
+            if (ccChunkIndex == ciChunkIndex) {
+                if (pooled) {
+                    // Pooled chunks need a stronger guarantee than just element null checking in case of a stale view
+                    // on a reused entry where a racing consumer has grabbed the slot but not yet null-ed it out and a
+                    // producer has not yet set it to the new value.
+                    final long sequence = cChunk.lvSequence(ciChunkOffset);
+                    if (sequence == ciChunkIndex) {
+                        if (casConsumerIndex(cIndex, cIndex + 1)) {
+                            break;
+                        }
+                        continue;
+                    }
+                    if (sequence > ciChunkIndex) {
+                        // stale view of the world
+                        continue;
+                    }
+                // sequence < ciChunkIndex: element yet to be set?
+                } else {
+                    e = cChunk.lvElement(ciChunkOffset);
+                    if (e != null) {
+                        if (casConsumerIndex(cIndex, cIndex + 1)) {
+                            break;
+                        }
+                        continue;
+                    }
+                // e == null: element yet to be set?
+                }
+            }
+            // ccChunkIndex < ciChunkIndex || e == null || sequence < ciChunkIndex:
+            if (// test against cached pIndex
+            cIndex >= pIndex && // update pIndex if we must
+            cIndex == (pIndex = lvProducerIndex())) {
+                // strict empty check, this ensures [Queue.poll() == null iff isEmpty()]
+                return null;
+            }
+        }
+        // if we are the isFirstElementOfNewChunk we need to get the consumer chunk
+        if (isFirstElementOfNewChunk) {
+            e = switchToNextConsumerChunkAndPoll(cChunk, next, ciChunkIndex);
+        } else {
+            if (pooled) {
+                e = cChunk.lvElement(ciChunkOffset);
+            }
+            assert !cChunk.isPooled() || (cChunk.isPooled() && cChunk.lvSequence(ciChunkOffset) == ciChunkIndex);
+            cChunk.soElement(ciChunkOffset, null);
+        }
+        return e;
+    }
+
+    private E switchToNextConsumerChunkAndPoll(MpmcUnboundedXaddAtomicChunk<E> cChunk, MpmcUnboundedXaddAtomicChunk<E> next, long expectedChunkIndex) {
+        if (next == null) {
+            final long ccChunkIndex = expectedChunkIndex - 1;
+            assert cChunk.lvIndex() == ccChunkIndex;
+            if (lvProducerChunkIndex() == ccChunkIndex) {
+                // no need to help too much here or the consumer latency will be hurt
+                next = appendNextChunks(cChunk, ccChunkIndex, 1);
+            }
+        }
+        while (next == null) {
+            next = cChunk.lvNext();
+        }
+        // we can freely spin awaiting producer, because we are the only one in charge to
+        // rotate the consumer buffer and use next
+        final E e = next.spinForElement(0, false);
+        final boolean pooled = next.isPooled();
+        if (pooled) {
+            next.spinForSequence(0, expectedChunkIndex);
+        }
+        next.soElement(0, null);
+        moveToNextConsumerChunk(cChunk, next);
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        final int chunkMask = this.chunkMask;
+        final int chunkShift = this.chunkShift;
+        long cIndex;
+        E e;
+        do {
+            e = null;
+            cIndex = this.lvConsumerIndex();
+            MpmcUnboundedXaddAtomicChunk<E> cChunk = this.lvConsumerChunk();
+            final int ciChunkOffset = (int) (cIndex & chunkMask);
+            final long ciChunkIndex = cIndex >> chunkShift;
+            final boolean firstElementOfNewChunk = ciChunkOffset == 0 && cIndex != 0;
+            if (firstElementOfNewChunk) {
+                final long expectedChunkIndex = ciChunkIndex - 1;
+                if (expectedChunkIndex != cChunk.lvIndex()) {
+                    continue;
+                }
+                final MpmcUnboundedXaddAtomicChunk<E> next = cChunk.lvNext();
+                if (next == null) {
+                    continue;
+                }
+                cChunk = next;
+            }
+            if (cChunk.isPooled()) {
+                if (cChunk.lvSequence(ciChunkOffset) != ciChunkIndex) {
+                    continue;
+                }
+            } else {
+                if (cChunk.lvIndex() != ciChunkIndex) {
+                    continue;
+                }
+            }
+            e = cChunk.lvElement(ciChunkOffset);
+        } while (// checking again vs consumerIndex changes is necessary to verify that e is still valid
+        (e == null && cIndex != lvProducerIndex()) || (e != null && cIndex != lvConsumerIndex()));
+        return e;
+    }
+
+    @Override
+    public E relaxedPoll() {
+        final int chunkMask = this.chunkMask;
+        final int chunkShift = this.chunkShift;
+        final long cIndex = this.lvConsumerIndex();
+        final MpmcUnboundedXaddAtomicChunk<E> cChunk = this.lvConsumerChunk();
+        final int ciChunkOffset = (int) (cIndex & chunkMask);
+        final long ciChunkIndex = cIndex >> chunkShift;
+        final boolean firstElementOfNewChunk = ciChunkOffset == 0 && cIndex != 0;
+        if (firstElementOfNewChunk) {
+            final long expectedChunkIndex = ciChunkIndex - 1;
+            final MpmcUnboundedXaddAtomicChunk<E> next;
+            final long ccChunkIndex = cChunk.lvIndex();
+            if (expectedChunkIndex != ccChunkIndex || (next = cChunk.lvNext()) == null) {
+                return null;
+            }
+            E e = null;
+            final boolean pooled = next.isPooled();
+            if (pooled) {
+                if (next.lvSequence(0) != ciChunkIndex) {
+                    return null;
+                }
+            } else {
+                e = next.lvElement(0);
+                if (e == null) {
+                    return null;
+                }
+            }
+            if (!casConsumerIndex(cIndex, cIndex + 1)) {
+                return null;
+            }
+            if (pooled) {
+                e = next.lvElement(0);
+            }
+            assert e != null;
+            next.soElement(0, null);
+            moveToNextConsumerChunk(cChunk, next);
+            return e;
+        } else {
+            final boolean pooled = cChunk.isPooled();
+            E e = null;
+            if (pooled) {
+                final long sequence = cChunk.lvSequence(ciChunkOffset);
+                if (sequence != ciChunkIndex) {
+                    return null;
+                }
+            } else {
+                final long ccChunkIndex = cChunk.lvIndex();
+                if (ccChunkIndex != ciChunkIndex || (e = cChunk.lvElement(ciChunkOffset)) == null) {
+                    return null;
+                }
+            }
+            if (!casConsumerIndex(cIndex, cIndex + 1)) {
+                return null;
+            }
+            if (pooled) {
+                e = cChunk.lvElement(ciChunkOffset);
+                assert e != null;
+            }
+            assert !pooled || (pooled && cChunk.lvSequence(ciChunkOffset) == ciChunkIndex);
+            cChunk.soElement(ciChunkOffset, null);
+            return e;
+        }
+    }
+
+    @Override
+    public E relaxedPeek() {
+        final int chunkMask = this.chunkMask;
+        final int chunkShift = this.chunkShift;
+        final long cIndex = this.lvConsumerIndex();
+        final int ciChunkOffset = (int) (cIndex & chunkMask);
+        final long ciChunkIndex = cIndex >> chunkShift;
+        MpmcUnboundedXaddAtomicChunk<E> consumerBuffer = this.lvConsumerChunk();
+        final int chunkSize = chunkMask + 1;
+        final boolean firstElementOfNewChunk = ciChunkOffset == 0 && cIndex >= chunkSize;
+        if (firstElementOfNewChunk) {
+            final long expectedChunkIndex = ciChunkIndex - 1;
+            if (expectedChunkIndex != consumerBuffer.lvIndex()) {
+                return null;
+            }
+            final MpmcUnboundedXaddAtomicChunk<E> next = consumerBuffer.lvNext();
+            if (next == null) {
+                return null;
+            }
+            consumerBuffer = next;
+        }
+        if (consumerBuffer.isPooled()) {
+            if (consumerBuffer.lvSequence(ciChunkOffset) != ciChunkIndex) {
+                return null;
+            }
+        } else {
+            if (consumerBuffer.lvIndex() != ciChunkIndex) {
+                return null;
+            }
+        }
+        final E e = consumerBuffer.lvElement(ciChunkOffset);
+        // checking again vs consumerIndex changes is necessary to verify that e is still valid
+        if (cIndex != lvConsumerIndex()) {
+            return null;
+        }
+        return e;
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit) {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+        fillClaimedSlots(s, getAndAddProducerIndex(limit), limit);
+        return limit;
+    }
+
+    /**
+     * Write {@code count} elements from the supplier into the slots starting at {@code producerSeq}, which the caller
+     * has already claimed.
+     */
+    final void fillClaimedSlots(Supplier<E> s, long producerSeq, int count) {
+        final int chunkShift = this.chunkShift;
+        final int chunkMask = this.chunkMask;
+        MpmcUnboundedXaddAtomicChunk<E> producerBuffer = null;
+        for (int i = 0; i < count; i++) {
+            final int pOffset = (int) (producerSeq & chunkMask);
+            long chunkIndex = producerSeq >> chunkShift;
+            if (producerBuffer == null || producerBuffer.lvIndex() != chunkIndex) {
+                producerBuffer = producerChunkForIndex(producerBuffer, chunkIndex);
+                if (producerBuffer.isPooled()) {
+                    chunkIndex = producerBuffer.lvIndex();
+                }
+            }
+            if (producerBuffer.isPooled()) {
+                while (producerBuffer.lvElement(pOffset) != null) {
+                }
+            }
+            producerBuffer.soElement(pOffset, s.get());
+            if (producerBuffer.isPooled()) {
+                producerBuffer.soSequence(pOffset, chunkIndex);
+            }
+            producerSeq++;
+        }
+    }
+
+    /**
+     * Write {@code count} elements from {@code src} into the slots starting at {@code producerSeq}, which the caller
+     * has already claimed.
+     */
+    final void offerClaimedSlots(E[] src, int offset, long producerSeq, int count) {
+        final int chunkShift = this.chunkShift;
+        final int chunkMask = this.chunkMask;
+        MpmcUnboundedXaddAtomicChunk<E> producerBuffer = null;
+        for (int i = 0; i < count; i++) {
+            final int pOffset = (int) (producerSeq & chunkMask);
+            long chunkIndex = producerSeq >> chunkShift;
+            if (producerBuffer == null || producerBuffer.lvIndex() != chunkIndex) {
+                producerBuffer = producerChunkForIndex(producerBuffer, chunkIndex);
+                if (producerBuffer.isPooled()) {
+                    chunkIndex = producerBuffer.lvIndex();
+                }
+            }
+            if (producerBuffer.isPooled()) {
+                while (producerBuffer.lvElement(pOffset) != null) {
+                }
+            }
+            producerBuffer.soElement(pOffset, src[offset + i]);
+            if (producerBuffer.isPooled()) {
+                producerBuffer.soSequence(pOffset, chunkIndex);
+            }
+            producerSeq++;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.atomic;
+
+import org.jctools.util.InternalAPI;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MessagePassingQueue.Supplier;
+import org.jctools.queues.MessagePassingQueueUtil;
+import org.jctools.queues.QueueProgressIndicators;
+import org.jctools.queues.IndexedQueueSizeUtil;
+import static org.jctools.queues.atomic.AtomicQueueUtil.*;
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingAtomicLinkedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpmcUnboundedXaddChunk.java.
+ */
+@InternalAPI
+final class MpmcUnboundedXaddAtomicChunk<E> extends MpUnboundedXaddAtomicChunk<MpmcUnboundedXaddAtomicChunk<E>, E> {
+
+    private final AtomicLongArray sequence;
+
+    MpmcUnboundedXaddAtomicChunk(long index, MpmcUnboundedXaddAtomicChunk<E> prev, int size, boolean pooled) {
+        super(index, prev, size, pooled);
+        if (pooled) {
+            sequence = allocateLongArray(size);
+            // not Arrays.fill, so the generated atomic variant can share this code
+            for (int i = 0; i < size; i++) {
+                spLongElement(sequence, calcLongElementOffset(i), NOT_USED);
+            }
+        } else {
+            sequence = null;
+        }
+    }
+
+    void soSequence(int index, long e) {
+        assert isPooled();
+        soLongElement(sequence, calcLongElementOffset(index), e);
+    }
+
+    long lvSequence(int index) {
+        assert isPooled();
+        return lvLongElement(sequence, calcLongElementOffset(index));
+    }
+
+    void spinForSequence(int index, long e) {
+        assert isPooled();
+        final AtomicLongArray sequence = this.sequence;
+        final int offset = calcLongElementOffset(index);
+        while (true) {
+            if (lvLongElement(sequence, offset) == e) {
+                break;
+            }
+        }
+    }
+}
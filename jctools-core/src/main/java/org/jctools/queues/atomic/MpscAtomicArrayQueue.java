@@ -16,6 +16,7 @@ package org.jctools.queues.atomic;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.AtomicLongArray;
+import org.jctools.queues.BatchPollingQueue;
 import org.jctools.queues.MessagePassingQueueUtil;
 import static org.jctools.queues.atomic.AtomicQueueUtil.*;
 
@@ -338,7 +339,7 @@ abstract class MpscAtomicArrayQueueL3Pad<E> extends MpscAtomicArrayQueueConsumer
  * method for polling from the queue (with minor change to correctly publish the index) and an extension of
  * the Leslie Lamport concurrent queue algorithm (originated by Martin Thompson) on the producer side.
  */
-public class MpscAtomicArrayQueue<E> extends MpscAtomicArrayQueueL3Pad<E> {
+public class MpscAtomicArrayQueue<E> extends MpscAtomicArrayQueueL3Pad<E> implements BatchPollingQueue<E> {
 
     public MpscAtomicArrayQueue(final int capacity) {
         super(capacity);
@@ -434,6 +435,61 @@ public class MpscAtomicArrayQueue<E> extends MpscAtomicArrayQueueL3Pad<E> {
         return true;
     }
 
+    /**
+     * Offer a slice of {@code src} as a batch. The producer index range for the accepted elements is claimed with a
+     * single CAS and the elements are published in order.
+     *
+     * @param src the elements to offer, none of which may be {@code null}
+     * @param offset the index in {@code src} of the first element to offer
+     * @param length the number of elements to offer
+     * @return the number of elements accepted, the first {@code n} elements of the slice, which is less than
+     * {@code length} iff the queue is full
+     * @throws IndexOutOfBoundsException if the slice is not within {@code src}
+     * @throws NullPointerException if any element in the slice is {@code null}
+     */
+    public int offer(final E[] src, final int offset, final int length) {
+        return offer(src, offset, length, false);
+    }
+
+    /**
+     * As {@link #offer(Object[], int, int)}, but the cached consumer index is only refreshed when the queue appears
+     * full, so fewer elements than would fit may be accepted.
+     */
+    public int relaxedOffer(final E[] src, final int offset, final int length) {
+        return offer(src, offset, length, true);
+    }
+
+    private int offer(final E[] src, final int offset, final int length, final boolean relaxed) {
+        MessagePassingQueueUtil.checkOfferBatch(src, offset, length);
+        if (length == 0)
+            return 0;
+        final int mask = this.mask;
+        final long capacity = mask + 1;
+        long producerLimit = lvProducerLimit();
+        long pIndex;
+        int claimed;
+        do {
+            pIndex = lvProducerIndex();
+            long available = producerLimit - pIndex;
+            if (available <= 0 || (!relaxed && available < length)) {
+                producerLimit = lvConsumerIndex() + capacity;
+                available = producerLimit - pIndex;
+                if (available <= 0) {
+                    // FULL :(
+                    return 0;
+                }
+                // this is racy, but the race is benign
+                soProducerLimit(producerLimit);
+            }
+            claimed = (int) Math.min(available, length);
+        } while (!casProducerIndex(pIndex, pIndex + claimed));
+        final AtomicReferenceArray<E> buffer = this.buffer;
+        for (int i = 0; i < claimed; i++) {
+            soRefElement(buffer, calcCircularRefElementOffset(pIndex + i, mask), src[offset + i]);
+        }
+        return claimed;
+    }
+
     /**
      * A wait free alternative to offer which fails on CAS failure.
      *
@@ -568,6 +624,35 @@ public class MpscAtomicArrayQueue<E> extends MpscAtomicArrayQueueL3Pad<E> {
         return lvRefElement(buffer, calcCircularRefElementOffset(cIndex, mask));
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The slots are nulled out with plain stores, the single ordered store of the consumer index releases the whole
+     * run to the producers. This implementation is correct for single consumer thread use only.
+     */
+    @Override
+    public int poll(final E[] dst, final int dstOffset, final int max) {
+        MessagePassingQueueUtil.checkPollBatch(dst, dstOffset, max);
+        final AtomicReferenceArray<E> buffer = this.buffer;
+        final int mask = this.mask;
+        final long cIndex = lpConsumerIndex();
+        final int limit = Math.min(max, mask + 1);
+        int i = 0;
+        for (; i < limit; i++) {
+            final int offset = calcCircularRefElementOffset(cIndex + i, mask);
+            final E e = lvRefElement(buffer, offset);
+            if (null == e) {
+                break;
+            }
+            spRefElement(buffer, offset, null);
+            dst[dstOffset + i] = e;
+        }
+        if (i != 0) {
+            soConsumerIndex(cIndex + i);
+        }
+        return i;
+    }
+
     @Override
     public int drain(final Consumer<E> c, final int limit) {
         if (null == c)
@@ -16,6 +16,7 @@ package org.jctools.queues.atomic;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.AtomicLongArray;
+import org.jctools.queues.BatchPollingQueue;
 import org.jctools.queues.MessagePassingQueueUtil;
 import static org.jctools.queues.atomic.AtomicQueueUtil.*;
 
@@ -334,7 +335,7 @@ abstract class SpmcAtomicArrayQueueL3Pad<E> extends SpmcAtomicArrayQueueProducer
  * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingAtomicArrayQueueGenerator
  * which can found in the jctools-build module. The original source file is SpmcArrayQueue.java.
  */
-public class SpmcAtomicArrayQueue<E> extends SpmcAtomicArrayQueueL3Pad<E> {
+public class SpmcAtomicArrayQueue<E> extends SpmcAtomicArrayQueueL3Pad<E> implements BatchPollingQueue<E> {
 
     public SpmcAtomicArrayQueue(final int capacity) {
         super(capacity);
@@ -462,6 +463,40 @@ public class SpmcAtomicArrayQueue<E> extends SpmcAtomicArrayQueueL3Pad<E> {
         return e;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The run of published elements is claimed with a single CAS of the consumer index.
+     */
+    @Override
+    public int poll(final E[] dst, final int dstOffset, final int max) {
+        MessagePassingQueueUtil.checkPollBatch(dst, dstOffset, max);
+        if (max == 0)
+            return 0;
+        final AtomicReferenceArray<E> buffer = this.buffer;
+        final int mask = this.mask;
+        long currProducerIndexCache = lvProducerIndexCache();
+        long currentConsumerIndex;
+        int claimed;
+        do {
+            currentConsumerIndex = lvConsumerIndex();
+            if (currentConsumerIndex >= currProducerIndexCache) {
+                long currProducerIndex = lvProducerIndex();
+                if (currentConsumerIndex >= currProducerIndex) {
+                    return 0;
+                } else {
+                    currProducerIndexCache = currProducerIndex;
+                    svProducerIndexCache(currProducerIndex);
+                }
+            }
+            claimed = (int) Math.min(max, currProducerIndexCache - currentConsumerIndex);
+        } while (!casConsumerIndex(currentConsumerIndex, currentConsumerIndex + claimed));
+        for (int i = 0; i < claimed; i++) {
+            dst[dstOffset + i] = removeElement(buffer, currentConsumerIndex + i, mask);
+        }
+        return claimed;
+    }
+
     @Override
     public int drain(final Consumer<E> c, final int limit) {
         if (null == c)
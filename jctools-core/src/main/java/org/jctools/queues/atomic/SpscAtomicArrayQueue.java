@@ -16,6 +16,7 @@ package org.jctools.queues.atomic;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.AtomicLongArray;
+import org.jctools.queues.BatchPollingQueue;
 import org.jctools.queues.MessagePassingQueueUtil;
 import static org.jctools.queues.atomic.AtomicQueueUtil.*;
 
@@ -286,7 +287,7 @@ abstract class SpscAtomicArrayQueueL3Pad<E> extends SpscAtomicArrayQueueConsumer
  * </i>
  * This implementation is wait free.
  */
-public class SpscAtomicArrayQueue<E> extends SpscAtomicArrayQueueL3Pad<E> {
+public class SpscAtomicArrayQueue<E> extends SpscAtomicArrayQueueL3Pad<E> implements BatchPollingQueue<E> {
 
     public SpscAtomicArrayQueue(final int capacity) {
         super(Math.max(capacity, 4));
@@ -385,6 +386,38 @@ public class SpscAtomicArrayQueue<E> extends SpscAtomicArrayQueueL3Pad<E> {
         return fill(s, capacity());
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Each slot is released with an ordered store as it is copied, as the producer checks the slots rather than the
+     * consumer index for free space. The consumer index is updated once for the whole run.
+     * This implementation is correct for single consumer thread use only.
+     */
+    @Override
+    public int poll(final E[] dst, final int dstOffset, final int max) {
+        MessagePassingQueueUtil.checkPollBatch(dst, dstOffset, max);
+        final AtomicReferenceArray<E> buffer = this.buffer;
+        final int mask = this.mask;
+        final long consumerIndex = this.lpConsumerIndex();
+        // a run longer than the capacity would wrap around to slots the producer may have refilled
+        final int limit = Math.min(max, mask + 1);
+        int i = 0;
+        for (; i < limit; i++) {
+            final int offset = calcCircularRefElementOffset(consumerIndex + i, mask);
+            final E e = lvRefElement(buffer, offset);
+            if (null == e) {
+                break;
+            }
+            soRefElement(buffer, offset, null);
+            dst[dstOffset + i] = e;
+        }
+        if (i != 0) {
+            // ordered store -> atomic and ordered for size()
+            soConsumerIndex(consumerIndex + i);
+        }
+        return i;
+    }
+
     @Override
     public int drain(final Consumer<E> c, final int limit) {
         if (null == c)
@@ -63,8 +63,8 @@ public class SpscUnboundedAtomicArrayQueue<E> extends BaseSpscLinkedAtomicArrayQ
             writeToQueue(buffer, v == null ? s.get() : v, pIndex, offset);
         } else {
             // we got one slot left to write into, and we are not full. Need to link new buffer.
-            // allocate new buffer of same length
-            final AtomicReferenceArray<E> newBuffer = allocateRefArray((int) (mask + 2));
+            // allocate new buffer of same length, or reuse one the consumer is done with
+            final AtomicReferenceArray<E> newBuffer = allocateBuffer((int) (mask + 2));
             producerBuffer = newBuffer;
             producerBufferLimit = pIndex + mask - 1;
             linkOldToNew(pIndex, buffer, offset, newBuffer, offset, v == null ? s.get() : v);
@@ -0,0 +1,23 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.spec;
+
+/**
+ * Which side of the queue may block: neither, the consumer only (producers fail fast as usual) or both producers
+ * and consumers. Blocking queues implement {@link java.util.concurrent.BlockingQueue}.
+ */
+public enum Blocking
+{
+    NONE, CONSUMER, PRODUCER_AND_CONSUMER
+}
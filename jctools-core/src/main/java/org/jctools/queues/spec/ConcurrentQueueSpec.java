@@ -14,6 +14,7 @@
 package org.jctools.queues.spec;
 
 import org.jctools.queues.MessagePassingQueue;
+import org.jctools.util.RangeUtil;
 
 @Deprecated//(since = "3.0.0")
 public final class ConcurrentQueueSpec
@@ -23,6 +24,10 @@ public final class ConcurrentQueueSpec
     public final int capacity;
     public final Ordering ordering;
     public final Preference preference;
+    public final Growth growth;
+    public final Blocking blocking;
+    // 0 when there is no preferred chunk size
+    public final int chunkSize;
 
     public static ConcurrentQueueSpec createBoundedSpsc(int capacity)
     {
@@ -44,14 +49,89 @@ public final class ConcurrentQueueSpec
         return new ConcurrentQueueSpec(0, 0, capacity, Ordering.FIFO, Preference.NONE);
     }
 
+    /**
+     * @param maxCapacity the buffer grows on demand up to this capacity
+     */
+    public static ConcurrentQueueSpec createGrowableSpsc(int maxCapacity)
+    {
+        return new ConcurrentQueueSpec(1, 1, maxCapacity, Ordering.FIFO, Preference.NONE, Growth.GROWABLE,
+            Blocking.NONE, 0);
+    }
+
+    /**
+     * @param maxCapacity the buffer grows on demand up to this capacity
+     */
+    public static ConcurrentQueueSpec createGrowableMpsc(int maxCapacity)
+    {
+        return new ConcurrentQueueSpec(0, 1, maxCapacity, Ordering.FIFO, Preference.NONE, Growth.GROWABLE,
+            Blocking.NONE, 0);
+    }
+
+    /**
+     * @param chunkSize the preferred size of the linked chunks, 0 for no preference
+     */
+    public static ConcurrentQueueSpec createUnboundedSpsc(int chunkSize)
+    {
+        return new ConcurrentQueueSpec(1, 1, 0, Ordering.FIFO, Preference.NONE, Growth.UNBOUNDED,
+            Blocking.NONE, chunkSize);
+    }
+
+    /**
+     * @param chunkSize the preferred size of the linked chunks, 0 for no preference
+     */
+    public static ConcurrentQueueSpec createUnboundedMpsc(int chunkSize)
+    {
+        return new ConcurrentQueueSpec(0, 1, 0, Ordering.FIFO, Preference.NONE, Growth.UNBOUNDED,
+            Blocking.NONE, chunkSize);
+    }
+
+    /**
+     * @param chunkSize the preferred size of the linked chunks, 0 for no preference
+     */
+    public static ConcurrentQueueSpec createUnboundedMpmc(int chunkSize)
+    {
+        return new ConcurrentQueueSpec(0, 0, 0, Ordering.FIFO, Preference.NONE, Growth.UNBOUNDED,
+            Blocking.NONE, chunkSize);
+    }
+
+    /**
+     * A non-blocking spec, unbounded if capacity is less than 1 and bounded otherwise.
+     */
     public ConcurrentQueueSpec(int producers, int consumers, int capacity, Ordering ordering, Preference preference)
+    {
+        this(producers, consumers, capacity, ordering, preference,
+            capacity < 1 ? Growth.UNBOUNDED : Growth.BOUNDED, Blocking.NONE, 0);
+    }
+
+    /**
+     * @param capacity  the (max) capacity, ignored when growth is {@link Growth#UNBOUNDED} and must be positive
+     *                  otherwise
+     * @param chunkSize the preferred size of the linked chunks for queues which have them, 0 for no preference
+     */
+    public ConcurrentQueueSpec(
+        int producers,
+        int consumers,
+        int capacity,
+        Ordering ordering,
+        Preference preference,
+        Growth growth,
+        Blocking blocking,
+        int chunkSize)
     {
         super();
+        if (growth != Growth.UNBOUNDED)
+        {
+            RangeUtil.checkPositive(capacity, "capacity");
+        }
+        RangeUtil.checkPositiveOrZero(chunkSize, "chunkSize");
         this.producers = producers;
         this.consumers = consumers;
-        this.capacity = capacity < 1 ? MessagePassingQueue.UNBOUNDED_CAPACITY : capacity;
+        this.capacity = growth == Growth.UNBOUNDED ? MessagePassingQueue.UNBOUNDED_CAPACITY : capacity;
         this.ordering = ordering;
         this.preference = preference;
+        this.growth = growth;
+        this.blocking = blocking;
+        this.chunkSize = chunkSize;
     }
 
     public boolean isSpsc()
@@ -16,5 +16,5 @@ package org.jctools.queues.spec;
 @Deprecated//(since = "3.0.0")
 public enum Preference
 {
-    LATENCY, THROUGHPUT, NONE
+    LATENCY, THROUGHPUT, NONE, MEMORY
 }
@@ -0,0 +1,375 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.timers;
+
+import org.jctools.queues.MessagePassingQueue.Consumer;
+import org.jctools.queues.MpscUnboundedXaddArrayQueue;
+import org.jctools.queues.SpmcArrayQueue;
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+
+/**
+ * A hierarchical hashed timer wheel where any thread may {@link #schedule(Object, long)} and {@link #cancel(long)}
+ * timers while a single owner thread advances the wheel with {@link #expire(long, Consumer)}.
+ * <p>
+ * Producers never touch the wheel itself:
+ * <ul>
+ * <li>Timer entries are pre-allocated and handed to producers through a {@link SpmcArrayQueue} pool which the owner
+ * refills as timers fire or are cancelled.
+ * <li>Schedule and cancel requests are passed to the owner through a {@link MpscUnboundedXaddArrayQueue} inbox, which
+ * is drained in one batch on every {@link #expire(long, Consumer)} call.
+ * <li>Handles are {@code long} values packing the entry index and generation, a stale handle does not cancel a
+ * recycled entry.
+ * </ul>
+ * Scheduling and cancelling are allocation free once the inbox chunks are pooled. The wheel has {@code levels}
+ * levels of {@code ticksPerWheel} slots, each level spanning {@code ticksPerWheel} times the previous one. Timers are
+ * placed on the lowest level which covers their deadline and cascade to lower levels as the wheel turns, deadlines
+ * beyond the top level wrap around it and are re-placed when their slot comes round.
+ * <p>
+ * Timers fire on the first {@link #expire(long, Consumer)} call at or after the end of the tick their deadline falls
+ * in, they never fire early.
+ *
+ * @param <T> the timer task type
+ */
+public class MpscTimerWheel<T>
+{
+    /**
+     * Returned by {@link #schedule(Object, long)} when all timer entries are in use.
+     */
+    public static final long NO_TIMER = -1;
+
+    private static final int INBOX_CHUNK_SIZE = 1024;
+    private static final int INBOX_POOLED_CHUNKS = 2;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final int levels;
+    private final int wheelBits;
+    private final int wheelMask;
+
+    private final TimerNode[] nodes;
+    private final SpmcArrayQueue<TimerNode> pool;
+    private final MpscUnboundedXaddArrayQueue<TimerNode> inbox;
+    private final Consumer<TimerNode> commandHandler;
+
+    // owner only state
+    private final TimerNode[] slots;
+    private long currentTick;
+    private int linked;
+
+    /**
+     * @param tickNanos     the wheel resolution in nanoseconds
+     * @param ticksPerWheel the number of slots on each level, rounded up to the next power of 2
+     * @param levels        the number of levels
+     * @param capacity      the maximum number of outstanding timers
+     */
+    public MpscTimerWheel(long tickNanos, int ticksPerWheel, int levels, int capacity)
+    {
+        this(tickNanos, ticksPerWheel, levels, capacity, System.nanoTime());
+    }
+
+    /**
+     * @param tickNanos     the wheel resolution in nanoseconds
+     * @param ticksPerWheel the number of slots on each level, rounded up to the next power of 2
+     * @param levels        the number of levels
+     * @param capacity      the maximum number of outstanding timers
+     * @param startNanos    the time of tick 0, on the same time line as deadlines and {@link #expire(long, Consumer)}
+     */
+    public MpscTimerWheel(long tickNanos, int ticksPerWheel, int levels, int capacity, long startNanos)
+    {
+        RangeUtil.checkPositive(tickNanos, "tickNanos");
+        RangeUtil.checkGreaterThanOrEqual(ticksPerWheel, 2, "ticksPerWheel");
+        RangeUtil.checkGreaterThanOrEqual(levels, 1, "levels");
+        RangeUtil.checkGreaterThanOrEqual(capacity, 1, "capacity");
+        final int wheelSize = Pow2.roundToPowerOfTwo(ticksPerWheel);
+        this.wheelBits = Integer.numberOfTrailingZeros(wheelSize);
+        // ticks are non negative longs, the levels must fit into their bits
+        RangeUtil.checkLessThanOrEqual(levels * wheelBits, Long.SIZE - 2, "levels * log2(ticksPerWheel)");
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+        this.levels = levels;
+        this.wheelMask = wheelSize - 1;
+        this.slots = new TimerNode[levels << wheelBits];
+
+        this.nodes = new TimerNode[capacity];
+        this.pool = new SpmcArrayQueue<TimerNode>(Math.max(2, capacity));
+        for (int i = 0; i < capacity; i++)
+        {
+            nodes[i] = new TimerNode(i);
+            pool.offer(nodes[i]);
+        }
+        this.inbox = new MpscUnboundedXaddArrayQueue<TimerNode>(INBOX_CHUNK_SIZE, INBOX_POOLED_CHUNKS);
+        this.commandHandler = new Consumer<TimerNode>()
+        {
+            @Override
+            public void accept(TimerNode node)
+            {
+                onCommand(node);
+            }
+        };
+    }
+
+    /**
+     * @return the maximum number of outstanding timers
+     */
+    public int capacity()
+    {
+        return nodes.length;
+    }
+
+    /**
+     * Schedule a timer, may be called from any thread.
+     *
+     * @param task          the task handed to the expiry handler when the timer fires
+     * @param deadlineNanos the deadline, on the same time line as {@link #expire(long, Consumer)}
+     * @return a handle to cancel the timer with, or {@link #NO_TIMER} if all timer entries are in use
+     * @throws NullPointerException if task is null
+     */
+    public long schedule(T task, long deadlineNanos)
+    {
+        if (null == task)
+        {
+            throw new NullPointerException();
+        }
+        final TimerNode node = pool.poll();
+        if (node == null)
+        {
+            return NO_TIMER;
+        }
+        final int generation = node.generation;
+        node.task = task;
+        node.deadlineTick = deadlineTick(deadlineNanos);
+        node.soState(TimerNode.state(generation, TimerNode.SCHEDULED));
+        inbox.offer(node);
+        return TimerNode.handle(generation, node.index);
+    }
+
+    /**
+     * Cancel a scheduled timer, may be called from any thread.
+     *
+     * @param handle a handle returned by {@link #schedule(Object, long)}
+     * @return true if the timer was cancelled, false if it already fired, was cancelled or the handle is stale
+     */
+    public boolean cancel(long handle)
+    {
+        final int index = (int) handle;
+        if (index < 0 || index >= nodes.length)
+        {
+            return false;
+        }
+        final TimerNode node = nodes[index];
+        final int generation = (int) (handle >>> 32);
+        if (node.casState(TimerNode.state(generation, TimerNode.SCHEDULED),
+            TimerNode.state(generation, TimerNode.CANCELLED)))
+        {
+            // the owner unlinks and recycles the entry
+            inbox.offer(node);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Apply the pending schedule/cancel requests and fire all timers due by {@code nowNanos}. Owner thread only.
+     * <p>
+     * Timers scheduled by the handler are applied on the next call.
+     *
+     * @param nowNanos the current time
+     * @param handler  receives the task of every fired timer
+     * @return the number of fired timers
+     * @throws IllegalArgumentException if handler is null
+     */
+    public int expire(long nowNanos, Consumer<T> handler)
+    {
+        if (null == handler)
+            throw new IllegalArgumentException("handler is null");
+        inbox.drain(commandHandler);
+
+        final long nowTick = nowNanos - startNanos < 0 ? 0 : (nowNanos - startNanos) / tickNanos;
+        int fired = 0;
+        while (currentTick < nowTick)
+        {
+            if (linked == 0)
+            {
+                // nothing to fire or cascade on the way
+                currentTick = nowTick;
+                break;
+            }
+            final long tick = ++currentTick;
+            for (int level = levels - 1; level > 0; level--)
+            {
+                final int shift = level * wheelBits;
+                if ((tick & ((1L << shift) - 1)) == 0)
+                {
+                    cascade((level << wheelBits) | (int) ((tick >>> shift) & wheelMask));
+                }
+            }
+            fired += expireSlot((int) (tick & wheelMask), handler);
+        }
+        return fired;
+    }
+
+    private long deadlineTick(long deadlineNanos)
+    {
+        final long delta = deadlineNanos - startNanos;
+        if (delta <= 0)
+        {
+            return 0;
+        }
+        // round up, a timer never fires before its deadline
+        return delta / tickNanos + (delta % tickNanos == 0 ? 0 : 1);
+    }
+
+    private void onCommand(TimerNode node)
+    {
+        if (node.location == TimerNode.IN_POOL)
+        {
+            // schedule request, a cancel request for this entry may follow
+            if ((int) (node.lvState() & 3) == TimerNode.CANCELLED)
+            {
+                node.location = TimerNode.DROPPED;
+            }
+            else
+            {
+                place(node, currentTick + 1);
+            }
+        }
+        else
+        {
+            // cancel request, the schedule request was already applied
+            if (node.location == TimerNode.LINKED)
+            {
+                unlink(node);
+            }
+            recycle(node);
+        }
+    }
+
+    /**
+     * Link the node on the lowest level where its deadline shares the higher order ticks with the current tick.
+     */
+    private void place(TimerNode node, long minTick)
+    {
+        final long tick = Math.max(node.deadlineTick, minTick);
+        final long current = currentTick;
+        int level = 0;
+        int shift = 0;
+        while (level < levels - 1 && (tick >>> (shift + wheelBits)) != (current >>> (shift + wheelBits)))
+        {
+            level++;
+            shift += wheelBits;
+        }
+        link(node, (level << wheelBits) | (int) ((tick >>> shift) & wheelMask));
+    }
+
+    private void cascade(int slot)
+    {
+        TimerNode node = slots[slot];
+        slots[slot] = null;
+        while (node != null)
+        {
+            final TimerNode next = node.next;
+            node.prev = null;
+            node.next = null;
+            linked--;
+            if ((int) (node.lvState() & 3) == TimerNode.CANCELLED)
+            {
+                node.location = TimerNode.DROPPED;
+            }
+            else
+            {
+                // the current tick slot is expired right after cascading
+                place(node, currentTick);
+            }
+            node = next;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int expireSlot(int slot, Consumer<T> handler)
+    {
+        TimerNode node = slots[slot];
+        slots[slot] = null;
+        int fired = 0;
+        while (node != null)
+        {
+            final TimerNode next = node.next;
+            node.prev = null;
+            node.next = null;
+            linked--;
+            final int generation = node.generation;
+            if (node.casState(TimerNode.state(generation, TimerNode.SCHEDULED),
+                TimerNode.state(generation, TimerNode.FIRED)))
+            {
+                final T task = (T) node.task;
+                recycle(node);
+                handler.accept(task);
+                fired++;
+            }
+            else
+            {
+                // lost to a cancel, the cancel request recycles the entry
+                node.location = TimerNode.DROPPED;
+            }
+            node = next;
+        }
+        return fired;
+    }
+
+    private void link(TimerNode node, int slot)
+    {
+        final TimerNode head = slots[slot];
+        node.slot = slot;
+        node.prev = null;
+        node.next = head;
+        if (head != null)
+        {
+            head.prev = node;
+        }
+        slots[slot] = node;
+        node.location = TimerNode.LINKED;
+        linked++;
+    }
+
+    private void unlink(TimerNode node)
+    {
+        final TimerNode prev = node.prev;
+        final TimerNode next = node.next;
+        if (prev == null)
+        {
+            slots[node.slot] = next;
+        }
+        else
+        {
+            prev.next = next;
+        }
+        if (next != null)
+        {
+            next.prev = prev;
+        }
+        node.prev = null;
+        node.next = null;
+        linked--;
+    }
+
+    private void recycle(TimerNode node)
+    {
+        node.task = null;
+        node.location = TimerNode.IN_POOL;
+        final int generation = node.generation + 1;
+        node.generation = generation;
+        node.soState(TimerNode.state(generation, TimerNode.FREE));
+        pool.offer(node);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.timers;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+/**
+ * A pooled timer entry of {@link MpscTimerWheel}. The {@code state} is the only field shared with threads other than
+ * the wheel owner, it packs the entry generation with its status so that stale handles fail to cancel a recycled
+ * entry. All other fields are handed over through the pool/inbox queues.
+ */
+final class TimerNode
+{
+    private final static long STATE_OFFSET = fieldOffset(TimerNode.class, "state");
+
+    static final int FREE = 0;
+    static final int SCHEDULED = 1;
+    static final int FIRED = 2;
+    static final int CANCELLED = 3;
+
+    // owner only locations
+    static final int IN_POOL = 0;
+    static final int LINKED = 1;
+    static final int DROPPED = 2;
+
+    final int index;
+    int generation;
+    long deadlineTick;
+    Object task;
+
+    // owner only fields
+    int location;
+    int slot;
+    TimerNode prev;
+    TimerNode next;
+
+    private volatile long state;
+
+    TimerNode(int index)
+    {
+        this.index = index;
+    }
+
+    static long state(int generation, int status)
+    {
+        return ((long) generation << 2) | status;
+    }
+
+    static long handle(int generation, int index)
+    {
+        return ((long) generation << 32) | index;
+    }
+
+    final long lvState()
+    {
+        return state;
+    }
+
+    final void soState(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, STATE_OFFSET, newValue);
+    }
+
+    final boolean casState(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, STATE_OFFSET, expect, newValue);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Backoff for the short waits in which a thread waits for another thread to finish a store it has already committed
+ * to (e.g. the element store after a producer index claim). These waits are normally a few iterations long and are
+ * busy spins, but if the other thread is descheduled they last until it runs again.
+ * <p>
+ * On a virtual thread a busy spin holds on to its carrier thread, and the thread we wait for may be an unmounted
+ * virtual thread waiting for a carrier. The wait is therefore bounded on virtual threads: after {@link #SPIN_TRIES}
+ * spins the waiter yields, which unmounts it, and after {@link #YIELD_TRIES} yields it parks for
+ * {@link #PARK_NANOS} per try. Platform threads keep spinning unless {@code jctools.spinWait.bounded} is set, in which
+ * case they back off in the same way.
+ * <p>
+ * {@code Thread.isVirtual()} is only available from JDK 21 and is looked up reflectively once. It is only called
+ * after {@link #SPIN_TRIES} spins, so the short waits pay nothing for it. Set {@code jctools.spinWait.virtual=false}
+ * to spin on virtual threads as well.
+ * <p>
+ * Usage, with {@code tries} starting at 0:
+ * <pre>
+ * int tries = 0;
+ * while (!done())
+ * {
+ *     tries = SpinWait.backoff(tries);
+ * }
+ * </pre>
+ */
+@InternalAPI
+public final class SpinWait
+{
+    public static final int SPIN_TRIES = Integer.getInteger("jctools.spinWait.spins", 128);
+    public static final int YIELD_TRIES = Integer.getInteger("jctools.spinWait.yields", 16);
+    public static final long PARK_NANOS = Long.getLong("jctools.spinWait.parkNanos", 1000L);
+    /**
+     * Platform threads back off as virtual threads do, rather than spin until the wait is over.
+     */
+    public static final boolean BOUNDED = Boolean.getBoolean("jctools.spinWait.bounded");
+
+    private static final Method IS_VIRTUAL;
+
+    static
+    {
+        Method isVirtual = null;
+        if (Boolean.parseBoolean(System.getProperty("jctools.spinWait.virtual", "true")))
+        {
+            try
+            {
+                isVirtual = Thread.class.getMethod("isVirtual");
+            }
+            catch (NoSuchMethodException e)
+            {
+                // pre JDK 21, there are no virtual threads
+            }
+        }
+        IS_VIRTUAL = isVirtual;
+    }
+
+    private SpinWait()
+    {
+    }
+
+    /**
+     * @return true if the thread is a virtual thread, false on JDKs without virtual threads
+     */
+    public static boolean isVirtual(Thread thread)
+    {
+        if (IS_VIRTUAL == null)
+        {
+            return false;
+        }
+        try
+        {
+            return (Boolean) IS_VIRTUAL.invoke(thread);
+        }
+        catch (Exception e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Called once per failed try of a wait loop.
+     *
+     * @param tries 0 on the first call, then the value returned by the previous call
+     * @return the value to pass on the next call
+     */
+    public static int backoff(int tries)
+    {
+        if (tries < 0)
+        {
+            // a platform thread, spin until the wait is over
+            return tries;
+        }
+        if (tries < SPIN_TRIES)
+        {
+            return tries + 1;
+        }
+        if (tries == SPIN_TRIES && !BOUNDED && !isVirtual(Thread.currentThread()))
+        {
+            return -1;
+        }
+        if (tries < SPIN_TRIES + YIELD_TRIES)
+        {
+            Thread.yield();
+            return tries + 1;
+        }
+        LockSupport.parkNanos(PARK_NANOS);
+        return tries;
+    }
+}
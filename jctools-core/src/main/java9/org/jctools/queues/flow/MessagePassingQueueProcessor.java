@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.flow;
+
+import java.util.concurrent.Flow;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.SpscArrayQueue;
+
+/**
+ * A {@link Flow.Processor} which buffers the upstream elements in a bounded {@link MessagePassingQueue} and publishes
+ * them downstream as {@link MessagePassingQueuePublisher} does.
+ * <p>
+ * Upstream {@code onNext} calls are serialized by the Flow rules, so by default the buffer is an
+ * {@link SpscArrayQueue}. The upstream is asked for a full buffer on subscription and then replenished in batches: once
+ * a quarter of the buffer has been delivered downstream it is requested again in one {@code request(n)}, rather than
+ * one request per element. An upstream which does not honour its demand and overflows the buffer is cancelled and the
+ * downstream fails with an {@link IllegalStateException}.
+ * <p>
+ * Requires Java 9 or later.
+ *
+ * @param <T> the element type
+ */
+public class MessagePassingQueueProcessor<T> extends MessagePassingQueuePublisher<T> implements Flow.Processor<T, T>
+{
+    private final int bufferSize;
+    private final int replenishBatch;
+    private volatile Flow.Subscription upstream;
+    // only accessed from the drain loop
+    private long deliveredSinceRequest;
+
+    /**
+     * @param bufferSize the upstream demand kept outstanding, rounded up to the next power of 2
+     */
+    public MessagePassingQueueProcessor(int bufferSize)
+    {
+        this(new SpscArrayQueue<T>(bufferSize));
+    }
+
+    /**
+     * @param buffer the buffer of upstream elements, its capacity is the upstream demand kept outstanding
+     */
+    public MessagePassingQueueProcessor(MessagePassingQueue<T> buffer)
+    {
+        super(buffer);
+        final int capacity = buffer.capacity();
+        if (capacity == MessagePassingQueue.UNBOUNDED_CAPACITY)
+            throw new IllegalArgumentException("buffer must be bounded");
+        this.bufferSize = capacity;
+        this.replenishBatch = Math.max(1, capacity >> 2);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription s)
+    {
+        if (null == s)
+            throw new NullPointerException();
+        if (upstream != null)
+        {
+            s.cancel();
+            return;
+        }
+        upstream = s;
+        s.request(bufferSize);
+    }
+
+    @Override
+    public void onNext(T item)
+    {
+        if (null == item)
+            throw new NullPointerException();
+        if (!offer(item))
+        {
+            upstream.cancel();
+            error(new IllegalStateException("upstream overflowed the buffer of " + bufferSize));
+        }
+    }
+
+    @Override
+    public void onError(Throwable t)
+    {
+        error(t);
+    }
+
+    @Override
+    public void onComplete()
+    {
+        complete();
+    }
+
+    /**
+     * @return the upstream demand kept outstanding
+     */
+    public int bufferSize()
+    {
+        return bufferSize;
+    }
+
+    @Override
+    protected void onDelivered(long n)
+    {
+        final long delivered = deliveredSinceRequest + n;
+        final Flow.Subscription s = upstream;
+        if (delivered >= replenishBatch && s != null)
+        {
+            deliveredSinceRequest = 0;
+            s.request(delivered);
+        }
+        else
+        {
+            deliveredSinceRequest = delivered;
+        }
+    }
+
+    @Override
+    protected void onCancel()
+    {
+        final Flow.Subscription s = upstream;
+        if (s != null)
+        {
+            s.cancel();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName() + "[bufferSize=" + bufferSize + "]";
+    }
+}
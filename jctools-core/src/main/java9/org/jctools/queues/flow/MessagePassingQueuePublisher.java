@@ -0,0 +1,306 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.flow;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.Flow;
+
+import org.jctools.queues.MessagePassingQueue;
+
+/**
+ * A {@link Flow.Publisher} of the elements offered to a {@link MessagePassingQueue}, to a single subscriber.
+ * <p>
+ * Subscriber demand is served by {@link MessagePassingQueue#drain(MessagePassingQueue.Consumer, int)}: the outstanding
+ * {@code request(n)} is drained in one call (in chunks of at most {@link #MAX_DRAIN_BATCH}) rather than one
+ * {@code poll} per element. Signals are serialized by a work-in-progress counter: whichever thread moves it from 0
+ * runs the drain loop, other threads (producers signalling new elements, the subscriber requesting more) only bump
+ * it and the running loop goes round again. The drain loop is the only consumer of the queue at any time and the
+ * counter orders one loop before the next, so single consumer queues may be used while the loop moves across
+ * threads. The producers must respect the producer side of the queue, e.g. a single producer for an SPSC queue.
+ * <p>
+ * Requires Java 9 or later.
+ *
+ * @param <T> the element type
+ */
+public class MessagePassingQueuePublisher<T> implements Flow.Publisher<T>
+{
+    /**
+     * The largest number of elements handed to the subscriber by one {@code drain} call.
+     */
+    public static final int MAX_DRAIN_BATCH = 4096;
+
+    private static final VarHandle WIP;
+    private static final VarHandle REQUESTED;
+    private static final VarHandle SUBSCRIBER;
+
+    static
+    {
+        try
+        {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            WIP = lookup.findVarHandle(MessagePassingQueuePublisher.class, "wip", int.class);
+            REQUESTED = lookup.findVarHandle(MessagePassingQueuePublisher.class, "requested", long.class);
+            SUBSCRIBER = lookup.findVarHandle(MessagePassingQueuePublisher.class, "subscriber", Flow.Subscriber.class);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final MessagePassingQueue<T> queue;
+    // allocated once, hands drained elements to the current subscriber
+    private final MessagePassingQueue.Consumer<T> emitter = new MessagePassingQueue.Consumer<T>()
+    {
+        @Override
+        public void accept(T e)
+        {
+            subscriber.onNext(e);
+        }
+    };
+
+    private volatile Flow.Subscriber<? super T> subscriber;
+    private volatile int wip;
+    private volatile long requested;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private Throwable error;
+    // a rule 3.9 violation by the subscriber, signalled by the drain loop
+    private volatile Throwable badRequest;
+
+    /**
+     * @param queue the queue elements are offered to, elements offered before the subscription are buffered
+     */
+    public MessagePassingQueuePublisher(MessagePassingQueue<T> queue)
+    {
+        if (null == queue)
+            throw new IllegalArgumentException("queue is null");
+        this.queue = queue;
+    }
+
+    /**
+     * Producers only. Offer to the queue and signal the subscriber.
+     *
+     * @return false if the queue is full or the publisher completed
+     */
+    public boolean offer(T e)
+    {
+        if (done || cancelled || !queue.offer(e))
+        {
+            return false;
+        }
+        signal();
+        return true;
+    }
+
+    /**
+     * Signal the subscriber after offering to {@link #queue()} directly, a batch of offers or a
+     * {@link MessagePassingQueue#fill} needs a single signal.
+     */
+    public void signal()
+    {
+        drain();
+    }
+
+    /**
+     * Complete the subscriber once the queued elements are delivered. Elements offered after this call are dropped.
+     */
+    public void complete()
+    {
+        done = true;
+        drain();
+    }
+
+    /**
+     * Fail the subscriber once the queued elements are delivered.
+     */
+    public void error(Throwable t)
+    {
+        if (null == t)
+            throw new NullPointerException();
+        if (done)
+        {
+            return;
+        }
+        error = t;
+        done = true;
+        drain();
+    }
+
+    /**
+     * @return the queue this publisher drains, to be offered or filled by the producers
+     */
+    public MessagePassingQueue<T> queue()
+    {
+        return queue;
+    }
+
+    /**
+     * @return the outstanding subscriber demand, {@link Long#MAX_VALUE} if unbounded
+     */
+    public long requested()
+    {
+        return requested;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> s)
+    {
+        if (null == s)
+            throw new NullPointerException();
+        if (!SUBSCRIBER.compareAndSet(this, null, s))
+        {
+            s.onSubscribe(new Flow.Subscription()
+            {
+                @Override
+                public void request(long n)
+                {
+                }
+
+                @Override
+                public void cancel()
+                {
+                }
+            });
+            s.onError(new IllegalStateException("only a single subscriber is supported"));
+            return;
+        }
+        s.onSubscribe(new QueueSubscription());
+        drain();
+    }
+
+    /**
+     * Called from the drain loop after {@code n} elements were delivered, with the loop signals serialized. No-op
+     * unless overridden.
+     */
+    protected void onDelivered(long n)
+    {
+    }
+
+    /**
+     * Called once when the subscriber cancels. No-op unless overridden.
+     */
+    protected void onCancel()
+    {
+    }
+
+    private void drain()
+    {
+        if ((int) WIP.getAndAdd(this, 1) != 0)
+        {
+            return;
+        }
+        final MessagePassingQueue<T> queue = this.queue;
+        int missed = 1;
+        while (true)
+        {
+            final Flow.Subscriber<? super T> s = subscriber;
+            if (s != null)
+            {
+                if (cancelled)
+                {
+                    queue.clear();
+                    final Throwable t = badRequest;
+                    if (t != null)
+                    {
+                        s.onError(t);
+                    }
+                    return;
+                }
+                final long r = requested;
+                long delivered = 0;
+                while (delivered != r && !cancelled)
+                {
+                    final int n = queue.drain(emitter, (int) Math.min(r - delivered, MAX_DRAIN_BATCH));
+                    if (n == 0)
+                    {
+                        break;
+                    }
+                    delivered += n;
+                }
+                if (delivered != 0)
+                {
+                    if (r != Long.MAX_VALUE)
+                    {
+                        REQUESTED.getAndAdd(this, -delivered);
+                    }
+                    onDelivered(delivered);
+                }
+                // done is read before isEmpty, so no element offered before complete() is missed
+                if (done && !cancelled && queue.isEmpty())
+                {
+                    cancelled = true;
+                    final Throwable t = error;
+                    if (t != null)
+                    {
+                        s.onError(t);
+                    }
+                    else
+                    {
+                        s.onComplete();
+                    }
+                    return;
+                }
+            }
+            missed = (int) WIP.getAndAdd(this, -missed) - missed;
+            if (missed == 0)
+            {
+                return;
+            }
+        }
+    }
+
+    private final class QueueSubscription implements Flow.Subscription
+    {
+        @Override
+        public void request(long n)
+        {
+            if (n <= 0)
+            {
+                badRequest = new IllegalArgumentException("non-positive request: " + n);
+                cancel();
+                return;
+            }
+            long r;
+            long u;
+            do
+            {
+                r = requested;
+                if (r == Long.MAX_VALUE)
+                {
+                    return;
+                }
+                u = r + n;
+                if (u < 0)
+                {
+                    u = Long.MAX_VALUE;
+                }
+            }
+            while (!REQUESTED.compareAndSet(MessagePassingQueuePublisher.this, r, u));
+            drain();
+        }
+
+        @Override
+        public void cancel()
+        {
+            if (!cancelled)
+            {
+                cancelled = true;
+                onCancel();
+                drain();
+            }
+        }
+    }
+}
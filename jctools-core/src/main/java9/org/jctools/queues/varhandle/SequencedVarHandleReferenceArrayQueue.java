@@ -0,0 +1,32 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.varhandle;
+
+import static org.jctools.queues.varhandle.VarHandleQueueUtil.*;
+
+abstract class SequencedVarHandleReferenceArrayQueue<E> extends VarHandleReferenceArrayQueue<E>
+{
+    protected final long[] sequenceBuffer;
+
+    public SequencedVarHandleReferenceArrayQueue(int capacity)
+    {
+        super(capacity);
+        int actualCapacity = this.mask + 1;
+        sequenceBuffer = allocateLongArray(actualCapacity);
+        for (int i = 0; i < actualCapacity; i++)
+        {
+            soLongElement(sequenceBuffer, i, i);
+        }
+    }
+}
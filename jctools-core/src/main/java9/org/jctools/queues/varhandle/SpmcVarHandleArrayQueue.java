@@ -0,0 +1,577 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.varhandle;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import org.jctools.queues.BatchPollingQueue;
+import org.jctools.queues.MessagePassingQueueUtil;
+import static org.jctools.queues.varhandle.VarHandleQueueUtil.*;
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingVarHandleArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is SpmcArrayQueue.java.
+ */
+abstract class SpmcVarHandleArrayQueueL1Pad<E> extends VarHandleReferenceArrayQueue<E> {
+
+    // 8b
+    byte b000, b001, b002, b003, b004, b005, b006, b007;
+
+    // 16b
+    byte b010, b011, b012, b013, b014, b015, b016, b017;
+
+    // 24b
+    byte b020, b021, b022, b023, b024, b025, b026, b027;
+
+    // 32b
+    byte b030, b031, b032, b033, b034, b035, b036, b037;
+
+    // 40b
+    byte b040, b041, b042, b043, b044, b045, b046, b047;
+
+    // 48b
+    byte b050, b051, b052, b053, b054, b055, b056, b057;
+
+    // 56b
+    byte b060, b061, b062, b063, b064, b065, b066, b067;
+
+    // 64b
+    byte b070, b071, b072, b073, b074, b075, b076, b077;
+
+    // 72b
+    byte b100, b101, b102, b103, b104, b105, b106, b107;
+
+    // 80b
+    byte b110, b111, b112, b113, b114, b115, b116, b117;
+
+    // 88b
+    byte b120, b121, b122, b123, b124, b125, b126, b127;
+
+    // 96b
+    byte b130, b131, b132, b133, b134, b135, b136, b137;
+
+    // 104b
+    byte b140, b141, b142, b143, b144, b145, b146, b147;
+
+    // 112b
+    byte b150, b151, b152, b153, b154, b155, b156, b157;
+
+    // 120b
+    byte b160, b161, b162, b163, b164, b165, b166, b167;
+
+    // 128b
+    byte b170, b171, b172, b173, b174, b175, b176, b177;
+
+    SpmcVarHandleArrayQueueL1Pad(int capacity) {
+        super(capacity);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingVarHandleArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is SpmcArrayQueue.java.
+ */
+abstract class SpmcVarHandleArrayQueueProducerIndexField<E> extends SpmcVarHandleArrayQueueL1Pad<E> {
+
+    private static final VarHandle P_INDEX_HANDLE = fieldVarHandle(MethodHandles.lookup(), SpmcVarHandleArrayQueueProducerIndexField.class, "producerIndex", long.class);
+
+    private volatile long producerIndex;
+
+    SpmcVarHandleArrayQueueProducerIndexField(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public final long lvProducerIndex() {
+        return producerIndex;
+    }
+
+    final long lpProducerIndex() {
+        return (long) P_INDEX_HANDLE.get(this);
+    }
+
+    final void soProducerIndex(long newValue) {
+        P_INDEX_HANDLE.setRelease(this, newValue);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingVarHandleArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is SpmcArrayQueue.java.
+ */
+abstract class SpmcVarHandleArrayQueueL2Pad<E> extends SpmcVarHandleArrayQueueProducerIndexField<E> {
+
+    // 8b
+    byte b000, b001, b002, b003, b004, b005, b006, b007;
+
+    // 16b
+    byte b010, b011, b012, b013, b014, b015, b016, b017;
+
+    // 24b
+    byte b020, b021, b022, b023, b024, b025, b026, b027;
+
+    // 32b
+    byte b030, b031, b032, b033, b034, b035, b036, b037;
+
+    // 40b
+    byte b040, b041, b042, b043, b044, b045, b046, b047;
+
+    // 48b
+    byte b050, b051, b052, b053, b054, b055, b056, b057;
+
+    // 56b
+    byte b060, b061, b062, b063, b064, b065, b066, b067;
+
+    // 64b
+    byte b070, b071, b072, b073, b074, b075, b076, b077;
+
+    // 72b
+    byte b100, b101, b102, b103, b104, b105, b106, b107;
+
+    // 80b
+    byte b110, b111, b112, b113, b114, b115, b116, b117;
+
+    // 88b
+    byte b120, b121, b122, b123, b124, b125, b126, b127;
+
+    // 96b
+    byte b130, b131, b132, b133, b134, b135, b136, b137;
+
+    // 104b
+    byte b140, b141, b142, b143, b144, b145, b146, b147;
+
+    // 112b
+    byte b150, b151, b152, b153, b154, b155, b156, b157;
+
+    // 120b
+    byte b160, b161, b162, b163, b164, b165, b166, b167;
+
+    // 128b
+    byte b170, b171, b172, b173, b174, b175, b176, b177;
+
+    SpmcVarHandleArrayQueueL2Pad(int capacity) {
+        super(capacity);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingVarHandleArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is SpmcArrayQueue.java.
+ */
+abstract class SpmcVarHandleArrayQueueConsumerIndexField<E> extends SpmcVarHandleArrayQueueL2Pad<E> {
+
+    private static final VarHandle C_INDEX_HANDLE = fieldVarHandle(MethodHandles.lookup(), SpmcVarHandleArrayQueueConsumerIndexField.class, "consumerIndex", long.class);
+
+    private volatile long consumerIndex;
+
+    SpmcVarHandleArrayQueueConsumerIndexField(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public final long lvConsumerIndex() {
+        return consumerIndex;
+    }
+
+    final boolean casConsumerIndex(long expect, long newValue) {
+        return C_INDEX_HANDLE.compareAndSet(this, expect, newValue);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingVarHandleArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is SpmcArrayQueue.java.
+ */
+abstract class SpmcVarHandleArrayQueueMidPad<E> extends SpmcVarHandleArrayQueueConsumerIndexField<E> {
+
+    // 8b
+    byte b000, b001, b002, b003, b004, b005, b006, b007;
+
+    // 16b
+    byte b010, b011, b012, b013, b014, b015, b016, b017;
+
+    // 24b
+    byte b020, b021, b022, b023, b024, b025, b026, b027;
+
+    // 32b
+    byte b030, b031, b032, b033, b034, b035, b036, b037;
+
+    // 40b
+    byte b040, b041, b042, b043, b044, b045, b046, b047;
+
+    // 48b
+    byte b050, b051, b052, b053, b054, b055, b056, b057;
+
+    // 56b
+    byte b060, b061, b062, b063, b064, b065, b066, b067;
+
+    // 64b
+    byte b070, b071, b072, b073, b074, b075, b076, b077;
+
+    // 72b
+    byte b100, b101, b102, b103, b104, b105, b106, b107;
+
+    // 80b
+    byte b110, b111, b112, b113, b114, b115, b116, b117;
+
+    // 88b
+    byte b120, b121, b122, b123, b124, b125, b126, b127;
+
+    // 96b
+    byte b130, b131, b132, b133, b134, b135, b136, b137;
+
+    // 104b
+    byte b140, b141, b142, b143, b144, b145, b146, b147;
+
+    // 112b
+    byte b150, b151, b152, b153, b154, b155, b156, b157;
+
+    // 120b
+    byte b160, b161, b162, b163, b164, b165, b166, b167;
+
+    // 128b
+    byte b170, b171, b172, b173, b174, b175, b176, b177;
+
+    SpmcVarHandleArrayQueueMidPad(int capacity) {
+        super(capacity);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingVarHandleArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is SpmcArrayQueue.java.
+ */
+abstract class SpmcVarHandleArrayQueueProducerIndexCacheField<E> extends SpmcVarHandleArrayQueueMidPad<E> {
+
+    // This is separated from the consumerIndex which will be highly contended in the hope that this value spends most
+    // of it's time in a cache line that is Shared(and rarely invalidated)
+    private volatile long producerIndexCache;
+
+    SpmcVarHandleArrayQueueProducerIndexCacheField(int capacity) {
+        super(capacity);
+    }
+
+    protected final long lvProducerIndexCache() {
+        return producerIndexCache;
+    }
+
+    protected final void svProducerIndexCache(long newValue) {
+        producerIndexCache = newValue;
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingVarHandleArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is SpmcArrayQueue.java.
+ */
+abstract class SpmcVarHandleArrayQueueL3Pad<E> extends SpmcVarHandleArrayQueueProducerIndexCacheField<E> {
+
+    // 8b
+    byte b000, b001, b002, b003, b004, b005, b006, b007;
+
+    // 16b
+    byte b010, b011, b012, b013, b014, b015, b016, b017;
+
+    // 24b
+    byte b020, b021, b022, b023, b024, b025, b026, b027;
+
+    // 32b
+    byte b030, b031, b032, b033, b034, b035, b036, b037;
+
+    // 40b
+    byte b040, b041, b042, b043, b044, b045, b046, b047;
+
+    // 48b
+    byte b050, b051, b052, b053, b054, b055, b056, b057;
+
+    // 56b
+    byte b060, b061, b062, b063, b064, b065, b066, b067;
+
+    // 64b
+    byte b070, b071, b072, b073, b074, b075, b076, b077;
+
+    // 72b
+    byte b100, b101, b102, b103, b104, b105, b106, b107;
+
+    // 80b
+    byte b110, b111, b112, b113, b114, b115, b116, b117;
+
+    // 88b
+    byte b120, b121, b122, b123, b124, b125, b126, b127;
+
+    // 96b
+    byte b130, b131, b132, b133, b134, b135, b136, b137;
+
+    // 104b
+    byte b140, b141, b142, b143, b144, b145, b146, b147;
+
+    // 112b
+    byte b150, b151, b152, b153, b154, b155, b156, b157;
+
+    // 120b
+    byte b160, b161, b162, b163, b164, b165, b166, b167;
+
+    // 128b
+    byte b170, b171, b172, b173, b174, b175, b176, b177;
+
+    SpmcVarHandleArrayQueueL3Pad(int capacity) {
+        super(capacity);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingVarHandleArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is SpmcArrayQueue.java.
+ */
+public class SpmcVarHandleArrayQueue<E> extends SpmcVarHandleArrayQueueL3Pad<E> implements BatchPollingQueue<E> {
+
+    public SpmcVarHandleArrayQueue(final int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public boolean offer(final E e) {
+        if (null == e) {
+            throw new NullPointerException();
+        }
+        final E[] buffer = this.buffer;
+        final int mask = this.mask;
+        final long currProducerIndex = lvProducerIndex();
+        final int offset = calcCircularRefElementOffset(currProducerIndex, mask);
+        if (null != lvRefElement(buffer, offset)) {
+            long size = currProducerIndex - lvConsumerIndex();
+            if (size > mask) {
+                return false;
+            } else {
+                // spin wait for slot to clear, buggers wait freedom
+                while (null != lvRefElement(buffer, offset)) {
+                // BURN
+                }
+            }
+        }
+        soRefElement(buffer, offset, e);
+        // single producer, so store ordered is valid. It is also required to correctly publish the element
+        // and for the consumers to pick up the tail value.
+        soProducerIndex(currProducerIndex + 1);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        long currentConsumerIndex;
+        long currProducerIndexCache = lvProducerIndexCache();
+        do {
+            currentConsumerIndex = lvConsumerIndex();
+            if (currentConsumerIndex >= currProducerIndexCache) {
+                long currProducerIndex = lvProducerIndex();
+                if (currentConsumerIndex >= currProducerIndex) {
+                    return null;
+                } else {
+                    currProducerIndexCache = currProducerIndex;
+                    svProducerIndexCache(currProducerIndex);
+                }
+            }
+        } while (!casConsumerIndex(currentConsumerIndex, currentConsumerIndex + 1));
+        // and wrap to hit same location.
+        return removeElement(buffer, currentConsumerIndex, mask);
+    }
+
+    private E removeElement(final E[] buffer, long index, final int mask) {
+        final int offset = calcCircularRefElementOffset(index, mask);
+        // load plain, element happens before it's index becomes visible
+        final E e = lpRefElement(buffer, offset);
+        // store ordered, make sure nulling out is visible. Producer is waiting for this value.
+        soRefElement(buffer, offset, null);
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        final E[] buffer = this.buffer;
+        final int mask = this.mask;
+        long currProducerIndexCache = lvProducerIndexCache();
+        long currentConsumerIndex;
+        long nextConsumerIndex = lvConsumerIndex();
+        E e;
+        do {
+            currentConsumerIndex = nextConsumerIndex;
+            if (currentConsumerIndex >= currProducerIndexCache) {
+                long currProducerIndex = lvProducerIndex();
+                if (currentConsumerIndex >= currProducerIndex) {
+                    return null;
+                } else {
+                    currProducerIndexCache = currProducerIndex;
+                    svProducerIndexCache(currProducerIndex);
+                }
+            }
+            e = lvRefElement(buffer, calcCircularRefElementOffset(currentConsumerIndex, mask));
+            // sandwich the element load between 2 consumer index loads
+            nextConsumerIndex = lvConsumerIndex();
+        } while (null == e || nextConsumerIndex != currentConsumerIndex);
+        return e;
+    }
+
+    @Override
+    public boolean relaxedOffer(E e) {
+        if (null == e) {
+            throw new NullPointerException("Null is not a valid element");
+        }
+        final E[] buffer = this.buffer;
+        final int mask = this.mask;
+        final long producerIndex = lpProducerIndex();
+        final int offset = calcCircularRefElementOffset(producerIndex, mask);
+        if (null != lvRefElement(buffer, offset)) {
+            return false;
+        }
+        soRefElement(buffer, offset, e);
+        // single producer, so store ordered is valid. It is also required to correctly publish the element
+        // and for the consumers to pick up the tail value.
+        soProducerIndex(producerIndex + 1);
+        return true;
+    }
+
+    @Override
+    public E relaxedPoll() {
+        return poll();
+    }
+
+    @Override
+    public E relaxedPeek() {
+        final E[] buffer = this.buffer;
+        final int mask = this.mask;
+        long currentConsumerIndex;
+        long nextConsumerIndex = lvConsumerIndex();
+        E e;
+        do {
+            currentConsumerIndex = nextConsumerIndex;
+            e = lvRefElement(buffer, calcCircularRefElementOffset(currentConsumerIndex, mask));
+            // sandwich the element load between 2 consumer index loads
+            nextConsumerIndex = lvConsumerIndex();
+        } while (nextConsumerIndex != currentConsumerIndex);
+        return e;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The run of published elements is claimed with a single CAS of the consumer index.
+     */
+    @Override
+    public int poll(final E[] dst, final int dstOffset, final int max) {
+        MessagePassingQueueUtil.checkPollBatch(dst, dstOffset, max);
+        if (max == 0)
+            return 0;
+        final E[] buffer = this.buffer;
+        final int mask = this.mask;
+        long currProducerIndexCache = lvProducerIndexCache();
+        long currentConsumerIndex;
+        int claimed;
+        do {
+            currentConsumerIndex = lvConsumerIndex();
+            if (currentConsumerIndex >= currProducerIndexCache) {
+                long currProducerIndex = lvProducerIndex();
+                if (currentConsumerIndex >= currProducerIndex) {
+                    return 0;
+                } else {
+                    currProducerIndexCache = currProducerIndex;
+                    svProducerIndexCache(currProducerIndex);
+                }
+            }
+            claimed = (int) Math.min(max, currProducerIndexCache - currentConsumerIndex);
+        } while (!casConsumerIndex(currentConsumerIndex, currentConsumerIndex + claimed));
+        for (int i = 0; i < claimed; i++) {
+            dst[dstOffset + i] = removeElement(buffer, currentConsumerIndex + i, mask);
+        }
+        return claimed;
+    }
+
+    @Override
+    public int drain(final Consumer<E> c, final int limit) {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+        final E[] buffer = this.buffer;
+        final int mask = this.mask;
+        long currProducerIndexCache = lvProducerIndexCache();
+        int adjustedLimit = 0;
+        long currentConsumerIndex;
+        do {
+            currentConsumerIndex = lvConsumerIndex();
+            // is there any space in the queue?
+            if (currentConsumerIndex >= currProducerIndexCache) {
+                long currProducerIndex = lvProducerIndex();
+                if (currentConsumerIndex >= currProducerIndex) {
+                    return 0;
+                } else {
+                    currProducerIndexCache = currProducerIndex;
+                    svProducerIndexCache(currProducerIndex);
+                }
+            }
+            // try and claim up to 'limit' elements in one go
+            int remaining = (int) (currProducerIndexCache - currentConsumerIndex);
+            adjustedLimit = Math.min(remaining, limit);
+        } while (!casConsumerIndex(currentConsumerIndex, currentConsumerIndex + adjustedLimit));
+        for (int i = 0; i < adjustedLimit; i++) {
+            c.accept(removeElement(buffer, currentConsumerIndex + i, mask));
+        }
+        return adjustedLimit;
+    }
+
+    @Override
+    public int fill(final Supplier<E> s, final int limit) {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+        final E[] buffer = this.buffer;
+        final int mask = this.mask;
+        long producerIndex = this.lpProducerIndex();
+        for (int i = 0; i < limit; i++) {
+            final int offset = calcCircularRefElementOffset(producerIndex, mask);
+            if (null != lvRefElement(buffer, offset)) {
+                return i;
+            }
+            producerIndex++;
+            soRefElement(buffer, offset, s.get());
+            // ordered store -> atomic and ordered for size()
+            soProducerIndex(producerIndex);
+        }
+        return limit;
+    }
+
+    @Override
+    public int drain(final Consumer<E> c) {
+        return MessagePassingQueueUtil.drain(this, c);
+    }
+
+    @Override
+    public int fill(final Supplier<E> s) {
+        return fill(s, capacity());
+    }
+
+    @Override
+    public void drain(final Consumer<E> c, final WaitStrategy w, final ExitCondition exit) {
+        MessagePassingQueueUtil.drain(this, c, w, exit);
+    }
+
+    @Override
+    public void fill(final Supplier<E> s, final WaitStrategy w, final ExitCondition e) {
+        MessagePassingQueueUtil.fill(this, s, w, e);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.varhandle;
+
+import org.jctools.queues.atomic.AtomicQueueFactory;
+import org.jctools.queues.spec.Blocking;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Growth;
+
+import java.util.Queue;
+
+/**
+ * The queue factory produces {@link java.util.Queue} instances based on a best fit to the {@link ConcurrentQueueSpec}.
+ * The bounded non-blocking queues are backed by {@code VarHandle} accessors, other specs are delegated to
+ * {@link AtomicQueueFactory}. Requires Java 9 or later.
+ * <p>
+ * There are no {@code VarHandle} variants of the xadd queues and {@code MpscBlockingConsumerArrayQueue} yet, those
+ * specs are served by their {@code org.jctools.queues.atomic} counterparts, e.g.
+ * {@link org.jctools.queues.atomic.MpscUnboundedXaddAtomicArrayQueue}.
+ */
+public class VarHandleQueueFactory
+{
+
+    public static <E> Queue<E> newQueue(ConcurrentQueueSpec qs)
+    {
+        if (qs.growth == Growth.BOUNDED && qs.blocking == Blocking.NONE)
+        {
+            // SPSC
+            if (qs.isSpsc())
+            {
+                return new SpscVarHandleArrayQueue<E>(qs.capacity);
+            }
+            // MPSC
+            else if (qs.isMpsc())
+            {
+                return new MpscVarHandleArrayQueue<E>(qs.capacity);
+            }
+            // SPMC
+            else if (qs.isSpmc())
+            {
+                return new SpmcVarHandleArrayQueue<E>(qs.capacity);
+            }
+            // MPMC
+            else
+            {
+                return new MpmcVarHandleArrayQueue<E>(qs.capacity);
+            }
+        }
+        return AtomicQueueFactory.newQueue(qs);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.varhandle;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The {@code VarHandle} counterpart of {@code UnsafeRefArrayAccess}/{@code UnsafeLongArrayAccess}. Offsets are plain
+ * array indexes, the access modes mirror the naming convention:
+ * <ul>
+ * <li>lv - getVolatile</li>
+ * <li>lp/sp - get/set (plain)</li>
+ * <li>so - setRelease</li>
+ * <li>sv - setVolatile</li>
+ * </ul>
+ */
+final class VarHandleQueueUtil
+{
+    private static final VarHandle REF_ARRAY = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle LONG_ARRAY = MethodHandles.arrayElementVarHandle(long[].class);
+
+    static VarHandle fieldVarHandle(MethodHandles.Lookup lookup, Class<?> owner, String name, Class<?> type)
+    {
+        try
+        {
+            return lookup.findVarHandle(owner, name, type);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> E lvRefElement(E[] buffer, int offset)
+    {
+        return (E) REF_ARRAY.getVolatile(buffer, offset);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> E lpRefElement(E[] buffer, int offset)
+    {
+        return (E) REF_ARRAY.get(buffer, offset);
+    }
+
+    static <E> void spRefElement(E[] buffer, int offset, E value)
+    {
+        REF_ARRAY.set(buffer, offset, value);
+    }
+
+    static <E> void soRefElement(E[] buffer, int offset, E value)
+    {
+        REF_ARRAY.setRelease(buffer, offset, value);
+    }
+
+    static <E> void svRefElement(E[] buffer, int offset, E value)
+    {
+        REF_ARRAY.setVolatile(buffer, offset, value);
+    }
+
+    static int calcRefElementOffset(long index)
+    {
+        return (int) index;
+    }
+
+    static int calcCircularRefElementOffset(long index, long mask)
+    {
+        return (int) (index & mask);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> E[] allocateRefArray(int capacity)
+    {
+        return (E[]) new Object[capacity];
+    }
+
+    static void spLongElement(long[] buffer, int offset, long e)
+    {
+        LONG_ARRAY.set(buffer, offset, e);
+    }
+
+    static void soLongElement(long[] buffer, int offset, long e)
+    {
+        LONG_ARRAY.setRelease(buffer, offset, e);
+    }
+
+    static long lpLongElement(long[] buffer, int offset)
+    {
+        return (long) LONG_ARRAY.get(buffer, offset);
+    }
+
+    static long lvLongElement(long[] buffer, int offset)
+    {
+        return (long) LONG_ARRAY.getVolatile(buffer, offset);
+    }
+
+    static int calcLongElementOffset(long index)
+    {
+        return (int) index;
+    }
+
+    static int calcCircularLongElementOffset(long index, int mask)
+    {
+        return (int) (index & mask);
+    }
+
+    static long[] allocateLongArray(int capacity)
+    {
+        return new long[capacity];
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.varhandle;
+
+import org.jctools.queues.IndexedQueueSizeUtil;
+import org.jctools.queues.IndexedQueueSizeUtil.IndexedQueue;
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.QueueProgressIndicators;
+import org.jctools.queues.SupportsIterator;
+import org.jctools.util.Pow2;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.jctools.queues.varhandle.VarHandleQueueUtil.*;
+
+abstract class VarHandleReferenceArrayQueueL0Pad<E> extends AbstractQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+/**
+ * Common base for the {@code VarHandle} array queues. Unlike the atomic queues the buffer is a plain array, which
+ * avoids the {@link java.util.concurrent.atomic.AtomicReferenceArray} indirection.
+ */
+abstract class VarHandleReferenceArrayQueue<E> extends VarHandleReferenceArrayQueueL0Pad<E>
+    implements IndexedQueue, QueueProgressIndicators, MessagePassingQueue<E>, SupportsIterator
+{
+    protected final int mask;
+    protected final E[] buffer;
+
+    public VarHandleReferenceArrayQueue(int capacity)
+    {
+        int actualCapacity = Pow2.roundToPowerOfTwo(capacity);
+        this.mask = actualCapacity - 1;
+        this.buffer = allocateRefArray(actualCapacity);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    @Override
+    public void clear()
+    {
+        while (poll() != null)
+        {
+            // toss it away
+        }
+    }
+
+    @Override
+    public final int capacity()
+    {
+        return mask + 1;
+    }
+
+    @Override
+    public final int size()
+    {
+        return IndexedQueueSizeUtil.size(this);
+    }
+
+    @Override
+    public final boolean isEmpty()
+    {
+        return IndexedQueueSizeUtil.isEmpty(this);
+    }
+
+    @Override
+    public final long currentProducerIndex()
+    {
+        return lvProducerIndex();
+    }
+
+    @Override
+    public final long currentConsumerIndex()
+    {
+        return lvConsumerIndex();
+    }
+
+    /**
+     * Get an iterator for this queue. This method is thread safe.
+     * <p>
+     * The iterator provides a best-effort snapshot of the elements in the queue.
+     * The returned iterator is not guaranteed to return elements in queue order,
+     * and races with the consumer thread may cause gaps in the sequence of returned elements.
+     * Like {link #relaxedPoll}, the iterator may not immediately return newly inserted elements.
+     *
+     * @return The iterator.
+     */
+    @Override
+    public final Iterator<E> iterator()
+    {
+        final long cIndex = lvConsumerIndex();
+        final long pIndex = lvProducerIndex();
+
+        return new WeakIterator<E>(cIndex, pIndex, mask, buffer);
+    }
+
+    private static class WeakIterator<E> implements Iterator<E>
+    {
+        private final long pIndex;
+        private final int mask;
+        private final E[] buffer;
+        private long nextIndex;
+        private E nextElement;
+
+        WeakIterator(long cIndex, long pIndex, int mask, E[] buffer)
+        {
+            this.nextIndex = cIndex;
+            this.pIndex = pIndex;
+            this.mask = mask;
+            this.buffer = buffer;
+            nextElement = getNext();
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException("remove");
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return nextElement != null;
+        }
+
+        @Override
+        public E next()
+        {
+            final E e = nextElement;
+            if (e == null)
+                throw new NoSuchElementException();
+            nextElement = getNext();
+            return e;
+        }
+
+        private E getNext()
+        {
+            final int mask = this.mask;
+            final E[] buffer = this.buffer;
+            while (nextIndex < pIndex)
+            {
+                int offset = calcCircularRefElementOffset(nextIndex++, mask);
+                E e = lvRefElement(buffer, offset);
+                if (e != null)
+                {
+                    return e;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package org.jctools.executors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jctools.executors.MpscEventLoopGroup.Assignment;
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class MpscEventLoopTest
+{
+    @Test(timeout = TEST_TIMEOUT)
+    public void testTasksRunInOrderOnTheLoopThread() throws Exception
+    {
+        final MpscEventLoop loop = new MpscEventLoop(64);
+        final List<Integer> ran = new ArrayList<>();
+        final AtomicBoolean offLoop = new AtomicBoolean();
+        for (int i = 0; i < 32; i++)
+        {
+            final int task = i;
+            loop.execute(() -> {
+                if (!loop.inEventLoop())
+                {
+                    offLoop.set(true);
+                }
+                ran.add(task);
+            });
+        }
+        final Future<Integer> f = loop.submit(() -> ran.size());
+        assertEquals((Integer) 32, f.get());
+        assertFalse(offLoop.get());
+        assertFalse(loop.inEventLoop());
+        for (int i = 0; i < 32; i++)
+        {
+            assertEquals((Integer) i, ran.get(i));
+        }
+
+        loop.shutdown();
+        assertTrue(loop.isShutdown());
+        assertTrue(loop.awaitTermination(TEST_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertTrue(loop.isTerminated());
+        assertEquals(33, loop.completedTasks());
+        assertEquals(0, loop.pendingTasks());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testFullQueueRejects() throws Exception
+    {
+        final MpscEventLoop loop = new MpscEventLoop(2, 1, Executors.defaultThreadFactory());
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        loop.execute(() -> {
+            blocked.countDown();
+            try
+            {
+                release.await();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        });
+        blocked.await();
+        loop.execute(() -> {});
+        loop.execute(() -> {});
+        assertEquals(2, loop.pendingTasks());
+        try
+        {
+            loop.execute(() -> {});
+            fail();
+        }
+        catch (RejectedExecutionException expected)
+        {
+        }
+        release.countDown();
+        loop.shutdown();
+        assertTrue(loop.awaitTermination(TEST_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(3, loop.completedTasks());
+    }
+
+    @Test(timeout = TEST_TIMEOUT, expected = RejectedExecutionException.class)
+    public void testRejectsAfterShutdown() throws Exception
+    {
+        final MpscEventLoop loop = new MpscEventLoop(4);
+        loop.shutdown();
+        assertTrue(loop.awaitTermination(TEST_TIMEOUT, TimeUnit.MILLISECONDS));
+        loop.execute(() -> {});
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testFailingTaskDoesNotStopTheLoop() throws Exception
+    {
+        final AtomicInteger uncaught = new AtomicInteger();
+        final MpscEventLoop loop = new MpscEventLoop(4, 4, r -> {
+            final Thread t = new Thread(r);
+            t.setUncaughtExceptionHandler((thread, e) -> uncaught.incrementAndGet());
+            return t;
+        });
+        loop.execute(() -> {
+            throw new IllegalStateException();
+        });
+        assertEquals("ok", loop.submit(() -> "ok").get());
+        assertEquals(1, uncaught.get());
+        loop.shutdownNow();
+        assertTrue(loop.awaitTermination(TEST_TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testEveryAcceptedTaskRunsAcrossShutdown() throws Exception
+    {
+        final int producers = 4;
+        final MpscEventLoop loop = new MpscEventLoop(1024);
+        final AtomicInteger accepted = new AtomicInteger();
+        final AtomicInteger ran = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++)
+        {
+            threads.add(new Thread(() -> {
+                while (true)
+                {
+                    try
+                    {
+                        loop.execute(ran::incrementAndGet);
+                        accepted.incrementAndGet();
+                    }
+                    catch (RejectedExecutionException e)
+                    {
+                        if (loop.isShutdown())
+                        {
+                            return;
+                        }
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        Thread.sleep(50);
+        loop.shutdown();
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        assertTrue(loop.awaitTermination(TEST_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(accepted.get(), ran.get());
+        assertEquals(accepted.get(), loop.completedTasks());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testGroupAssignment() throws Exception
+    {
+        final MpscEventLoopGroup group =
+            new MpscEventLoopGroup(3, 16, 8, Assignment.ROUND_ROBIN, Executors.defaultThreadFactory());
+        assertEquals(3, group.loops());
+        assertSame(group.loop(0), group.next());
+        assertSame(group.loop(1), group.next());
+        assertSame(group.loop(2), group.next());
+        assertSame(group.loop(0), group.next());
+        for (int i = 0; i < 30; i++)
+        {
+            group.execute(() -> {});
+        }
+        group.shutdown();
+        assertTrue(group.awaitTermination(TEST_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertTrue(group.isTerminated());
+        assertEquals(30, group.completedTasks());
+        for (int i = 0; i < 3; i++)
+        {
+            assertEquals(10, group.loop(i).completedTasks());
+        }
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testLeastLoadedAssignment() throws Exception
+    {
+        final MpscEventLoopGroup group =
+            new MpscEventLoopGroup(2, 16, 8, Assignment.LEAST_LOADED, Executors.defaultThreadFactory());
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        group.loop(0).execute(() -> {
+            blocked.countDown();
+            try
+            {
+                release.await();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        });
+        blocked.await();
+        group.loop(0).execute(() -> {});
+        assertEquals(1, group.pendingTasks());
+        // loop 0 has a pending task, whichever loop the round robin starts from
+        assertSame(group.loop(1), group.next());
+        assertSame(group.loop(1), group.next());
+        release.countDown();
+        group.shutdown();
+        assertTrue(group.awaitTermination(TEST_TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,193 @@
+package org.jctools.pools;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class MagazineObjectPoolTest
+{
+    @Test
+    public void testReleasedObjectsAreReused()
+    {
+        final MagazineObjectPool<Object> pool = new MagazineObjectPool<>(Object::new, 16, 4);
+        final Object a = pool.borrow();
+        final Object b = pool.borrow();
+        assertNotSame(a, b);
+        assertEquals(2, pool.created());
+        assertEquals(2, pool.outstanding());
+
+        pool.release(a);
+        pool.release(b);
+        assertEquals(0, pool.outstanding());
+        assertEquals(2, pool.idle());
+        // the magazine is a stack
+        assertSame(b, pool.borrow());
+        assertSame(a, pool.borrow());
+        assertEquals(2, pool.created());
+    }
+
+    @Test
+    public void testFullMagazineFlushesHalfToTheDepot()
+    {
+        final MagazineObjectPool<Object> pool = new MagazineObjectPool<>(Object::new, 16, 4);
+        final List<Object> borrowed = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+        {
+            borrowed.add(pool.borrow());
+        }
+        for (Object o : borrowed)
+        {
+            pool.release(o);
+        }
+        assertEquals(2, pool.depotSize());
+        assertEquals(5, pool.idle());
+        assertEquals(0, pool.discarded());
+    }
+
+    @Test
+    public void testFullDepotDiscards()
+    {
+        final MagazineObjectPool<Object> pool = new MagazineObjectPool<>(Object::new, 2, 2);
+        final List<Object> borrowed = new ArrayList<>();
+        for (int i = 0; i < 6; i++)
+        {
+            borrowed.add(pool.borrow());
+        }
+        for (Object o : borrowed)
+        {
+            pool.release(o);
+        }
+        // 2 in the depot, 2 in the magazine
+        assertEquals(4, pool.idle());
+        assertEquals(2, pool.discarded());
+        assertEquals(0, pool.outstanding());
+    }
+
+    @Test
+    public void testPartialFlushKeepsTheReleasedObject()
+    {
+        final MagazineObjectPool<Object> pool = new MagazineObjectPool<>(Object::new, 2, 6);
+        final List<Object> borrowed = new ArrayList<>();
+        for (int i = 0; i < 7; i++)
+        {
+            borrowed.add(pool.borrow());
+        }
+        for (Object o : borrowed)
+        {
+            pool.release(o);
+        }
+        // only 2 of the 3 flushed fitted in the depot, which left room in the magazine
+        assertEquals(2, pool.depotSize());
+        assertEquals(7, pool.idle());
+        assertEquals(0, pool.discarded());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testDeadThreadMagazineIsCollected() throws Exception
+    {
+        final MagazineObjectPool<Object> pool = new MagazineObjectPool<>(Object::new, 16, 8);
+        final Thread t = new Thread(() -> {
+            final Object[] borrowed = new Object[4];
+            for (int i = 0; i < borrowed.length; i++)
+            {
+                borrowed[i] = pool.borrow();
+            }
+            // release one less and do not flush
+            for (int i = 1; i < borrowed.length; i++)
+            {
+                pool.release(borrowed[i]);
+            }
+        });
+        t.start();
+        t.join();
+        assertEquals(3, pool.idle());
+        while (pool.discarded() != 3)
+        {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(0, pool.idle());
+        assertEquals(1, pool.outstanding());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testFlushHandsObjectsToOtherThreads() throws Exception
+    {
+        final MagazineObjectPool<Object> pool = new MagazineObjectPool<>(Object::new, 16, 8);
+        final Object[] borrowed = new Object[3];
+        final Thread t = new Thread(() -> {
+            for (int i = 0; i < borrowed.length; i++)
+            {
+                borrowed[i] = pool.borrow();
+            }
+            for (Object o : borrowed)
+            {
+                pool.release(o);
+            }
+            pool.flush();
+        });
+        t.start();
+        t.join();
+        assertEquals(3, pool.depotSize());
+        final IdentityHashMap<Object, Boolean> seen = new IdentityHashMap<>();
+        for (Object o : borrowed)
+        {
+            seen.put(o, true);
+        }
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(seen.containsKey(pool.borrow()));
+        }
+        assertEquals(3, pool.created());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testNoObjectIsBorrowedTwiceConcurrently() throws Exception
+    {
+        final int threads = 4;
+        final int rounds = 100000;
+        final MagazineObjectPool<AtomicBoolean> pool = new MagazineObjectPool<>(AtomicBoolean::new, 64, 8);
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++)
+        {
+            workers.add(new Thread(() -> {
+                final AtomicBoolean[] held = new AtomicBoolean[5];
+                for (int r = 0; r < rounds; r++)
+                {
+                    for (int i = 0; i < held.length; i++)
+                    {
+                        held[i] = pool.borrow();
+                        if (!held[i].compareAndSet(false, true))
+                        {
+                            failed.set(true);
+                        }
+                    }
+                    for (AtomicBoolean o : held)
+                    {
+                        o.set(false);
+                        pool.release(o);
+                    }
+                }
+                pool.flush();
+            }));
+        }
+        for (Thread t : workers)
+        {
+            t.start();
+        }
+        for (Thread t : workers)
+        {
+            t.join();
+        }
+        assertFalse(failed.get());
+        assertEquals(0, pool.outstanding());
+        assertEquals(pool.created() - pool.discarded(), pool.idle());
+    }
+}
@@ -0,0 +1,210 @@
+package org.jctools.queues;
+
+import org.jctools.queues.MessagePassingIntQueue.IntConsumer;
+import org.jctools.queues.MessagePassingIntQueue.IntSupplier;
+import org.jctools.util.Pow2;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class IntQueueSanityTest
+{
+    private static final int SIZE = 8192 * 2;
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private final MessagePassingIntQueue queue;
+    private final int producers;
+
+    public IntQueueSanityTest(MessagePassingIntQueue queue, int producers)
+    {
+        this.queue = queue;
+        this.producers = producers;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(new Object[] {new SpscIntArrayQueue(1), 1});
+        list.add(new Object[] {new SpscIntArrayQueue(SIZE), 1});
+        list.add(new Object[] {new MpscIntArrayQueue(1), 2});
+        list.add(new Object[] {new MpscIntArrayQueue(SIZE), 2});
+        list.add(new Object[] {new MpmcIntArrayQueue(2), 2});
+        list.add(new Object[] {new MpmcIntArrayQueue(SIZE), 2});
+        return list;
+    }
+
+    @After
+    public void clear()
+    {
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void sanity()
+    {
+        for (int i = 0; i < SIZE; i++)
+        {
+            assertEquals(EMPTY, queue.poll(EMPTY));
+            assertEquals(EMPTY, queue.peek(EMPTY));
+            assertTrue(queue.isEmpty());
+        }
+        int size = 0;
+        while (size < SIZE && queue.offer(size))
+        {
+            size++;
+        }
+        assertEquals(queue.capacity(), size);
+        assertEquals(size, queue.size());
+        assertFalse(queue.offer(-1));
+
+        for (int i = 0; i < size; i++)
+        {
+            assertEquals(i, queue.peek(EMPTY));
+            assertEquals(i, queue.poll(EMPTY));
+            assertEquals(size - (i + 1), queue.size());
+        }
+        assertEquals(EMPTY, queue.poll(EMPTY));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testPowerOf2Capacity()
+    {
+        int n = Pow2.roundToPowerOfTwo(queue.capacity());
+        assertEquals(n, queue.capacity());
+    }
+
+    @Test
+    public void anyValueCanBePassed()
+    {
+        final int[] values = {0, -1, 1, Integer.MIN_VALUE, Integer.MAX_VALUE};
+        for (int v : values)
+        {
+            assertTrue(queue.offer(v));
+            assertFalse(queue.isEmpty());
+            assertEquals(v, queue.peek(~v));
+            assertEquals(v, queue.poll(~v));
+            assertTrue(queue.isEmpty());
+            assertTrue(queue.relaxedOffer(v));
+            assertEquals(v, queue.relaxedPeek(~v));
+            assertEquals(v, queue.relaxedPoll(~v));
+            assertEquals(~v, queue.relaxedPoll(~v));
+        }
+    }
+
+    @Test
+    public void fillAndDrainKeepOrder()
+    {
+        final int[] next = {0};
+        final int filled = queue.fill(new IntSupplier()
+        {
+            @Override
+            public int get()
+            {
+                return next[0]++;
+            }
+        });
+        assertEquals(queue.capacity(), filled);
+        assertEquals(filled, next[0]);
+        assertEquals(0, queue.fill(new IntSupplier()
+        {
+            @Override
+            public int get()
+            {
+                fail("should not be called on a full queue");
+                return 0;
+            }
+        }, 1));
+
+        final long[] expected = {0};
+        final int drained = queue.drain(new IntConsumer()
+        {
+            @Override
+            public void accept(int e)
+            {
+                assertEquals(expected[0]++, e);
+            }
+        });
+        assertEquals(filled, drained);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void drainRejectsNegativeLimit()
+    {
+        queue.drain(new IntConsumer()
+        {
+            @Override
+            public void accept(int e)
+            {
+            }
+        }, -1);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testPerProducerOrder() throws Exception
+    {
+        final int messages = 100000;
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++)
+        {
+            final int producerId = p << 24;
+            threads.add(new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    for (int i = 0; i < messages; i++)
+                    {
+                        while (!queue.relaxedOffer(producerId | i))
+                        {
+                            Thread.yield();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+
+        final long[] nextExpected = new long[producers];
+        int received = 0;
+        while (received < messages * producers)
+        {
+            final int e = queue.relaxedPoll(EMPTY);
+            if (e == EMPTY)
+            {
+                Thread.yield();
+                continue;
+            }
+            final int producer = e >>> 24;
+            if ((e & 0xFFFFFF) != nextExpected[producer]++)
+            {
+                failed.set(true);
+            }
+            received++;
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        assertFalse(failed.get());
+        assertTrue(queue.isEmpty());
+    }
+}
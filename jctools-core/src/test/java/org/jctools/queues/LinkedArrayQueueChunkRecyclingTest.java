@@ -0,0 +1,165 @@
+package org.jctools.queues;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class LinkedArrayQueueChunkRecyclingTest
+{
+    private static final int CHUNK_SIZE = 16;
+    private static final int ROUNDS = 100;
+
+    /**
+     * Chunks are only linked when the current one is full, so go beyond one chunk and then empty the queue.
+     */
+    private static void burst(MessagePassingQueue<Object> q, Set<Object[]> buffers)
+    {
+        final int burst = CHUNK_SIZE + CHUNK_SIZE / 2;
+        for (int i = 0; i < burst; i++)
+        {
+            assertTrue(q.offer(i));
+            buffers.add(producerBuffer(q));
+        }
+        for (int i = 0; i < burst; i++)
+        {
+            assertEquals(i, q.poll());
+        }
+        assertNull(q.poll());
+    }
+
+    private static Object[] producerBuffer(MessagePassingQueue<Object> q)
+    {
+        return q instanceof BaseSpscLinkedArrayQueue ?
+            ((BaseSpscLinkedArrayQueue<Object>) q).producerBuffer :
+            ((BaseMpscLinkedArrayQueue<Object>) q).producerBuffer;
+    }
+
+    @Test
+    public void testSpscUnboundedReusesConsumedChunk()
+    {
+        final SpscUnboundedArrayQueue<Object> q = new SpscUnboundedArrayQueue<>(CHUNK_SIZE);
+        final Set<Object[]> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int r = 0; r < ROUNDS; r++)
+        {
+            burst(q, buffers);
+        }
+        // the producer alternates between the chunk it is filling and the one handed back by the consumer
+        assertEquals(2, buffers.size());
+    }
+
+    @Test
+    public void testSpscUnboundedDoesNotReuseChunkStillInUse()
+    {
+        final SpscUnboundedArrayQueue<Object> q = new SpscUnboundedArrayQueue<>(CHUNK_SIZE);
+        final Set<Object[]> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < 4 * CHUNK_SIZE; i++)
+        {
+            assertTrue(q.offer(i));
+            buffers.add(q.producerBuffer);
+        }
+        // nothing consumed, nothing to recycle
+        assertTrue(buffers.size() >= 4);
+        for (int i = 0; i < 4 * CHUNK_SIZE; i++)
+        {
+            assertEquals(i, q.poll());
+        }
+        assertNull(q.poll());
+        assertNotNull(q.lvSpareBuffer());
+        assertNotSame(q.consumerBuffer, q.lvSpareBuffer());
+        for (Object e : q.lvSpareBuffer())
+        {
+            assertNull(e);
+        }
+    }
+
+    @Test
+    public void testMpscUnboundedReusesConsumedChunk()
+    {
+        final MpscUnboundedArrayQueue<Object> q = new MpscUnboundedArrayQueue<>(CHUNK_SIZE);
+        final Set<Object[]> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int r = 0; r < ROUNDS; r++)
+        {
+            burst(q, buffers);
+        }
+        assertEquals(2, buffers.size());
+    }
+
+    @Test
+    public void testMpscUnboundedRecycledChunkIsCleared()
+    {
+        final MpscUnboundedArrayQueue<Object> q = new MpscUnboundedArrayQueue<>(CHUNK_SIZE);
+        for (int i = 0; i < 4 * CHUNK_SIZE; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        for (int i = 0; i < 4 * CHUNK_SIZE; i++)
+        {
+            assertEquals(i, q.poll());
+        }
+        assertNull(q.poll());
+        assertNotNull(q.lvSpareBuffer());
+        for (Object e : q.lvSpareBuffer())
+        {
+            assertNull(e);
+        }
+    }
+
+    @Test
+    public void testMpscGrowableDoesNotKeepSpare()
+    {
+        final MpscGrowableArrayQueue<Object> q = new MpscGrowableArrayQueue<>(4, 64);
+        for (int i = 0; i < 64; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        for (int i = 0; i < 64; i++)
+        {
+            assertEquals(i, q.poll());
+        }
+        // buffers of different sizes are never recycled
+        assertNull(q.lvSpareBuffer());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testMpscUnboundedConcurrentProducersWithRecycling() throws Exception
+    {
+        final int producers = 4;
+        final int perProducer = 500000;
+        final MpscUnboundedArrayQueue<Integer> q = new MpscUnboundedArrayQueue<>(CHUNK_SIZE);
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++)
+        {
+            final int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++)
+                {
+                    q.offer(producer * perProducer + i);
+                }
+            });
+            threads[p].start();
+        }
+        final int[] next = new int[producers];
+        int received = 0;
+        while (received < producers * perProducer)
+        {
+            final Integer e = q.poll();
+            if (e == null)
+            {
+                continue;
+            }
+            final int producer = e / perProducer;
+            assertEquals(next[producer]++, e % perProducer);
+            received++;
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        assertNull(q.poll());
+    }
+}
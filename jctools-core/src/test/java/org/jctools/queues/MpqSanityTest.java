@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.jctools.util.TestUtil.*;
 import static org.jctools.util.TestUtil.threads;
@@ -198,6 +199,26 @@ public abstract class MpqSanityTest
         assertEquals(1, queue.size());
     }
 
+    private BatchPollingQueue<Integer> batchPollingQueue()
+    {
+        assumeThat(queue, instanceOf(BatchPollingQueue.class));
+        return (BatchPollingQueue<Integer>) queue;
+    }
+
+    @Test
+    public void pollBatch0()
+    {
+        queue.offer(DUMMY_ELEMENT);
+        assertEquals(0, batchPollingQueue().poll(new Integer[1], 0, 0));
+        assertEquals(1, queue.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void pollBatchOutOfBounds()
+    {
+        batchPollingQueue().poll(new Integer[2], 1, 2);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void drainNullConsumerWaiterExit()
     {
@@ -323,6 +344,46 @@ public abstract class MpqSanityTest
         }
     }
 
+    @Test
+    public void sanityPollBatch()
+    {
+        final BatchPollingQueue<Integer> queue = batchPollingQueue();
+        final Integer[] dst = new Integer[10];
+        assertEquals(0, queue.poll(dst, 3, 7));
+        count = 0;
+        sum = 0;
+        final int size = queue.fill(() ->
+        {
+            final int val = count++;
+            sum += val;
+            return val;
+        }, SIZE);
+        assertEquals(size, queue.size());
+        count = 0;
+        int polled = 0;
+        int pollCount;
+        do
+        {
+            polled += pollCount = queue.poll(dst, 3, 7);
+            assertTrue(pollCount <= 7);
+            for (int j = 0; j < pollCount; j++)
+            {
+                final int e = dst[3 + j];
+                if (spec.ordering == Ordering.FIFO)
+                {
+                    assertEquals(count++, e);
+                }
+                sum -= e;
+            }
+            assertNull(dst[2]);
+        }
+        while (pollCount != 0);
+        assertEquals(size, polled);
+        assertEquals(0, sum);
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.size() == 0);
+    }
+
     @Test
     public void testSizeIsTheNumberOfOffers()
     {
@@ -558,6 +619,50 @@ public abstract class MpqSanityTest
 
     }
 
+    @Test(timeout = TEST_TIMEOUT)
+    public void testHappensBeforePerpetualPollBatch() throws Exception
+    {
+        final AtomicBoolean stop = new AtomicBoolean();
+        final BatchPollingQueue q = batchPollingQueue();
+        final Val fail = new Val();
+        List<Thread> threads = new ArrayList<>();
+        threads(() -> {
+            while (!stop.get())
+            {
+                for (int i = 1; i <= 10; i++)
+                {
+                    Val v = new Val();
+                    v.value = i;
+                    q.relaxedOffer(v);
+                }
+                // slow down the producer, this will make the queue mostly empty encouraging visibility
+                // issues.
+                Thread.yield();
+            }
+        }, spec.producers, threads);
+
+        threads(() -> {
+            final Object[] dst = new Object[16];
+            while (!stop.get())
+            {
+                final int polled = q.poll(dst, 0, dst.length);
+                for (int i = 0; i < polled; i++)
+                {
+                    Val v = (Val) dst[i];
+                    if (v == null || v.value == 0)
+                    {
+                        fail.value = 1;
+                        stop.set(true);
+                    }
+                    dst[i] = null;
+                }
+            }
+        }, spec.consumers, threads);
+
+        startWaitJoin(stop, threads);
+        assertEquals("reordering detected", 0, fail.value);
+    }
+
     @Test(timeout = TEST_TIMEOUT)
     public void testHappensBeforePerpetualFill() throws Exception
     {
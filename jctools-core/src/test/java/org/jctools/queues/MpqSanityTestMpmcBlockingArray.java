@@ -0,0 +1,28 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class MpqSanityTestMpmcBlockingArray extends MpqSanityTest
+{
+    public MpqSanityTestMpmcBlockingArray(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeMpq(0, 0, 2, Ordering.FIFO, new MpmcBlockingArrayQueue<Integer>(2)));
+        list.add(makeMpq(0, 0, SIZE, Ordering.FIFO, new MpmcBlockingArrayQueue<Integer>(SIZE)));
+        return list;
+    }
+}
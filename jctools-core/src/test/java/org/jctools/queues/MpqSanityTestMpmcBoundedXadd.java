@@ -0,0 +1,61 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(Parameterized.class)
+public class MpqSanityTestMpmcBoundedXadd extends MpqSanityTest
+{
+    public MpqSanityTestMpmcBoundedXadd(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeMpq(0, 0, 2, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(2, 1)));
+        list.add(makeMpq(0, 0, 4, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(4, 2)));
+        list.add(makeMpq(0, 0, SIZE, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(SIZE, 1024)));
+        return list;
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testConcurrentOffersDoNotOvershootCapacity() throws Exception
+    {
+        final AtomicInteger accepted = new AtomicInteger();
+        final List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+        {
+            producers.add(new Thread(() -> {
+                while (queue.offer(1))
+                {
+                    accepted.incrementAndGet();
+                }
+            }));
+        }
+        for (Thread t : producers)
+        {
+            t.start();
+        }
+        for (Thread t : producers)
+        {
+            t.join();
+        }
+        assertEquals(queue.capacity(), accepted.get());
+        assertEquals(queue.capacity(), queue.size());
+    }
+}
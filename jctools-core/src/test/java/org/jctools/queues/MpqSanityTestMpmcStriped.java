@@ -0,0 +1,32 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.util.Pow2;
+
+import static org.jctools.util.PortableJvmInfo.CPUs;
+
+@RunWith(Parameterized.class)
+public class MpqSanityTestMpmcStriped extends MpqSanityTest
+{
+    public MpqSanityTestMpmcStriped(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeMpq(0, 0, 2 * Pow2.roundToPowerOfTwo(CPUs), Ordering.NONE, null));// MPMC 2 per stripe
+        list.add(makeMpq(0, 0, SIZE, Ordering.NONE, null));// MPMC size SIZE
+        list.add(makeMpq(0, 0, SIZE, Ordering.NONE, new MpmcStripedQueue<>(SIZE, 8)));// MPMC 8 stripes
+        return list;
+    }
+}
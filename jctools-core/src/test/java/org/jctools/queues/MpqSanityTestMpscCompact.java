@@ -0,0 +1,29 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class MpqSanityTestMpscCompact extends MpqSanityTest
+{
+    public MpqSanityTestMpscCompact(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeMpq(0, 1, 2, Ordering.FIFO, new MpscCompactArrayQueue<>(2)));// MPSC size 2
+        list.add(makeMpq(0, 1, 4, Ordering.FIFO, new MpscCompactArrayQueue<>(4, 4)));// MPSC size 4, no growth
+        list.add(makeMpq(0, 1, SIZE, Ordering.FIFO, new MpscCompactArrayQueue<>(SIZE)));// MPSC size SIZE
+        return list;
+    }
+}
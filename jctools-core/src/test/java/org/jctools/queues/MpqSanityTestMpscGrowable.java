@@ -23,6 +23,7 @@ public class MpqSanityTestMpscGrowable extends MpqSanityTest
         ArrayList<Object[]> list = new ArrayList<Object[]>();
         list.add(makeMpq(0, 1, 4, Ordering.FIFO, new MpscGrowableArrayQueue<>(2, 4)));// MPSC size 1
         list.add(makeMpq(0, 1, SIZE, Ordering.FIFO, new MpscGrowableArrayQueue<>(8, SIZE)));// MPSC size SIZE
+        list.add(makeMpq(0, 1, SIZE, Ordering.FIFO, new MpscGrowableArrayQueue<>(8, SIZE, true)));// MPSC size SIZE, shrinking
         return list;
     }
 }
@@ -0,0 +1,28 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class MpqSanityTestMpscPriority extends MpqSanityTest
+{
+    public MpqSanityTestMpscPriority(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeMpq(0, 1, 2, Ordering.FIFO, new MpscPriorityArrayQueue<>(1, 2)));// MPSC single lane
+        list.add(makeMpq(0, 1, SIZE, Ordering.FIFO, new MpscPriorityArrayQueue<>(4, SIZE)));// MPSC 4 lanes
+        return list;
+    }
+}
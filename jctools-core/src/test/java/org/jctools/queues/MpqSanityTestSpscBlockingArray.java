@@ -0,0 +1,28 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class MpqSanityTestSpscBlockingArray extends MpqSanityTest
+{
+    public MpqSanityTestSpscBlockingArray(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeMpq(1, 1, 4, Ordering.FIFO, new SpscBlockingArrayQueue<Integer>(4)));
+        list.add(makeMpq(1, 1, SIZE, Ordering.FIFO, new SpscBlockingArrayQueue<Integer>(SIZE)));
+        return list;
+    }
+}
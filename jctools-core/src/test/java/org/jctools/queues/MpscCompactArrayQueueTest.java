@@ -0,0 +1,115 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.queues.spec.Preference;
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class MpscCompactArrayQueueTest
+{
+    @Test
+    public void testFirstBufferIsAllocatedOnFirstOffer()
+    {
+        final MpscCompactArrayQueue<Integer> q = new MpscCompactArrayQueue<>(1024);
+        assertNull(q.poll());
+        assertNull(q.peek());
+        assertNull(q.relaxedPoll());
+        assertNull(q.relaxedPeek());
+        assertTrue(q.isEmpty());
+        assertEquals(0, q.size());
+        assertEquals(1024, q.capacity());
+        assertTrue(q.offer(1));
+        assertEquals((Integer) 1, q.peek());
+        assertEquals((Integer) 1, q.poll());
+        assertNull(q.poll());
+    }
+
+    @Test
+    public void testGrowsToMaxCapacity()
+    {
+        final MpscCompactArrayQueue<Integer> q = new MpscCompactArrayQueue<>(2, 64);
+        for (int i = 0; i < 64; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        assertFalse(q.offer(64));
+        assertEquals(64, q.size());
+        for (int i = 0; i < 64; i++)
+        {
+            assertEquals((Integer) i, q.poll());
+        }
+        assertNull(q.poll());
+    }
+
+    @Test
+    public void testFactoryHandsOutCompactQueueForMemoryPreference()
+    {
+        assertTrue(QueueFactory.newQueue(
+            new ConcurrentQueueSpec(1, 1, 16, Ordering.FIFO, Preference.MEMORY)) instanceof MpscCompactArrayQueue);
+        assertTrue(QueueFactory.newQueue(
+            new ConcurrentQueueSpec(2, 1, 16, Ordering.FIFO, Preference.MEMORY)) instanceof MpscCompactArrayQueue);
+        assertTrue(QueueFactory.newQueue(
+            new ConcurrentQueueSpec(2, 1, 16, Ordering.FIFO, Preference.NONE)) instanceof MpscArrayQueue);
+        assertTrue(QueueFactory.newQueue(
+            new ConcurrentQueueSpec(2, 2, 16, Ordering.FIFO, Preference.MEMORY)) instanceof MpmcArrayQueue);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testConcurrentProducersRaceOnFirstOffer() throws Exception
+    {
+        final int producers = 4;
+        final int perProducer = 100000;
+        for (int round = 0; round < 100; round++)
+        {
+            final MpscCompactArrayQueue<Integer> q = new MpscCompactArrayQueue<>(256);
+            final List<Thread> threads = new ArrayList<Thread>();
+            final int count = round == 0 ? perProducer : 16;
+            for (int p = 0; p < producers; p++)
+            {
+                final int producer = p;
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < count; i++)
+                    {
+                        while (!q.offer(producer * count + i))
+                        {
+                            Thread.yield();
+                        }
+                    }
+                }));
+            }
+            for (Thread t : threads)
+            {
+                t.start();
+            }
+            final int[] next = new int[producers];
+            final AtomicBoolean outOfOrder = new AtomicBoolean();
+            int received = 0;
+            while (received < producers * count)
+            {
+                final Integer e = q.poll();
+                if (e == null)
+                {
+                    continue;
+                }
+                if (next[e / count]++ != e % count)
+                {
+                    outOfOrder.set(true);
+                }
+                received++;
+            }
+            for (Thread t : threads)
+            {
+                t.join();
+            }
+            assertFalse(outOfOrder.get());
+            assertNull(q.poll());
+        }
+    }
+}
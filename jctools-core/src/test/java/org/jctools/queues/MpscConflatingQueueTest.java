@@ -0,0 +1,125 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class MpscConflatingQueueTest
+{
+    @Test
+    public void testOnlyLatestValueIsDelivered()
+    {
+        MpscConflatingQueue<String, Integer> q = new MpscConflatingQueue<>(8);
+        assertTrue(q.isEmpty());
+        assertTrue(q.offer("a", 1));
+        assertTrue(q.offer("b", 1));
+        assertFalse(q.offer("a", 2));
+        assertFalse(q.offer("a", 3));
+        assertEquals(2, q.size());
+        assertEquals((Integer) 3, q.peek("a"));
+
+        final List<String> drained = new ArrayList<>();
+        assertEquals(2, q.drain((k, v) -> drained.add(k + v)));
+        assertEquals(Arrays.asList("a3", "b1"), drained);
+        assertTrue(q.isEmpty());
+        assertNull(q.peek("a"));
+        assertEquals(0, q.drain((k, v) -> fail()));
+    }
+
+    @Test
+    public void testKeyUpdatedDuringDrainIsDeliveredByTheNextDrain()
+    {
+        final MpscConflatingQueue<String, Integer> q = new MpscConflatingQueue<>(8);
+        q.offer("a", 1);
+        q.offer("b", 1);
+        final List<String> drained = new ArrayList<>();
+        assertEquals(2, q.drain((k, v) -> {
+            drained.add(k + v);
+            q.offer("a", v + 1);
+        }));
+        assertEquals(Arrays.asList("a1", "b1"), drained);
+        drained.clear();
+        assertEquals(1, q.drain((k, v) -> drained.add(k + v)));
+        assertEquals(Arrays.asList("a2"), drained);
+    }
+
+    @Test
+    public void testDrainLimit()
+    {
+        MpscConflatingQueue<Integer, Integer> q = new MpscConflatingQueue<>(2);
+        for (int i = 0; i < 5; i++)
+        {
+            q.offer(i, i);
+        }
+        assertEquals(3, q.drain((k, v) -> {}, 3));
+        assertEquals(2, q.size());
+        assertEquals(2, q.drain((k, v) -> {}, 3));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullValue()
+    {
+        new MpscConflatingQueue<String, Integer>(2).offer("a", null);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testConsumerSeesMonotonicLatestValues() throws Exception
+    {
+        final int producers = 4;
+        final int keys = 16;
+        final int updates = 100000;
+        final MpscConflatingQueue<Integer, Integer> q = new MpscConflatingQueue<>(16);
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++)
+        {
+            // each producer owns the keys k with k % producers == p and updates them with increasing values
+            final int producer = p;
+            threads.add(new Thread(() -> {
+                for (int i = 1; i <= updates; i++)
+                {
+                    for (int k = producer; k < keys; k += producers)
+                    {
+                        q.offer(k, i);
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        final int[] last = new int[keys];
+        int done = 0;
+        while (done < keys)
+        {
+            q.drain((k, v) -> {
+                if (v == null || v <= last[k])
+                {
+                    failed.set(true);
+                }
+                last[k] = v;
+            });
+            done = 0;
+            for (int k = 0; k < keys; k++)
+            {
+                if (last[k] == updates)
+                {
+                    done++;
+                }
+            }
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        assertFalse(failed.get());
+        assertTrue(q.isEmpty());
+    }
+}
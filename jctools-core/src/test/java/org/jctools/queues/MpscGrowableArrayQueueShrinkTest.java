@@ -0,0 +1,228 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jctools.queues.atomic.MpscGrowableAtomicArrayQueue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class MpscGrowableArrayQueueShrinkTest
+{
+    private final boolean atomic;
+
+    public MpscGrowableArrayQueueShrinkTest(boolean atomic)
+    {
+        this.atomic = atomic;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        return Arrays.asList(new Object[]{false}, new Object[]{true});
+    }
+
+    private MessagePassingQueue<Integer> newQueue(int initialCapacity, int maxCapacity, boolean shrink)
+    {
+        return atomic ?
+            new MpscGrowableAtomicArrayQueue<Integer>(initialCapacity, maxCapacity, shrink) :
+            new MpscGrowableArrayQueue<Integer>(initialCapacity, maxCapacity, shrink);
+    }
+
+    /**
+     * Grow the queue to its max capacity and empty it again.
+     */
+    private static void burst(MessagePassingQueue<Integer> q)
+    {
+        int i = 0;
+        while (q.offer(i))
+        {
+            i++;
+        }
+        assertEquals(q.capacity(), i);
+        for (int j = 0; j < i; j++)
+        {
+            assertEquals((Integer) j, q.poll());
+        }
+        assertNull(q.poll());
+    }
+
+    /**
+     * Offer and poll batch elements per round, followed by a poll on the empty queue.
+     *
+     * @return the number of rounds in which the consumer index skipped ahead, i.e. the queue shrunk
+     */
+    private static int trickle(MessagePassingQueue<Integer> q, int rounds, int batch)
+    {
+        final QueueProgressIndicators indicators = (QueueProgressIndicators) q;
+        int shrinks = 0;
+        for (int r = 0; r < rounds; r++)
+        {
+            final long before = indicators.currentConsumerIndex();
+            for (int i = 0; i < batch; i++)
+            {
+                assertTrue(q.offer(i));
+            }
+            for (int i = 0; i < batch; i++)
+            {
+                assertEquals((Integer) i, q.poll());
+            }
+            assertNull(q.poll());
+            assertTrue(q.isEmpty());
+            assertEquals(0, q.size());
+            final long after = indicators.currentConsumerIndex();
+            assertEquals(after, indicators.currentProducerIndex());
+            if (after != before + batch)
+            {
+                shrinks++;
+            }
+        }
+        return shrinks;
+    }
+
+    @Test
+    public void testShrinksBackToInitialCapacityWhenOccupancyStaysLow()
+    {
+        final MessagePassingQueue<Integer> q = newQueue(4, 64, true);
+        burst(q);
+        // buffers of 64, 32, 16 and 8 elements are shrunk, the initial 4 is kept
+        assertEquals(4, trickle(q, 10 * MpscGrowableArrayQueue.SHRINK_AFTER, 1));
+        // and the queue can still grow to its full capacity
+        burst(q);
+        assertEquals(4, trickle(q, 10 * MpscGrowableArrayQueue.SHRINK_AFTER, 1));
+    }
+
+    @Test
+    public void testShrinkNeedsConsecutiveLowOccupancyPolls()
+    {
+        final MessagePassingQueue<Integer> q = newQueue(4, 64, true);
+        burst(q);
+        assertEquals(0, trickle(q, MpscGrowableArrayQueue.SHRINK_AFTER - 1, 1));
+        // a quarter of the 64 element buffer or more consumed between empty polls resets the count
+        assertEquals(0, trickle(q, 1, 17));
+        assertEquals(0, trickle(q, MpscGrowableArrayQueue.SHRINK_AFTER - 1, 1));
+        assertEquals(1, trickle(q, 1, 1));
+    }
+
+    @Test
+    public void testNoShrinkByDefault()
+    {
+        final MessagePassingQueue<Integer> q = newQueue(4, 64, false);
+        burst(q);
+        assertEquals(0, trickle(q, 10 * MpscGrowableArrayQueue.SHRINK_AFTER, 1));
+    }
+
+    @Test
+    public void testRelaxedPollShrinks()
+    {
+        final MessagePassingQueue<Integer> q = newQueue(4, 64, true);
+        burst(q);
+        final QueueProgressIndicators indicators = (QueueProgressIndicators) q;
+        for (int r = 0; r < MpscGrowableArrayQueue.SHRINK_AFTER; r++)
+        {
+            assertTrue(q.relaxedOffer(r));
+            assertEquals((Integer) r, q.relaxedPoll());
+            assertNull(q.relaxedPoll());
+        }
+        assertNotEquals(64 + MpscGrowableArrayQueue.SHRINK_AFTER, indicators.currentConsumerIndex());
+        assertTrue(q.offer(1));
+        assertEquals((Integer) 1, q.relaxedPoll());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testEmptyQueueIsEmptyWhileShrinking() throws Exception
+    {
+        final MessagePassingQueue<Integer> q = newQueue(4, 64, true);
+        final AtomicBoolean polling = new AtomicBoolean();
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicBoolean seenNotEmpty = new AtomicBoolean();
+        final Thread observer = new Thread(() -> {
+            while (!done.get())
+            {
+                // only count observations made while the consumer was polling an empty queue throughout
+                if (polling.get() && !q.isEmpty() && polling.get())
+                {
+                    seenNotEmpty.set(true);
+                }
+            }
+        });
+        observer.start();
+        for (int r = 0; r < 2000; r++)
+        {
+            burst(q);
+            polling.set(true);
+            // empty polls shrink the buffer back down to 4
+            for (int i = 0; i < 5 * MpscGrowableArrayQueue.SHRINK_AFTER; i++)
+            {
+                assertNull(q.poll());
+            }
+            polling.set(false);
+        }
+        done.set(true);
+        observer.join();
+        assertFalse(seenNotEmpty.get());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testConcurrentProducersSeeNoLossOrReorderAcrossShrinks() throws Exception
+    {
+        final int producers = 4;
+        final int perProducer = 200000;
+        final MessagePassingQueue<Integer> q = newQueue(2, 1024, true);
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++)
+        {
+            final int producer = p;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++)
+                {
+                    while (!q.offer(producer * perProducer + i))
+                    {
+                        Thread.yield();
+                    }
+                    // alternate bursts and trickles so the queue keeps growing and shrinking
+                    if ((i & 4095) > 2048)
+                    {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        final int[] next = new int[producers];
+        final AtomicBoolean outOfOrder = new AtomicBoolean();
+        int received = 0;
+        while (received < producers * perProducer)
+        {
+            final Integer e = q.poll();
+            if (e == null)
+            {
+                continue;
+            }
+            final int producer = e / perProducer;
+            if (next[producer]++ != e % perProducer)
+            {
+                outOfOrder.set(true);
+            }
+            received++;
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        assertFalse(outOfOrder.get());
+        assertNull(q.poll());
+        assertTrue(q.isEmpty());
+    }
+}
@@ -0,0 +1,143 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class MpscPriorityArrayQueueTest
+{
+    @Test
+    public void testHighestPriorityIsPolledFirst()
+    {
+        MpscPriorityArrayQueue<Integer> q = new MpscPriorityArrayQueue<>(4, 8);
+        assertEquals(4, q.priorities());
+        assertTrue(q.offer(30, 3));
+        assertTrue(q.offer(31, 3));
+        assertTrue(q.offer(10, 1));
+        assertTrue(q.offer(20, 2));
+        assertTrue(q.offer(0, 0));
+        assertEquals(5, q.size());
+        assertEquals((Integer) 0, q.peek());
+        assertEquals((Integer) 0, q.poll());
+        assertEquals((Integer) 10, q.poll());
+        assertEquals((Integer) 20, q.relaxedPeek());
+        assertEquals((Integer) 20, q.relaxedPoll());
+        // a control message jumps ahead of the backlog
+        assertTrue(q.offer(1, 0));
+        assertEquals((Integer) 1, q.poll());
+        assertEquals((Integer) 30, q.poll());
+        assertEquals((Integer) 31, q.poll());
+        assertNull(q.poll());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void testDrainServesHighestLaneOnEveryStep()
+    {
+        final MpscPriorityArrayQueue<Integer> q = new MpscPriorityArrayQueue<>(2, 8);
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(q.offer(100 + i));
+        }
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(5, q.drain(e -> {
+            drained.add(e);
+            if (e == 100)
+            {
+                q.offer(0, 0);
+            }
+        }));
+        assertEquals(Arrays.asList(100, 0, 101, 102, 103), drained);
+    }
+
+    @Test
+    public void testLanesAreBoundedIndependently()
+    {
+        MpscPriorityArrayQueue<Integer> q = new MpscPriorityArrayQueue<>(2, 2);
+        assertEquals(2, q.capacity());
+        assertTrue(q.offer(1));
+        assertTrue(q.offer(2));
+        assertFalse(q.offer(3));
+        // the full default lane does not block the high priority lane
+        assertTrue(q.offer(0, 0));
+        assertEquals(3, q.size());
+        assertEquals((Integer) 0, q.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePriority()
+    {
+        new MpscPriorityArrayQueue<Integer>(2, 2).offer(1, -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPriorityOutOfRange()
+    {
+        new MpscPriorityArrayQueue<Integer>(2, 2).offer(1, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyPriorities()
+    {
+        new MpscPriorityArrayQueue<Integer>(65, 2);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testNoElementIsStrandedByTheOccupancyRace() throws Exception
+    {
+        final int lanes = 4;
+        final int perProducer = 100000;
+        final MpscPriorityArrayQueue<Integer> q = new MpscPriorityArrayQueue<>(lanes, 4);
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < lanes; p++)
+        {
+            // one producer per lane, values encoded as (value * lanes + lane)
+            final int lane = p;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++)
+                {
+                    while (!q.offer(i * lanes + lane, lane))
+                    {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (Thread t : producers)
+        {
+            t.start();
+        }
+        final int[] next = new int[lanes];
+        int polled = 0;
+        while (polled < lanes * perProducer)
+        {
+            Integer e = q.poll();
+            if (e == null)
+            {
+                Thread.yield();
+                continue;
+            }
+            final int lane = e % lanes;
+            if (e / lanes != next[lane])
+            {
+                failed.set(true);
+            }
+            next[lane]++;
+            polled++;
+        }
+        for (Thread t : producers)
+        {
+            t.join();
+        }
+        assertFalse(failed.get());
+        assertTrue(q.isEmpty());
+        assertNull(q.poll());
+    }
+}
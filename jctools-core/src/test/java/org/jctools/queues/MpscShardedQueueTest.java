@@ -0,0 +1,147 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class MpscShardedQueueTest
+{
+    @Test
+    public void testSingleProducerIsFifo()
+    {
+        final MpscShardedQueue<Integer> q = new MpscShardedQueue<>(8, 3);
+        assertEquals(0, q.producers());
+        assertNull(q.poll());
+        for (int i = 0; i < 8; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        // bounded per producer
+        assertFalse(q.offer(8));
+        assertEquals(1, q.producers());
+        assertEquals(8, q.size());
+        assertEquals((Integer) 0, q.peek());
+        assertEquals((Integer) 0, q.poll());
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(7, q.drain(drained::add));
+        for (int i = 0; i < 7; i++)
+        {
+            assertEquals((Integer) (i + 1), drained.get(i));
+        }
+        assertTrue(q.isEmpty());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testTerminatedProducerShardIsRemovedOnceDrained() throws Exception
+    {
+        final MpscShardedQueue<Integer> q = new MpscShardedQueue<>(16);
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++)
+            {
+                q.offer(i);
+            }
+        });
+        producer.start();
+        producer.join();
+        assertEquals(1, q.producers());
+        assertEquals(4, q.drain(e -> {}, 4));
+        // not empty yet
+        assertEquals(1, q.producers());
+        assertEquals(6, q.drain(e -> {}));
+        assertNull(q.poll());
+        assertEquals(0, q.producers());
+    }
+
+    @Test
+    public void testDeregisteredShardIsRemovedAndNextOfferRegistersAgain()
+    {
+        final MpscShardedQueue<Integer> q = new MpscShardedQueue<>(16);
+        q.offer(1);
+        q.deregister();
+        assertEquals(1, q.producers());
+        q.offer(2);
+        assertEquals(2, q.producers());
+        assertEquals((Integer) 1, q.poll());
+        assertEquals((Integer) 2, q.poll());
+        assertNull(q.poll());
+        assertEquals(1, q.producers());
+    }
+
+    @Test
+    public void testConsumerTakesBatchesRoundRobin() throws Exception
+    {
+        final MpscShardedQueue<Integer> q = new MpscShardedQueue<>(16, 2);
+        final Thread other = new Thread(() -> {
+            for (int i = 0; i < 4; i++)
+            {
+                q.offer(100 + i);
+            }
+        });
+        other.start();
+        other.join();
+        for (int i = 0; i < 4; i++)
+        {
+            q.offer(i);
+        }
+        final List<Integer> polled = new ArrayList<>();
+        Integer e;
+        while ((e = q.poll()) != null)
+        {
+            polled.add(e);
+        }
+        assertEquals(8, polled.size());
+        assertEquals(Arrays.asList(100, 101, 0, 1, 102, 103, 2, 3), polled);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testManyProducersArePerProducerFifo() throws Exception
+    {
+        final int producers = 64;
+        final int perProducer = 20000;
+        final MpscShardedQueue<long[]> q = new MpscShardedQueue<>(256);
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++)
+        {
+            final int producer = p;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++)
+                {
+                    final long[] e = {producer, i};
+                    while (!q.offer(e))
+                    {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        final long[] next = new long[producers];
+        final AtomicBoolean outOfOrder = new AtomicBoolean();
+        int received = 0;
+        while (received < producers * perProducer)
+        {
+            received += q.drain(e -> {
+                if (next[(int) e[0]]++ != e[1])
+                {
+                    outOfOrder.set(true);
+                }
+            }, 1000);
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        assertFalse(outOfOrder.get());
+        assertNull(q.poll());
+        assertEquals(0, q.producers());
+    }
+}
@@ -0,0 +1,170 @@
+package org.jctools.queues;
+
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.jctools.queues.spec.Blocking;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Growth;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.queues.spec.Preference;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class QueueFactoryTest
+{
+    private static ConcurrentQueueSpec spec(
+        int producers, int consumers, int capacity, Preference preference, Growth growth, Blocking blocking,
+        int chunkSize)
+    {
+        return new ConcurrentQueueSpec(producers, consumers, capacity, Ordering.FIFO, preference, growth, blocking,
+            chunkSize);
+    }
+
+    private static Queue<Integer> newQueue(ConcurrentQueueSpec spec, Class<?> expected)
+    {
+        final Queue<Integer> q = QueueFactory.newQueue(spec);
+        assertEquals(expected, q.getClass());
+        for (int i = 0; i < 8; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        for (int i = 0; i < 8; i++)
+        {
+            assertEquals((Integer) i, q.poll());
+        }
+        assertNull(q.poll());
+        return q;
+    }
+
+    @Test
+    public void testLegacySpecsKeepTheirQueues()
+    {
+        final ConcurrentQueueSpec bounded = ConcurrentQueueSpec.createBoundedMpsc(16);
+        assertEquals(Growth.BOUNDED, bounded.growth);
+        assertEquals(Blocking.NONE, bounded.blocking);
+        newQueue(bounded, MpscArrayQueue.class);
+        final ConcurrentQueueSpec unbounded = new ConcurrentQueueSpec(1, 1, 0, Ordering.FIFO, Preference.NONE);
+        assertEquals(Growth.UNBOUNDED, unbounded.growth);
+        assertFalse(unbounded.isBounded());
+        newQueue(unbounded, SpscLinkedQueue.class);
+        newQueue(new ConcurrentQueueSpec(0, 1, 0, Ordering.FIFO, Preference.NONE), MpscLinkedQueue.class);
+    }
+
+    @Test
+    public void testGrowableSpecs()
+    {
+        newQueue(ConcurrentQueueSpec.createGrowableSpsc(1024), SpscGrowableArrayQueue.class);
+        newQueue(spec(1, 1, 1024, Preference.NONE, Growth.GROWABLE, Blocking.NONE, 64), SpscChunkedArrayQueue.class);
+        newQueue(ConcurrentQueueSpec.createGrowableMpsc(1024), MpscGrowableArrayQueue.class);
+        newQueue(spec(0, 1, 1024, Preference.NONE, Growth.GROWABLE, Blocking.NONE, 64), MpscChunkedArrayQueue.class);
+        // no SPMC/MPMC queue grows, these get the bounded queues
+        newQueue(spec(0, 0, 1024, Preference.NONE, Growth.GROWABLE, Blocking.NONE, 64), MpmcArrayQueue.class);
+        newQueue(spec(1, 0, 1024, Preference.NONE, Growth.GROWABLE, Blocking.NONE, 0), SpmcArrayQueue.class);
+        newQueue(spec(0, 1, 1024, Preference.MEMORY, Growth.GROWABLE, Blocking.NONE, 0),
+            MpscCompactArrayQueue.class);
+        // too small to grow, or chunks as large as the capacity
+        newQueue(spec(1, 1, 8, Preference.NONE, Growth.GROWABLE, Blocking.NONE, 0), SpscArrayQueue.class);
+        newQueue(spec(0, 1, 64, Preference.NONE, Growth.GROWABLE, Blocking.NONE, 64), MpscGrowableArrayQueue.class);
+    }
+
+    @Test
+    public void testGrowableQueuesAreBoundedByCapacity()
+    {
+        final Queue<Integer> q = QueueFactory.newQueue(ConcurrentQueueSpec.createGrowableMpsc(64));
+        int offered = 0;
+        while (q.offer(offered))
+        {
+            offered++;
+        }
+        assertEquals(64, offered);
+    }
+
+    @Test
+    public void testMemorySpecsWithCapacityOne()
+    {
+        for (int producers : new int[]{1, 0})
+        {
+            final Queue<Integer> q = QueueFactory.newQueue(
+                new ConcurrentQueueSpec(producers, 1, 1, Ordering.FIFO, Preference.MEMORY));
+            assertEquals(MpscCompactArrayQueue.class, q.getClass());
+            assertTrue(q.offer(1));
+            assertEquals((Integer) 1, q.poll());
+            assertNull(q.poll());
+        }
+    }
+
+    @Test
+    public void testUnboundedSpecs()
+    {
+        newQueue(ConcurrentQueueSpec.createUnboundedSpsc(0), SpscLinkedQueue.class);
+        newQueue(ConcurrentQueueSpec.createUnboundedSpsc(64), SpscUnboundedArrayQueue.class);
+        newQueue(ConcurrentQueueSpec.createUnboundedMpsc(0), MpscLinkedQueue.class);
+        newQueue(ConcurrentQueueSpec.createUnboundedMpsc(64), MpscUnboundedArrayQueue.class);
+        newQueue(spec(0, 1, 0, Preference.THROUGHPUT, Growth.UNBOUNDED, Blocking.NONE, 64),
+            MpscUnboundedXaddArrayQueue.class);
+        final Queue<Integer> mpmc = newQueue(ConcurrentQueueSpec.createUnboundedMpmc(64),
+            MpmcUnboundedXaddArrayQueue.class);
+        assertEquals(64, ((MpmcUnboundedXaddArrayQueue<Integer>) mpmc).chunkSize());
+        newQueue(ConcurrentQueueSpec.createUnboundedMpmc(0), MpmcUnboundedXaddArrayQueue.class);
+        newQueue(spec(1, 0, 0, Preference.NONE, Growth.UNBOUNDED, Blocking.NONE, 0),
+            MpmcUnboundedXaddArrayQueue.class);
+    }
+
+    @Test
+    public void testBlockingSpecs()
+    {
+        assertTrue(newQueue(spec(1, 1, 16, Preference.NONE, Growth.BOUNDED, Blocking.CONSUMER, 0),
+            SpscBlockingArrayQueue.class) instanceof BlockingQueue);
+        newQueue(spec(0, 1, 16, Preference.NONE, Growth.BOUNDED, Blocking.CONSUMER, 0),
+            MpscBlockingConsumerArrayQueue.class);
+        newQueue(spec(0, 1, 16, Preference.NONE, Growth.GROWABLE, Blocking.PRODUCER_AND_CONSUMER, 0),
+            MpmcBlockingArrayQueue.class);
+        newQueue(spec(0, 0, 16, Preference.NONE, Growth.BOUNDED, Blocking.CONSUMER, 0),
+            MpmcBlockingArrayQueue.class);
+        newQueue(spec(0, 0, 0, Preference.NONE, Growth.UNBOUNDED, Blocking.CONSUMER, 0),
+            LinkedBlockingQueue.class);
+    }
+
+    @Test
+    public void testUnorderedMpmcSpecsWithSmallCapacity()
+    {
+        for (int capacity = 2; capacity <= 16; capacity *= 2)
+        {
+            final Queue<Integer> q = QueueFactory.newQueue(
+                new ConcurrentQueueSpec(2, 2, capacity, Ordering.NONE, Preference.NONE));
+            int offered = 0;
+            while (q.offer(offered))
+            {
+                offered++;
+            }
+            assertEquals(capacity, offered);
+            int sum = 0;
+            Integer e;
+            while ((e = q.poll()) != null)
+            {
+                sum += e;
+                offered--;
+            }
+            assertEquals(0, offered);
+            assertEquals(capacity * (capacity - 1) / 2, sum);
+        }
+        assertEquals(MpmcArrayQueue.class,
+            QueueFactory.newQueue(new ConcurrentQueueSpec(2, 2, 2, Ordering.NONE, Preference.NONE)).getClass());
+        assertEquals(4, new MpmcStripedQueue<Integer>(4).capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGrowableSpecNeedsCapacity()
+    {
+        spec(0, 1, 0, Preference.NONE, Growth.GROWABLE, Blocking.NONE, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChunkSizeIsNotNegative()
+    {
+        spec(0, 1, 0, Preference.NONE, Growth.UNBOUNDED, Blocking.NONE, -1);
+    }
+}
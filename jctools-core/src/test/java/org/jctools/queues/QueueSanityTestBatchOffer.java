@@ -0,0 +1,233 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jctools.queues.atomic.MpmcAtomicArrayQueue;
+import org.jctools.queues.atomic.MpmcBoundedXaddAtomicArrayQueue;
+import org.jctools.queues.atomic.MpmcUnboundedXaddAtomicArrayQueue;
+import org.jctools.queues.atomic.MpscAtomicArrayQueue;
+import org.jctools.queues.atomic.MpscUnboundedXaddAtomicArrayQueue;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestBatchOffer
+{
+    private static final int SIZE = 16;
+
+    interface BatchOffer
+    {
+        int offer(MessagePassingQueue<Integer> q, Integer[] src, int offset, int length);
+    }
+
+    private final MessagePassingQueue<Integer> queue;
+    private final BatchOffer offer;
+    private final boolean relaxed;
+
+    public QueueSanityTestBatchOffer(String name, MessagePassingQueue<Integer> queue, BatchOffer offer, boolean relaxed)
+    {
+        this.queue = queue;
+        this.offer = offer;
+        this.relaxed = relaxed;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<>();
+        list.add(new Object[] {"MpscArray.offer", new MpscArrayQueue<Integer>(SIZE),
+            (BatchOffer) (q, s, o, l) -> ((MpscArrayQueue<Integer>) q).offer(s, o, l), false});
+        list.add(new Object[] {"MpscArray.relaxedOffer", new MpscArrayQueue<Integer>(SIZE),
+            (BatchOffer) (q, s, o, l) -> ((MpscArrayQueue<Integer>) q).relaxedOffer(s, o, l), true});
+        list.add(new Object[] {"MpmcArray.offer", new MpmcArrayQueue<Integer>(SIZE),
+            (BatchOffer) (q, s, o, l) -> ((MpmcArrayQueue<Integer>) q).offer(s, o, l), false});
+        list.add(new Object[] {"MpmcArray.relaxedOffer", new MpmcArrayQueue<Integer>(SIZE),
+            (BatchOffer) (q, s, o, l) -> ((MpmcArrayQueue<Integer>) q).relaxedOffer(s, o, l), true});
+        list.add(new Object[] {"MpmcBoundedXadd.offer", new MpmcBoundedXaddArrayQueue<Integer>(SIZE, 4),
+            (BatchOffer) (q, s, o, l) -> ((MpmcBoundedXaddArrayQueue<Integer>) q).offer(s, o, l), false});
+        list.add(new Object[] {"MpscUnboundedXadd.offer", new MpscUnboundedXaddArrayQueue<Integer>(4, 2),
+            (BatchOffer) (q, s, o, l) -> ((MpscUnboundedXaddArrayQueue<Integer>) q).offer(s, o, l), false});
+        list.add(new Object[] {"MpmcUnboundedXadd.offer", new MpmcUnboundedXaddArrayQueue<Integer>(4, 2),
+            (BatchOffer) (q, s, o, l) -> ((MpmcUnboundedXaddArrayQueue<Integer>) q).offer(s, o, l), false});
+        list.add(new Object[] {"MpscAtomicArray.offer", new MpscAtomicArrayQueue<Integer>(SIZE),
+            (BatchOffer) (q, s, o, l) -> ((MpscAtomicArrayQueue<Integer>) q).offer(s, o, l), false});
+        list.add(new Object[] {"MpmcAtomicArray.relaxedOffer", new MpmcAtomicArrayQueue<Integer>(SIZE),
+            (BatchOffer) (q, s, o, l) -> ((MpmcAtomicArrayQueue<Integer>) q).relaxedOffer(s, o, l), true});
+        list.add(new Object[] {"MpmcBoundedXaddAtomic.offer", new MpmcBoundedXaddAtomicArrayQueue<Integer>(SIZE, 4),
+            (BatchOffer) (q, s, o, l) -> ((MpmcBoundedXaddAtomicArrayQueue<Integer>) q).offer(s, o, l), false});
+        list.add(new Object[] {"MpscUnboundedXaddAtomic.offer", new MpscUnboundedXaddAtomicArrayQueue<Integer>(4, 2),
+            (BatchOffer) (q, s, o, l) -> ((MpscUnboundedXaddAtomicArrayQueue<Integer>) q).offer(s, o, l), false});
+        list.add(new Object[] {"MpmcUnboundedXaddAtomic.offer", new MpmcUnboundedXaddAtomicArrayQueue<Integer>(4, 2),
+            (BatchOffer) (q, s, o, l) -> ((MpmcUnboundedXaddAtomicArrayQueue<Integer>) q).offer(s, o, l), false});
+        return list;
+    }
+
+    @Before
+    public void clear()
+    {
+        queue.clear();
+    }
+
+    private boolean isBounded()
+    {
+        return queue.capacity() != MessagePassingQueue.UNBOUNDED_CAPACITY;
+    }
+
+    private static Integer[] range(int from, int count)
+    {
+        Integer[] src = new Integer[count];
+        for (int i = 0; i < count; i++)
+        {
+            src[i] = from + i;
+        }
+        return src;
+    }
+
+    @Test
+    public void testOfferSliceIsPolledInOrder()
+    {
+        Integer[] src = range(0, SIZE / 2 + 2);
+        assertEquals(0, offer.offer(queue, src, 1, 0));
+        int accepted = offer.offer(queue, src, 1, SIZE / 2);
+        if (!relaxed)
+        {
+            assertEquals(SIZE / 2, accepted);
+        }
+        assertTrue(accepted > 0);
+        assertEquals(accepted, queue.size());
+        for (int i = 0; i < accepted; i++)
+        {
+            assertEquals((Integer) (i + 1), queue.poll());
+        }
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testOfferUntilFull()
+    {
+        Integer[] src = range(0, SIZE * 2);
+        int offered = 0;
+        int accepted;
+        while (offered < src.length && (accepted = offer.offer(queue, src, offered, src.length - offered)) != 0)
+        {
+            offered += accepted;
+        }
+        if (isBounded())
+        {
+            assertEquals(queue.capacity(), offered);
+            assertEquals(0, offer.offer(queue, src, 0, 1));
+        }
+        else
+        {
+            assertEquals(src.length, offered);
+        }
+        for (int i = 0; i < offered; i++)
+        {
+            assertEquals((Integer) i, queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testOfferPartiallyFull()
+    {
+        if (!isBounded() || relaxed)
+        {
+            return;
+        }
+        final int capacity = queue.capacity();
+        Integer[] src = range(0, capacity + 3);
+        assertEquals(capacity - 3, offer.offer(queue, src, 0, capacity - 3));
+        assertEquals(3, offer.offer(queue, src, capacity - 3, 6));
+        for (int i = 0; i < capacity; i++)
+        {
+            assertEquals((Integer) i, queue.poll());
+        }
+    }
+
+    @Test
+    public void testNullElementIsRejectedBeforeClaim()
+    {
+        Integer[] src = range(0, 4);
+        src[2] = null;
+        try
+        {
+            offer.offer(queue, src, 0, 4);
+            fail();
+        }
+        catch (NullPointerException expected)
+        {
+        }
+        assertTrue(queue.isEmpty());
+        // the null element is outside the slice
+        assertTrue(offer.offer(queue, src, 0, 2) > 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSliceOutOfBounds()
+    {
+        offer.offer(queue, range(0, 4), 2, 3);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testConcurrentBatchOffersKeepProducerOrder() throws Exception
+    {
+        final int producers = 3;
+        final int perProducer = 10000;
+        final int batch = 7;
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++)
+        {
+            // each producer offers values encoded as (value * producers + p)
+            final int id = p;
+            threads.add(new Thread(() -> {
+                Integer[] src = new Integer[perProducer];
+                for (int i = 0; i < perProducer; i++)
+                {
+                    src[i] = i * producers + id;
+                }
+                int offered = 0;
+                while (offered < perProducer)
+                {
+                    offered += offer.offer(queue, src, offered, Math.min(batch, perProducer - offered));
+                }
+            }));
+        }
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        final int[] next = new int[producers];
+        int polled = 0;
+        while (polled < producers * perProducer)
+        {
+            Integer e = queue.poll();
+            if (e == null)
+            {
+                continue;
+            }
+            final int id = e % producers;
+            if (e / producers != next[id])
+            {
+                failed.set(true);
+            }
+            next[id]++;
+            polled++;
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        assertFalse(failed.get());
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,226 @@
+package org.jctools.queues;
+
+import java.lang.Thread.State;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestBlockingArrayExtended
+{
+    private final BlockingQueue<Integer> queue;
+    private final int producers;
+    private final int consumers;
+
+    public QueueSanityTestBlockingArrayExtended(BlockingQueue<Integer> queue, int producers, int consumers)
+    {
+        this.queue = queue;
+        this.producers = producers;
+        this.consumers = consumers;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<>();
+        list.add(new Object[] {new SpscBlockingArrayQueue<Integer>(4), 1, 1});
+        list.add(new Object[] {new MpmcBlockingArrayQueue<Integer>(2), 4, 4});
+        list.add(new Object[] {new MpmcBlockingArrayQueue<Integer>(64), 3, 2});
+        return list;
+    }
+
+    private static void waitUntilParked(Thread t)
+    {
+        State state;
+        while ((state = t.getState()) != State.WAITING && state != State.TIMED_WAITING)
+        {
+            Thread.yield();
+        }
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testTakeBlocksUntilOffer() throws Exception
+    {
+        final AtomicReference<Integer> taken = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            try
+            {
+                taken.set(queue.take());
+            }
+            catch (InterruptedException e)
+            {
+                fail();
+            }
+        });
+        consumer.start();
+        waitUntilParked(consumer);
+        assertTrue(queue.offer(42));
+        consumer.join();
+        assertEquals((Integer) 42, taken.get());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testPutBlocksUntilPoll() throws Exception
+    {
+        int i = 0;
+        while (queue.offer(i))
+        {
+            i++;
+        }
+        final int capacity = i;
+        assertEquals(0, queue.remainingCapacity());
+        Thread producer = new Thread(() -> {
+            try
+            {
+                queue.put(capacity);
+            }
+            catch (InterruptedException e)
+            {
+                fail();
+            }
+        });
+        producer.start();
+        waitUntilParked(producer);
+        assertEquals((Integer) 0, queue.poll());
+        producer.join();
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(capacity, queue.drainTo(drained));
+        for (int j = 0; j < capacity; j++)
+        {
+            assertEquals((Integer) (j + 1), drained.get(j));
+        }
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testTakeBlocksUntilBatchOffer() throws Exception
+    {
+        assumeTrue(queue instanceof MpmcBlockingArrayQueue);
+        final MpmcBlockingArrayQueue<Integer> mpmc = (MpmcBlockingArrayQueue<Integer>) queue;
+        final AtomicReference<Integer> taken = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            try
+            {
+                taken.set(queue.take());
+            }
+            catch (InterruptedException e)
+            {
+                fail();
+            }
+        });
+        consumer.start();
+        waitUntilParked(consumer);
+        assertEquals(1, mpmc.offer(new Integer[] {42}, 0, 1));
+        consumer.join();
+        assertEquals((Integer) 42, taken.get());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testTimeouts() throws Exception
+    {
+        assertNull(queue.poll(0, NANOSECONDS));
+        assertNull(queue.poll(10, MILLISECONDS));
+        while (queue.offer(1))
+        {
+            ;
+        }
+        assertFalse(queue.offer(1, 0, NANOSECONDS));
+        assertFalse(queue.offer(1, 10, MILLISECONDS));
+        queue.clear();
+        assertTrue(queue.offer(1, 10, MILLISECONDS));
+        assertEquals((Integer) 1, queue.poll(10, MILLISECONDS));
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testTakeIsInterrupted() throws Exception
+    {
+        final AtomicBoolean wasInterrupted = new AtomicBoolean();
+        Thread consumer = new Thread(() -> {
+            try
+            {
+                queue.take();
+            }
+            catch (InterruptedException e)
+            {
+                wasInterrupted.set(true);
+            }
+        });
+        consumer.start();
+        waitUntilParked(consumer);
+        consumer.interrupt();
+        consumer.join();
+        assertTrue(wasInterrupted.get());
+
+        // the cancelled waiter must not swallow the next element
+        assertTrue(queue.offer(1));
+        assertEquals((Integer) 1, queue.poll());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testPutTakeNoLostWakeups() throws Exception
+    {
+        final int perProducer = 100000;
+        final int total = perProducer * producers;
+        final AtomicLong sum = new AtomicLong();
+        final AtomicLong takes = new AtomicLong();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++)
+        {
+            threads.add(new Thread(() -> {
+                try
+                {
+                    for (int i = 1; i <= perProducer; i++)
+                    {
+                        queue.put(i);
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    failed.set(true);
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++)
+        {
+            threads.add(new Thread(() -> {
+                try
+                {
+                    while (takes.getAndIncrement() < total)
+                    {
+                        sum.addAndGet(queue.take());
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    failed.set(true);
+                }
+            }));
+        }
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        assertFalse(failed.get());
+        assertEquals((long) producers * perProducer * (perProducer + 1) / 2, sum.get());
+        assertTrue(queue.isEmpty());
+    }
+}
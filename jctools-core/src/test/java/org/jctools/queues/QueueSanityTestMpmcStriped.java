@@ -0,0 +1,33 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.util.Pow2;
+
+import static org.jctools.util.PortableJvmInfo.CPUs;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestMpmcStriped extends QueueSanityTest
+{
+    public QueueSanityTestMpmcStriped(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeQueue(0, 0, 2 * Pow2.roundToPowerOfTwo(CPUs), Ordering.NONE, null));
+        list.add(makeQueue(0, 0, SIZE, Ordering.NONE, null));
+        list.add(makeQueue(0, 0, SIZE, Ordering.NONE, new MpmcStripedQueue<>(SIZE, 8)));
+        return list;
+    }
+}
@@ -0,0 +1,33 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.queues.spec.Preference;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestMpscCompact extends QueueSanityTest
+{
+    public QueueSanityTestMpscCompact(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeQueue(0, 1, 2, Ordering.FIFO, new MpscCompactArrayQueue<>(2)));// MPSC size 2
+        list.add(makeQueue(0, 1, 4, Ordering.FIFO, new MpscCompactArrayQueue<>(4, 4)));// MPSC size 4, no growth
+        list.add(makeQueue(0, 1, SIZE, Ordering.FIFO, new MpscCompactArrayQueue<>(SIZE)));// MPSC size SIZE
+        ConcurrentQueueSpec spec = new ConcurrentQueueSpec(0, 1, SIZE, Ordering.FIFO, Preference.MEMORY);
+        list.add(new Object[] {spec, QueueFactory.newQueue(spec)});// MPSC size SIZE, from the factory
+        return list;
+    }
+}
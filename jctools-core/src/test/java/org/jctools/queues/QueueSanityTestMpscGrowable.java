@@ -24,6 +24,7 @@ public class QueueSanityTestMpscGrowable extends QueueSanityTestMpscArray
         ArrayList<Object[]> list = new ArrayList<Object[]>();
         list.add(makeQueue(0, 1, 4, Ordering.FIFO, new MpscGrowableArrayQueue<>(2, 4)));// MPSC size 1
         list.add(makeQueue(0, 1, SIZE, Ordering.FIFO, new MpscGrowableArrayQueue<>(8, SIZE)));// MPSC size SIZE
+        list.add(makeQueue(0, 1, SIZE, Ordering.FIFO, new MpscGrowableArrayQueue<>(8, SIZE, true)));// MPSC size SIZE, shrinking
         return list;
     }
 }
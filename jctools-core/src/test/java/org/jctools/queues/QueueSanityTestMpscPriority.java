@@ -0,0 +1,30 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestMpscPriority extends QueueSanityTest
+{
+    public QueueSanityTestMpscPriority(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeQueue(0, 1, 2, Ordering.FIFO, new MpscPriorityArrayQueue<>(1, 2)));
+        list.add(makeQueue(0, 1, SIZE, Ordering.FIFO, new MpscPriorityArrayQueue<>(4, SIZE)));
+        list.add(makeQueue(0, 1, SIZE, Ordering.FIFO, new MpscPriorityArrayQueue<>(64, SIZE)));
+        return list;
+    }
+}
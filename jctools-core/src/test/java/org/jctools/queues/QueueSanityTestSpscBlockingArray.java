@@ -0,0 +1,29 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestSpscBlockingArray extends QueueSanityTest
+{
+    public QueueSanityTestSpscBlockingArray(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<>();
+        list.add(makeQueue(1, 1, 4, Ordering.FIFO, new SpscBlockingArrayQueue<>(4)));
+        list.add(makeQueue(1, 1, SIZE, Ordering.FIFO, new SpscBlockingArrayQueue<>(SIZE)));
+        return list;
+    }
+}
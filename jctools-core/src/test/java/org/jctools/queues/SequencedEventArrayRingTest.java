@@ -0,0 +1,225 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import static org.jctools.queues.SequencedEventArrayRing.NO_SEQUENCE;
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class SequencedEventArrayRingTest
+{
+    static final class Event
+    {
+        long value;
+    }
+
+    private final boolean multiConsumer;
+    private final SequencedEventArrayRing<Event> ring;
+
+    public SequencedEventArrayRingTest(boolean multiConsumer)
+    {
+        this.multiConsumer = multiConsumer;
+        this.ring = newRing(8);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(new Object[]{false});
+        list.add(new Object[]{true});
+        return list;
+    }
+
+    private SequencedEventArrayRing<Event> newRing(int capacity)
+    {
+        return multiConsumer ?
+            new MpmcSequencedEventArrayRing<>(capacity, Event::new) :
+            new MpscSequencedEventArrayRing<>(capacity, Event::new);
+    }
+
+    @Test
+    public void testClaimMutatePublishDrain()
+    {
+        assertEquals(8, ring.capacity());
+        assertTrue(ring.isEmpty());
+        for (int i = 0; i < 3; i++)
+        {
+            final long seq = ring.claim();
+            assertEquals(i, seq);
+            ring.slot(seq).value = 10 + i;
+            ring.publish(seq);
+        }
+        assertEquals(3, ring.size());
+        final List<Long> drained = new ArrayList<>();
+        assertEquals(3, ring.drain(e -> drained.add(e.value)));
+        assertEquals(Arrays.asList(10L, 11L, 12L), drained);
+        assertTrue(ring.isEmpty());
+        assertEquals(0, ring.drain(e -> fail()));
+    }
+
+    @Test
+    public void testSlotsAreReusedAcrossLaps()
+    {
+        final Event[] seen = new Event[ring.capacity()];
+        for (int lap = 0; lap < 3; lap++)
+        {
+            for (int i = 0; i < ring.capacity(); i++)
+            {
+                final long seq = ring.claim();
+                assertNotEquals(NO_SEQUENCE, seq);
+                final Event e = ring.slot(seq);
+                if (lap == 0)
+                {
+                    seen[i] = e;
+                }
+                else
+                {
+                    assertSame(seen[i], e);
+                }
+                ring.publish(seq);
+            }
+            assertEquals(NO_SEQUENCE, ring.claim());
+            assertEquals(ring.capacity(), ring.drain(e -> {}));
+        }
+    }
+
+    @Test
+    public void testClaimFailsWhenFull()
+    {
+        for (int i = 0; i < ring.capacity(); i++)
+        {
+            ring.publish(ring.claim());
+        }
+        assertEquals(NO_SEQUENCE, ring.claim());
+        assertEquals(NO_SEQUENCE, ring.claim(1));
+        assertEquals(1, ring.drain(e -> {}, 1));
+        assertEquals(ring.capacity(), ring.claim());
+    }
+
+    @Test
+    public void testBatchClaimIsAllOrNothing()
+    {
+        final long lo = ring.claim(5);
+        assertEquals(0, lo);
+        for (long seq = lo; seq < lo + 5; seq++)
+        {
+            ring.slot(seq).value = seq;
+        }
+        assertEquals(NO_SEQUENCE, ring.claim(4));
+        final long next = ring.claim(3);
+        assertEquals(5, next);
+        ring.publish(lo, lo + 4);
+        ring.publish(next, next + 2);
+        assertEquals(8, ring.size());
+
+        final List<Long> drained = new ArrayList<>();
+        assertEquals(5, ring.drain(e -> drained.add(e.value), 5));
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L), drained);
+        assertEquals(8, ring.claim(5));
+    }
+
+    @Test
+    public void testDrainStopsAtUnpublishedSequence()
+    {
+        final long first = ring.claim();
+        final long second = ring.claim();
+        ring.publish(second);
+        assertEquals(0, ring.drain(e -> fail()));
+        ring.publish(first);
+        assertEquals(2, ring.drain(e -> {}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchClaimLargerThanCapacity()
+    {
+        ring.claim(ring.capacity() + 1);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testFactoryMustNotReturnNull()
+    {
+        new MpscSequencedEventArrayRing<Event>(4, () -> null);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testConcurrentClaimAndDrain() throws Exception
+    {
+        final int producers = 3;
+        final int consumers = multiConsumer ? 2 : 1;
+        final int perProducer = 100000;
+        final int batch = 3;
+        final SequencedEventArrayRing<Event> ring = newRing(64);
+        final AtomicBoolean failed = new AtomicBoolean();
+        final AtomicInteger consumed = new AtomicInteger();
+        final long[][] next = new long[consumers][producers];
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++)
+        {
+            // values encoded as (value * producers + producer)
+            final int producer = p;
+            threads.add(new Thread(() -> {
+                int i = 0;
+                while (i < perProducer)
+                {
+                    final int n = Math.min(batch, perProducer - i);
+                    final long lo = n == 1 ? ring.claim() : ring.claim(n);
+                    if (lo == NO_SEQUENCE)
+                    {
+                        Thread.yield();
+                        continue;
+                    }
+                    for (int j = 0; j < n; j++)
+                    {
+                        ring.slot(lo + j).value = (long) (i++) * producers + producer;
+                    }
+                    ring.publish(lo, lo + n - 1);
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++)
+        {
+            final long[] expected = next[c];
+            threads.add(new Thread(() -> {
+                while (consumed.get() < producers * perProducer)
+                {
+                    final int drained = ring.drain(e -> {
+                        final int producer = (int) (e.value % producers);
+                        // per consumer, a producer's values are seen in increasing order
+                        if (e.value / producers < expected[producer])
+                        {
+                            failed.set(true);
+                        }
+                        expected[producer] = e.value / producers + 1;
+                    });
+                    if (drained == 0)
+                    {
+                        Thread.yield();
+                    }
+                    consumed.addAndGet(drained);
+                }
+            }));
+        }
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        assertFalse(failed.get());
+        assertEquals(producers * perProducer, consumed.get());
+        assertTrue(ring.isEmpty());
+    }
+}
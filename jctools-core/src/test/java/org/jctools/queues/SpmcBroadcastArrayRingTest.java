@@ -0,0 +1,210 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jctools.queues.SpmcBroadcastArrayRing.Cursor;
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class SpmcBroadcastArrayRingTest
+{
+    @Test
+    public void testEveryConsumerSeesEveryElement()
+    {
+        SpmcBroadcastArrayRing<Integer> ring = new SpmcBroadcastArrayRing<>(8, 3);
+        assertEquals(3, ring.consumers());
+        assertFalse(ring.isLossy());
+        for (int i = 0; i < 5; i++)
+        {
+            assertTrue(ring.offer(i));
+        }
+        for (int c = 0; c < ring.consumers(); c++)
+        {
+            final Cursor<Integer> cursor = ring.consumer(c);
+            assertEquals(5, cursor.size());
+            assertEquals((Integer) 0, cursor.peek());
+            for (int i = 0; i < 5; i++)
+            {
+                assertEquals((Integer) i, cursor.poll());
+            }
+            assertNull(cursor.poll());
+            assertNull(cursor.peek());
+            assertTrue(cursor.isEmpty());
+        }
+    }
+
+    @Test
+    public void testProducerIsGatedOnTheSlowestConsumer()
+    {
+        SpmcBroadcastArrayRing<Integer> ring = new SpmcBroadcastArrayRing<>(4, 2);
+        final Cursor<Integer> fast = ring.consumer(0);
+        final Cursor<Integer> slow = ring.consumer(1);
+        int offered = 0;
+        while (ring.offer(offered))
+        {
+            offered++;
+            fast.poll();
+        }
+        assertEquals(ring.capacity(), offered);
+        assertEquals(0, fast.size());
+        assertEquals(4, slow.size());
+        assertEquals((Integer) 0, slow.poll());
+        assertTrue(ring.offer(offered++));
+        assertFalse(ring.offer(offered));
+
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(4, slow.drain(drained::add));
+        assertEquals(Arrays.asList(1, 2, 3, 4), drained);
+        assertEquals(2, ring.fill(() -> -1, 2));
+        assertEquals(4, fast.poll().intValue());
+        assertEquals(2, ring.fill(() -> -1, 8));
+        assertEquals(0, ring.fill(() -> -1, 8));
+        assertEquals(0, fast.lost());
+    }
+
+    @Test
+    public void testLappedConsumerSkipsToTheOldestElement()
+    {
+        SpmcBroadcastArrayRing<Integer> ring = new SpmcBroadcastArrayRing<>(4, 2, true);
+        assertTrue(ring.isLossy());
+        final Cursor<Integer> cursor = ring.consumer(0);
+        assertEquals(10, ring.fill(new MessagePassingQueue.Supplier<Integer>()
+        {
+            int i;
+
+            @Override
+            public Integer get()
+            {
+                return i++;
+            }
+        }, 10));
+        assertEquals(4, cursor.size());
+        assertEquals((Integer) 6, cursor.peek());
+        assertEquals(6, cursor.lost());
+        for (int i = 6; i < 10; i++)
+        {
+            assertEquals((Integer) i, cursor.poll());
+        }
+        assertNull(cursor.poll());
+        assertEquals(6, cursor.lost());
+        assertTrue(ring.offer(10));
+        assertEquals((Integer) 10, cursor.poll());
+        // the other consumer was lapped as well
+        assertEquals((Integer) 7, ring.consumer(1).poll());
+        assertEquals(7, ring.consumer(1).lost());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testOfferNull()
+    {
+        new SpmcBroadcastArrayRing<Integer>(4, 1).offer(null);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testConcurrentGatedBroadcast() throws Exception
+    {
+        final int total = 200000;
+        final SpmcBroadcastArrayRing<Integer> ring = new SpmcBroadcastArrayRing<>(64, 3);
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<Thread> consumers = new ArrayList<>();
+        for (int c = 0; c < ring.consumers(); c++)
+        {
+            final Cursor<Integer> cursor = ring.consumer(c);
+            consumers.add(new Thread(() -> {
+                int expected = 0;
+                while (expected < total)
+                {
+                    Integer e = cursor.poll();
+                    if (e == null)
+                    {
+                        Thread.yield();
+                        continue;
+                    }
+                    if (e != expected)
+                    {
+                        failed.set(true);
+                    }
+                    expected++;
+                }
+            }));
+        }
+        for (Thread t : consumers)
+        {
+            t.start();
+        }
+        for (int i = 0; i < total; i++)
+        {
+            while (!ring.offer(i))
+            {
+                Thread.yield();
+            }
+        }
+        for (Thread t : consumers)
+        {
+            t.join();
+        }
+        assertFalse(failed.get());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testConcurrentLossyBroadcast() throws Exception
+    {
+        final int total = 200000;
+        final SpmcBroadcastArrayRing<Integer> ring = new SpmcBroadcastArrayRing<>(16, 3, true);
+        final AtomicBoolean failed = new AtomicBoolean();
+        final AtomicBoolean done = new AtomicBoolean();
+        final List<Thread> consumers = new ArrayList<>();
+        for (int c = 0; c < ring.consumers(); c++)
+        {
+            final Cursor<Integer> cursor = ring.consumer(c);
+            consumers.add(new Thread(() -> {
+                int last = -1;
+                long received = 0;
+                while (true)
+                {
+                    final boolean wasDone = done.get();
+                    Integer e = cursor.poll();
+                    if (e == null)
+                    {
+                        if (wasDone)
+                        {
+                            break;
+                        }
+                        Thread.yield();
+                        continue;
+                    }
+                    // a lapped consumer skips elements but never goes back
+                    if (e <= last)
+                    {
+                        failed.set(true);
+                    }
+                    last = e;
+                    received++;
+                }
+                if (received + cursor.lost() != total || last != total - 1)
+                {
+                    failed.set(true);
+                }
+            }));
+        }
+        for (Thread t : consumers)
+        {
+            t.start();
+        }
+        for (int i = 0; i < total; i++)
+        {
+            assertTrue(ring.offer(i));
+        }
+        done.set(true);
+        for (Thread t : consumers)
+        {
+            t.join();
+        }
+        assertFalse(failed.get());
+    }
+}
@@ -0,0 +1,200 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class WorkStealingArrayDequeTest
+{
+    @Test
+    public void testOwnerIsLifoAndThievesAreFifo()
+    {
+        WorkStealingArrayDeque<Integer> deque = new WorkStealingArrayDeque<>(16);
+        assertTrue(deque.isEmpty());
+        assertNull(deque.pop());
+        assertNull(deque.steal());
+        for (int i = 0; i < 12; i++)
+        {
+            deque.push(i);
+        }
+        assertEquals(12, deque.size());
+        assertEquals((Integer) 11, deque.pop());
+        assertEquals((Integer) 0, deque.steal());
+        assertEquals((Integer) 10, deque.pop());
+        assertEquals((Integer) 1, deque.steal());
+        // the remaining elements are within the contended region, order is kept
+        for (int i = 9; i >= 2; i--)
+        {
+            assertEquals((Integer) i, deque.pop());
+        }
+        assertNull(deque.pop());
+        assertNull(deque.steal());
+        assertTrue(deque.isEmpty());
+    }
+
+    @Test
+    public void testContendedPopKeepsTheRestStealable()
+    {
+        WorkStealingArrayDeque<Integer> deque = new WorkStealingArrayDeque<>(16);
+        for (int round = 0; round < 100; round++)
+        {
+            deque.push(0);
+            deque.push(1);
+            deque.push(2);
+            assertEquals((Integer) 2, deque.pop());
+            assertEquals((Integer) 0, deque.steal());
+            assertEquals((Integer) 1, deque.steal());
+            assertTrue(deque.isEmpty());
+        }
+    }
+
+    @Test
+    public void testBatchStealTakesHalf()
+    {
+        WorkStealingArrayDeque<Integer> deque = new WorkStealingArrayDeque<>(64);
+        Integer[] dst = new Integer[64];
+        for (int i = 0; i < 6; i++)
+        {
+            deque.push(i);
+        }
+        assertEquals(0, deque.steal(dst, 0, 0));
+        assertEquals(3, deque.steal(dst, 1, 63));
+        assertArrayEquals(new Integer[] {null, 0, 1, 2, null}, Arrays.copyOf(dst, 5));
+        assertEquals(2, deque.steal(dst, 0, 64));
+        assertEquals(1, deque.steal(dst, 0, 64));
+        assertEquals((Integer) 5, dst[0]);
+        assertEquals(0, deque.steal(dst, 0, 64));
+
+        for (int i = 0; i < 40; i++)
+        {
+            deque.push(i);
+        }
+        assertEquals(WorkStealingArrayDeque.MAX_STEAL_BATCH, deque.steal(dst, 0, 64));
+        assertEquals(2, deque.steal(dst, 0, 2));
+        assertEquals((Integer) WorkStealingArrayDeque.MAX_STEAL_BATCH, dst[0]);
+        assertEquals((Integer) 39, deque.pop());
+    }
+
+    @Test
+    public void testGrowthKeepsOrder()
+    {
+        WorkStealingArrayDeque<Integer> deque = new WorkStealingArrayDeque<>(1);
+        assertEquals(2 * WorkStealingArrayDeque.MAX_STEAL_BATCH, deque.capacity());
+        for (int i = 0; i < 10; i++)
+        {
+            deque.push(i);
+            assertEquals((Integer) i, deque.steal());
+        }
+        for (int i = 0; i < 1000; i++)
+        {
+            deque.push(i);
+        }
+        assertTrue(deque.capacity() >= 1000);
+        assertEquals(1000, deque.size());
+        assertEquals((Integer) 0, deque.steal());
+        for (int i = 999; i > 0; i--)
+        {
+            assertEquals((Integer) i, deque.pop());
+        }
+        assertTrue(deque.isEmpty());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testPushNull()
+    {
+        new WorkStealingArrayDeque<Integer>(16).push(null);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testStealOutOfBounds()
+    {
+        new WorkStealingArrayDeque<Integer>(16).steal(new Integer[4], 2, 3);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testEveryElementIsTakenOnceDeepDeque() throws Exception
+    {
+        testEveryElementIsTakenOnce(64);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testEveryElementIsTakenOnceShallowDeque() throws Exception
+    {
+        // keeps the owner within the contended region most of the time
+        testEveryElementIsTakenOnce(3);
+    }
+
+    private void testEveryElementIsTakenOnce(final int depth) throws Exception
+    {
+        final int total = 200000;
+        final int thieves = 3;
+        final WorkStealingArrayDeque<Integer> deque = new WorkStealingArrayDeque<>(16);
+        final AtomicIntegerArray taken = new AtomicIntegerArray(total);
+        final AtomicBoolean done = new AtomicBoolean();
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < thieves; i++)
+        {
+            final boolean batch = (i & 1) == 0;
+            threads.add(new Thread(() -> {
+                final Integer[] dst = new Integer[WorkStealingArrayDeque.MAX_STEAL_BATCH];
+                while (!done.get() || !deque.isEmpty())
+                {
+                    if (batch)
+                    {
+                        final int n = deque.steal(dst, 0, dst.length);
+                        for (int j = 0; j < n; j++)
+                        {
+                            taken.incrementAndGet(dst[j]);
+                        }
+                    }
+                    else
+                    {
+                        final Integer e = deque.steal();
+                        if (e != null)
+                        {
+                            taken.incrementAndGet(e);
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        int pushed = 0;
+        while (pushed < total)
+        {
+            while (pushed < total && deque.size() < depth)
+            {
+                deque.push(pushed++);
+            }
+            final Integer e = deque.pop();
+            if (e != null)
+            {
+                taken.incrementAndGet(e);
+            }
+        }
+        Integer e;
+        while ((e = deque.pop()) != null)
+        {
+            taken.incrementAndGet(e);
+        }
+        done.set(true);
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        for (int i = 0; i < total; i++)
+        {
+            assertEquals("element " + i, 1, taken.get(i));
+        }
+    }
+}
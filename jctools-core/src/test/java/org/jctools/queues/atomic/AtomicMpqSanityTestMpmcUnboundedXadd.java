@@ -0,0 +1,38 @@
+package org.jctools.queues.atomic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MpqSanityTest;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class AtomicMpqSanityTestMpmcUnboundedXadd extends MpqSanityTest
+{
+    public AtomicMpqSanityTestMpmcUnboundedXadd(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeMpq(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(1, 0)));
+        list.add(makeMpq(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(16, 0)));
+        list.add(makeMpq(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(1, 1)));
+        list.add(makeMpq(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(16, 1)));
+        list.add(makeMpq(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(1, 2)));
+        list.add(makeMpq(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(16, 2)));
+        list.add(makeMpq(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(1, 3)));
+        list.add(makeMpq(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(16, 3)));
+        list.add(makeMpq(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(1, 4)));
+        list.add(makeMpq(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(16, 4)));
+        return list;
+    }
+}
@@ -0,0 +1,36 @@
+package org.jctools.queues.atomic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MpqSanityTestMpscUnboundedXadd;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class AtomicMpqSanityTestMpscUnboundedXadd extends MpqSanityTestMpscUnboundedXadd
+{
+    public AtomicMpqSanityTestMpscUnboundedXadd(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeMpq(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(1, 0)));
+        list.add(makeMpq(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(64, 0)));
+        list.add(makeMpq(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(1, 1)));
+        list.add(makeMpq(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(64, 1)));
+        list.add(makeMpq(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(1, 2)));
+        list.add(makeMpq(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(64, 2)));
+        list.add(makeMpq(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(1, 3)));
+        list.add(makeMpq(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(64, 3)));
+        return list;
+    }
+}
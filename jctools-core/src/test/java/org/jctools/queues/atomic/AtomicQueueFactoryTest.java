@@ -0,0 +1,76 @@
+package org.jctools.queues.atomic;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.jctools.queues.spec.Blocking;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Growth;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.queues.spec.Preference;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AtomicQueueFactoryTest
+{
+    private static ConcurrentQueueSpec spec(
+        int producers, int consumers, int capacity, Preference preference, Growth growth, Blocking blocking,
+        int chunkSize)
+    {
+        return new ConcurrentQueueSpec(producers, consumers, capacity, Ordering.FIFO, preference, growth, blocking,
+            chunkSize);
+    }
+
+    private static void newQueue(ConcurrentQueueSpec spec, Class<?> expected)
+    {
+        final Queue<Integer> q = AtomicQueueFactory.newQueue(spec);
+        assertEquals(expected, q.getClass());
+        for (int i = 0; i < 8; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        for (int i = 0; i < 8; i++)
+        {
+            assertEquals((Integer) i, q.poll());
+        }
+        assertNull(q.poll());
+    }
+
+    @Test
+    public void testBoundedAndGrowableSpecs()
+    {
+        newQueue(ConcurrentQueueSpec.createBoundedSpsc(16), SpscAtomicArrayQueue.class);
+        newQueue(ConcurrentQueueSpec.createGrowableSpsc(1024), SpscGrowableAtomicArrayQueue.class);
+        newQueue(spec(1, 1, 1024, Preference.NONE, Growth.GROWABLE, Blocking.NONE, 64),
+            SpscChunkedAtomicArrayQueue.class);
+        newQueue(ConcurrentQueueSpec.createGrowableMpsc(1024), MpscGrowableAtomicArrayQueue.class);
+        newQueue(spec(0, 1, 1024, Preference.NONE, Growth.GROWABLE, Blocking.NONE, 64),
+            MpscChunkedAtomicArrayQueue.class);
+        // no SPMC/MPMC queue grows, as in QueueFactory
+        newQueue(spec(0, 0, 1024, Preference.NONE, Growth.GROWABLE, Blocking.NONE, 64), MpmcAtomicArrayQueue.class);
+    }
+
+    @Test
+    public void testUnboundedSpecs()
+    {
+        newQueue(ConcurrentQueueSpec.createUnboundedSpsc(0), SpscLinkedAtomicQueue.class);
+        newQueue(ConcurrentQueueSpec.createUnboundedSpsc(64), SpscUnboundedAtomicArrayQueue.class);
+        newQueue(ConcurrentQueueSpec.createUnboundedMpsc(0), MpscLinkedAtomicQueue.class);
+        newQueue(ConcurrentQueueSpec.createUnboundedMpsc(64), MpscUnboundedAtomicArrayQueue.class);
+        newQueue(spec(0, 1, 0, Preference.THROUGHPUT, Growth.UNBOUNDED, Blocking.NONE, 64),
+            MpscUnboundedXaddAtomicArrayQueue.class);
+        newQueue(ConcurrentQueueSpec.createUnboundedMpmc(0), MpmcUnboundedXaddAtomicArrayQueue.class);
+    }
+
+    @Test
+    public void testBlockingSpecs()
+    {
+        newQueue(spec(0, 1, 16, Preference.NONE, Growth.BOUNDED, Blocking.CONSUMER, 0),
+            MpscBlockingConsumerAtomicArrayQueue.class);
+        newQueue(spec(1, 1, 16, Preference.NONE, Growth.BOUNDED, Blocking.CONSUMER, 0), ArrayBlockingQueue.class);
+        newQueue(spec(0, 0, 0, Preference.NONE, Growth.UNBOUNDED, Blocking.PRODUCER_AND_CONSUMER, 0),
+            LinkedBlockingQueue.class);
+    }
+}
@@ -0,0 +1,31 @@
+package org.jctools.queues.atomic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.QueueSanityTest;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class AtomicQueueSanityTestMpmcBoundedXadd extends QueueSanityTest
+{
+    public AtomicQueueSanityTestMpmcBoundedXadd(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeQueue(0, 0, 2, Ordering.FIFO, new MpmcBoundedXaddAtomicArrayQueue<>(2, 1)));
+        list.add(makeQueue(0, 0, 4, Ordering.FIFO, new MpmcBoundedXaddAtomicArrayQueue<>(4, 2)));
+        list.add(makeQueue(0, 0, SIZE, Ordering.FIFO, new MpmcBoundedXaddAtomicArrayQueue<>(SIZE, 1024)));
+        return list;
+    }
+}
@@ -0,0 +1,38 @@
+package org.jctools.queues.atomic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.QueueSanityTestMpmcUnboundedXadd;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class AtomicQueueSanityTestMpmcUnboundedXadd extends QueueSanityTestMpmcUnboundedXadd
+{
+    public AtomicQueueSanityTestMpmcUnboundedXadd(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeQueue(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(1, 0)));
+        list.add(makeQueue(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(16, 0)));
+        list.add(makeQueue(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(1, 1)));
+        list.add(makeQueue(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(16, 1)));
+        list.add(makeQueue(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(1, 2)));
+        list.add(makeQueue(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(16, 2)));
+        list.add(makeQueue(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(1, 3)));
+        list.add(makeQueue(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(16, 3)));
+        list.add(makeQueue(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(1, 4)));
+        list.add(makeQueue(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(16, 4)));
+        return list;
+    }
+}
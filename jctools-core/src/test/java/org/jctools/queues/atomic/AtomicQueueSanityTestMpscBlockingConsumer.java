@@ -0,0 +1,30 @@
+package org.jctools.queues.atomic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.QueueSanityTestMpscBlockingConsumer;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class AtomicQueueSanityTestMpscBlockingConsumer extends QueueSanityTestMpscBlockingConsumer
+{
+    public AtomicQueueSanityTestMpscBlockingConsumer(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeQueue(0, 1, 2, Ordering.FIFO, new MpscBlockingConsumerAtomicArrayQueue<>(2)));
+        list.add(makeQueue(0, 1, SIZE, Ordering.FIFO, new MpscBlockingConsumerAtomicArrayQueue<>(SIZE)));
+        return list;
+    }
+}
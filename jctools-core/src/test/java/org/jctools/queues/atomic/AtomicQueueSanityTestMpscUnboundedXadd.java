@@ -0,0 +1,36 @@
+package org.jctools.queues.atomic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.QueueSanityTestMpscUnboundedXadd;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class AtomicQueueSanityTestMpscUnboundedXadd extends QueueSanityTestMpscUnboundedXadd
+{
+    public AtomicQueueSanityTestMpscUnboundedXadd(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeQueue(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(1, 0)));
+        list.add(makeQueue(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(64, 0)));
+        list.add(makeQueue(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(1, 1)));
+        list.add(makeQueue(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(64, 1)));
+        list.add(makeQueue(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(1, 2)));
+        list.add(makeQueue(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(64, 2)));
+        list.add(makeQueue(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(1, 3)));
+        list.add(makeQueue(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(64, 3)));
+        return list;
+    }
+}
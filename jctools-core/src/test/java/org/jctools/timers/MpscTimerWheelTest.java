@@ -0,0 +1,209 @@
+package org.jctools.timers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class MpscTimerWheelTest
+{
+    private static final long TICK = 10;
+
+    private final List<Integer> fired = new ArrayList<>();
+
+    private int expire(MpscTimerWheel<Integer> wheel, long now)
+    {
+        return wheel.expire(now, fired::add);
+    }
+
+    @Test
+    public void testTimerFiresAtTheEndOfItsTick()
+    {
+        MpscTimerWheel<Integer> wheel = new MpscTimerWheel<>(TICK, 8, 2, 16, 0);
+        assertNotEquals(MpscTimerWheel.NO_TIMER, wheel.schedule(1, 25));
+        assertNotEquals(MpscTimerWheel.NO_TIMER, wheel.schedule(2, 30));
+        assertEquals(0, expire(wheel, 29));
+        assertEquals(2, expire(wheel, 30));
+        assertEquals(2, fired.size());
+        assertTrue(fired.contains(1) && fired.contains(2));
+        assertEquals(0, expire(wheel, 1000));
+    }
+
+    @Test
+    public void testPastDeadlineFiresOnNextTick()
+    {
+        MpscTimerWheel<Integer> wheel = new MpscTimerWheel<>(TICK, 8, 2, 16, 0);
+        expire(wheel, 100);
+        wheel.schedule(1, 50);
+        assertEquals(0, expire(wheel, 105));
+        assertEquals(1, expire(wheel, 110));
+    }
+
+    @Test
+    public void testTimersCascadeAcrossLevelsInDeadlineOrder()
+    {
+        // 4 slots, 3 levels: 4, 16 and 64 ticks
+        MpscTimerWheel<Integer> wheel = new MpscTimerWheel<>(TICK, 4, 3, 256, 0);
+        // deadlines beyond the top level wrap around it
+        for (int t = 200; t > 0; t--)
+        {
+            assertNotEquals(MpscTimerWheel.NO_TIMER, wheel.schedule(t, t * TICK));
+        }
+        for (long now = 0; now <= 200 * TICK; now += 3)
+        {
+            expire(wheel, now);
+            for (Integer t : fired)
+            {
+                assertTrue(t * TICK <= now);
+            }
+            assertEquals(now / TICK, fired.size());
+        }
+        expire(wheel, 200 * TICK);
+        for (int i = 0; i < 200; i++)
+        {
+            assertEquals((Integer) (i + 1), fired.get(i));
+        }
+    }
+
+    @Test
+    public void testIdleWheelCatchesUp()
+    {
+        final long idle = Long.MAX_VALUE / 2 / TICK * TICK;
+        MpscTimerWheel<Integer> wheel = new MpscTimerWheel<>(TICK, 4, 2, 16, 0);
+        expire(wheel, idle);
+        wheel.schedule(1, idle + 3 * TICK);
+        wheel.schedule(2, idle + 100 * TICK);
+        assertEquals(0, expire(wheel, idle + 2 * TICK));
+        assertEquals(1, expire(wheel, idle + 50 * TICK));
+        assertEquals(1, expire(wheel, idle + 100 * TICK));
+    }
+
+    @Test
+    public void testCancel()
+    {
+        MpscTimerWheel<Integer> wheel = new MpscTimerWheel<>(TICK, 8, 2, 16, 0);
+        long pending = wheel.schedule(1, 50);
+        long linked = wheel.schedule(2, 50);
+        expire(wheel, 0);
+        assertTrue(wheel.cancel(pending));
+        assertTrue(wheel.cancel(linked));
+        assertFalse(wheel.cancel(linked));
+        long handle = wheel.schedule(3, 50);
+        assertEquals(1, expire(wheel, 50));
+        assertEquals((Integer) 3, fired.get(0));
+        assertFalse(wheel.cancel(handle));
+    }
+
+    @Test
+    public void testCancelBeforeScheduleIsApplied()
+    {
+        MpscTimerWheel<Integer> wheel = new MpscTimerWheel<>(TICK, 8, 2, 1, 0);
+        long handle = wheel.schedule(1, 50);
+        assertTrue(wheel.cancel(handle));
+        assertEquals(MpscTimerWheel.NO_TIMER, wheel.schedule(2, 50));
+        assertEquals(0, expire(wheel, 100));
+        // the entry is recycled, the stale handle must not cancel its next use
+        long next = wheel.schedule(3, 150);
+        assertNotEquals(handle, next);
+        assertFalse(wheel.cancel(handle));
+        assertEquals(1, expire(wheel, 150));
+        assertEquals((Integer) 3, fired.get(0));
+    }
+
+    @Test
+    public void testCapacityIsRecycled()
+    {
+        MpscTimerWheel<Integer> wheel = new MpscTimerWheel<>(TICK, 8, 2, 4, 0);
+        assertEquals(4, wheel.capacity());
+        for (int i = 0; i < 4; i++)
+        {
+            assertNotEquals(MpscTimerWheel.NO_TIMER, wheel.schedule(i, 10));
+        }
+        assertEquals(MpscTimerWheel.NO_TIMER, wheel.schedule(4, 10));
+        assertFalse(wheel.cancel(MpscTimerWheel.NO_TIMER));
+        assertEquals(4, expire(wheel, 10));
+        assertNotEquals(MpscTimerWheel.NO_TIMER, wheel.schedule(4, 20));
+    }
+
+    @Test
+    public void testHandlerMayReschedule()
+    {
+        final MpscTimerWheel<Integer> wheel = new MpscTimerWheel<>(TICK, 8, 2, 1, 0);
+        wheel.schedule(1, 10);
+        assertEquals(1, wheel.expire(10, t -> assertNotEquals(MpscTimerWheel.NO_TIMER, wheel.schedule(t + 1, 20))));
+        assertEquals(1, expire(wheel, 20));
+        assertEquals((Integer) 2, fired.get(0));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullTask()
+    {
+        new MpscTimerWheel<Integer>(TICK, 8, 2, 1, 0).schedule(null, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyLevels()
+    {
+        new MpscTimerWheel<Integer>(TICK, 1 << 16, 4, 1, 0);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testConcurrentScheduleAndCancel() throws Exception
+    {
+        final int producers = 3;
+        final int perProducer = 20000;
+        final MpscTimerWheel<Integer> wheel = new MpscTimerWheel<>(TICK, 16, 3, 1024, 0);
+        final AtomicInteger scheduled = new AtomicInteger();
+        final AtomicInteger cancelled = new AtomicInteger();
+        final AtomicInteger expired = new AtomicInteger();
+        final AtomicBoolean done = new AtomicBoolean();
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++)
+        {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++)
+                {
+                    long handle;
+                    while ((handle = wheel.schedule(i, (i % 512) * TICK)) == MpscTimerWheel.NO_TIMER)
+                    {
+                        Thread.yield();
+                    }
+                    scheduled.incrementAndGet();
+                    if ((i & 1) == 0 && wheel.cancel(handle))
+                    {
+                        cancelled.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        // the owner keeps turning a wheel of 512 ticks, deadlines are reached on every turn
+        final MpscTimerWheel<Integer> ownerWheel = wheel;
+        Thread owner = new Thread(() -> {
+            long now = 0;
+            while (!done.get() || expired.get() + cancelled.get() < scheduled.get())
+            {
+                now += TICK;
+                expired.addAndGet(ownerWheel.expire(now, t -> {}));
+                Thread.yield();
+            }
+        });
+        owner.start();
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        done.set(true);
+        owner.join();
+        assertEquals(producers * perProducer, scheduled.get());
+        assertEquals(scheduled.get(), expired.get() + cancelled.get());
+    }
+}
@@ -0,0 +1,40 @@
+package org.jctools.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpinWaitTest
+{
+    @Test
+    public void platformThreadSpinsPastTheSpinTries()
+    {
+        assertFalse(SpinWait.isVirtual(Thread.currentThread()));
+        int tries = 0;
+        for (int i = 0; i < SpinWait.SPIN_TRIES; i++)
+        {
+            tries = SpinWait.backoff(tries);
+            assertEquals(i + 1, tries);
+        }
+        if (SpinWait.BOUNDED)
+        {
+            assertEquals(SpinWait.SPIN_TRIES + 1, SpinWait.backoff(tries));
+        }
+        else
+        {
+            tries = SpinWait.backoff(tries);
+            assertEquals(-1, tries);
+            assertEquals(-1, SpinWait.backoff(tries));
+        }
+    }
+
+    @Test
+    public void backoffParksOnceTheYieldsAreUsedUp()
+    {
+        // as a virtual thread, or a platform thread with jctools.spinWait.bounded, would get there
+        final int tries = SpinWait.SPIN_TRIES + SpinWait.YIELD_TRIES;
+        final long start = System.nanoTime();
+        assertEquals(tries, SpinWait.backoff(tries));
+        assertTrue(System.nanoTime() - start >= SpinWait.PARK_NANOS / 2);
+    }
+}
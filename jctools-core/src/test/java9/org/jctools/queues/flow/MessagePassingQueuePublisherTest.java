@@ -0,0 +1,243 @@
+package org.jctools.queues.flow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import org.jctools.queues.MpscArrayQueue;
+import org.jctools.queues.SpscArrayQueue;
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class MessagePassingQueuePublisherTest
+{
+    static class RecordingSubscriber<T> implements Flow.Subscriber<T>
+    {
+        final List<T> items = new ArrayList<>();
+        final CountDownLatch terminated = new CountDownLatch(1);
+        Flow.Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription s)
+        {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(T item)
+        {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            error = t;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete()
+        {
+            completed = true;
+            terminated.countDown();
+        }
+    }
+
+    @Test
+    public void testDeliversOnlyTheRequestedElements()
+    {
+        final MessagePassingQueuePublisher<Integer> p = new MessagePassingQueuePublisher<>(new SpscArrayQueue<>(16));
+        for (int i = 0; i < 10; i++)
+        {
+            assertTrue(p.offer(i));
+        }
+        final RecordingSubscriber<Integer> s = new RecordingSubscriber<>();
+        p.subscribe(s);
+        assertTrue(s.items.isEmpty());
+
+        s.subscription.request(3);
+        assertEquals(List.of(0, 1, 2), s.items);
+        assertEquals(0, p.requested());
+
+        s.subscription.request(10);
+        assertEquals(10, s.items.size());
+        assertEquals(3, p.requested());
+        p.offer(10);
+        assertEquals(11, s.items.size());
+        assertFalse(s.completed);
+
+        p.complete();
+        assertTrue(s.completed);
+        assertFalse(p.offer(11));
+    }
+
+    @Test
+    public void testCompletionWaitsForQueuedElements()
+    {
+        final MessagePassingQueuePublisher<Integer> p = new MessagePassingQueuePublisher<>(new SpscArrayQueue<>(4));
+        final RecordingSubscriber<Integer> s = new RecordingSubscriber<>();
+        p.subscribe(s);
+        p.offer(1);
+        p.error(new RuntimeException("boom"));
+        assertNull(s.error);
+        s.subscription.request(Long.MAX_VALUE);
+        assertEquals(List.of(1), s.items);
+        assertEquals("boom", s.error.getMessage());
+    }
+
+    @Test
+    public void testSecondSubscriberAndBadRequestAreErrors()
+    {
+        final MessagePassingQueuePublisher<Integer> p = new MessagePassingQueuePublisher<>(new SpscArrayQueue<>(4));
+        final RecordingSubscriber<Integer> first = new RecordingSubscriber<>();
+        final RecordingSubscriber<Integer> second = new RecordingSubscriber<>();
+        p.subscribe(first);
+        p.subscribe(second);
+        assertTrue(second.error instanceof IllegalStateException);
+
+        p.offer(1);
+        first.subscription.request(0);
+        assertTrue(first.error instanceof IllegalArgumentException);
+        assertTrue(first.items.isEmpty());
+        assertFalse(p.offer(2));
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testConcurrentProducersDeliverEverythingSerialized() throws Exception
+    {
+        final int producers = 4;
+        final int perProducer = 100000;
+        final MessagePassingQueuePublisher<Integer> p = new MessagePassingQueuePublisher<>(new MpscArrayQueue<>(1024));
+        final RecordingSubscriber<Integer> s = new RecordingSubscriber<>()
+        {
+            // rule 1.3, onNext must never be called concurrently
+            volatile boolean inOnNext;
+            boolean overlapped;
+
+            @Override
+            public void onNext(Integer item)
+            {
+                if (inOnNext)
+                {
+                    overlapped = true;
+                }
+                inOnNext = true;
+                super.onNext(item);
+                if (items.size() % 64 == 0)
+                {
+                    subscription.request(64);
+                }
+                inOnNext = false;
+            }
+
+            @Override
+            public void onComplete()
+            {
+                assertFalse(overlapped);
+                super.onComplete();
+            }
+        };
+        p.subscribe(s);
+        s.subscription.request(64);
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < producers; t++)
+        {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++)
+                {
+                    while (!p.offer(i))
+                    {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        p.complete();
+        assertTrue(s.terminated.await(TEST_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertTrue(s.completed);
+        assertEquals(producers * perProducer, s.items.size());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testProcessorReplenishesUpstreamInBatches() throws Exception
+    {
+        final MessagePassingQueueProcessor<Integer> processor = new MessagePassingQueueProcessor<>(16);
+        final List<Long> upstreamRequests = new ArrayList<>();
+        final Flow.Subscription upstream = new Flow.Subscription()
+        {
+            @Override
+            public void request(long n)
+            {
+                upstreamRequests.add(n);
+            }
+
+            @Override
+            public void cancel()
+            {
+            }
+        };
+        processor.onSubscribe(upstream);
+        assertEquals(List.of(16L), upstreamRequests);
+
+        final RecordingSubscriber<Integer> s = new RecordingSubscriber<>();
+        processor.subscribe(s);
+        s.subscription.request(Long.MAX_VALUE);
+        for (int i = 0; i < 3; i++)
+        {
+            processor.onNext(i);
+        }
+        assertEquals(3, s.items.size());
+        assertEquals(List.of(16L), upstreamRequests);
+        processor.onNext(3);
+        assertEquals(List.of(16L, 4L), upstreamRequests);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testProcessorBetweenSubmissionPublisherAndSlowSubscriber() throws Exception
+    {
+        final int items = 10000;
+        final MessagePassingQueueProcessor<Integer> processor = new MessagePassingQueueProcessor<>(64);
+        final RecordingSubscriber<Integer> s = new RecordingSubscriber<>()
+        {
+            @Override
+            public void onNext(Integer item)
+            {
+                super.onNext(item);
+                subscription.request(1);
+            }
+        };
+        processor.subscribe(s);
+        s.subscription.request(1);
+        try (SubmissionPublisher<Integer> upstream = new SubmissionPublisher<>())
+        {
+            upstream.subscribe(processor);
+            for (int i = 0; i < items; i++)
+            {
+                upstream.submit(i);
+            }
+        }
+        assertTrue(s.terminated.await(TEST_TIMEOUT, TimeUnit.MILLISECONDS));
+        assertNull(s.error);
+        assertEquals(items, s.items.size());
+        for (int i = 0; i < items; i++)
+        {
+            assertEquals((Integer) i, s.items.get(i));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.jctools.queues.varhandle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MpqSanityTestMpscArray;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class VarHandleMpqSanityTestMpscArray extends MpqSanityTestMpscArray
+{
+    public VarHandleMpqSanityTestMpscArray(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeMpq(0, 1, 1, Ordering.FIFO, new MpscVarHandleArrayQueue<>(1)));
+        list.add(makeMpq(0, 1, SIZE, Ordering.FIFO, new MpscVarHandleArrayQueue<>(SIZE)));
+        return list;
+    }
+}
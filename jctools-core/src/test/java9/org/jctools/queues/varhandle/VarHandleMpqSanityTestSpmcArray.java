@@ -0,0 +1,30 @@
+package org.jctools.queues.varhandle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MpqSanityTestSpmcArray;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class VarHandleMpqSanityTestSpmcArray extends MpqSanityTestSpmcArray
+{
+    public VarHandleMpqSanityTestSpmcArray(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeMpq(1, 0, 1, Ordering.FIFO, new SpmcVarHandleArrayQueue<>(1)));
+        list.add(makeMpq(1, 0, SIZE, Ordering.FIFO, new SpmcVarHandleArrayQueue<>(SIZE)));
+        return list;
+    }
+}
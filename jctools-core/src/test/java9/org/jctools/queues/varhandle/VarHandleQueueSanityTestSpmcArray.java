@@ -0,0 +1,30 @@
+package org.jctools.queues.varhandle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.QueueSanityTestSpmcArray;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class VarHandleQueueSanityTestSpmcArray extends QueueSanityTestSpmcArray
+{
+    public VarHandleQueueSanityTestSpmcArray(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeQueue(1, 0, 1, Ordering.FIFO, new SpmcVarHandleArrayQueue<>(1)));
+        list.add(makeQueue(1, 0, SIZE, Ordering.FIFO, new SpmcVarHandleArrayQueue<>(SIZE)));
+        return list;
+    }
+}
@@ -0,0 +1,30 @@
+package org.jctools.queues.varhandle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.QueueSanityTestSpscArray;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+
+@RunWith(Parameterized.class)
+public class VarHandleQueueSanityTestSpscArray extends QueueSanityTestSpscArray
+{
+    public VarHandleQueueSanityTestSpscArray(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeQueue(1, 1, 4, Ordering.FIFO, new SpscVarHandleArrayQueue<>(4)));
+        list.add(makeQueue(1, 1, SIZE, Ordering.FIFO, new SpscVarHandleArrayQueue<>(SIZE)));
+        return list;
+    }
+}
@@ -114,7 +114,7 @@ abstract class FFBufferL3Pad<E> extends FFBufferConsumerField<E>
     }
 }
 
-public final class FFBuffer<E> extends FFBufferL3Pad<E> implements Queue<E>
+public final class FFBuffer<E> extends FFBufferL3Pad<E> implements Queue<E>, BatchPollingQueue<E>
 {
     private final static long P_INDEX_OFFSET = fieldOffset(FFBufferProducerField.class, "pIndex");
     private final static long C_INDEX_OFFSET = fieldOffset(FFBufferConsumerField.class, "cIndex");
@@ -210,6 +210,12 @@ public final class FFBuffer<E> extends FFBufferL3Pad<E> implements Queue<E>
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public int poll(E[] dst, int offset, int max)
+    {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit)
     {
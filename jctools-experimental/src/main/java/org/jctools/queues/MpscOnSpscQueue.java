@@ -27,7 +27,8 @@ import java.util.Queue;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Use an SPSC per producer.
+ * Use an SPSC per producer. See {@link MpscShardedQueue} for the core version, which deregisters the queues of dead
+ * producers without a reference processing thread.
  */
 abstract class MpscOnSpscL0Pad<E> extends AbstractQueue<E> {
     byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
@@ -234,7 +234,7 @@ abstract class MpscRelaxedArrayQueueL4Pad<E> extends MpscRelaxedArrayQueueProduc
 /**
  * This class is still work in progress, please do not pick up for production use just yet.
  */
-public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> implements MessagePassingQueue<E>
+public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> implements BatchPollingQueue<E>
 {
     /**
      * Note on terminology:
@@ -723,6 +723,12 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
         return (int) result;
     }
 
+    @Override
+    public int poll(E[] dst, int offset, int max)
+    {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit)
     {
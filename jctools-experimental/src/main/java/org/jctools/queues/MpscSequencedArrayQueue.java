@@ -112,7 +112,7 @@ abstract class MpscSequencedArrayQueueConsumerField<E> extends MpscSequencedArra
  *
  * @param <E> type of the element stored in the {@link java.util.Queue}
  */
-public class MpscSequencedArrayQueue<E> extends MpscSequencedArrayQueueConsumerField<E> {
+public class MpscSequencedArrayQueue<E> extends MpscSequencedArrayQueueConsumerField<E> implements BatchPollingQueue<E> {
     byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
     byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
     byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
@@ -236,6 +236,11 @@ public class MpscSequencedArrayQueue<E> extends MpscSequencedArrayQueueConsumerF
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public int poll(E[] dst, int offset, int max) {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit) {
         for (int i=0;i<limit;i++) {
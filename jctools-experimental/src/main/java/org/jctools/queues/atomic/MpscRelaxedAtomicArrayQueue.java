@@ -17,7 +17,8 @@
 
 package org.jctools.queues.atomic;
 
-import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.BatchPollingQueue;
+import org.jctools.queues.MessagePassingQueueUtil;
 import org.jctools.util.PortableJvmInfo;
 import org.jctools.util.Pow2;
 
@@ -161,7 +162,7 @@ abstract class MpscRelaxedAtomicArrayQueueL3Pad<E> extends MpscAtomicArrayQueueC
 }
 
 public final class MpscRelaxedAtomicArrayQueue<E> extends MpscRelaxedAtomicArrayQueueL3Pad<E>
-    implements MessagePassingQueue<E>
+    implements BatchPollingQueue<E>
 {
 
     //Used internally to manipulate AtomicLongArray with a pre/post PAD to avoid false sharing with the surrounding heap
@@ -566,6 +567,12 @@ public final class MpscRelaxedAtomicArrayQueue<E> extends MpscRelaxedAtomicArray
         return (int) result;
     }
 
+    @Override
+    public int poll(E[] dst, int offset, int max)
+    {
+        return MessagePassingQueueUtil.poll(this, dst, offset, max);
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit)
     {
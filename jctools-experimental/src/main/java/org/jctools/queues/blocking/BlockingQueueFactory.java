@@ -36,7 +36,11 @@ import org.jctools.util.UnsafeAccess;
  *
  * @author nitsanw
  *
+ * @deprecated use {@link org.jctools.queues.MpmcBlockingArrayQueue} or
+ * {@link org.jctools.queues.SpscBlockingArrayQueue}, which keep the lock-free fast path and only park when
+ * blocking, without compiling a class per queue type
  */
+@Deprecated
 public class BlockingQueueFactory {
 
     private static Map<Class, Class> blockingQueueCache = Collections
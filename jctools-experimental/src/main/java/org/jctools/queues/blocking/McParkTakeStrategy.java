@@ -5,6 +5,10 @@ import org.jctools.queues.spec.ConcurrentQueueSpec;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
+/**
+ * @deprecated superseded by {@link org.jctools.queues.MpmcBlockingArrayQueue}
+ */
+@Deprecated
 public final class McParkTakeStrategy<E> implements TakeStrategy<E>
 {
     private static final AtomicLongFieldUpdater<McParkTakeStrategy> WAITERS_UPDATER = AtomicLongFieldUpdater.newUpdater(McParkTakeStrategy.class, "waiters");
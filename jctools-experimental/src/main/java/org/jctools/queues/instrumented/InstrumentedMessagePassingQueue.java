@@ -0,0 +1,301 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.instrumented;
+
+import org.jctools.queues.BatchPollingQueue;
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MessagePassingQueueUtil;
+import org.jctools.queues.QueueProgressIndicators;
+
+/**
+ * A {@link MessagePassingQueue} decorator recording {@link QueueStats} for the queue it wraps. Every operation is
+ * delegated and its outcome recorded, see {@link QueueStats} for what is counted.
+ * <p>
+ * Instrumentation is opt-in: {@link #instrument(MessagePassingQueue)} only wraps the queue when the
+ * {@code jctools.queues.instrumentation} system property is set to true and otherwise returns the queue itself, so a
+ * disabled build runs the very same code as an uninstrumented one. Use the constructor to instrument a queue
+ * regardless of the property.
+ * <p>
+ * Occupancy and offer contention are derived from the {@link QueueProgressIndicators} of the wrapped queue when it
+ * exposes them, otherwise occupancy is sampled with {@link #size()} (which is not constant time for all queues) and
+ * contention is not recorded.
+ * <p>
+ * Sojourn times are sampled when a {@link SojournSampler} is given, which requires the progress indicators. Samples
+ * consumed by a drain are taken as the drain returns, so they include the time spent in the consumer handler for the
+ * elements ahead of them in the batch.
+ *
+ * @param <E> the element type
+ */
+public class InstrumentedMessagePassingQueue<E> implements BatchPollingQueue<E>, QueueProgressIndicators {
+    public static final boolean ENABLED = Boolean.getBoolean("jctools.queues.instrumentation");
+
+    private final MessagePassingQueue<E> queue;
+    private final QueueProgressIndicators indicators;
+    private final QueueStats stats;
+    private final SojournSampler sampler;
+
+    /**
+     * @return the queue wrapped in an {@link InstrumentedMessagePassingQueue} if instrumentation is {@link #ENABLED},
+     * the queue itself otherwise
+     */
+    public static <E> MessagePassingQueue<E> instrument(MessagePassingQueue<E> queue) {
+        return ENABLED ? new InstrumentedMessagePassingQueue<E>(queue) : queue;
+    }
+
+    public InstrumentedMessagePassingQueue(MessagePassingQueue<E> queue) {
+        this(queue, new QueueStats());
+    }
+
+    public InstrumentedMessagePassingQueue(MessagePassingQueue<E> queue, QueueStats stats) {
+        this(queue, stats, null);
+    }
+
+    /**
+     * Instrument a queue and sample the sojourn time of every {@code sampleInterval}th element. The sampler holds
+     * enough samples for a full bounded queue, or 1024 samples for an unbounded one.
+     *
+     * @param sampleInterval the distance between sampled elements, rounded up to the next power of 2
+     */
+    public InstrumentedMessagePassingQueue(MessagePassingQueue<E> queue, QueueStats stats, int sampleInterval) {
+        this(queue, stats, newSampler(queue, sampleInterval));
+    }
+
+    /**
+     * @param sampler the sojourn time sampler, or null to not sample sojourn times
+     * @throws IllegalArgumentException if a sampler is given and the queue is not a {@link QueueProgressIndicators}
+     */
+    public InstrumentedMessagePassingQueue(MessagePassingQueue<E> queue, QueueStats stats, SojournSampler sampler) {
+        if (null == queue)
+            throw new IllegalArgumentException("queue is null");
+        if (null == stats)
+            throw new IllegalArgumentException("stats is null");
+        if (null != sampler && !(queue instanceof QueueProgressIndicators))
+            throw new IllegalArgumentException("sojourn sampling requires a queue with progress indicators");
+        this.queue = queue;
+        this.indicators = queue instanceof QueueProgressIndicators ? (QueueProgressIndicators) queue : null;
+        this.stats = stats;
+        this.sampler = sampler;
+    }
+
+    private static SojournSampler newSampler(MessagePassingQueue<?> queue, int sampleInterval) {
+        final int capacity = queue.capacity();
+        final int ringSize = capacity == UNBOUNDED_CAPACITY ? 1024 : capacity / Math.max(1, sampleInterval) + 2;
+        return new SojournSampler(sampleInterval, ringSize);
+    }
+
+    public QueueStats stats() {
+        return stats;
+    }
+
+    public MessagePassingQueue<E> delegate() {
+        return queue;
+    }
+
+    /**
+     * @return the sojourn time sampler, or null if sojourn times are not sampled
+     */
+    public SojournSampler sojournSampler() {
+        return sampler;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        final QueueProgressIndicators indicators = this.indicators;
+        if (indicators == null) {
+            return recordOffer(queue.offer(e));
+        }
+        final long before = indicators.currentProducerIndex();
+        final boolean offered = queue.offer(e);
+        if (offered) {
+            final long after = indicators.currentProducerIndex();
+            if (after - before > 1) {
+                stats.recordContendedOffer();
+            }
+            if (sampler != null) {
+                sampler.produced(after - 1, after);
+            }
+        }
+        return recordOffer(offered);
+    }
+
+    @Override
+    public boolean relaxedOffer(E e) {
+        final boolean offered = queue.relaxedOffer(e);
+        if (offered) {
+            sampleProduced(1);
+        }
+        return recordOffer(offered);
+    }
+
+    @Override
+    public E poll() {
+        return recordPoll(queue.poll());
+    }
+
+    @Override
+    public E relaxedPoll() {
+        return recordPoll(queue.relaxedPoll());
+    }
+
+    @Override
+    public E peek() {
+        return queue.peek();
+    }
+
+    @Override
+    public E relaxedPeek() {
+        return queue.relaxedPeek();
+    }
+
+    @Override
+    public int poll(E[] dst, int offset, int max) {
+        final int polled = queue instanceof BatchPollingQueue ?
+            ((BatchPollingQueue<E>) queue).poll(dst, offset, max) :
+            MessagePassingQueueUtil.poll(queue, dst, offset, max);
+        recordDrain(polled);
+        return polled;
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit) {
+        final int drained = queue.drain(c, limit);
+        recordDrain(drained);
+        return drained;
+    }
+
+    @Override
+    public int drain(Consumer<E> c) {
+        final int drained = queue.drain(c);
+        recordDrain(drained);
+        return drained;
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit) {
+        // poll through this queue, so every element and idle spin is recorded
+        MessagePassingQueueUtil.drain(this, c, wait, exit);
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit) {
+        final int filled = queue.fill(s, limit);
+        recordFill(filled);
+        return filled;
+    }
+
+    @Override
+    public int fill(Supplier<E> s) {
+        final int filled = queue.fill(s);
+        recordFill(filled);
+        return filled;
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit) {
+        // fill in batches through this queue, so every batch is recorded
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public void clear() {
+        queue.clear();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public int capacity() {
+        return queue.capacity();
+    }
+
+    @Override
+    public long currentProducerIndex() {
+        return indicators == null ? 0 : indicators.currentProducerIndex();
+    }
+
+    @Override
+    public long currentConsumerIndex() {
+        return indicators == null ? 0 : indicators.currentConsumerIndex();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + queue + ", " + stats + "]";
+    }
+
+    private boolean recordOffer(boolean offered) {
+        stats.recordOffer(offered);
+        if (offered) {
+            recordOccupancy();
+        }
+        return offered;
+    }
+
+    private void recordFill(int filled) {
+        stats.recordFill(filled);
+        if (filled != 0) {
+            sampleProduced(filled);
+            recordOccupancy();
+        }
+    }
+
+    private E recordPoll(E e) {
+        stats.recordPoll(e != null);
+        if (e != null) {
+            sampleConsumed(1);
+        }
+        return e;
+    }
+
+    private void recordDrain(int drained) {
+        stats.recordDrain(drained);
+        if (drained != 0) {
+            sampleConsumed(drained);
+        }
+    }
+
+    private void sampleProduced(int produced) {
+        if (sampler != null) {
+            // the latest producer index, the elements just added are the last ones before it unless contended
+            final long pIndex = indicators.currentProducerIndex();
+            sampler.produced(pIndex - produced, pIndex);
+        }
+    }
+
+    private void sampleConsumed(int consumed) {
+        if (sampler != null) {
+            final long cIndex = indicators.currentConsumerIndex();
+            sampler.consumed(cIndex - consumed, cIndex);
+        }
+    }
+
+    private void recordOccupancy() {
+        final QueueProgressIndicators indicators = this.indicators;
+        if (indicators == null) {
+            stats.recordOccupancy(queue.size());
+        } else {
+            // consumer index first, as in IndexedQueueSizeUtil, so occupancy is over rather than under estimated
+            final long cIndex = indicators.currentConsumerIndex();
+            stats.recordOccupancy(indicators.currentProducerIndex() - cIndex);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.instrumented;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free log-linear histogram of non-negative values: every power of 2 range is split into
+ * {@link #SUB_BUCKETS} linear sub-buckets, so a recorded value is reported within 1/{@link #SUB_BUCKETS} of its
+ * magnitude. Values below {@link #SUB_BUCKETS} are counted exactly.
+ * <p>
+ * Buckets are not striped as {@link Log2Histogram} buckets are, the histogram is meant for sampled values recorded at
+ * a fraction of the queue throughput.
+ */
+public final class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 3;
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * @param value the value to record, negative values are counted as 0
+     */
+    public void record(long value) {
+        counts.getAndIncrement(bucketOf(Math.max(0, value)));
+    }
+
+    /**
+     * @return the number of values recorded
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return the highest value of the bucket the given percentile of the recorded values falls into, 0 if nothing was
+     * recorded. The buckets are read one at a time, concurrent recording may skew the result.
+     */
+    public long valueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("percentile is not within [0, 100]: " + percentile);
+        final long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += snapshot[i] = counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+        return bucketUpperBound(BUCKETS - 1);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long lowerBound = ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS)) << shift;
+        // the top bucket ends at Long.MAX_VALUE
+        return lowerBound + ((1L << shift) - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "{count=" + count() +
+            ", p50=" + valueAtPercentile(50) +
+            ", p99=" + valueAtPercentile(99) +
+            ", max=" + valueAtPercentile(100) +
+            '}';
+    }
+}
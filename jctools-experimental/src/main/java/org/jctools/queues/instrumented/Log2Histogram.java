@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.instrumented;
+
+import org.jctools.counters.CountersFactory;
+import org.jctools.counters.FixedSizeStripedLongCounter;
+
+/**
+ * A histogram of non-negative values with power of 2 buckets, each bucket a striped counter so concurrent recorders
+ * do not contend on a single cache line. Bucket 0 counts the value 0 and bucket {@code i > 0} counts the values in
+ * {@code [2^(i-1), 2^i)}.
+ */
+public final class Log2Histogram {
+    public static final int BUCKETS = 64;
+
+    private final FixedSizeStripedLongCounter[] buckets;
+
+    public Log2Histogram(int stripesCount) {
+        buckets = new FixedSizeStripedLongCounter[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = CountersFactory.createFixedSizeStripedCounter(stripesCount);
+        }
+    }
+
+    /**
+     * @param value the value to record, negative values are counted as 0
+     */
+    public void record(long value) {
+        buckets[bucketOf(value)].inc();
+    }
+
+    /**
+     * @return the bucket a value is counted in
+     */
+    public static int bucketOf(long value) {
+        return value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * @return the smallest value counted in the given bucket
+     */
+    public static long bucketLowerBound(int bucket) {
+        return bucket == 0 ? 0 : 1L << (bucket - 1);
+    }
+
+    /**
+     * @return the number of values recorded into the given bucket
+     */
+    public long count(int bucket) {
+        return buckets[bucket].get();
+    }
+
+    /**
+     * @return the count of every bucket, the counts are read one bucket at a time and are not an atomic snapshot
+     */
+    public long[] counts() {
+        final long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].get();
+        }
+        return counts;
+    }
+
+    /**
+     * @return the total number of values recorded
+     */
+    public long total() {
+        long total = 0;
+        for (FixedSizeStripedLongCounter bucket : buckets) {
+            total += bucket.get();
+        }
+        return total;
+    }
+
+    public void reset() {
+        for (FixedSizeStripedLongCounter bucket : buckets) {
+            bucket.getAndReset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < BUCKETS; i++) {
+            final long count = buckets[i].get();
+            if (count != 0) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(bucketLowerBound(i)).append('+').append('=').append(count);
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
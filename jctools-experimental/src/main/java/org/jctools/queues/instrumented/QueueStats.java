@@ -0,0 +1,180 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.instrumented;
+
+import org.jctools.counters.CountersFactory;
+import org.jctools.counters.FixedSizeStripedLongCounter;
+
+/**
+ * The counters recorded by an {@link InstrumentedMessagePassingQueue}. All counters are striped, so producers and
+ * consumers recording concurrently do not share a cache line, and reading them is relatively expensive. The values
+ * are read one counter at a time and are not an atomic snapshot.
+ * <p>
+ * What the counters tell apart:
+ * <ul>
+ * <li>Full queues: {@link #offerFailures()}, offers and fills which were refused.
+ * <li>Empty spinning: {@link #pollMisses()}, polls and drains which found nothing.
+ * <li>Producer contention: {@link #contendedOffers()}, offers during which other producers made progress.
+ * </ul>
+ */
+public final class QueueStats {
+    private final FixedSizeStripedLongCounter offers;
+    private final FixedSizeStripedLongCounter offerFailures;
+    private final FixedSizeStripedLongCounter contendedOffers;
+    private final FixedSizeStripedLongCounter polls;
+    private final FixedSizeStripedLongCounter pollMisses;
+    private final Log2Histogram drainBatchSizes;
+    private final Log2Histogram fillBatchSizes;
+    private final Log2Histogram occupancy;
+
+    public QueueStats() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public QueueStats(int stripesCount) {
+        offers = CountersFactory.createFixedSizeStripedCounter(stripesCount);
+        offerFailures = CountersFactory.createFixedSizeStripedCounter(stripesCount);
+        contendedOffers = CountersFactory.createFixedSizeStripedCounter(stripesCount);
+        polls = CountersFactory.createFixedSizeStripedCounter(stripesCount);
+        pollMisses = CountersFactory.createFixedSizeStripedCounter(stripesCount);
+        drainBatchSizes = new Log2Histogram(stripesCount);
+        fillBatchSizes = new Log2Histogram(stripesCount);
+        occupancy = new Log2Histogram(stripesCount);
+    }
+
+    /**
+     * @return the number of elements offered, including those added by fill
+     */
+    public long offers() {
+        return offers.get();
+    }
+
+    /**
+     * @return the number of offers and fills which did not add an element as the queue was full
+     */
+    public long offerFailures() {
+        return offerFailures.get();
+    }
+
+    /**
+     * @return the number of successful single element offers during which the producer index moved by more than the
+     * offered element. The CAS loop is internal to the queue, this is the externally visible proxy for its retries.
+     * Always 0 for queues which do not expose progress indicators.
+     */
+    public long contendedOffers() {
+        return contendedOffers.get();
+    }
+
+    /**
+     * @return the number of elements taken out of the queue, including those drained
+     */
+    public long polls() {
+        return polls.get();
+    }
+
+    /**
+     * @return the number of polls and drains which found the queue empty
+     */
+    public long pollMisses() {
+        return pollMisses.get();
+    }
+
+    /**
+     * @return the sizes of the batches handed out by drain and batch poll, empty batches included
+     */
+    public Log2Histogram drainBatchSizes() {
+        return drainBatchSizes;
+    }
+
+    /**
+     * @return the sizes of the batches added by fill, empty batches included
+     */
+    public Log2Histogram fillBatchSizes() {
+        return fillBatchSizes;
+    }
+
+    /**
+     * @return the queue occupancy observed by producers after every successful offer or fill
+     */
+    public Log2Histogram occupancy() {
+        return occupancy;
+    }
+
+    public void reset() {
+        offers.getAndReset();
+        offerFailures.getAndReset();
+        contendedOffers.getAndReset();
+        polls.getAndReset();
+        pollMisses.getAndReset();
+        drainBatchSizes.reset();
+        fillBatchSizes.reset();
+        occupancy.reset();
+    }
+
+    void recordOffer(boolean offered) {
+        if (offered) {
+            offers.inc();
+        } else {
+            offerFailures.inc();
+        }
+    }
+
+    void recordContendedOffer() {
+        contendedOffers.inc();
+    }
+
+    void recordFill(int filled) {
+        fillBatchSizes.record(filled);
+        if (filled == 0) {
+            offerFailures.inc();
+        } else {
+            offers.inc(filled);
+        }
+    }
+
+    void recordPoll(boolean polled) {
+        if (polled) {
+            polls.inc();
+        } else {
+            pollMisses.inc();
+        }
+    }
+
+    void recordDrain(int drained) {
+        drainBatchSizes.record(drained);
+        if (drained == 0) {
+            pollMisses.inc();
+        } else {
+            polls.inc(drained);
+        }
+    }
+
+    void recordOccupancy(long size) {
+        occupancy.record(size);
+    }
+
+    @Override
+    public String toString() {
+        return "QueueStats{" +
+            "offers=" + offers() +
+            ", offerFailures=" + offerFailures() +
+            ", contendedOffers=" + contendedOffers() +
+            ", polls=" + polls() +
+            ", pollMisses=" + pollMisses() +
+            ", drainBatchSizes=" + drainBatchSizes +
+            ", fillBatchSizes=" + fillBatchSizes +
+            ", occupancy=" + occupancy +
+            '}';
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.instrumented;
+
+import static org.jctools.util.UnsafeLongArrayAccess.*;
+
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+
+/**
+ * Samples the sojourn time, enqueue to dequeue, of every Nth element of a queue by its progress index. When the
+ * producer index passes a sampled index the time is recorded into a side ring slot for that index, when the consumer
+ * index passes it the elapsed time is recorded into a {@link LatencyHistogram}.
+ * <p>
+ * The side ring holds {@link #ringSize()} samples. A sample whose slot was overwritten by a later sample before it was
+ * consumed, as can happen when the queue holds more than {@code ringSize * sampleInterval} elements, is dropped.
+ * Each slot is written as a seqlock: the index it holds is invalidated, the time written, then the index published.
+ */
+public final class SojournSampler {
+    private static final long INVALID = -1;
+
+    private final long sampleMask;
+    private final int sampleShift;
+    private final long ringMask;
+    private final long[] indices;
+    private final long[] timestamps;
+    private final LatencyHistogram sojourn = new LatencyHistogram();
+
+    /**
+     * @param sampleInterval the distance between sampled indices, rounded up to the next power of 2
+     * @param ringSize       the number of samples held, rounded up to the next power of 2
+     */
+    public SojournSampler(int sampleInterval, int ringSize) {
+        RangeUtil.checkGreaterThanOrEqual(sampleInterval, 1, "sampleInterval");
+        RangeUtil.checkGreaterThanOrEqual(ringSize, 1, "ringSize");
+        final int interval = Pow2.roundToPowerOfTwo(sampleInterval);
+        sampleMask = interval - 1;
+        sampleShift = Integer.numberOfTrailingZeros(interval);
+        final int size = Pow2.roundToPowerOfTwo(ringSize);
+        ringMask = size - 1;
+        indices = allocateLongArray(size);
+        timestamps = allocateLongArray(size);
+        for (long i = 0; i < size; i++) {
+            soLongElement(indices, calcCircularLongElementOffset(i, ringMask), INVALID);
+        }
+    }
+
+    public int sampleInterval() {
+        return (int) (sampleMask + 1);
+    }
+
+    public int ringSize() {
+        return (int) (ringMask + 1);
+    }
+
+    /**
+     * @return the sampled sojourn times, in nanoseconds
+     */
+    public LatencyHistogram sojourn() {
+        return sojourn;
+    }
+
+    /**
+     * Record the enqueue time of any sampled index within {@code [fromIndex, toIndex)}.
+     */
+    public void produced(long fromIndex, long toIndex) {
+        long index = firstSampledIndex(fromIndex);
+        if (index >= toIndex) {
+            return;
+        }
+        final long now = System.nanoTime();
+        for (; index < toIndex; index += sampleMask + 1) {
+            final long slot = (index >> sampleShift) & ringMask;
+            final long indexOffset = calcCircularLongElementOffset(slot, ringMask);
+            soLongElement(indices, indexOffset, INVALID);
+            soLongElement(timestamps, calcCircularLongElementOffset(slot, ringMask), now);
+            soLongElement(indices, indexOffset, index);
+        }
+    }
+
+    /**
+     * Record the sojourn time of any sampled index within {@code [fromIndex, toIndex)}.
+     */
+    public void consumed(long fromIndex, long toIndex) {
+        long index = firstSampledIndex(fromIndex);
+        if (index >= toIndex) {
+            return;
+        }
+        final long now = System.nanoTime();
+        for (; index < toIndex; index += sampleMask + 1) {
+            final long slot = (index >> sampleShift) & ringMask;
+            final long indexOffset = calcCircularLongElementOffset(slot, ringMask);
+            if (lvLongElement(indices, indexOffset) != index) {
+                continue;
+            }
+            final long enqueued = lvLongElement(timestamps, calcCircularLongElementOffset(slot, ringMask));
+            if (lvLongElement(indices, indexOffset) == index) {
+                sojourn.record(now - enqueued);
+            }
+        }
+    }
+
+    private long firstSampledIndex(long index) {
+        return (index + sampleMask) & ~sampleMask;
+    }
+}
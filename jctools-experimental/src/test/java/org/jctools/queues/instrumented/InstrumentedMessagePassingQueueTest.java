@@ -0,0 +1,157 @@
+package org.jctools.queues.instrumented;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MpscArrayQueue;
+import org.jctools.queues.SpscArrayQueue;
+import org.jctools.queues.SpscLinkedQueue;
+import org.jctools.queues.SpscUnboundedArrayQueue;
+import org.junit.Test;
+
+public class InstrumentedMessagePassingQueueTest {
+
+    @Test
+    public void testInstrumentIsANoOpWhenDisabled() {
+        assertFalse(InstrumentedMessagePassingQueue.ENABLED);
+        final MessagePassingQueue<Integer> queue = new MpscArrayQueue<Integer>(4);
+        assertSame(queue, InstrumentedMessagePassingQueue.instrument(queue));
+    }
+
+    @Test
+    public void testOfferFailuresAndPollMisses() {
+        final InstrumentedMessagePassingQueue<Integer> q =
+            new InstrumentedMessagePassingQueue<Integer>(new MpscArrayQueue<Integer>(2), new QueueStats(2));
+        final QueueStats stats = q.stats();
+        assertNull(q.poll());
+        assertTrue(q.offer(1));
+        assertTrue(q.relaxedOffer(2));
+        assertFalse(q.offer(3));
+        assertFalse(q.relaxedOffer(3));
+        assertEquals(2, stats.offers());
+        assertEquals(2, stats.offerFailures());
+        assertEquals(0, stats.contendedOffers());
+        assertEquals((Integer) 1, q.poll());
+        assertEquals((Integer) 2, q.relaxedPoll());
+        assertNull(q.relaxedPoll());
+        assertEquals(2, stats.polls());
+        assertEquals(2, stats.pollMisses());
+
+        // occupancy after each successful offer: 1 then 2
+        assertEquals(1, stats.occupancy().count(Log2Histogram.bucketOf(1)));
+        assertEquals(1, stats.occupancy().count(Log2Histogram.bucketOf(2)));
+        assertEquals(2, stats.occupancy().total());
+
+        stats.reset();
+        assertEquals(0, stats.offers());
+        assertEquals(0, stats.occupancy().total());
+    }
+
+    @Test
+    public void testBatchSizes() {
+        final InstrumentedMessagePassingQueue<Integer> q =
+            new InstrumentedMessagePassingQueue<Integer>(new MpscArrayQueue<Integer>(8), new QueueStats(2));
+        final QueueStats stats = q.stats();
+        assertEquals(8, q.fill(() -> 1, 16));
+        assertEquals(0, q.fill(() -> 1, 16));
+        assertEquals(8, stats.offers());
+        assertEquals(1, stats.offerFailures());
+        assertEquals(1, stats.fillBatchSizes().count(Log2Histogram.bucketOf(8)));
+        assertEquals(1, stats.fillBatchSizes().count(0));
+
+        final List<Integer> drained = new ArrayList<Integer>();
+        assertEquals(5, q.drain(drained::add, 5));
+        assertEquals(3, q.poll(new Integer[4], 0, 4));
+        assertEquals(0, q.drain(drained::add));
+        assertEquals(8, stats.polls());
+        assertEquals(1, stats.pollMisses());
+        assertEquals(1, stats.drainBatchSizes().count(Log2Histogram.bucketOf(5)));
+        assertEquals(1, stats.drainBatchSizes().count(Log2Histogram.bucketOf(3)));
+        assertEquals(1, stats.drainBatchSizes().count(0));
+    }
+
+    @Test
+    public void testQueueWithoutProgressIndicators() {
+        final InstrumentedMessagePassingQueue<Integer> q =
+            new InstrumentedMessagePassingQueue<Integer>(new SpscLinkedQueue<Integer>(), new QueueStats(1));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(q.offer(i));
+        }
+        assertEquals(0, q.currentProducerIndex());
+        assertEquals(4, q.stats().occupancy().total());
+        assertEquals(1, q.stats().occupancy().count(Log2Histogram.bucketOf(4)));
+    }
+
+    @Test
+    public void testLog2Buckets() {
+        assertEquals(0, Log2Histogram.bucketOf(-1));
+        assertEquals(0, Log2Histogram.bucketOf(0));
+        assertEquals(1, Log2Histogram.bucketOf(1));
+        assertEquals(2, Log2Histogram.bucketOf(2));
+        assertEquals(2, Log2Histogram.bucketOf(3));
+        assertEquals(3, Log2Histogram.bucketOf(4));
+        assertEquals(63, Log2Histogram.bucketOf(Long.MAX_VALUE));
+        assertEquals(4, Log2Histogram.bucketLowerBound(3));
+        assertEquals(0, Log2Histogram.bucketLowerBound(0));
+    }
+
+    @Test
+    public void testSojournIsSampledEveryNthElement() {
+        final InstrumentedMessagePassingQueue<Integer> q =
+            new InstrumentedMessagePassingQueue<Integer>(new SpscArrayQueue<Integer>(16), new QueueStats(1), 4);
+        final SojournSampler sampler = q.sojournSampler();
+        assertEquals(4, sampler.sampleInterval());
+        assertEquals(8, sampler.ringSize());
+        for (int i = 0; i < 6; i++) {
+            assertTrue(q.offer(i));
+        }
+        assertEquals(6, q.fill(() -> 1, 6));
+        // sampled indices 0, 4 and 8
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(q.poll());
+        }
+        assertEquals(2, sampler.sojourn().count());
+        assertEquals(7, q.drain(e -> {}));
+        assertEquals(3, sampler.sojourn().count());
+        assertTrue(sampler.sojourn().valueAtPercentile(100) >= 0);
+    }
+
+    @Test
+    public void testOverwrittenSamplesAreDropped() {
+        final InstrumentedMessagePassingQueue<Integer> q = new InstrumentedMessagePassingQueue<Integer>(
+            new SpscUnboundedArrayQueue<Integer>(8), new QueueStats(1), new SojournSampler(1, 2));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(q.offer(i));
+        }
+        assertEquals(4, q.drain(e -> {}));
+        // indices 0 and 1 were overwritten by 2 and 3
+        assertEquals(2, q.sojournSampler().sojourn().count());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSojournSamplingRequiresProgressIndicators() {
+        new InstrumentedMessagePassingQueue<Integer>(new SpscLinkedQueue<Integer>(), new QueueStats(1), 4);
+    }
+
+    @Test
+    public void testLatencyHistogramPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.valueAtPercentile(99));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.count());
+        final long p50 = histogram.valueAtPercentile(50);
+        assertTrue(p50 >= 50 && p50 < 50 + 50 / LatencyHistogram.SUB_BUCKETS);
+        final long max = histogram.valueAtPercentile(100);
+        assertTrue(max >= 100 && max < 100 + 100 / LatencyHistogram.SUB_BUCKETS);
+        assertEquals(1, histogram.valueAtPercentile(0));
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.valueAtPercentile(100));
+        histogram.reset();
+        assertEquals(0, histogram.count());
+    }
+}